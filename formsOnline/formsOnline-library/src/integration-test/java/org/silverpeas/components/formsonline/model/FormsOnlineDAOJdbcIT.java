@@ -37,7 +37,9 @@ import org.silverpeas.core.util.DateUtil;
 import org.silverpeas.core.util.ServiceProvider;
 
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -154,4 +156,18 @@ public class FormsOnlineDAOJdbcIT {
     assertEquals("Salle 18 disponible", forms.get(0).getComments());
   }
 
+  @Test
+  public void testGetAndCountReceivedRequestsOfSeveralForms() throws Exception {
+    List<Integer> formIds = Arrays.asList(1000, 1001);
+    List<FormInstance> forms =
+        dao.getReceivedRequests("formsOnline100", formIds, true, null, null, null);
+    assertEquals(1, forms.size());
+    assertEquals("20", forms.get(0).getId());
+
+    Map<Integer, Map<Integer, Integer>> counts =
+        dao.countReceivedRequests("formsOnline100", formIds, true, null);
+    assertEquals(1, counts.size());
+    assertEquals(Integer.valueOf(1), counts.get(1000).get(3));
+  }
+
 }
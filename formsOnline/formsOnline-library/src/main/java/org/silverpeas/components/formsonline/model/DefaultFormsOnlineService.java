@@ -50,15 +50,22 @@ import org.silverpeas.core.notification.user.client.constant.NotifAction;
 import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
 import org.silverpeas.core.util.CollectionUtil;
 import org.silverpeas.core.util.LocalizationBundle;
+import org.silverpeas.core.util.PaginationList;
 import org.silverpeas.core.util.SettingBundle;
 import org.silverpeas.core.util.SilverpeasList;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Singleton
 public class DefaultFormsOnlineService implements FormsOnlineService {
@@ -197,56 +204,86 @@ public class DefaultFormsOnlineService implements FormsOnlineService {
   public RequestsByStatus getAllUserRequests(String appId, String userId,
       final PaginationPage paginationPage)
       throws FormsOnlineDatabaseException {
-    RequestsByStatus requests = new RequestsByStatus(paginationPage);
-    List<FormDetail> forms = getAllForms(appId, userId, false);
-    for (FormDetail form : forms) {
-      for (Pair<List<Integer>, BiConsumer<RequestsByStatus, SilverpeasList<FormInstance>>>
-          mergingRuleByStates : RequestsByStatus.MERGING_RULES_BY_STATES) {
-        final List<Integer> states = mergingRuleByStates.getLeft();
-        final BiConsumer<RequestsByStatus, SilverpeasList<FormInstance>> merge =
-            mergingRuleByStates.getRight();
-        final PaginationCriterion paginationCriterion =
-            paginationPage != null ? paginationPage.asCriterion() : null;
-        final SilverpeasList<FormInstance> result =
-            getDAO().getSentFormInstances(form.getPK(), userId, states, paginationCriterion);
-        merge.accept(requests, result.stream()
-                                     .peek(l -> l.setForm(form))
-                                     .collect(SilverpeasList.collector(result)));
-      }
-    }
-    return requests;
+    final List<FormDetail> forms = getAllForms(appId, userId, false);
+    final List<Integer> formIds = getIds(forms);
+    return getRequests(forms, paginationPage,
+        () -> getDAO().countSentFormInstances(appId, formIds, userId),
+        (states, paginationCriterion) -> getDAO()
+            .getSentFormInstances(appId, formIds, userId, states, paginationCriterion));
   }
 
   @Override
   public RequestsByStatus getValidatorRequests(RequestsFilter filter, String userId,
       final PaginationPage paginationPage) throws FormsOnlineDatabaseException {
-    final List<String> formIds = getAvailableFormIdsAsReceiver(filter.getComponentId(), userId);
+    final List<String> availableFormIds =
+        getAvailableFormIdsAsReceiver(filter.getComponentId(), userId);
 
     // limit requests to specified forms
     if (!filter.getFormIds().isEmpty()) {
-      formIds.retainAll(filter.getFormIds());
+      availableFormIds.retainAll(filter.getFormIds());
     }
-    final List<FormDetail> availableForms = getDAO().getForms(formIds);
-    RequestsByStatus requests = new RequestsByStatus(paginationPage);
-    for (FormDetail form : availableForms) {
-      for (Pair<List<Integer>, BiConsumer<RequestsByStatus, SilverpeasList<FormInstance>>>
-          mergingRuleByStates : RequestsByStatus.MERGING_RULES_BY_STATES) {
-        final List<Integer> states = mergingRuleByStates.getLeft();
+    final List<FormDetail> availableForms = getDAO().getForms(availableFormIds);
+    final List<Integer> formIds = getIds(availableForms);
+    final String appId = filter.getComponentId();
+    final boolean allRequests = filter.isAllRequests();
+    return getRequests(availableForms, paginationPage,
+        () -> getDAO().countReceivedRequests(appId, formIds, allRequests, userId),
+        (states, paginationCriterion) -> getDAO()
+            .getReceivedRequests(appId, formIds, allRequests, userId, states,
+                paginationCriterion));
+  }
+
+  /**
+   * Gets the requests of the given forms sorted by status. Whatever the number of forms, the
+   * requests are first counted by form and by state in one query, then the requests of each
+   * status having at least one request are fetched in one query, paginated and sorted by the
+   * persistence.
+   * @param forms the forms of the requests.
+   * @param paginationPage the pagination to apply to each status, null if none.
+   * @param counting the counting of the requests of the forms by form and by state.
+   * @param listing the listing of the requests of the forms in the given states with the given
+   * pagination.
+   * @return the requests by status with the number of requests by form.
+   */
+  private RequestsByStatus getRequests(final List<FormDetail> forms,
+      final PaginationPage paginationPage,
+      final Supplier<Map<Integer, Map<Integer, Integer>>> counting,
+      final BiFunction<List<Integer>, PaginationCriterion, SilverpeasList<FormInstance>> listing) {
+    final RequestsByStatus requests = new RequestsByStatus(paginationPage);
+    if (forms.isEmpty()) {
+      return requests;
+    }
+    final Map<Integer, FormDetail> formsById = new HashMap<>(forms.size());
+    for (FormDetail form : forms) {
+      formsById.put(form.getId(), form);
+    }
+    requests.setCountsByForm(counting.get());
+    final PaginationCriterion paginationCriterion =
+        paginationPage != null ? paginationPage.asCriterion() : null;
+    for (Pair<List<Integer>, BiConsumer<RequestsByStatus, SilverpeasList<FormInstance>>>
+        mergingRuleByStates : RequestsByStatus.MERGING_RULES_BY_STATES) {
+      final List<Integer> states = mergingRuleByStates.getLeft();
+      final int count = requests.count(states);
+      if (count > 0) {
         final BiConsumer<RequestsByStatus, SilverpeasList<FormInstance>> merge =
             mergingRuleByStates.getRight();
-        final PaginationCriterion paginationCriterion =
-            paginationPage != null ? paginationPage.asCriterion() : null;
-        final SilverpeasList<FormInstance> result = getDAO()
-            .getReceivedRequests(form.getPK(), filter.isAllRequests(), userId, states,
-                paginationCriterion);
-        merge.accept(requests, result.stream()
-                                     .peek(l -> l.setForm(form))
-                                     .collect(SilverpeasList.collector(result)));
+        final SilverpeasList<FormInstance> result = listing.apply(states, paginationCriterion);
+        merge.accept(requests, PaginationList.from(result.stream()
+            .peek(l -> l.setForm(formsById.get(l.getFormId())))
+            .collect(Collectors.toList()), count));
       }
     }
     return requests;
   }
 
+  private List<Integer> getIds(final List<FormDetail> forms) {
+    final List<Integer> ids = new ArrayList<>(forms.size());
+    for (FormDetail form : forms) {
+      ids.add(form.getId());
+    }
+    return ids;
+  }
+
   @Override
   public List<String> getAvailableFormIdsAsReceiver(String appId, String userId)
       throws FormsOnlineDatabaseException {
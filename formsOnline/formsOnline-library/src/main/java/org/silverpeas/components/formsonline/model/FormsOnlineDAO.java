@@ -26,7 +26,9 @@ package org.silverpeas.components.formsonline.model;
 import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
 import org.silverpeas.core.util.SilverpeasList;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FormsOnlineDAO {
 
@@ -145,6 +147,32 @@ public interface FormsOnlineDAO {
   SilverpeasList<FormInstance> getSentFormInstances(FormPK pk, String userId,
       final List<Integer> states, final PaginationCriterion paginationCriterion);
 
+  /**
+   * Get in one query the form instances of several forms that have been sent by given user,
+   * ordered from the newest to the older.
+   * @param instanceId the instance id
+   * @param formIds the identifiers of the forms
+   * @param userId the user id
+   * @param states the states to filter on if any
+   * @param paginationCriterion pagination criterion which can be null if no pagination is
+   * requested.
+   * @return a list of FormInstance objects
+   */
+  SilverpeasList<FormInstance> getSentFormInstances(String instanceId,
+      Collection<Integer> formIds, String userId, final List<Integer> states,
+      final PaginationCriterion paginationCriterion);
+
+  /**
+   * Count in one query the form instances of several forms that have been sent by given user.
+   * @param instanceId the instance id
+   * @param formIds the identifiers of the forms
+   * @param userId the user id
+   * @return the number of form instances by state, indexed by form identifier. Forms and states
+   * without any form instance are missing.
+   */
+  Map<Integer, Map<Integer, Integer>> countSentFormInstances(String instanceId,
+      Collection<Integer> formIds, String userId);
+
   /**
    * Get all requests associated to given form ordered from the newest to the older.
    * @param pk the form primary key
@@ -159,6 +187,49 @@ public interface FormsOnlineDAO {
   SilverpeasList<FormInstance> getReceivedRequests(FormPK pk, boolean allRequests, String userId,
       final List<Integer> states, final PaginationCriterion paginationCriterion);
 
+  /**
+   * Get in one query the requests associated to several forms ordered from the newest to the
+   * older.
+   * @param instanceId the instance id
+   * @param formIds the identifiers of the forms
+   * @param allRequests true to get all request of any state, false to get only request to validate
+   * @param userId the user id
+   * @param states the states to filter on if any
+   * @param paginationCriterion pagination criterion which can be null if no pagination is
+   * requested.
+   * @return the requests as for {@link #getReceivedRequests(FormPK, boolean, String, List,
+   * PaginationCriterion)}.
+   */
+  SilverpeasList<FormInstance> getReceivedRequests(String instanceId, Collection<Integer> formIds,
+      boolean allRequests, String userId, final List<Integer> states,
+      final PaginationCriterion paginationCriterion);
+
+  /**
+   * Count in one query the requests associated to several forms.
+   * @param instanceId the instance id
+   * @param formIds the identifiers of the forms
+   * @param allRequests true to count all request of any state, false to count only request to
+   * validate and requests validated by given user
+   * @param userId the user id
+   * @return the number of requests by state, indexed by form identifier. Forms and states
+   * without any request are missing.
+   */
+  Map<Integer, Map<Integer, Integer>> countReceivedRequests(String instanceId,
+      Collection<Integer> formIds, boolean allRequests, String userId);
+
+  /**
+   * Get in one query the values stored as text in the data of several form instances.
+   * @param templateId the identifier of the publication template of the form instances, that is
+   * to say the identifier of the component instance and the short name of the XML form
+   * separated by a colon.
+   * @param requestIds the identifiers of the form instances
+   * @return for each form instance having data, the text values of its fields indexed by their
+   * names. A field without any value is missing and a field with several values is mapped to
+   * null.
+   */
+  Map<String, Map<String, String>> getTextValues(String templateId,
+      Collection<String> requestIds);
+
   List<String> getAvailableFormIdsAsReceiver(String instanceId, String userId,
       String[] userGroupIds) throws FormsOnlineDatabaseException;
 
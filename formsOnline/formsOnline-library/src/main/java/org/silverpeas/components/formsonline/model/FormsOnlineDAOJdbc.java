@@ -40,9 +40,13 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static java.util.Collections.singletonList;
 import static org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery.createSelect;
 
 public class FormsOnlineDAOJdbc implements FormsOnlineDAO {
@@ -100,6 +104,14 @@ public class FormsOnlineDAOJdbc implements FormsOnlineDAO {
       "INSERT INTO " + GROUP_RIGHTS_TABLENAME + "(formId, instanceId, rightType, groupId) " +
           "VALUES (?, ?, ?, ?)";
   private static final String STATE_FIELD = "state";
+  // Query about the data of the form instances
+  private static final String QUERY_TEXT_VALUES =
+      "r.externalId, f.fieldName, f.fieldValue, f.fieldValueIndex " +
+          "from SB_FormTemplate_Record r " +
+          "join SB_FormTemplate_Template t on r.templateId = t.templateId " +
+          "left join SB_FormTemplate_TextField f on f.recordId = r.recordId " +
+          "where t.externalId = ?";
+  private static final String COUNT_BY_FORM_AND_STATE = "formId, " + STATE_FIELD + ", count(*)";
 
   @Override
   public FormDetail createForm(FormDetail formDetail) throws FormsOnlineDatabaseException {
@@ -490,14 +502,34 @@ public class FormsOnlineDAOJdbc implements FormsOnlineDAO {
   @Override
   public SilverpeasList<FormInstance> getSentFormInstances(FormPK pk, String userId,
       final List<Integer> states, final PaginationCriterion paginationCriterion) {
+    return getSentFormInstances(pk.getInstanceId(),
+        singletonList(Integer.parseInt(pk.getId())), userId, states, paginationCriterion);
+  }
+
+  @Override
+  public SilverpeasList<FormInstance> getSentFormInstances(String instanceId,
+      Collection<Integer> formIds, String userId, final List<Integer> states,
+      final PaginationCriterion paginationCriterion) {
+    JdbcSqlQuery query = createSentFormInstancesQuery("*", instanceId, formIds, userId);
+    return getFormInstances(query, states, paginationCriterion);
+  }
+
+  @Override
+  public Map<Integer, Map<Integer, Integer>> countSentFormInstances(String instanceId,
+      Collection<Integer> formIds, String userId) {
+    JdbcSqlQuery query =
+        createSentFormInstancesQuery(COUNT_BY_FORM_AND_STATE, instanceId, formIds, userId);
+    return countFormInstances(query);
+  }
 
-    JdbcSqlQuery query = createSelect("*")
+  private JdbcSqlQuery createSentFormInstancesQuery(final String selection,
+      final String instanceId, final Collection<Integer> formIds, final String userId) {
+    JdbcSqlQuery query = createSelect(selection)
                         .from(FORMS_INSTANCES_TABLENAME)
-                        .where("instanceid = ?", pk.getInstanceId())
-                        .and("formId = ?", Integer.parseInt(pk.getId()))
+                        .where("instanceid = ?", instanceId)
                         .and("creatorId = ?", userId);
-
-    return getFormInstances(query, states, paginationCriterion);
+    query.and("formId").in(formIds);
+    return query;
   }
 
   /*
@@ -508,20 +540,43 @@ public class FormsOnlineDAOJdbc implements FormsOnlineDAO {
   @Override
   public SilverpeasList<FormInstance> getReceivedRequests(FormPK pk, boolean allRequests,
       String userId, final List<Integer> states, final PaginationCriterion paginationCriterion) {
+    return getReceivedRequests(pk.getInstanceId(), singletonList(Integer.parseInt(pk.getId())),
+        allRequests, userId, states, paginationCriterion);
+  }
+
+  @Override
+  public SilverpeasList<FormInstance> getReceivedRequests(String instanceId,
+      Collection<Integer> formIds, boolean allRequests, String userId,
+      final List<Integer> states, final PaginationCriterion paginationCriterion) {
+    JdbcSqlQuery query =
+        createReceivedRequestsQuery("*", instanceId, formIds, allRequests, userId);
+    return getFormInstances(query, states, paginationCriterion);
+  }
+
+  @Override
+  public Map<Integer, Map<Integer, Integer>> countReceivedRequests(String instanceId,
+      Collection<Integer> formIds, boolean allRequests, String userId) {
+    JdbcSqlQuery query = createReceivedRequestsQuery(COUNT_BY_FORM_AND_STATE, instanceId, formIds,
+        allRequests, userId);
+    return countFormInstances(query);
+  }
+
+  private JdbcSqlQuery createReceivedRequestsQuery(final String selection,
+      final String instanceId, final Collection<Integer> formIds, final boolean allRequests,
+      final String userId) {
     /*
      * then retrieve instances where : - user has been the validator - no validation has been done
      * yet and formid in available form ids
      */
 
-    JdbcSqlQuery query = createSelect("*")
+    JdbcSqlQuery query = createSelect(selection)
                          .from(FORMS_INSTANCES_TABLENAME)
-                         .where("instanceid = ?", pk.getInstanceId())
-                         .and("formId = ?", Integer.parseInt(pk.getId()));
+                         .where("instanceid = ?", instanceId);
+    query.and("formId").in(formIds);
     if (!allRequests) {
       query.and("(validatorId = ? or (validatorId is null))", userId);
     }
-
-    return getFormInstances(query, states, paginationCriterion);
+    return query;
   }
 
   /**
@@ -547,6 +602,72 @@ public class FormsOnlineDAOJdbc implements FormsOnlineDAO {
     }
   }
 
+  /**
+   * Centralization of form instances counting.<br>
+   * The given {@link JdbcSqlQuery} instance is grouped by form and by state.
+   * @param preparedQuery an initialized and prepared {@link JdbcSqlQuery} instance selecting
+   * {@link #COUNT_BY_FORM_AND_STATE}.
+   * @return the number of form instances by state, indexed by form identifier.
+   */
+  private Map<Integer, Map<Integer, Integer>> countFormInstances(
+      final JdbcSqlQuery preparedQuery) {
+    preparedQuery.addSqlPart("group by formId, " + STATE_FIELD);
+    try {
+      final List<int[]> rows =
+          preparedQuery.execute(rs -> new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3)});
+      final Map<Integer, Map<Integer, Integer>> counts = new HashMap<>();
+      for (int[] row : rows) {
+        counts.computeIfAbsent(row[0], id -> new HashMap<>()).put(row[1], row[2]);
+      }
+      return counts;
+    } catch (SQLException e) {
+      throw new SilverpeasRuntimeException(e);
+    }
+  }
+
+  @Override
+  public Map<String, Map<String, String>> getTextValues(String templateId,
+      Collection<String> requestIds) {
+    if (requestIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    try (Connection connection = DBUtil.openConnection()) {
+      return getTextValues(connection, templateId, requestIds);
+    } catch (SQLException e) {
+      throw new SilverpeasRuntimeException(e);
+    }
+  }
+
+  /**
+   * Gets in one query with the specified connection the values stored as text in the data of
+   * several form instances. The values are read as the folder values of the process instances
+   * are read by the processManager component: a field with several values is mapped to null.
+   * @see #getTextValues(String, Collection)
+   */
+  static Map<String, Map<String, String>> getTextValues(final Connection connection,
+      final String templateId, final Collection<String> requestIds) throws SQLException {
+    final Map<String, Map<String, String>> records = new HashMap<>(requestIds.size());
+    if (requestIds.isEmpty()) {
+      return records;
+    }
+    final List<String[]> values = createSelect(QUERY_TEXT_VALUES, templateId)
+        .and("r.externalId").in(requestIds)
+        .executeWith(connection, rs -> new String[]{rs.getString(1), rs.getString(2),
+            rs.getString(3), String.valueOf(rs.getInt(4))});
+    for (String[] value : values) {
+      final Map<String, String> record = records.computeIfAbsent(value[0], id -> new HashMap<>());
+      final String fieldName = value[1];
+      if (fieldName != null) {
+        if (record.containsKey(fieldName) || !"0".equals(value[3])) {
+          record.put(fieldName, null);
+        } else {
+          record.put(fieldName, value[2]);
+        }
+      }
+    }
+    return records;
+  }
+
   @Override
   public List<String> getAvailableFormIdsAsReceiver(String instanceId, String userId,
       String[] userGroupIds) throws FormsOnlineDatabaseException {
@@ -7,8 +7,10 @@ import org.silverpeas.core.util.SilverpeasArrayList;
 import org.silverpeas.core.util.SilverpeasList;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -42,6 +44,7 @@ public class RequestsByStatus {
   private SilverpeasList<FormInstance> validatedList = new SilverpeasArrayList<>();
   private SilverpeasList<FormInstance> deniedList = new SilverpeasArrayList<>();
   private SilverpeasList<FormInstance> archivedList = new SilverpeasArrayList<>();
+  private Map<Integer, Map<Integer, Integer>> countsByForm = Collections.emptyMap();
 
   RequestsByStatus(final PaginationPage paginationPage) {
     this.paginationPage = paginationPage;
@@ -84,6 +87,60 @@ public class RequestsByStatus {
         getArchived().isEmpty();
   }
 
+  /**
+   * Sets the number of requests by state of each form, as counted in the persistence.
+   * @param countsByForm the number of requests by state, indexed by form identifier.
+   */
+  void setCountsByForm(final Map<Integer, Map<Integer, Integer>> countsByForm) {
+    this.countsByForm = countsByForm;
+  }
+
+  /**
+   * Gets the number of requests in the specified states, whatever their form.
+   * @param states the states of the requests to count.
+   * @return the number of requests.
+   */
+  int count(final List<Integer> states) {
+    int count = 0;
+    for (Integer formId : countsByForm.keySet()) {
+      count += count(formId, states);
+    }
+    return count;
+  }
+
+  private int count(final int formId, final List<Integer> states) {
+    final Map<Integer, Integer> counts =
+        countsByForm.getOrDefault(formId, Collections.emptyMap());
+    int count = 0;
+    for (Integer state : states) {
+      count += counts.getOrDefault(state, 0);
+    }
+    return count;
+  }
+
+  /**
+   * Gets the number of requests of the specified form, whatever their state and the pagination.
+   * @param formId the identifier of a form.
+   * @return the number of requests.
+   */
+  public int getNbRequests(final int formId) {
+    int count = 0;
+    for (Integer nb : countsByForm.getOrDefault(formId, Collections.emptyMap()).values()) {
+      count += nb;
+    }
+    return count;
+  }
+
+  /**
+   * Gets the number of requests of the specified form that wait for a validation, whatever the
+   * pagination.
+   * @param formId the identifier of a form.
+   * @return the number of requests to validate.
+   */
+  public int getNbRequestsToValidate(final int formId) {
+    return count(formId, asList(STATE_UNREAD, STATE_READ));
+  }
+
   public SilverpeasList<FormInstance> getAll() {
     return merge(getToValidate(), getValidated(), getDenied(), getArchived());
   }
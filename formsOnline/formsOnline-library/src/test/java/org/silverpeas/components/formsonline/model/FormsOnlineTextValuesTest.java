@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.formsonline.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Unit tests on the reading in one query of the text values of the requests, run against an
+ * embedded H2 database.
+ */
+@EnableSilverTestEnv
+public class FormsOnlineTextValuesTest {
+
+  private static final String TEMPLATE_ID = "formsOnline1:leave";
+
+  private Connection connection;
+
+  @BeforeEach
+  public void createRecords() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:formsonlinetext;DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table SB_FormTemplate_Template (templateId int primary key, " +
+          "externalId varchar(250))");
+      statement.execute("create table SB_FormTemplate_Record (recordId int primary key, " +
+          "templateId int, externalId varchar(250))");
+      statement.execute("create table SB_FormTemplate_TextField (recordId int, " +
+          "fieldName varchar(100), fieldValue varchar(4000), fieldValueIndex int)");
+      statement.execute("insert into SB_FormTemplate_Template values " +
+          "(1, 'formsOnline1:leave'), (2, 'formsOnline2:leave')");
+      statement.execute("insert into SB_FormTemplate_Record values " +
+          "(1, 1, '10'), (2, 1, '11'), (3, 2, '20'), (4, 1, '12')");
+      statement.execute("insert into SB_FormTemplate_TextField values " +
+          "(1, 'name', 'Dupont Jean', 0), (1, 'days', '3', 0), " +
+          "(2, 'name', 'Durand', 0), (2, 'days', '5', 0), " +
+          "(2, 'reasons', 'a', 0), (2, 'reasons', 'b', 1), " +
+          "(3, 'name', 'Dupont', 0), (3, 'days', '1', 0)");
+    }
+  }
+
+  @AfterEach
+  public void dropRecords() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table SB_FormTemplate_TextField");
+      statement.execute("drop table SB_FormTemplate_Record");
+      statement.execute("drop table SB_FormTemplate_Template");
+    }
+    connection.close();
+  }
+
+  @Test
+  public void theTextValuesOfTheRequestsAreGotInOneQuery() throws SQLException {
+    final Map<String, Map<String, String>> records =
+        FormsOnlineDAOJdbc.getTextValues(connection, TEMPLATE_ID, Arrays.asList("10", "11"));
+    assertThat(records.size(), is(2));
+    assertThat(records.get("10"), hasEntry("name", "Dupont Jean"));
+    assertThat(records.get("10"), hasEntry("days", "3"));
+    assertThat(records.get("11"), hasEntry("name", "Durand"));
+  }
+
+  @Test
+  public void aFieldWithSeveralValuesIsMappedToNull() throws SQLException {
+    final Map<String, Map<String, String>> records =
+        FormsOnlineDAOJdbc.getTextValues(connection, TEMPLATE_ID, Collections.singletonList("11"));
+    assertThat(records.get("11").containsKey("reasons"), is(true));
+    assertThat(records.get("11").get("reasons"), is(nullValue()));
+  }
+
+  @Test
+  public void aRequestWithoutTextValuesIsEmpty() throws SQLException {
+    final Map<String, Map<String, String>> records =
+        FormsOnlineDAOJdbc.getTextValues(connection, TEMPLATE_ID, Collections.singletonList("12"));
+    assertThat(records.get("12"), is(anEmptyMap()));
+  }
+
+  @Test
+  public void theRequestsOfAnotherFormAreIgnored() throws SQLException {
+    final Map<String, Map<String, String>> records =
+        FormsOnlineDAOJdbc.getTextValues(connection, TEMPLATE_ID, Collections.singletonList("20"));
+    assertThat(records.isEmpty(), is(true));
+  }
+
+  @Test
+  public void noQueryIsPerformedWithoutRequests() throws SQLException {
+    final Map<String, Map<String, String>> records =
+        FormsOnlineDAOJdbc.getTextValues(connection, TEMPLATE_ID, Collections.emptyList());
+    assertThat(records.isEmpty(), is(true));
+  }
+}
@@ -4,32 +4,112 @@ import org.silverpeas.core.util.file.FileRepositoryManager;
 import org.silverpeas.core.util.file.FileServerUtils;
 
 import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class ExportSummary {
 
   private String fileName;
   private int nbItems;
+  private Future<Integer> job;
+  private String downloadURL;
 
   public ExportSummary(String fileName, int nbExportedItems) {
     this.fileName = fileName;
     this.nbItems = nbExportedItems;
   }
 
+  /**
+   * Constructs the summary of an export that is performed in background.
+   * @param fileName the name of the file that will be available at the end of the export.
+   * @param nbItems the number of items to export.
+   * @param job the background job performing the export and giving the number of exported items.
+   */
+  public ExportSummary(String fileName, int nbItems, Future<Integer> job) {
+    this(fileName, nbItems);
+    this.job = job;
+  }
+
+  /**
+   * Constructs the summary of an export that is streamed while it is downloaded: no file is
+   * written beforehand, so its size isn't known.
+   * @param fileName the name of the exported file.
+   * @param nbItems the number of items to export.
+   * @param downloadURL the URL at which the export is streamed.
+   */
+  public ExportSummary(String fileName, int nbItems, String downloadURL) {
+    this(fileName, nbItems);
+    this.downloadURL = downloadURL;
+  }
+
+  /**
+   * Is the export streamed while it is downloaded?
+   * @return true if no file is written beforehand, false otherwise.
+   */
+  public boolean isStreamed() {
+    return downloadURL != null;
+  }
+
+  /**
+   * Is the export still performed in background?
+   * @return true if the exported file isn't yet available, false otherwise.
+   */
+  public boolean isInProgress() {
+    return job != null && !job.isDone();
+  }
+
+  /**
+   * Has the export failed? In that case, no file is available.
+   * @return true if the export has failed, false if it is either in progress or done.
+   */
+  public boolean isFailed() {
+    return fileName == null || (job != null && job.isDone() && getJobResult() == null);
+  }
+
   public String getFilename() {
     return fileName;
   }
 
+  /**
+   * Gets the size of the exported file.
+   * @return the size in bytes of the file or -1 if the export is streamed.
+   */
   public long getFileSize() {
+    if (isStreamed()) {
+      return -1;
+    }
     File file = new File(FileRepositoryManager.getTemporaryPath() + fileName);
     return file.length();
   }
 
   public String getDownloadURL() {
-    return FileServerUtils.getUrlToTempDir(fileName);
+    return isStreamed() ? downloadURL : FileServerUtils.getUrlToTempDir(fileName);
   }
 
   public int getNbExportedItems() {
+    if (job != null && job.isDone()) {
+      Integer nbExportedItems = getJobResult();
+      if (nbExportedItems != null) {
+        return nbExportedItems;
+      }
+    }
     return nbItems;
   }
 
+  /**
+   * Gets the number of items exported by the background job once done.
+   * @return the number of exported items or null if the job has failed.
+   */
+  private Integer getJobResult() {
+    try {
+      return job.get();
+    } catch (ExecutionException | CancellationException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.formsonline.control;
+
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor of the exports performed in background. The exports are performed one at a time by a
+ * single background thread. When too many exports are waiting to be performed, the thread that
+ * submits a new one performs it itself.
+ * <p>
+ * The executor is bound to the lifecycle of the application: when it is shut down, the exports
+ * in progress are interrupted and the waiting ones are dropped. The exports submitted afterwards
+ * are performed by the thread that submits them.
+ * </p>
+ */
+@Singleton
+class ExportExecutor {
+
+  private static final int QUEUE_SIZE = 10;
+  private static final long SHUTDOWN_TIMEOUT = 10;
+
+  private final ThreadPoolExecutor executor =
+      new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+          r -> {
+            Thread thread = new Thread(r, "formsonline-export");
+            thread.setDaemon(true);
+            return thread;
+          }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+  /**
+   * Gets the executor of the exports.
+   * @return the export executor.
+   */
+  static ExportExecutor get() {
+    return ServiceProvider.getService(ExportExecutor.class);
+  }
+
+  /**
+   * Submits the specified export.
+   * @param export the export to perform.
+   * @param <T> the type of the export result.
+   * @return the future result of the export.
+   */
+  <T> Future<T> submit(final Callable<T> export) {
+    if (executor.isShutdown()) {
+      final FutureTask<T> task = new FutureTask<>(export);
+      task.run();
+      return task;
+    }
+    return executor.submit(export);
+  }
+
+  /**
+   * Shuts down the executor: the exports in progress are interrupted and the waiting ones are
+   * dropped.
+   */
+  @PreDestroy
+  void shutdown() {
+    int dropped = executor.shutdownNow().size();
+    if (dropped > 0) {
+      SilverLogger.getLogger(this).warn("{0} exports dropped at shutdown", dropped);
+    }
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -20,7 +20,6 @@
  */
 package org.silverpeas.components.formsonline.control;
 
-import net.htmlparser.jericho.Source;
 import org.apache.commons.fileupload.FileItem;
 import org.silverpeas.components.formsonline.ExportSummary;
 import org.silverpeas.components.formsonline.FormsOnlineComponentSettings;
@@ -37,8 +36,6 @@ import org.silverpeas.core.SilverpeasException;
 import org.silverpeas.core.admin.PaginationPage;
 import org.silverpeas.core.admin.component.model.ComponentInstLight;
 import org.silverpeas.core.admin.component.model.GlobalContext;
-import org.silverpeas.core.admin.user.model.User;
-import org.silverpeas.core.contribution.content.form.DataRecord;
 import org.silverpeas.core.contribution.content.form.FieldTemplate;
 import org.silverpeas.core.contribution.content.form.Form;
 import org.silverpeas.core.contribution.content.form.FormException;
@@ -48,14 +45,11 @@ import org.silverpeas.core.contribution.template.publication.PublicationTemplate
 import org.silverpeas.core.contribution.template.publication.PublicationTemplateManager;
 import org.silverpeas.core.notification.message.MessageNotifier;
 import org.silverpeas.core.security.authorization.ForbiddenRuntimeException;
-import org.silverpeas.core.util.Charsets;
-import org.silverpeas.core.util.DateUtil;
 import org.silverpeas.core.util.Pair;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.ServiceProvider;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.URLUtil;
-import org.silverpeas.core.util.file.FileRepositoryManager;
 import org.silverpeas.core.util.logging.SilverLogger;
 import org.silverpeas.core.web.mvc.controller.AbstractComponentSessionController;
 import org.silverpeas.core.web.mvc.controller.ComponentContext;
@@ -63,20 +57,22 @@ import org.silverpeas.core.web.mvc.controller.MainSessionController;
 import org.silverpeas.core.web.selection.Selection;
 import org.silverpeas.core.web.selection.SelectionUsersGroups;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 public class FormsOnlineSessionController extends AbstractComponentSessionController {
 
   private static final int DEFAULT_ITEM_PER_PAGE = 10;
+  private static final int DEFAULT_EXPORT_THRESHOLD = 5000;
   private static final String UPDATE_CURRENT_FORM = "updateCurrentForm";
   private static final String LOAD_REQUEST = "loadRequest";
   private FormsOnlineDAO dao = ServiceProvider.getService(FormsOnlineDAO.class);
@@ -84,6 +80,8 @@ public class FormsOnlineSessionController extends AbstractComponentSessionContro
   private Selection selection = null;
   private Set<String> selectedValidatorRequestIds = new HashSet<>();
   private Map<Integer, String> statusLabels = new HashMap<>();
+  private ExportSummary backgroundExport = null;
+  private int backgroundExportFormId = -1;
 
   public static final String USER_PANEL_SENDERS_PREFIX = "listSenders";
   public static final String USER_PANEL_RECEIVERS_PREFIX = "listReceivers";
@@ -356,113 +354,98 @@ public class FormsOnlineSessionController extends AbstractComponentSessionContro
     return form;
   }
 
+  /**
+   * Exports as CSV the requests of the current form the user can process. The requests are
+   * fetched page by page and the CSV rows of a page are written before fetching the next one.
+   * Up to the number of requests set by the <code>export.background.threshold</code> setting,
+   * nothing is written here: the returned summary gives the URL at which the export is streamed
+   * into the response (see {@link #exportAsCSV(Writer)}). Beyond, the export is written in a file
+   * in background and the returned summary is about an export in progress. The summary of such
+   * an export is returned again for the current form until the export is done, and then once more
+   * to give its result.
+   * @return the summary of the export.
+   * @throws FormsOnlineDatabaseException if the requests cannot be counted.
+   * @throws SilverpeasException if the current form cannot be loaded.
+   */
   public ExportSummary export() throws FormsOnlineDatabaseException, SilverpeasException {
-    List<StringBuilder> csvRows = new ArrayList<>();
-    StringBuilder csvHeader = new StringBuilder();
-
-    // adding columns relative to request metadata
-    List<String> csvCols = new ArrayList<>();
-    csvCols.add("id");
-    addCSVValue(csvHeader, "Id");
-    csvCols.add("status");
-    addCSVValue(csvHeader, getString("GML.status"));
-    csvCols.add("creationDate");
-    addCSVValue(csvHeader, getString("formsOnline.sendDate"));
-    csvCols.add("requester");
-    addCSVValue(csvHeader, getString("formsOnline.sender"));
-    csvCols.add("processDate");
-    addCSVValue(csvHeader, getString("formsOnline.request.process.date"));
-    csvCols.add("validator");
-    addCSVValue(csvHeader, getString("formsOnline.request.process.user"));
-    csvCols.add("comment");
-    addCSVValue(csvHeader, getString("GML.comments"));
-
-    int nbMetaDataCols = csvCols.size();
-
-    // adding columns relative to request content
-    RecordSet recordSet;
-    FieldTemplate[] fields;
-    try {
-      PublicationTemplate template = getCurrentPublicationTemplate(false);
-      recordSet = template.getRecordSet();
-      fields = template.getRecordTemplate().getFieldTemplates();
-    } catch (Exception e) {
-      throw new SilverpeasException("Can't load form '"+getCurrentForm().getXmlFormName()+"'", e);
-    }
-    for (FieldTemplate field : fields) {
-      csvCols.add(field.getFieldName());
-      addCSVValue(csvHeader, field.getLabel(getLanguage()));
-    }
-    csvRows.add(csvHeader);
-
-    // getting rows
-    RequestsByStatus requestsByStatus = getAllValidatorRequests();
-    List<FormInstance> requests = requestsByStatus.getAll();
-    for (FormInstance request : requests) {
-      StringBuilder csvRow = new StringBuilder();
-
-      addCSVValue(csvRow, request.getId());
-      addCSVValue(csvRow, statusLabels.get(request.getState()));
-      addCSVValue(csvRow, DateUtil.getOutputDate(request.getCreationDate(), getLanguage()));
-      User creator = request.getCreator();
-      addCSVValue(csvRow, creator.getLastName() + " " + creator.getFirstName());
-      addCSVValue(csvRow, DateUtil.getOutputDate(request.getValidationDate(), getLanguage()));
-      User validator = request.getValidator();
-      if (validator != null) {
-        addCSVValue(csvRow, validator.getLastName() + " " + validator.getFirstName());
-      } else {
-        addCSVValue(csvRow, "");
+    if (backgroundExport != null && backgroundExportFormId == getCurrentForm().getId()) {
+      final ExportSummary summary = backgroundExport;
+      if (!summary.isInProgress()) {
+        backgroundExport = null;
       }
-      addCSVValue(csvRow, request.getComments());
+      return summary;
+    }
 
-      DataRecord data = null;
-      try {
-        data = recordSet.getRecord(request.getId());
-      } catch (Exception e) {
-        SilverLogger.getLogger(this).error("RequestId = "+request.getId(), e);
-      }
-      if (data != null) {
-        Map<String, String> values = data.getValues(getLanguage());
-
-        for (int i=nbMetaDataCols; i<csvCols.size(); i++) {
-          String value = values.getOrDefault(csvCols.get(i), "");
-          // removing all HTML
-          value = new Source(value).getTextExtractor().toString();
-          addCSVValue(csvRow, value);
+    final RequestsCSVExport csvExport = prepareCSVExport();
+    int nbRequests = 0;
+    if (!csvExport.getFormIds().isEmpty()) {
+      for (Map<Integer, Integer> counts : dao.countReceivedRequests(getComponentId(),
+          csvExport.getFormIds(), csvExport.isAllRequests(), getUserId()).values()) {
+        for (Integer count : counts.values()) {
+          nbRequests += count;
         }
       }
-      csvRows.add(csvRow);
     }
+    final int threshold =
+        getSettings().getInteger("export.background.threshold", DEFAULT_EXPORT_THRESHOLD);
+    if (nbRequests > threshold) {
+      Future<Integer> job = ExportExecutor.get().submit(csvExport);
+      backgroundExport = new ExportSummary(csvExport.getCsvFilename(), nbRequests, job);
+      backgroundExportFormId = getCurrentForm().getId();
+      return backgroundExport;
+    }
+    return new ExportSummary(csvExport.getCsvFilename(), nbRequests,
+        URLUtil.getApplicationURL() + getComponentUrl() + "ExportCSV");
+  }
 
-    String exportFileName = writeCSVFile(csvRows);
-    return new ExportSummary(exportFileName, csvRows.size()-1);
+  /**
+   * Writes as CSV into the specified writer the requests of the current form the user can
+   * process. The requests are fetched page by page and the CSV rows of a page are written before
+   * fetching the next one, so that nothing but a page is kept in memory.
+   * @param writer the writer into which the CSV rows are streamed.
+   * @return the number of exported requests.
+   * @throws SilverpeasException if the current form cannot be loaded.
+   * @throws IOException if the CSV rows cannot be written.
+   */
+  public int exportAsCSV(Writer writer) throws SilverpeasException, IOException {
+    return prepareCSVExport().writeTo(writer);
   }
 
-  private void addCSVValue(StringBuilder row, String value) {
-    row.append("\"");
-    if (value != null) {
-      String toAppend = value.replaceAll("\"", "\"\"");
-      toAppend = toAppend.replace("<br/>", "\n");
-      row.append(toAppend);
+  /**
+   * Prepares the export of the requests of the current form: the export gets everything it
+   * requires from this session controller so that it can be performed in background.
+   */
+  private RequestsCSVExport prepareCSVExport() throws SilverpeasException {
+    final RecordSet recordSet;
+    final FieldTemplate[] fields;
+    final String templateId;
+    try {
+      PublicationTemplate template = getCurrentPublicationTemplate(false);
+      recordSet = template.getRecordSet();
+      fields = template.getRecordTemplate().getFieldTemplates();
+      templateId = getTemplateId(getCurrentForm().getXmlFormName());
+    } catch (Exception e) {
+      throw new SilverpeasException("Can't load form '"+getCurrentForm().getXmlFormName()+"'", e);
     }
-    row.append("\"").append(",");
-  }
 
-  private String writeCSVFile(List<StringBuilder> csvRows) {
-    String csvFilename = new Date().getTime() + ".csv";
-    try (OutputStreamWriter writer = new OutputStreamWriter(
-        new FileOutputStream(FileRepositoryManager.getTemporaryPath() + csvFilename),
-        Charsets.UTF_8)) {
-       for (StringBuilder csvRow : csvRows) {
-        writer.write(csvRow.toString());
-        writer.write("\n");
-      }
-      writer.flush();
-    } catch (IOException e) {
-      SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
-      csvFilename = null;
+    // the requests of the current form are exported only if the user is one of its validators
+    final String formId = Integer.toString(getCurrentForm().getId());
+    final List<Integer> formIds = new ArrayList<>(1);
+    if (getService().getAvailableFormIdsAsReceiver(getComponentId(), getUserId())
+        .contains(formId)) {
+      formIds.add(getCurrentForm().getId());
     }
-    return csvFilename;
+    final boolean allRequests = getRequestsFilter().isAllRequests();
+    return new RequestsCSVExport(dao, new Date().getTime() + ".csv", getComponentId(), getUserId(),
+        getLanguage()).ofForms(formIds, allRequests)
+        .withData(recordSet, fields, templateId)
+        .withLabels(getCSVHeaderLabels(), new HashMap<>(statusLabels));
+  }
+
+  private List<String> getCSVHeaderLabels() {
+    return Arrays.asList("Id", getString("GML.status"), getString("formsOnline.sendDate"),
+        getString("formsOnline.sender"), getString("formsOnline.request.process.date"),
+        getString("formsOnline.request.process.user"), getString("GML.comments"));
   }
 
   public ComponentInstLight getComponentInstLight() {
@@ -531,18 +514,21 @@ public class FormsOnlineSessionController extends AbstractComponentSessionContro
   private PublicationTemplate getPublicationTemplate(String xmlFormName, boolean registerIt)
       throws SilverpeasException {
     try {
-      String xmlFormShortName = xmlFormName.substring(xmlFormName.indexOf('/') + 1, xmlFormName.indexOf('.'));
+      String templateId = getTemplateId(xmlFormName);
       if (registerIt) {
-        getPublicationTemplateManager()
-            .addDynamicPublicationTemplate(getComponentId() + ":" + xmlFormShortName, xmlFormName);
+        getPublicationTemplateManager().addDynamicPublicationTemplate(templateId, xmlFormName);
       }
-      return getPublicationTemplateManager()
-          .getPublicationTemplate(getComponentId()+":"+xmlFormShortName, xmlFormName);
+      return getPublicationTemplateManager().getPublicationTemplate(templateId, xmlFormName);
     } catch (Exception e) {
       throw new SilverpeasException("Can't load form '"+xmlFormName+"'", e);
     }
   }
 
+  private String getTemplateId(String xmlFormName) {
+    String xmlFormShortName = xmlFormName.substring(xmlFormName.indexOf('/') + 1, xmlFormName.indexOf('.'));
+    return getComponentId() + ":" + xmlFormShortName;
+  }
+
   private void loadStatusLabels() {
     loadStatusLabel(FormInstance.STATE_UNREAD,"formsOnline.stateUnread");
     loadStatusLabel(FormInstance.STATE_READ, "formsOnline.stateRead");
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.formsonline.control;
+
+import net.htmlparser.jericho.Source;
+import org.apache.commons.io.FileUtils;
+import org.silverpeas.components.formsonline.model.FormInstance;
+import org.silverpeas.components.formsonline.model.FormsOnlineDAO;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.admin.user.model.User;
+import org.silverpeas.core.contribution.content.form.DataRecord;
+import org.silverpeas.core.contribution.content.form.FieldTemplate;
+import org.silverpeas.core.contribution.content.form.RecordSet;
+import org.silverpeas.core.contribution.content.form.field.TextField;
+import org.silverpeas.core.util.Charsets;
+import org.silverpeas.core.util.DateUtil;
+import org.silverpeas.core.util.file.FileRepositoryManager;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * The export as CSV of the requests of a form. It carries all the information it requires so
+ * that it can be performed in background, once the HTTP request asking for it has ended.
+ * <p>
+ * The requests are fetched page by page and the CSV rows of a page are written before fetching
+ * the next one. They are either streamed into a writer, like the HTTP response, or written in a
+ * file for a background export. The file is first written under a temporary name so that it is
+ * available only once complete.
+ * </p>
+ */
+final class RequestsCSVExport implements Callable<Integer> {
+
+  private static final int EXPORT_PAGE_SIZE = 500;
+
+  private final FormsOnlineDAO dao;
+  private final String csvFilename;
+  private final String componentId;
+  private final String userId;
+  private final String language;
+  private List<Integer> formIds = Collections.emptyList();
+  private boolean allRequests = false;
+  private RecordSet recordSet;
+  private FieldTemplate[] fields = new FieldTemplate[0];
+  private String templateId;
+  private List<String> headerLabels = Collections.emptyList();
+  private Map<Integer, String> statusLabels = Collections.emptyMap();
+
+  /**
+   * Constructs the export in the specified file of the requests the given user can process.
+   * @param dao the DAO of the forms and of their requests.
+   * @param csvFilename the name of the CSV file in the temporary directory.
+   * @param componentId the unique identifier of the formsOnline instance.
+   * @param userId the unique identifier of the user performing the export.
+   * @param language the language in which the dates and the labels of the form are written.
+   */
+  RequestsCSVExport(final FormsOnlineDAO dao, final String csvFilename, final String componentId,
+      final String userId, final String language) {
+    this.dao = dao;
+    this.csvFilename = csvFilename;
+    this.componentId = componentId;
+    this.userId = userId;
+    this.language = language;
+  }
+
+  /**
+   * Exports the requests of the specified forms.
+   * @param formIds the identifiers of the forms.
+   * @param allRequests true if all the requests of the forms are exported, false if only those
+   * of the groups of the user.
+   * @return itself.
+   */
+  RequestsCSVExport ofForms(final List<Integer> formIds, final boolean allRequests) {
+    this.formIds = formIds;
+    this.allRequests = allRequests;
+    return this;
+  }
+
+  /**
+   * Exports the data of the requests as stored with the specified form.
+   * @param recordSet the records of the requests data.
+   * @param fields the fields of the form.
+   * @param templateId the identifier of the publication template of the form.
+   * @return itself.
+   */
+  RequestsCSVExport withData(final RecordSet recordSet, final FieldTemplate[] fields,
+      final String templateId) {
+    this.recordSet = recordSet;
+    this.fields = fields;
+    this.templateId = templateId;
+    return this;
+  }
+
+  /**
+   * Uses the specified labels, already translated.
+   * @param headerLabels the headers of the columns of the request metadata.
+   * @param statusLabels the labels of the request status.
+   * @return itself.
+   */
+  RequestsCSVExport withLabels(final List<String> headerLabels,
+      final Map<Integer, String> statusLabels) {
+    this.headerLabels = headerLabels;
+    this.statusLabels = statusLabels;
+    return this;
+  }
+
+  String getCsvFilename() {
+    return csvFilename;
+  }
+
+  List<Integer> getFormIds() {
+    return formIds;
+  }
+
+  boolean isAllRequests() {
+    return allRequests;
+  }
+
+  /**
+   * Writes the CSV rows into the specified writer, without any file.
+   * @param writer the writer into which the CSV rows are streamed.
+   * @return the number of exported requests.
+   * @throws IOException if the rows cannot be written.
+   */
+  int writeTo(final Writer writer) throws IOException {
+    int nbExported = writeCSV(writer);
+    writer.flush();
+    return nbExported;
+  }
+
+  /**
+   * Writes the CSV file.
+   * @return the number of exported requests.
+   * @throws IOException if the file cannot be written. In that case, the failure is logged and
+   * no file is left.
+   */
+  @Override
+  public Integer call() throws IOException {
+    File csvFile = new File(FileRepositoryManager.getTemporaryPath(), csvFilename);
+    File partFile = new File(FileRepositoryManager.getTemporaryPath(), csvFilename + ".part");
+    int nbExported;
+    try (Writer writer = new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(partFile), Charsets.UTF_8))) {
+      nbExported = writeCSV(writer);
+    } catch (IOException | RuntimeException e) {
+      SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
+      FileUtils.deleteQuietly(partFile);
+      throw e;
+    }
+    if (!partFile.renameTo(csvFile)) {
+      SilverLogger.getLogger(this).error("Can't rename " + partFile + " to " + csvFile);
+      FileUtils.deleteQuietly(partFile);
+      throw new IOException("Can't rename " + partFile + " to " + csvFile);
+    }
+    return nbExported;
+  }
+
+  private int writeCSV(Writer writer) throws IOException {
+    StringBuilder csvHeader = new StringBuilder();
+
+    // adding columns relative to request metadata
+    for (String label : headerLabels) {
+      addCSVValue(csvHeader, label);
+    }
+
+    // adding columns relative to request content
+    boolean textFieldsOnly = true;
+    for (FieldTemplate field : fields) {
+      addCSVValue(csvHeader, field.getLabel(language));
+      textFieldsOnly &= TextField.TYPE.equals(field.getTypeName());
+    }
+    writeCSVRow(writer, csvHeader);
+
+    // getting rows, page by page
+    int nbRows = 0;
+    if (formIds.isEmpty()) {
+      return nbRows;
+    }
+    int page = 1;
+    List<FormInstance> requests;
+    do {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException("Export of " + csvFilename + " interrupted");
+      }
+      requests = dao.getReceivedRequests(componentId, formIds, allRequests, userId, null,
+          new PaginationPage(page++, EXPORT_PAGE_SIZE).asCriterion());
+      Map<String, Map<String, String>> textValues = Collections.emptyMap();
+      if (textFieldsOnly) {
+        List<String> requestIds = new ArrayList<>(requests.size());
+        for (FormInstance request : requests) {
+          requestIds.add(request.getId());
+        }
+        textValues = dao.getTextValues(templateId, requestIds);
+      }
+      for (FormInstance request : requests) {
+        writeCSVRow(writer, getCSVRow(request, textFieldsOnly, textValues));
+        nbRows++;
+      }
+    } while (requests.size() == EXPORT_PAGE_SIZE);
+    return nbRows;
+  }
+
+  private StringBuilder getCSVRow(FormInstance request, boolean textFieldsOnly,
+      Map<String, Map<String, String>> textValues) {
+    StringBuilder csvRow = new StringBuilder();
+
+    addCSVValue(csvRow, request.getId());
+    addCSVValue(csvRow, statusLabels.get(request.getState()));
+    addCSVValue(csvRow, DateUtil.getOutputDate(request.getCreationDate(), language));
+    User creator = request.getCreator();
+    addCSVValue(csvRow, creator.getLastName() + " " + creator.getFirstName());
+    addCSVValue(csvRow, DateUtil.getOutputDate(request.getValidationDate(), language));
+    User validator = request.getValidator();
+    if (validator != null) {
+      addCSVValue(csvRow, validator.getLastName() + " " + validator.getFirstName());
+    } else {
+      addCSVValue(csvRow, "");
+    }
+    addCSVValue(csvRow, request.getComments());
+
+    Map<String, String> values = textValues.get(request.getId());
+    if (!textFieldsOnly || (values != null && values.containsValue(null))) {
+      // the values cannot be taken as such from the persistence
+      values = null;
+      try {
+        DataRecord data = recordSet.getRecord(request.getId());
+        if (data != null) {
+          values = data.getValues(language);
+        }
+      } catch (Exception e) {
+        SilverLogger.getLogger(this).error("RequestId = "+request.getId(), e);
+      }
+    }
+    if (values != null) {
+      for (FieldTemplate field : fields) {
+        String value = values.getOrDefault(field.getFieldName(), "");
+        // removing all HTML
+        addCSVValue(csvRow, toText(value));
+      }
+    }
+    return csvRow;
+  }
+
+  /**
+   * Gets the text of the specified value by removing all its HTML, if any.
+   */
+  private static String toText(String value) {
+    if (value == null || (value.indexOf('<') < 0 && value.indexOf('&') < 0)) {
+      return value;
+    }
+    return new Source(value).getTextExtractor().toString();
+  }
+
+  private static void addCSVValue(StringBuilder row, String value) {
+    row.append("\"");
+    if (value != null) {
+      String toAppend = value.replaceAll("\"", "\"\"");
+      toAppend = toAppend.replace("<br/>", "\n");
+      row.append(toAppend);
+    }
+    row.append("\"").append(",");
+  }
+
+  private static void writeCSVRow(Writer writer, StringBuilder csvRow) throws IOException {
+    writer.write(csvRow.toString());
+    writer.write("\n");
+  }
+}
@@ -204,6 +204,9 @@ public class FormsOnlineRequestRouter extends ComponentRequestRouter<FormsOnline
         request.setAttribute("ExportSummary", exportSummary);
 
         destination = "export-popin-content.jsp";
+      } else if ("ExportCSV".equals(function)) {
+        // the CSV rows are streamed into the response by the export servlet
+        return FormsOnlineExportServlet.PATH;
       } else if ("NewRequest".equals(function)) {
         String formId = request.getParameter(PARAM_FORMID);
         if (StringUtil.isNotDefined(formId)) {
@@ -40,17 +40,29 @@
 
 <c:set var="summary" value="${requestScope['ExportSummary']}"/>
 
-<table>
-  <tr>
-    <td class="txtlibform">${labelFile}</td>
-    <td><a href="${summary.downloadURL}">${summary.filename}</a></td>
-  </tr>
-  <tr>
-    <td class="txtlibform">${labelSize}</td>
-    <td>${silfn:formatMemSize(summary.fileSize)}</td>
-  </tr>
-  <tr>
-    <td class="txtlibform">${labelNumber}</td>
-    <td>${summary.nbExportedItems}</td>
-  </tr>
-</table>
\ No newline at end of file
+<c:choose>
+  <c:when test="${summary.failed}">
+    <div class="inlineMessage-nok"><fmt:message key="formsOnline.export.failed"/></div>
+  </c:when>
+  <c:when test="${summary.inProgress}">
+    <div class="inlineMessage"><fmt:message key="formsOnline.export.inProgress"/></div>
+  </c:when>
+  <c:otherwise>
+    <table>
+      <tr>
+        <td class="txtlibform">${labelFile}</td>
+        <td><a href="${summary.downloadURL}">${summary.filename}</a></td>
+      </tr>
+      <c:if test="${not summary.streamed}">
+        <tr>
+          <td class="txtlibform">${labelSize}</td>
+          <td>${silfn:formatMemSize(summary.fileSize)}</td>
+        </tr>
+      </c:if>
+      <tr>
+        <td class="txtlibform">${labelNumber}</td>
+        <td>${summary.nbExportedItems}</td>
+      </tr>
+    </table>
+  </c:otherwise>
+</c:choose>
@@ -241,6 +241,9 @@
             <a href="NewRequest?FormId=${form.id}">
               </c:if>
               <span class="form-title">${form.title}</span>
+              <c:if test="${requestsAsValidator != null and requestsAsValidator.getNbRequestsToValidate(form.id) > 0}">
+                <span class="form-nb-requests-toValidate">${requestsAsValidator.getNbRequestsToValidate(form.id)}</span>
+              </c:if>
               <span class="form-description">${silfn:escapeHtmlWhitespaces(form.description)}</span>
               <c:if test="${form.sendable}">
             </a>
@@ -67,8 +67,8 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 
 import static org.silverpeas.core.i18n.I18NHelper.defaultLanguage;
@@ -388,14 +388,6 @@ public class DefaultForumService implements ForumService {
     return messages;
   }
 
-  private List<String> getSubjectsIds(ForumPK forumPK) {
-    try (Connection con = openConnection()) {
-      return ForumsDAO.getSubjectsIds(con, forumPK);
-    } catch (SQLException e) {
-      throw new ForumsRuntimeException(e);
-    }
-  }
-
   private List<String> getMessagesIds(ForumPK forumPK, int messageParentId) {
     try (Connection con = openConnection()) {
       return ForumsDAO.getMessagesIds(con, forumPK, messageParentId);
@@ -452,25 +444,12 @@ public class DefaultForumService implements ForumService {
   }
 
   @Override
-  public Collection getLastMessageRSS(String instanceId, int nbReturned) {
-    int countdown = nbReturned;
-    // retourne les nbReturned messages des forums de l'instance instanceId
-    Collection messages = new ArrayList();
+  public List<Message> getLastMessageRSS(String instanceId, int nbReturned) {
     try (Connection con = openConnection()) {
-      // récupère la liste des id des messages
-      Collection<String> allMessagesIds = ForumsDAO.getLastMessageRSS(con, instanceId);
-      Iterator<String> it = allMessagesIds.iterator();
-      // prendre que les nbReturned derniers
-      while (it.hasNext() && countdown != 0) {
-        String messageId = it.next();
-        MessagePK messagePK = new MessagePK(instanceId, messageId);
-        messages.add(getMessageInfos(messagePK));
-        countdown--;
-      }
+      return ForumsDAO.getLastMessageRSS(con, instanceId, nbReturned);
     } catch (SQLException e) {
       throw new ForumsRuntimeException(e);
     }
-    return messages;
   }
 
   @Override
@@ -507,18 +486,18 @@ public class DefaultForumService implements ForumService {
    */
   @Override
   public boolean isNewMessageByForum(String userId, ForumPK forumPK, String status) {
-    // liste de tous les sujets du forum
-    List<String> messagesIds = getSubjectsIds(forumPK);
-    int messageParentId;
-    for (String messagesId : messagesIds) {
-      // pour ce message on recherche la date de la dernière visite
-      messageParentId = Integer.parseInt(messagesId);
-
-      if (isNewMessage(userId, forumPK, messageParentId, status)) {
-        return true;
-      }
+    return getUnreadMessageStates(userId, Collections.singletonList(forumPK), status)
+        .isNewMessageByForum(Integer.parseInt(forumPK.getId()));
+  }
+
+  @Override
+  public UnreadMessageStates getUnreadMessageStates(String userId, Collection<ForumPK> forumPKs,
+      String status) {
+    try (Connection con = openConnection()) {
+      return ForumsDAO.getUnreadMessageStates(con, userId, forumPKs, status);
+    } catch (SQLException e) {
+      throw new ForumsRuntimeException(e);
     }
-    return false;
   }
 
   @Override
@@ -566,21 +545,6 @@ public class DefaultForumService implements ForumService {
     }
   }
 
-  /**
-   * Recupere les infos d'un message
-   * @param messagePK la primary key du message
-   * @return Vector la liste des champs du message
-   * @author frageade
-   * @since 04 Octobre 2000
-   */
-  private List getMessageInfos(MessagePK messagePK) {
-    try (Connection con = openConnection()) {
-      return ForumsDAO.getMessageInfos(con, messagePK);
-    } catch (SQLException e) {
-      throw new ForumsRuntimeException(e);
-    }
-  }
-
   @Override
   public Message getMessage(MessagePK messagePK) {
     try (Connection con = openConnection()) {
@@ -107,7 +107,14 @@ public interface ForumService {
 
   Message getLastMessage(ForumPK forumPK, List<String> messageParentId, String status);
 
-  Collection getLastMessageRSS(String instanceId, int nbReturned);
+  /**
+   * Gets the last messages posted in the forums of the specified instance, ordered by descending
+   * date.
+   * @param instanceId the id of the forums instance.
+   * @param nbReturned the maximum number of messages to return.
+   * @return the last messages.
+   */
+  List<Message> getLastMessageRSS(String instanceId, int nbReturned);
 
   int getNbMessages(int forumId, String type, String status);
 
@@ -119,6 +126,19 @@ public interface ForumService {
 
   boolean isNewMessage(String userId, ForumPK forumPK, int messageId, String status);
 
+  /**
+   * Gets in one go the unread states of all the threads of the specified forums for the given
+   * user. It is intended to be used when rendering a list of forums or of threads instead of
+   * calling {@link #isNewMessageByForum(String, ForumPK, String)} or
+   * {@link #isNewMessage(String, ForumPK, int, String)} for each line.
+   * @param userId the id of the user.
+   * @param forumPKs the primary keys of the forums.
+   * @param status the status of the messages to take into account.
+   * @return the unread states of the threads and of the forums.
+   */
+  UnreadMessageStates getUnreadMessageStates(String userId, Collection<ForumPK> forumPKs,
+      String status);
+
   void setLastVisit(String userId, int messageId);
 
   int createMessage(MessagePK messagePK, String messageTitle, String messageAuthor,
@@ -45,6 +45,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -1059,22 +1060,42 @@ public class ForumsDAO {
     return messages;
   }
 
+  private static final String QUERY_GET_LAST_MESSAGES_BY_INSTANCE =
+      "SELECT m." + MESSAGE_COLUMN_MESSAGE_ID + ", m." + MESSAGE_COLUMN_MESSAGE_TITLE + ", m." +
+          MESSAGE_COLUMN_MESSAGE_AUTHOR + ", m." + MESSAGE_COLUMN_FORUM_ID + ", m." +
+          MESSAGE_COLUMN_MESSAGE_PARENT_ID + ", m." + MESSAGE_COLUMN_MESSAGE_DATE + ", m." +
+          MESSAGE_COLUMN_STATUS + " FROM " + MESSAGE_TABLE + " m, sc_forums_forum f WHERE m." +
+          MESSAGE_COLUMN_FORUM_ID + " = f." + FORUM_COLUMN_FORUM_ID + " AND f." +
+          FORUM_COLUMN_INSTANCE_ID + " = ? ORDER BY m." + MESSAGE_COLUMN_MESSAGE_DATE +
+          " DESC, m." + MESSAGE_COLUMN_MESSAGE_ID + " DESC";
+
   /**
+   * Gets the last messages posted in the forums of the specified instance. The messages are
+   * ordered by descending date across all the forums and only the first ones are fetched from
+   * the database.
    * @param con The connection to the database.
    * @param instanceId The id of the forums instance.
-   * @return The list of ids of messages from the forums corresponding to the instance id.
+   * @param nbReturned The maximum number of messages to return.
+   * @return The last messages from the forums corresponding to the instance id.
    * @throws SQLException An SQL exception.
    */
-  public static Collection<String> getLastMessageRSS(Connection con, String instanceId)
-      throws SQLException {
-    Collection<String> messageIds = new ArrayList<>();
-    Collection<Integer> forumIds = getAllForumsByInstanceId(con, instanceId);
-    Iterator<Integer> it = forumIds.iterator();
-    while (it.hasNext()) {
-      int forumId = it.next().intValue();
-      messageIds.addAll(getAllMessageByForum(con, forumId));
+  public static List<Message> getLastMessageRSS(Connection con, String instanceId,
+      int nbReturned) throws SQLException {
+    List<Message> messages = new ArrayList<>(Math.max(0, nbReturned));
+    if (nbReturned <= 0) {
+      return messages;
     }
-    return messageIds;
+    try (PreparedStatement selectStmt = con.prepareStatement(QUERY_GET_LAST_MESSAGES_BY_INSTANCE)) {
+      selectStmt.setMaxRows(nbReturned);
+      selectStmt.setFetchSize(nbReturned);
+      selectStmt.setString(1, instanceId);
+      try (ResultSet rs = selectStmt.executeQuery()) {
+        while (rs.next() && messages.size() < nbReturned) {
+          messages.add(resultSet2Message(rs, instanceId));
+        }
+      }
+    }
+    return messages;
   }
 
   /**
@@ -1103,38 +1124,6 @@ public class ForumsDAO {
     return forumIds;
   }
 
-  private static final String QUERY_GET_ALL_MESSAGES_BY_FORUM =
-      "SELECT " + MESSAGE_COLUMN_MESSAGE_ID + " FROM " + MESSAGE_TABLE + " WHERE " +
-          MESSAGE_COLUMN_FORUM_ID + " = ?" + " ORDER BY " + MESSAGE_COLUMN_MESSAGE_DATE +
-          " DESC, " + MESSAGE_COLUMN_MESSAGE_ID + " DESC";
-
-  /**
-   * @param con The connection to the database.
-   * @param forumId The id of the forum.
-   * @return The list of ids of messages from the forum corresponding to the forum id.
-   * @throws SQLException An SQL exception.
-   */
-  private static Collection<String> getAllMessageByForum(Connection con, int forumId)
-      throws SQLException {
-
-
-    Collection<String> messageIds = new ArrayList<>();
-    PreparedStatement selectStmt = null;
-    ResultSet rs = null;
-    try {
-      selectStmt = con.prepareStatement(QUERY_GET_ALL_MESSAGES_BY_FORUM);
-      selectStmt.setInt(1, forumId);
-      rs = selectStmt.executeQuery();
-
-      while (rs.next()) {
-        messageIds.add(String.valueOf(rs.getInt(1)));
-      }
-    } finally {
-      DBUtil.close(rs, selectStmt);
-    }
-    return messageIds;
-  }
-
   /**
    * @param con The connection to the database.
    * @param forumPK The primary key of the forum.
@@ -1708,6 +1697,55 @@ public class ForumsDAO {
     return lastVisit;
   }
 
+  /**
+   * Computes in one query the unread states of all the threads of the specified forums for the
+   * given user: the messages of the forums are fetched with the last visit of the user on each of
+   * them.
+   * @param con The connection to the database.
+   * @param userId The user's id.
+   * @param forumPKs The primary keys of the forums.
+   * @param status The status of the messages to take into account to compute the date of the
+   * last message of a thread.
+   * @return The unread states of the threads and of the forums.
+   * @throws SQLException An SQL exception.
+   */
+  public static UnreadMessageStates getUnreadMessageStates(Connection con, String userId,
+      Collection<ForumPK> forumPKs, String status) throws SQLException {
+    UnreadMessageStates.Builder builder = new UnreadMessageStates.Builder();
+    if (forumPKs.isEmpty()) {
+      return builder.build();
+    }
+    StringBuilder selectQuery = new StringBuilder(
+        "SELECT m." + MESSAGE_COLUMN_MESSAGE_ID + ", m." + MESSAGE_COLUMN_FORUM_ID + ", m." +
+            MESSAGE_COLUMN_MESSAGE_PARENT_ID + ", m." + MESSAGE_COLUMN_MESSAGE_DATE + ", m." +
+            MESSAGE_COLUMN_STATUS + ", h." + HISTORY_COLUMN_LAST_ACCESS + " FROM " +
+            MESSAGE_TABLE + " m LEFT OUTER JOIN " + HISTORY_TABLE + " h ON h." +
+            HISTORY_COLUMN_MESSAGE_ID + " = m." + MESSAGE_COLUMN_MESSAGE_ID + " AND h." +
+            HISTORY_COLUMN_USER_ID + " = ? WHERE m." + MESSAGE_COLUMN_FORUM_ID + " IN (");
+    selectQuery.append(String.join(", ", Collections.nCopies(forumPKs.size(), "?")));
+    selectQuery.append(")");
+
+    try (PreparedStatement selectStmt = con.prepareStatement(selectQuery.toString())) {
+      int index = 1;
+      selectStmt.setString(index++, userId);
+      for (ForumPK forumPK : forumPKs) {
+        selectStmt.setInt(index++, Integer.parseInt(forumPK.getId()));
+      }
+      try (ResultSet rs = selectStmt.executeQuery()) {
+        while (rs.next()) {
+          Timestamp timestamp = rs.getTimestamp(MESSAGE_COLUMN_MESSAGE_DATE);
+          Long date = (timestamp != null && status.equals(rs.getString(MESSAGE_COLUMN_STATUS)) ?
+              timestamp.getTime() : null);
+          String lastAccess = rs.getString(HISTORY_COLUMN_LAST_ACCESS);
+          builder.add(rs.getInt(MESSAGE_COLUMN_MESSAGE_ID), rs.getInt(MESSAGE_COLUMN_FORUM_ID),
+              rs.getInt(MESSAGE_COLUMN_MESSAGE_PARENT_ID), date,
+              (StringUtil.isDefined(lastAccess) ? Long.parseLong(lastAccess.trim()) : -1));
+        }
+      }
+    }
+    return builder.build();
+  }
+
   private static final String QUERY_ADD_LAST_VISIT =
       "INSERT INTO " + HISTORY_TABLE + " (" + HISTORY_COLUMNS + ")" + " VALUES (?, ?, ?)";
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.forums.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The unread states of the threads and of the forums for a given user.
+ * <p>
+ * The states are computed in one go from the messages of a set of forums joined with the last
+ * visits of the user (see {@link ForumsDAO#getUnreadMessageStates}) so that a whole page of
+ * forums or of threads can be rendered without querying the database for each line.
+ * </p>
+ * A thread is considered as having unread messages when:
+ * <ul>
+ * <li>none of its messages with the expected status has a date,</li>
+ * <li>or the user has never visited any of its messages,</li>
+ * <li>or the last visit of the user is older than the last message of the thread.</li>
+ * </ul>
+ * A forum has unread messages as soon as one of its threads has unread messages.
+ */
+public final class UnreadMessageStates {
+
+  private final Set<Integer> unreadThreadIds;
+  private final Set<Integer> unreadForumIds;
+
+  private UnreadMessageStates(final Set<Integer> unreadThreadIds,
+      final Set<Integer> unreadForumIds) {
+    this.unreadThreadIds = Collections.unmodifiableSet(unreadThreadIds);
+    this.unreadForumIds = Collections.unmodifiableSet(unreadForumIds);
+  }
+
+  /**
+   * Is there unread messages in the specified forum?
+   * @param forumId the id of a forum.
+   * @return true if at least one thread of the forum has unread messages, false otherwise or if
+   * the forum isn't covered by these states.
+   */
+  public boolean isNewMessageByForum(int forumId) {
+    return unreadForumIds.contains(forumId);
+  }
+
+  /**
+   * Is there unread messages in the specified thread?
+   * @param threadId the id of the message starting the thread.
+   * @return true if the thread has unread messages, false otherwise or if the thread isn't
+   * covered by these states.
+   */
+  public boolean isNewMessage(int threadId) {
+    return unreadThreadIds.contains(threadId);
+  }
+
+  /**
+   * Builder of {@link UnreadMessageStates} instances. Each message of the forums is added with
+   * its last visit date by the user, whatever the order in which they are added.
+   */
+  static class Builder {
+
+    private final Map<Integer, MessageRow> messages = new HashMap<>();
+
+    /**
+     * Adds a message.
+     * @param messageId the id of the message.
+     * @param forumId the id of the forum of the message.
+     * @param parentId the id of the parent message, 0 for a thread.
+     * @param date the date of the message if it has the expected status, null otherwise.
+     * @param lastAccess the time in milliseconds of the last visit of the user on the message or
+     * -1 if the message was never visited.
+     * @return itself.
+     */
+    Builder add(int messageId, int forumId, int parentId, Long date, long lastAccess) {
+      MessageRow row = messages.computeIfAbsent(messageId, id -> new MessageRow(forumId, parentId));
+      if (date != null) {
+        row.date = date;
+      }
+      row.lastAccess = Math.max(row.lastAccess, lastAccess);
+      return this;
+    }
+
+    UnreadMessageStates build() {
+      final Map<Integer, ThreadState> threads = new HashMap<>();
+      final Map<Integer, Integer> roots = new HashMap<>(messages.size());
+      for (Map.Entry<Integer, MessageRow> entry : messages.entrySet()) {
+        int rootId = getRootId(entry.getKey(), roots);
+        MessageRow row = entry.getValue();
+        ThreadState thread = threads.computeIfAbsent(rootId, id -> new ThreadState());
+        thread.lastMessage = Math.max(thread.lastMessage, row.date);
+        thread.lastAccess = Math.max(thread.lastAccess, row.lastAccess);
+      }
+
+      final Set<Integer> unreadThreads = new HashSet<>();
+      final Set<Integer> unreadForums = new HashSet<>();
+      for (Map.Entry<Integer, ThreadState> entry : threads.entrySet()) {
+        MessageRow root = messages.get(entry.getKey());
+        if (root.parentId == 0 && entry.getValue().isUnread()) {
+          unreadThreads.add(entry.getKey());
+          unreadForums.add(root.forumId);
+        }
+      }
+      return new UnreadMessageStates(unreadThreads, unreadForums);
+    }
+
+    /**
+     * Gets the id of the message starting the thread of the specified message. The walk stops
+     * at the first ancestor that isn't known, so that orphan messages don't break the
+     * computation.
+     */
+    private int getRootId(int messageId, Map<Integer, Integer> roots) {
+      Integer rootId = roots.get(messageId);
+      if (rootId != null) {
+        return rootId;
+      }
+      int current = messageId;
+      MessageRow row = messages.get(current);
+      final Set<Integer> path = new HashSet<>();
+      while (row.parentId != 0 && messages.containsKey(row.parentId) && path.add(current)) {
+        Integer knownRoot = roots.get(row.parentId);
+        if (knownRoot != null) {
+          current = knownRoot;
+          break;
+        }
+        current = row.parentId;
+        row = messages.get(current);
+      }
+      for (Integer id : path) {
+        roots.put(id, current);
+      }
+      roots.put(messageId, current);
+      return current;
+    }
+  }
+
+  private static class MessageRow {
+    private final int forumId;
+    private final int parentId;
+    private long date = -1;
+    private long lastAccess = -1;
+
+    private MessageRow(final int forumId, final int parentId) {
+      this.forumId = forumId;
+      this.parentId = parentId;
+    }
+  }
+
+  private static class ThreadState {
+    private long lastMessage = -1;
+    private long lastAccess = -1;
+
+    private boolean isUnread() {
+      return lastMessage < 0 || lastAccess < 0 || lastAccess < lastMessage;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.forums.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UnreadMessageStatesTest {
+
+  private static final int FORUM = 1;
+  private static final int OTHER_FORUM = 2;
+
+  @Test
+  public void aThreadNeverVisitedIsUnread() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(10, FORUM, 0, 1000L, -1)
+        .build();
+    assertTrue(states.isNewMessage(10));
+    assertTrue(states.isNewMessageByForum(FORUM));
+  }
+
+  @Test
+  public void aThreadVisitedAfterItsLastMessageIsRead() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(10, FORUM, 0, 1000L, 2000)
+        .add(11, FORUM, 10, 1500L, -1)
+        .build();
+    assertFalse(states.isNewMessage(10));
+    assertFalse(states.isNewMessageByForum(FORUM));
+  }
+
+  @Test
+  public void aReplyPostedAfterTheLastVisitMakesTheThreadUnread() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(10, FORUM, 0, 1000L, 2000)
+        .add(11, FORUM, 10, 1500L, -1)
+        .add(12, FORUM, 11, 3000L, -1)
+        .build();
+    assertTrue(states.isNewMessage(10));
+    assertTrue(states.isNewMessageByForum(FORUM));
+  }
+
+  @Test
+  public void theLastVisitOnAnyMessageOfTheThreadCounts() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(12, FORUM, 11, 3000L, 4000)
+        .add(11, FORUM, 10, 1500L, -1)
+        .add(10, FORUM, 0, 1000L, -1)
+        .build();
+    assertFalse(states.isNewMessage(10));
+  }
+
+  @Test
+  public void aThreadWithoutAnyDatedMessageIsUnread() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(10, FORUM, 0, null, 2000)
+        .build();
+    assertTrue(states.isNewMessage(10));
+  }
+
+  @Test
+  public void severalRowsForTheSameMessageAreMerged() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(10, FORUM, 0, 1000L, 500)
+        .add(10, FORUM, 0, null, 2000)
+        .build();
+    assertFalse(states.isNewMessage(10));
+  }
+
+  @Test
+  public void onlyTheForumsWithUnreadThreadsHaveNewMessages() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(10, FORUM, 0, 1000L, 2000)
+        .add(20, OTHER_FORUM, 0, 1000L, -1)
+        .build();
+    assertFalse(states.isNewMessageByForum(FORUM));
+    assertTrue(states.isNewMessageByForum(OTHER_FORUM));
+    assertFalse(states.isNewMessageByForum(3));
+  }
+
+  @Test
+  public void orphanAndCyclicMessagesDontBreakTheComputation() {
+    UnreadMessageStates states = new UnreadMessageStates.Builder()
+        .add(30, FORUM, 99, 1000L, -1)
+        .add(40, FORUM, 41, 1000L, -1)
+        .add(41, FORUM, 40, 1000L, -1)
+        .add(10, FORUM, 0, 1000L, 2000)
+        .build();
+    assertFalse(states.isNewMessage(30));
+    assertFalse(states.isNewMessage(10));
+    assertFalse(states.isNewMessageByForum(FORUM));
+  }
+}
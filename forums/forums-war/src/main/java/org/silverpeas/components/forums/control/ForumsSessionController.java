@@ -36,6 +36,7 @@ import org.silverpeas.components.forums.notification.ForumsMessageValidationUser
 import org.silverpeas.components.forums.service.ForumService;
 import org.silverpeas.components.forums.service.ForumsException;
 import org.silverpeas.components.forums.service.ForumsServiceProvider;
+import org.silverpeas.components.forums.service.UnreadMessageStates;
 import org.silverpeas.core.ResourceReference;
 import org.silverpeas.core.admin.user.model.UserDetail;
 import org.silverpeas.core.contribution.attachment.model.Attachments;
@@ -661,6 +662,21 @@ public class ForumsSessionController extends AbstractComponentSessionController
         getForumsService().isNewMessage(userId, getForumPK(forumId), messageId, Message.STATUS_VALIDATE);
   }
 
+  /**
+   * Gets the unread states of the threads of the specified forums for the current user in one
+   * go. To be used once per rendered list of forums or of threads.
+   * @param forumIds the ids of the forums.
+   * @return the unread states of the threads and of the forums.
+   */
+  public UnreadMessageStates getUnreadMessageStates(int... forumIds) {
+    List<ForumPK> forumPKs = new ArrayList<>(forumIds.length);
+    for (int forumId : forumIds) {
+      forumPKs.add(getForumPK(forumId));
+    }
+    return getForumsService()
+        .getUnreadMessageStates(getUserId(), forumPKs, Message.STATUS_VALIDATE);
+  }
+
   public void setLastVisit(String userId, int messageId) {
     getForumsService().setLastVisit(userId, messageId);
   }
@@ -25,6 +25,7 @@ package org.silverpeas.components.forums.control.helpers;
 
 import org.silverpeas.components.forums.control.ForumsSessionController;
 import org.silverpeas.components.forums.model.Message;
+import org.silverpeas.components.forums.service.UnreadMessageStates;
 import org.silverpeas.components.forums.url.ActionUrl;
 import org.silverpeas.core.admin.user.model.SilverpeasRole;
 import org.silverpeas.core.util.ArrayUtil;
@@ -118,7 +119,7 @@ public class ForumHelper {
   private static void displayMessageLine(Message message, JspWriter out, LocalizationBundle resource,
       String userId, boolean admin, boolean moderator, boolean reader, boolean view, int depth,
       boolean simpleMode, String call, ForumsSessionController fsc, MultiSilverpeasBundle resources,
-      final boolean isSubscriberByInheritance) {
+      final boolean isSubscriberByInheritance, final UnreadMessageStates unreadStates) {
     try {
       int messageId = message.getId();
       String messageTitle = message.getTitle();
@@ -161,7 +162,7 @@ public class ForumHelper {
 
         // rechercher si l'utilisateur a des messages non lus sur ce sujet
         if (messageParent == 0 && (!fsc.isExternal() || !reader)) {
-          boolean isNewMessage = fsc.isNewMessage(userId, forumId, messageId);
+          boolean isNewMessage = unreadStates.isNewMessage(messageId);
           out.print(
               "<img src=\"icons/" + (isNewMessage ? "newMessage" : "noNewMessage") + ".gif\">");
         }
@@ -310,8 +311,9 @@ public class ForumHelper {
     try {
       Message[] messages = fsc.getMessagesList(currentForumId);
       if (messages.length > 0) {
+        UnreadMessageStates unreadStates = fsc.getUnreadMessageStates(currentForumId);
         scanMessage(messages, out, resource, userId, currentForumId, admin, moderator, reader, view,
-            0, 0, 0, simpleMode, call, fsc, resources, isSubscriberByInheritance);
+            0, 0, 0, simpleMode, call, fsc, resources, isSubscriberByInheritance, unreadStates);
       } else {
         int colspan = 6;
         if (admin || moderator) {
@@ -343,8 +345,10 @@ public class ForumHelper {
             "<table width=\"100%\" border=\"0\" cellspacing=\"0\" cellpadding=\"2\" " +
                 "class=\"principal-message\">");
 
+        UnreadMessageStates unreadStates = fsc.getUnreadMessageStates(currentForumId);
         displayOneMessage(messages, out, resource, userId, admin, moderator, reader, view,
-            messageId, 0, simpleMode, call, fsc, resources, isSubscriberByInheritance);
+            messageId, 0, simpleMode, call, fsc, resources, isSubscriberByInheritance,
+            unreadStates);
         out.println("</table>");
 
         if (messagesCount > 1) {
@@ -353,7 +357,8 @@ public class ForumHelper {
               "cellpadding" +
               "=\"2\">");
           scanMessage(messages, out, resource, userId, currentForumId, admin, moderator, reader,
-              view, messageId, 1, -1, simpleMode, call, fsc, resources, isSubscriberByInheritance);
+              view, messageId, 1, -1, simpleMode, call, fsc, resources, isSubscriberByInheritance,
+              unreadStates);
           out.println("</table>");
           out.println("</div>");
         }
@@ -379,7 +384,8 @@ public class ForumHelper {
   private static void scanMessage(Message[] messages, JspWriter out, LocalizationBundle resource,
       String userId, int currentPage, boolean admin, boolean moderator, boolean reader,
       boolean view, int currentMessageId, int depth, int maxDepth, boolean simpleMode, String call,
-      ForumsSessionController fsc, MultiSilverpeasBundle resources, boolean isSubscriberByInheritance) {
+      ForumsSessionController fsc, MultiSilverpeasBundle resources, boolean isSubscriberByInheritance,
+      UnreadMessageStates unreadStates) {
     for (Message message : messages) {
       int parentId = message.getParentId();
       if (parentId == currentMessageId) {
@@ -392,12 +398,12 @@ public class ForumHelper {
         }
 
         displayMessageLine(message, out, resource, userId, admin, moderator, reader, view, depth,
-            simpleMode, call, fsc, resources, isMessageSubscriberByInheritance);
+            simpleMode, call, fsc, resources, isMessageSubscriberByInheritance, unreadStates);
         boolean hasChildren = hasMessagesChildren(messages, messageId);
         if (hasChildren && (maxDepth == -1 || depth < maxDepth)) {
           scanMessage(messages, out, resource, userId, currentPage, admin, moderator, reader, view,
               messageId, (depth + 1), maxDepth, simpleMode, call, fsc, resources,
-              isMessageSubscriberByInheritance);
+              isMessageSubscriberByInheritance, unreadStates);
         }
       }
     }
@@ -406,7 +412,8 @@ public class ForumHelper {
   private static void displayOneMessage(Message[] messages, JspWriter out, LocalizationBundle resource,
       String userId, boolean admin, boolean moderator, boolean reader, boolean view,
       int currentMessageId, int depth, boolean simpleMode, String call, ForumsSessionController fsc,
-      MultiSilverpeasBundle resources, boolean isSubscriberByInheritance) {
+      MultiSilverpeasBundle resources, boolean isSubscriberByInheritance,
+      UnreadMessageStates unreadStates) {
     int i = 0;
     boolean loop = true;
     while ((i < messages.length) && loop) {
@@ -414,7 +421,7 @@ public class ForumHelper {
       int messageId = message.getId();
       if (messageId == currentMessageId) {
         displayMessageLine(message, out, resource, userId, admin, moderator, reader, view, depth,
-            simpleMode, call, fsc, resources, isSubscriberByInheritance);
+            simpleMode, call, fsc, resources, isSubscriberByInheritance, unreadStates);
         loop = false;
       }
       i++;
@@ -27,6 +27,7 @@ import org.silverpeas.core.silvertrace.SilverTrace;
 import org.silverpeas.core.admin.user.model.SilverpeasRole;
 import org.silverpeas.components.forums.control.ForumsSessionController;
 import org.silverpeas.components.forums.model.Forum;
+import org.silverpeas.components.forums.service.UnreadMessageStates;
 import org.silverpeas.components.forums.url.ActionUrl;
 import org.silverpeas.core.util.ArrayUtil;
 import org.silverpeas.core.util.WebEncodeHelper;
@@ -72,7 +73,8 @@ public class ForumListHelper {
 
   private static void displayForumLine(Forum forum, MultiSilverpeasBundle resources, JspWriter out,
       int currentPage, String call, boolean admin, boolean moderator, boolean reader, int depth,
-      ForumsSessionController fsc, boolean isSubscriberByInheritance) {
+      ForumsSessionController fsc, boolean isSubscriberByInheritance,
+      UnreadMessageStates unreadStates) {
     try {
       int forumId = forum.getId();
       String forumName = forum.getName();
@@ -99,7 +101,7 @@ public class ForumListHelper {
 
       if (!fsc.isExternal() || !reader) {
         // rechercher si l'utilisateur a des messages non lus sur ce forum
-        boolean isNewMessage = fsc.isNewMessageByForum(fsc.getUserId(), forumId);
+        boolean isNewMessage = unreadStates.isNewMessageByForum(forumId);
         out.print(
             "<img src=\"icons/" + (isNewMessage ? "newMessage" : "noNewMessage") + ".gif\"/>");
       }
@@ -263,8 +265,16 @@ public class ForumListHelper {
         }
         out.println("</tr>");
 
+        UnreadMessageStates unreadStates = null;
+        if (!fsc.isExternal() || !reader) {
+          int[] forumIds = new int[forums.length];
+          for (int i = 0; i < forums.length; i++) {
+            forumIds[i] = forums[i].getId();
+          }
+          unreadStates = fsc.getUnreadMessageStates(forumIds);
+        }
         scanForum(forums, resources, out, currentForumId, call, admin, moderator, reader,
-            currentForumId, 0, fsc, isSubscriberByInheritance);
+            currentForumId, 0, fsc, isSubscriberByInheritance, unreadStates);
       }
     } catch (IOException ioe) {
       SilverTrace
@@ -277,6 +287,8 @@ public class ForumListHelper {
       boolean moderator, boolean reader, int currentForumId, String call,
       ForumsSessionController fsc, boolean isSubscriberByInheritance) {
     int[] forumIds = fsc.getForumSonsIds(currentForumId);
+    UnreadMessageStates unreadStates =
+        (!fsc.isExternal() || !reader ? fsc.getUnreadMessageStates(forumIds) : null);
     for (int forumId : forumIds) {
 
       // Verifying subscription by inheritance
@@ -287,14 +299,14 @@ public class ForumListHelper {
 
       Forum forum = fsc.getForum(forumId);
       displayForumLine(forum, resources, out, forum.getParentId(), call, admin, moderator, reader,
-          0, fsc, isForumSubscriberByInheritance);
+          0, fsc, isForumSubscriberByInheritance, unreadStates);
     }
   }
 
   private static void scanForum(Forum[] forums, MultiSilverpeasBundle resources, JspWriter out,
       int currentPage, String call, boolean admin, boolean moderator, boolean reader,
       int currentForumId, int depth, ForumsSessionController fsc,
-      boolean isSubscriberByInheritance) {
+      boolean isSubscriberByInheritance, UnreadMessageStates unreadStates) {
     for (final Forum forum : forums) {
       int forumParent = forum.getParentId();
       if (forumParent == currentForumId) {
@@ -309,10 +321,10 @@ public class ForumListHelper {
         boolean hasChildren = hasChildren(forums, forumId);
         boolean isDeployed = fsc.forumIsDeployed(forumId);
         displayForumLine(forum, resources, out, currentPage, call, admin, moderator, reader, depth,
-            fsc, isForumSubscriberByInheritance);
+            fsc, isForumSubscriberByInheritance, unreadStates);
         if (hasChildren && isDeployed) {
           scanForum(forums, resources, out, currentPage, call, admin, moderator, reader, forumId,
-              depth + 1, fsc, isForumSubscriberByInheritance);
+              depth + 1, fsc, isForumSubscriberByInheritance, unreadStates);
         }
       }
     }
@@ -23,26 +23,93 @@
  */
 package org.silverpeas.components.forums.servlets;
 
+import org.silverpeas.components.forums.model.Message;
+import org.silverpeas.core.admin.service.AdminController;
+import org.silverpeas.core.admin.service.OrganizationController;
+import org.silverpeas.core.admin.user.model.UserFull;
+import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.URLUtil;
 import org.silverpeas.core.web.util.servlet.RssServlet;
 
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 import static org.silverpeas.components.forums.service.ForumsServiceProvider.getForumsService;
 
-public class ForumsRssServlet extends RssServlet {
+/**
+ * The RSS feed of the last messages of a forums instance.
+ * <p>
+ * Feed readers poll the feeds very often whereas the messages of a forums instance change
+ * rarely. So, the last messages of each instance are kept in memory for {@link #CACHE_TTL}
+ * milliseconds, with an entity tag computed from them (their identifier, title, author, status
+ * and date, so that an edited title or a validated message change it) and the date of the last
+ * of them. A conditional request of a user allowed to read the feed is answered from this cache
+ * before any query: a feed that didn't change is then answered with a 304 status and no content.
+ * The validators are given only once the same credentials as those checked by
+ * {@link RssServlet#doGet(HttpServletRequest, HttpServletResponse)} are verified, so that
+ * nothing about the feed leaks to a client that cannot read it.
+ * </p>
+ */
+public class ForumsRssServlet extends RssServlet<Message> {
 
   private static final long serialVersionUID = -1153108746674900992L;
+  private static final long CACHE_TTL = TimeUnit.MINUTES.toMillis(1);
+  private static final String USER_ID_PARAM = "userId";
+  private static final String LOGIN_PARAM = "login";
+  private static final String PASSWORD_PARAM = "password";
+
+  private final transient Map<String, CachedFeed> feeds = new ConcurrentHashMap<>();
+
+  @Inject
+  private AdminController adminController;
+
+  @Inject
+  private OrganizationController organizationController;
+
+  @Override
+  public void doGet(HttpServletRequest req, HttpServletResponse res)
+      throws ServletException, IOException {
+    String instanceId = getInstanceId(req);
+    // the number of messages of the feed is known only once it has been served a first time
+    CachedFeed feed = instanceId != null ? feeds.get(instanceId) : null;
+    if (feed != null && isAuthorized(req, instanceId)) {
+      if (!feed.isFresh()) {
+        feed = load(instanceId, feed.nbReturned);
+      }
+      res.setHeader("ETag", feed.eTag);
+      if (feed.lastModified > 0) {
+        res.setDateHeader("Last-Modified", feed.lastModified);
+      }
+      if (isNotModified(req, feed)) {
+        res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return;
+      }
+    }
+    super.doGet(req, res);
+  }
 
   /*
    * (non-Javadoc)
    * @see org.silverpeas.core.web.util.servlet.RssServlet#getListElements(java.lang.String, int)
    */
   @Override
-  public Collection getListElements(String instanceId, int nbReturned) {
-    return getForumsService().getLastMessageRSS(instanceId, nbReturned);
+  public Collection<Message> getListElements(String instanceId, int nbReturned) {
+    CachedFeed feed = feeds.get(instanceId);
+    if (feed == null || !feed.isFresh() || feed.nbReturned != nbReturned) {
+      feed = load(instanceId, nbReturned);
+    }
+    return feed.messages;
   }
 
   /*
@@ -50,9 +117,8 @@ public class ForumsRssServlet extends RssServlet {
    * @see org.silverpeas.core.web.util.servlet.RssServlet#getElementTitle(java.lang.Object, java.lang.String)
    */
   @Override
-  public String getElementTitle(Object element, String userId) {
-    List message = (List) element;
-    return (String) message.get(1);
+  public String getElementTitle(Message message, String userId) {
+    return message.getTitle();
   }
 
   /*
@@ -60,12 +126,10 @@ public class ForumsRssServlet extends RssServlet {
    * @see org.silverpeas.core.web.util.servlet.RssServlet#getElementLink(java.lang.Object, java.lang.String)
    */
   @Override
-  public String getElementLink(Object element, String userId) {
-    List message = (List) element;
-    final int forumIdIndex = 4;
+  public String getElementLink(Message message, String userId) {
     return URLUtil.getApplicationURL() + "/ForumsMessage/"
-        + message.get(0) + "?ForumId="
-        + message.get(forumIdIndex);
+        + message.getId() + "?ForumId="
+        + message.getForumId();
   }
 
   /*
@@ -74,9 +138,8 @@ public class ForumsRssServlet extends RssServlet {
    * java.lang.String)
    */
   @Override
-  public String getElementDescription(Object element, String userId) {
-    List message = (List) element;
-    return (String) message.get(1);
+  public String getElementDescription(Message message, String userId) {
+    return message.getTitle();
   }
 
   /*
@@ -84,16 +147,114 @@ public class ForumsRssServlet extends RssServlet {
    * @see org.silverpeas.core.web.util.servlet.RssServlet#getElementDate(java.lang.Object)
    */
   @Override
-  public Date getElementDate(Object element) {
-    List message = (List) element;
-    final int dateIndex = 3;
-    return  (Date) message.get(dateIndex);
+  public Date getElementDate(Message message) {
+    return message.getDate();
   }
 
   @Override
-  public String getElementCreatorId(Object element) {
-    List message = (List) element;
-    final int creatorIdIndex = 2;
-    return (String) message.get(creatorIdIndex);
+  public String getElementCreatorId(Message message) {
+    return message.getAuthor();
+  }
+
+  private CachedFeed load(String instanceId, int nbReturned) {
+    List<Message> messages = getForumsService().getLastMessageRSS(instanceId, nbReturned);
+    CachedFeed feed = new CachedFeed(messages, nbReturned);
+    feeds.put(instanceId, feed);
+    return feed;
+  }
+
+  /**
+   * Is the user behind the request allowed to read the feed of the specified forums instance? The
+   * user is identified by the credentials passed in the feed URL, as for any Silverpeas feed.
+   */
+  private boolean isAuthorized(HttpServletRequest req, String instanceId) {
+    String userId = req.getParameter(USER_ID_PARAM);
+    String login = req.getParameter(LOGIN_PARAM);
+    String password = req.getParameter(PASSWORD_PARAM);
+    if (!StringUtil.isDefined(userId) || login == null || password == null) {
+      return false;
+    }
+    UserFull user = adminController.getUserFull(userId);
+    return user != null && login.equals(user.getLogin()) && password.equals(user.getPassword()) &&
+        StringUtil.getBooleanValue(
+            organizationController.getComponentParameterValue(instanceId, "rss")) &&
+        organizationController.isComponentAvailable(instanceId, userId);
+  }
+
+  /**
+   * Gets the identifier of the forums instance from the path of the feed URL
+   * (/rssforums/[instanceId]).
+   */
+  private static String getInstanceId(HttpServletRequest req) {
+    String pathInfo = req.getPathInfo();
+    if (!StringUtil.isDefined(pathInfo)) {
+      return null;
+    }
+    String instanceId = pathInfo.startsWith("/") ? pathInfo.substring(1) : pathInfo;
+    int slash = instanceId.indexOf('/');
+    instanceId = slash >= 0 ? instanceId.substring(0, slash) : instanceId;
+    return StringUtil.isDefined(instanceId) ? instanceId : null;
+  }
+
+  private static boolean isNotModified(HttpServletRequest req, CachedFeed feed) {
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      // the entity tag takes precedence over the date as it also changes with an edited message
+      return ifNoneMatch.contains(feed.eTag) || "*".equals(ifNoneMatch.trim());
+    }
+    if (feed.lastModified > 0) {
+      long ifModifiedSince;
+      try {
+        ifModifiedSince = req.getDateHeader("If-Modified-Since");
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+      // HTTP dates have a precision of one second
+      return ifModifiedSince >= 0 && feed.lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+    return false;
+  }
+
+  private static String computeETag(List<Message> messages) {
+    CRC32 checksum = new CRC32();
+    for (Message message : messages) {
+      String key = message.getId() + "|" + message.getForumId() + "|" + message.getTitle() + "|" +
+          message.getAuthor() + "|" + message.getStatus() + "|" +
+          (message.getDate() != null ? message.getDate().getTime() : 0) + "\n";
+      checksum.update(key.getBytes(StandardCharsets.UTF_8));
+    }
+    return "\"" + messages.size() + "-" + Long.toHexString(checksum.getValue()) + "\"";
+  }
+
+  private static long computeLastModified(List<Message> messages) {
+    long lastModified = 0;
+    for (Message message : messages) {
+      if (message.getDate() != null) {
+        lastModified = Math.max(lastModified, message.getDate().getTime());
+      }
+    }
+    return lastModified;
+  }
+
+  /**
+   * The last messages of a forums instance with the validators of the feed made of them.
+   */
+  private static class CachedFeed {
+    private final List<Message> messages;
+    private final int nbReturned;
+    private final String eTag;
+    private final long lastModified;
+    private final long timestamp = System.currentTimeMillis();
+
+    private CachedFeed(final List<Message> messages, final int nbReturned) {
+      this.messages = messages;
+      this.nbReturned = nbReturned;
+      this.eTag = computeETag(messages);
+      this.lastModified = computeLastModified(messages);
+    }
+
+    private boolean isFresh() {
+      return System.currentTimeMillis() - timestamp < CACHE_TTL;
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.gallery;
+
+import org.silverpeas.components.gallery.model.GalleryRuntimeException;
+import org.silverpeas.components.gallery.model.MediaPK;
+import org.silverpeas.core.util.SettingBundle;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The queue of the media files being processed (thumbnails, watermarks, metadata, copies).
+ * <p>
+ * Several media can be processed in parallel, up to the number set by the
+ * <code>media.processing.maxConcurrent</code> property in the gallery settings (by default the
+ * number of available processors). Beyond, the processing waits for a free slot: this
+ * backpressure prevents a massive upload from exhausting the CPU and the memory of the server.
+ * If no slot gets free within <code>media.processing.maxWaitSeconds</code> seconds, the
+ * processing is aborted.
+ * </p>
+ * <p>
+ * The processing of a given media is serialized: the locks are striped on the media identifier
+ * (<code>media.processing.lockStripes</code> locks), so that two processing of the same media
+ * never run at the same time while the processing of different media rarely wait for each other.
+ * </p>
+ * The number of media waiting and being processed per gallery instance can be got at any time
+ * (see {@link #getStatus(String)}).
+ */
+public final class MediaProcessingQueue {
+
+  private final Semaphore slots;
+  private final long maxWaitInSeconds;
+  private final ReentrantLock[] locks;
+  private final ConcurrentMap<String, Status> statuses = new ConcurrentHashMap<>();
+
+  /**
+   * A processing of a media.
+   * @param <E> the type of the exception thrown by the processing.
+   */
+  @FunctionalInterface
+  public interface MediaProcessing<E extends Exception> {
+    void process() throws E;
+  }
+
+  private MediaProcessingQueue(final SettingBundle settings) {
+    this(settings.getInteger("media.processing.maxConcurrent",
+        Runtime.getRuntime().availableProcessors()),
+        settings.getInteger("media.processing.lockStripes", 64),
+        settings.getInteger("media.processing.maxWaitSeconds", 600));
+  }
+
+  MediaProcessingQueue(final int maxConcurrent, final int lockStripes,
+      final long maxWaitInSeconds) {
+    this.slots = new Semaphore(Math.max(1, maxConcurrent), true);
+    this.maxWaitInSeconds = maxWaitInSeconds;
+    this.locks = new ReentrantLock[Math.max(1, lockStripes)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  public static MediaProcessingQueue get() {
+    return InstanceHolder.instance;
+  }
+
+  /**
+   * Processes the specified media once a processing slot is free and once no other processing
+   * of the same media is running. The method returns when the processing is done.
+   * @param media the primary key of the media to process.
+   * @param processing the processing.
+   * @param <E> the type of the exception thrown by the processing.
+   * @throws E if the processing fails.
+   * @throws GalleryRuntimeException if no processing slot gets free in time.
+   */
+  public <E extends Exception> void process(final MediaPK media,
+      final MediaProcessing<E> processing) throws E {
+    process(media, media, processing);
+  }
+
+  /**
+   * Processes with the specified media some others, for example the target of a copy, once a
+   * processing slot is free and once no other processing of both media is running. The method
+   * returns when the processing is done.
+   * @param media the primary key of the media to process.
+   * @param otherMedia the primary key of the other media involved in the processing.
+   * @param processing the processing.
+   * @param <E> the type of the exception thrown by the processing.
+   * @throws E if the processing fails.
+   * @throws GalleryRuntimeException if no processing slot gets free in time.
+   */
+  public <E extends Exception> void process(final MediaPK media, final MediaPK otherMedia,
+      final MediaProcessing<E> processing) throws E {
+    final Status status =
+        statuses.computeIfAbsent(String.valueOf(media.getInstanceId()), i -> new Status());
+    status.waiting.incrementAndGet();
+    boolean waiting = true;
+    try {
+      acquireSlot(media);
+      try {
+        // the locks are always taken in the same order to avoid dead locks
+        final int first = Math.min(stripeOf(media), stripeOf(otherMedia));
+        final int second = Math.max(stripeOf(media), stripeOf(otherMedia));
+        locks[first].lock();
+        try {
+          locks[second].lock();
+          try {
+            status.waiting.decrementAndGet();
+            waiting = false;
+            status.processing.incrementAndGet();
+            try {
+              processing.process();
+            } finally {
+              status.processing.decrementAndGet();
+              status.processed.incrementAndGet();
+            }
+          } finally {
+            locks[second].unlock();
+          }
+        } finally {
+          locks[first].unlock();
+        }
+      } finally {
+        slots.release();
+      }
+    } finally {
+      if (waiting) {
+        status.waiting.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Gets the status of the processing of the media of the specified gallery instance.
+   * @param instanceId the identifier of a gallery instance.
+   * @return the processing status of the media of the instance.
+   */
+  public Status getStatus(final String instanceId) {
+    return statuses.getOrDefault(instanceId, new Status());
+  }
+
+  private void acquireSlot(final MediaPK media) {
+    try {
+      if (!slots.tryAcquire(maxWaitInSeconds, TimeUnit.SECONDS)) {
+        throw new GalleryRuntimeException(
+            "Too many media being processed, media " + media.getId() + " not processed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GalleryRuntimeException(e);
+    }
+  }
+
+  private int stripeOf(final MediaPK media) {
+    return Math.floorMod((media.getInstanceId() + ":" + media.getId()).hashCode(), locks.length);
+  }
+
+  private static class InstanceHolder {
+    private static final MediaProcessingQueue instance =
+        new MediaProcessingQueue(GalleryComponentSettings.getSettings());
+  }
+
+  /**
+   * The processing status of the media of a gallery instance.
+   */
+  public static class Status {
+    private final AtomicInteger waiting = new AtomicInteger(0);
+    private final AtomicInteger processing = new AtomicInteger(0);
+    private final AtomicInteger processed = new AtomicInteger(0);
+
+    /**
+     * @return the number of media waiting to be processed.
+     */
+    public int getWaiting() {
+      return waiting.get();
+    }
+
+    /**
+     * @return the number of media being processed.
+     */
+    public int getProcessing() {
+      return processing.get();
+    }
+
+    /**
+     * @return the number of media processed since the start of the server.
+     */
+    public int getProcessed() {
+      return processed.get();
+    }
+  }
+}
@@ -143,16 +143,18 @@ public class MediaUtil {
    * @param fileItem the current uploaded sound
    * @throws Exception
    */
-  public static synchronized void processSound(final FileHandler fileHandler, Sound sound,
+  public static void processSound(final FileHandler fileHandler, Sound sound,
       final FileItem fileItem) throws Exception {
     if (fileItem != null) {
       String name = fileItem.getName();
       if (name != null) {
         try {
-          sound.setFileName(StringUtil.normalize(FileUtil.getFilename(name)));
-          final HandledFile handledSoundFile = getHandledFile(fileHandler, sound);
-          handledSoundFile.copyInputStreamToFile(fileItem.getInputStream());
-          new SoundProcess(handledSoundFile, sound).process();
+          MediaProcessingQueue.get().process(sound.getMediaPK(), () -> {
+            sound.setFileName(StringUtil.normalize(FileUtil.getFilename(name)));
+            final HandledFile handledSoundFile = getHandledFile(fileHandler, sound);
+            handledSoundFile.copyInputStreamToFile(fileItem.getInputStream());
+            new SoundProcess(handledSoundFile, sound).process();
+          });
         } finally {
           fileItem.delete();
         }
@@ -167,14 +169,16 @@ public class MediaUtil {
    * @param uploadedFile the current uploaded sound
    * @throws Exception
    */
-  public static synchronized void processSound(final FileHandler fileHandler, Sound sound,
+  public static void processSound(final FileHandler fileHandler, Sound sound,
       final File uploadedFile) throws Exception {
     if (uploadedFile != null) {
       try {
-        sound.setFileName(StringUtil.normalize(uploadedFile.getName()));
-        final HandledFile handledSoundFile = getHandledFile(fileHandler, sound);
-        fileHandler.copyFile(uploadedFile, handledSoundFile);
-        new SoundProcess(handledSoundFile, sound).process();
+        MediaProcessingQueue.get().process(sound.getMediaPK(), () -> {
+          sound.setFileName(StringUtil.normalize(uploadedFile.getName()));
+          final HandledFile handledSoundFile = getHandledFile(fileHandler, sound);
+          fileHandler.copyFile(uploadedFile, handledSoundFile);
+          new SoundProcess(handledSoundFile, sound).process();
+        });
       } finally {
         FileUtils.deleteQuietly(uploadedFile);
       }
@@ -188,16 +192,18 @@ public class MediaUtil {
    * @param fileItem the current uploaded video
    * @throws Exception
    */
-  public static synchronized void processVideo(final FileHandler fileHandler, Video video,
+  public static void processVideo(final FileHandler fileHandler, Video video,
       final FileItem fileItem) throws Exception {
     if (fileItem != null) {
       String name = fileItem.getName();
       if (name != null) {
         try {
-          video.setFileName(StringUtil.normalize(FileUtil.getFilename(name)));
-          final HandledFile handledVideoFile = getHandledFile(fileHandler, video);
-          handledVideoFile.copyInputStreamToFile(fileItem.getInputStream());
-          new VideoProcess(handledVideoFile, video).process();
+          MediaProcessingQueue.get().process(video.getMediaPK(), () -> {
+            video.setFileName(StringUtil.normalize(FileUtil.getFilename(name)));
+            final HandledFile handledVideoFile = getHandledFile(fileHandler, video);
+            handledVideoFile.copyInputStreamToFile(fileItem.getInputStream());
+            new VideoProcess(handledVideoFile, video).process();
+          });
         } finally {
           fileItem.delete();
         }
@@ -212,14 +218,16 @@ public class MediaUtil {
    * @param uploadedFile the current uploaded video
    * @throws Exception
    */
-  public static synchronized void processVideo(final FileHandler fileHandler, Video video,
+  public static void processVideo(final FileHandler fileHandler, Video video,
       final File uploadedFile) throws Exception {
     if (uploadedFile != null) {
       try {
-        video.setFileName(StringUtil.normalize(uploadedFile.getName()));
-        final HandledFile handledVideoFile = getHandledFile(fileHandler, video);
-        fileHandler.copyFile(uploadedFile, handledVideoFile);
-        new VideoProcess(handledVideoFile, video).process();
+        MediaProcessingQueue.get().process(video.getMediaPK(), () -> {
+          video.setFileName(StringUtil.normalize(uploadedFile.getName()));
+          final HandledFile handledVideoFile = getHandledFile(fileHandler, video);
+          fileHandler.copyFile(uploadedFile, handledVideoFile);
+          new VideoProcess(handledVideoFile, video).process();
+        });
       } finally {
         FileUtils.deleteQuietly(uploadedFile);
       }
@@ -235,16 +243,18 @@ public class MediaUtil {
    * {@link Watermark} instance.
    * @throws Exception on technical error.
    */
-  public static synchronized void processPhoto(final FileHandler fileHandler, final Photo photo,
+  public static void processPhoto(final FileHandler fileHandler, final Photo photo,
       final FileItem image, final Watermark watermark) throws Exception {
     if (image != null) {
       String name = image.getName();
       if (name != null) {
         try {
-          photo.setFileName(StringUtil.normalize(image.getName()));
-          final HandledFile handledImageFile = getHandledFile(fileHandler, photo);
-          handledImageFile.copyInputStreamToFile(image.getInputStream());
-          new PhotoProcess(handledImageFile, photo, watermark).process();
+          MediaProcessingQueue.get().process(photo.getMediaPK(), () -> {
+            photo.setFileName(StringUtil.normalize(image.getName()));
+            final HandledFile handledImageFile = getHandledFile(fileHandler, photo);
+            handledImageFile.copyInputStreamToFile(image.getInputStream());
+            new PhotoProcess(handledImageFile, photo, watermark).process();
+          });
         } finally {
           image.delete();
         }
@@ -263,14 +273,16 @@ public class MediaUtil {
    * {@link Watermark} instance.
    * @throws Exception on technical error.
    */
-  public static synchronized void processPhoto(final FileHandler fileHandler, final Photo photo,
+  public static void processPhoto(final FileHandler fileHandler, final Photo photo,
       final File image, final Watermark watermark) throws Exception {
     if (image != null) {
       try {
-        photo.setFileName(StringUtil.normalize(image.getName()));
-        final HandledFile handledImageFile = getHandledFile(fileHandler, photo);
-        fileHandler.copyFile(image, handledImageFile);
-        new PhotoProcess(handledImageFile, photo, watermark).process();
+        MediaProcessingQueue.get().process(photo.getMediaPK(), () -> {
+          photo.setFileName(StringUtil.normalize(image.getName()));
+          final HandledFile handledImageFile = getHandledFile(fileHandler, photo);
+          fileHandler.copyFile(image, handledImageFile);
+          new PhotoProcess(handledImageFile, photo, watermark).process();
+        });
       } finally {
         FileUtils.deleteQuietly(image);
       }
@@ -284,7 +296,13 @@ public class MediaUtil {
    * @param media the destination.
    * @param cut true if it is a cut operation, false if it is a copy one.
    */
-  public static synchronized void pasteInternalMedia(final FileHandler fileHandler,
+  public static void pasteInternalMedia(final FileHandler fileHandler,
+      final MediaPK fromPK, final InternalMedia media, final boolean cut) {
+    MediaProcessingQueue.get().process(fromPK, media.getMediaPK(),
+        () -> pasteInternalMediaFiles(fileHandler, fromPK, media, cut));
+  }
+
+  private static void pasteInternalMediaFiles(final FileHandler fileHandler,
       final MediaPK fromPK, final InternalMedia media, final boolean cut) {
     InternalMedia fromMedia = media.getType().newInstance();
     fromMedia.setMediaPK(fromPK);
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.gallery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.gallery.model.MediaPK;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class MediaProcessingQueueTest {
+
+  private static final String INSTANCE_ID = "gallery26";
+  private static final int NB_PROCESSING = 20;
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void startExecutor() {
+    executor = Executors.newFixedThreadPool(8);
+  }
+
+  @AfterEach
+  public void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void theProcessingOfASameMediaAreNeverConcurrent() throws Exception {
+    final MediaProcessingQueue queue = new MediaProcessingQueue(4, 16, 10);
+    final MediaPK media = new MediaPK("12", INSTANCE_ID);
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+
+    runInParallel(() -> queue.process(media, () -> trackConcurrency(running, maxRunning)));
+
+    assertThat(maxRunning.get(), equalTo(1));
+    assertThat(queue.getStatus(INSTANCE_ID).getProcessed(), equalTo(NB_PROCESSING));
+  }
+
+  @Test
+  public void theProcessingOfDistinctMediaAreConcurrentUpToTheLimit() throws Exception {
+    final MediaProcessingQueue queue = new MediaProcessingQueue(2, 1024, 10);
+    final AtomicInteger mediaId = new AtomicInteger(0);
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+
+    runInParallel(() -> {
+      MediaPK media = new MediaPK(String.valueOf(mediaId.incrementAndGet()), INSTANCE_ID);
+      queue.process(media, () -> trackConcurrency(running, maxRunning));
+    });
+
+    assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+    MediaProcessingQueue.Status status = queue.getStatus(INSTANCE_ID);
+    assertThat(status.getWaiting(), equalTo(0));
+    assertThat(status.getProcessing(), equalTo(0));
+    assertThat(status.getProcessed(), equalTo(NB_PROCESSING));
+  }
+
+  @Test
+  public void theWaitingAndTheRunningProcessingAreReported() throws Exception {
+    final MediaProcessingQueue queue = new MediaProcessingQueue(1, 16, 10);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Future<?> first = executor.submit(() -> {
+      queue.process(new MediaPK("1", INSTANCE_ID), () -> {
+        started.countDown();
+        release.await();
+      });
+      return null;
+    });
+    started.await(5, TimeUnit.SECONDS);
+    Future<?> second = executor.submit(() -> {
+      queue.process(new MediaPK("2", INSTANCE_ID), () -> {
+      });
+      return null;
+    });
+    while (queue.getStatus(INSTANCE_ID).getWaiting() == 0) {
+      Thread.sleep(10);
+    }
+
+    MediaProcessingQueue.Status status = queue.getStatus(INSTANCE_ID);
+    assertThat(status.getProcessing(), equalTo(1));
+    assertThat(status.getWaiting(), equalTo(1));
+
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertThat(status.getProcessed(), equalTo(2));
+  }
+
+  private void runInParallel(final MediaTask task) throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < NB_PROCESSING; i++) {
+      futures.add(executor.submit(() -> {
+        task.run();
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void trackConcurrency(final AtomicInteger running, final AtomicInteger maxRunning)
+      throws InterruptedException {
+    int current = running.incrementAndGet();
+    maxRunning.accumulateAndGet(current, Math::max);
+    Thread.sleep(5);
+    running.decrementAndGet();
+  }
+
+  @FunctionalInterface
+  private interface MediaTask {
+    void run() throws Exception;
+  }
+}
@@ -23,23 +23,44 @@
  */
 package org.silverpeas.components.gallery.control;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.Collection;
-import java.util.List;
-
-import org.silverpeas.core.importexport.ExportException;
-import org.silverpeas.core.importexport.ImportExportDescriptor;
 import org.silverpeas.components.gallery.constant.MediaResolution;
 import org.silverpeas.components.gallery.model.AlbumDetail;
 import org.silverpeas.components.gallery.model.Media;
-import org.silverpeas.core.importexport.control.AbstractExportProcess;
-import org.silverpeas.core.importexport.report.ExportReport;
 import org.silverpeas.components.gallery.service.GalleryService;
 import org.silverpeas.components.gallery.service.MediaServiceProvider;
+import org.silverpeas.core.importexport.ImportExportDescriptor;
+import org.silverpeas.core.importexport.control.AbstractExportProcess;
 import org.silverpeas.core.util.file.FileUtil;
-import org.silverpeas.core.admin.user.model.UserDetail;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporter of the media of a gallery into a zip archive.
+ * <p>
+ * The archive is streamed: the media files are written directly into the zip output, usually
+ * the output stream of an HTTP response, without being first copied into an export directory
+ * nor into a temporary zip file. Each media file is read once and the content
+ * that is already compressed (JPEG pictures, videos, sounds, ...) is stored without being
+ * deflated again.
+ * </p>
+ */
 public class GalleryExporter extends AbstractExportProcess {
 
   /**
@@ -62,68 +83,137 @@ public class GalleryExporter extends AbstractExportProcess {
    */
   public static final String EXPORT_PHOTOS = "gallery.export.photos";
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private static GalleryService getMediaService() {
     return MediaServiceProvider.getMediaService();
   }
 
-  public void exportAlbum(ImportExportDescriptor exportDescriptor, ExportReport exportReport)
-      throws ExportException {
-    try {
-      UserDetail userDetail = exportDescriptor.getParameter(EXPORT_FOR_USER);
-      File tempExportDir = createExportDir(userDetail);
-      MediaResolution mediaResolution = exportDescriptor.getParameter(EXPORT_RESOLUTION);
-
-      // Retrieve all picture from current album and sub albums
-      AlbumDetail albumDetail = exportDescriptor.getParameter(EXPORT_ALBUM);
-      exportAlbumMedia(albumDetail, mediaResolution, tempExportDir);
-      createZipFile(tempExportDir, exportReport);
-    } catch (Exception e) {
-      throw new ExportException(e);
+  /**
+   * Writes as a zip archive into the given output the photos of the album referred by the
+   * export descriptor and of all its sub albums, each sub album being a folder of the archive.
+   * The output isn't closed by this method so that it can be the one of an HTTP response.
+   * @param exportDescriptor the export descriptor with the album and the media resolution.
+   * @param output the output into which the zip archive is written.
+   * @throws IOException if an error occurs while writing the archive.
+   */
+  public void writeAlbum(ImportExportDescriptor exportDescriptor, OutputStream output)
+      throws IOException {
+    MediaResolution mediaResolution = exportDescriptor.getParameter(EXPORT_RESOLUTION);
+    AlbumDetail albumDetail = exportDescriptor.getParameter(EXPORT_ALBUM);
+    ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+    MediaZipWriter writer = new MediaZipWriter(zip, mediaResolution);
+    writer.add("", albumDetail.getMedia());
+    Map<String, List<AlbumDetail>> subAlbums = getSubAlbumsByParent(albumDetail);
+    addSubAlbums(albumDetail.getNodePK().getId(), "", subAlbums, writer);
+    writer.write();
+    zip.finish();
+    zip.flush();
+  }
+
+  /**
+   * Writes as a zip archive into the given output the specified photos. The output isn't closed
+   * by this method so that it can be the one of an HTTP response.
+   * @param exportDescriptor the export descriptor with the media resolution.
+   * @param medias the media to export.
+   * @param output the output into which the zip archive is written.
+   * @throws IOException if an error occurs while writing the archive.
+   */
+  public void writePhotos(ImportExportDescriptor exportDescriptor, List<Media> medias,
+      OutputStream output) throws IOException {
+    MediaResolution mediaResolution = exportDescriptor.getParameter(EXPORT_RESOLUTION);
+    ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+    MediaZipWriter writer = new MediaZipWriter(zip, mediaResolution);
+    writer.add("", medias);
+    writer.write();
+    zip.finish();
+    zip.flush();
+  }
+
+  /**
+   * Walks the sub albums of the given one: their media are fetched album by album from the
+   * tree of albums that is loaded once for the whole gallery.
+   */
+  private void addSubAlbums(String parentId, String folder,
+      Map<String, List<AlbumDetail>> subAlbums, MediaZipWriter writer) {
+    for (AlbumDetail subAlbum : subAlbums.getOrDefault(parentId, Collections.emptyList())) {
+      String subFolder = folder + subAlbum.getName() + "/";
+      writer.add(subFolder, getMediaService().getAllMedia(subAlbum.getNodePK()));
+      addSubAlbums(subAlbum.getNodePK().getId(), subFolder, subAlbums, writer);
     }
   }
 
-  public void exportPhotos(ImportExportDescriptor exportDescriptor, List<Media> medias,
-      ExportReport exportReport) throws ExportException {
-    try {
-      UserDetail userDetail = exportDescriptor.getParameter(EXPORT_FOR_USER);
-      File tempExportDir = createExportDir(userDetail);
-      MediaResolution mediaResolution = exportDescriptor.getParameter(EXPORT_RESOLUTION);
-      // Retrieve all picture from current album and sub albums
-      prepareZipContent(medias, tempExportDir, mediaResolution);
-      createZipFile(tempExportDir, exportReport);
-    } catch (Exception e) {
-      throw new ExportException(e);
+  private Map<String, List<AlbumDetail>> getSubAlbumsByParent(AlbumDetail albumDetail) {
+    Map<String, List<AlbumDetail>> subAlbums = new HashMap<>();
+    if (albumDetail.getChildrenNumber() > 0) {
+      String instanceId = albumDetail.getNodePK().getInstanceId();
+      for (AlbumDetail album : getMediaService().getAllAlbums(instanceId)) {
+        if (album.getFatherPK() != null) {
+          subAlbums.computeIfAbsent(album.getFatherPK().getId(), k -> new ArrayList<>()).add(album);
+        }
+      }
     }
+    return subAlbums;
   }
 
   /**
-   * Copy media of the given resolution inside temporary given directory
-   * @param medias the list of medias to export
-   * @param tempExportDir the temporary exported directory
-   * @param mediaResolution the exported media resolution
-   * @throws IOException
+   * Writes the files of photos into a zip stream. The files are first gathered by entry name:
+   * as with a copy into an export directory, a file with the same name in the same folder replaces
+   * the previous one (the zip format doesn't allow duplicate entries). The content of each file is
+   * then transferred once from its channel to the zip stream; the already compressed formats aren't
+   * deflated again.
    */
-  private void prepareZipContent(List<Media> medias, File tempExportDir,
-      MediaResolution mediaResolution) throws IOException {
-    for (Media media : medias) {
-      if (media.getType().isPhoto()) {
-        File mediaFile = media.getFile(mediaResolution);
-        FileUtil.copyFile(mediaFile, new File(tempExportDir, mediaFile.getName()));
+  private static class MediaZipWriter {
+
+    private final ZipOutputStream zip;
+    private final WritableByteChannel zipChannel;
+    private final MediaResolution mediaResolution;
+    private final Map<String, File> entries = new LinkedHashMap<>();
+
+    private MediaZipWriter(ZipOutputStream zip, MediaResolution mediaResolution) {
+      this.zip = zip;
+      this.zipChannel = Channels.newChannel(zip);
+      this.mediaResolution = mediaResolution;
+    }
+
+    private void add(String folder, Collection<Media> medias) {
+      for (Media media : medias) {
+        if (media.getType().isPhoto()) {
+          File mediaFile = media.getFile(mediaResolution);
+          if (mediaFile != null && mediaFile.isFile()) {
+            entries.put(folder + mediaFile.getName(), mediaFile);
+          }
+        }
       }
     }
-  }
 
-  private void exportAlbumMedia(AlbumDetail albumDetail, MediaResolution mediaResolution,
-      File tempExportDir) throws IOException {
-    List<Media> medias = albumDetail.getMedia();
-    prepareZipContent(medias, tempExportDir, mediaResolution);
-    if (albumDetail.getChildrenNumber() > 0) {
-      Collection<AlbumDetail> subAlbums = albumDetail.getChildrenAlbumsDetails();
-      for (AlbumDetail subAlbum : subAlbums) {
-        subAlbum = getMediaService().getAlbum(subAlbum.getNodePK());
-        File tempSubAlbum = new File(tempExportDir, subAlbum.getName());
-        exportAlbumMedia(subAlbum, mediaResolution, tempSubAlbum);
+    private void write() throws IOException {
+      for (Map.Entry<String, File> entry : entries.entrySet()) {
+        write(entry.getKey(), entry.getValue());
       }
     }
+
+    private void write(String entryName, File file) throws IOException {
+      zip.setLevel(isAlreadyCompressed(file) ? Deflater.NO_COMPRESSION :
+          Deflater.DEFAULT_COMPRESSION);
+      ZipEntry entry = new ZipEntry(entryName);
+      entry.setTime(file.lastModified());
+      zip.putNextEntry(entry);
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+          position += channel.transferTo(position, size - position, zipChannel);
+        }
+      }
+      zip.closeEntry();
+    }
+
+    private static boolean isAlreadyCompressed(File file) {
+      String mimeType = String.valueOf(FileUtil.getMimeType(file.getName()));
+      return mimeType.startsWith("video/") || mimeType.startsWith("audio/") ||
+          "image/jpeg".equals(mimeType) || "image/png".equals(mimeType) ||
+          "image/gif".equals(mimeType) || "image/webp".equals(mimeType);
+    }
   }
 }
@@ -57,9 +57,7 @@ import org.silverpeas.core.contribution.template.publication.PublicationTemplate
 import org.silverpeas.core.contribution.template.publication.PublicationTemplateException;
 import org.silverpeas.core.contribution.template.publication.PublicationTemplateManager;
 import org.silverpeas.core.importexport.ExportDescriptor;
-import org.silverpeas.core.importexport.ExportException;
 import org.silverpeas.core.importexport.ImportExportDescriptor;
-import org.silverpeas.core.importexport.report.ExportReport;
 import org.silverpeas.core.index.indexing.model.FieldDescription;
 import org.silverpeas.core.index.search.model.QueryDescription;
 import org.silverpeas.core.node.model.NodeDetail;
@@ -93,6 +91,8 @@ import org.silverpeas.core.web.mvc.util.AlertUser;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -1291,22 +1291,21 @@ public final class GallerySessionController extends AbstractComponentSessionCont
   }
 
   /**
-   * Export all picture from an album with the given resolution
+   * Export all picture from an album with the given resolution. The zip archive is streamed into
+   * the given output.
    * @param albumId
    * @param mediaResolution
+   * @param output the output into which the zip archive is written.
    */
-  public ExportReport exportAlbum(String albumId, MediaResolution mediaResolution)
-      throws ExportException {
-    ExportReport exportReport = new ExportReport();
+  public void exportAlbum(String albumId, MediaResolution mediaResolution, OutputStream output)
+      throws IOException {
     if (isExportEnable() && StringUtil.isDefined(albumId)) {
-      // Create export folder then apply each picture from this folder
       ImportExportDescriptor exportDesc =
           new ExportDescriptor().withParameter(GalleryExporter.EXPORT_FOR_USER, getUserDetail()).
               withParameter(GalleryExporter.EXPORT_ALBUM, getAlbum(albumId))
               .withParameter(GalleryExporter.EXPORT_RESOLUTION, mediaResolution);
-      aGalleryExporter().exportAlbum(exportDesc, exportReport);
+      aGalleryExporter().writeAlbum(exportDesc, output);
     }
-    return exportReport;
   }
 
   /**
@@ -1318,13 +1317,14 @@ public final class GallerySessionController extends AbstractComponentSessionCont
   }
 
   /**
-   * Export all selected images from basket with the given resolution
+   * Export all selected images from basket with the given resolution. The zip archive is streamed
+   * into the given output.
    * @param mediaResolution
+   * @param output the output into which the zip archive is written.
    */
-  public ExportReport exportSelection(MediaResolution mediaResolution) throws ExportException {
-    ExportReport exportReport = new ExportReport();
+  public void exportSelection(MediaResolution mediaResolution, OutputStream output)
+      throws IOException {
     if (isExportEnable() && !basket.isEmpty()) {
-      // Create export folder then apply each picture from this folder
       ImportExportDescriptor exportDesc =
           new ExportDescriptor().withParameter(GalleryExporter.EXPORT_FOR_USER, getUserDetail())
               .withParameter(GalleryExporter.EXPORT_RESOLUTION, mediaResolution);
@@ -1332,9 +1332,8 @@ public final class GallerySessionController extends AbstractComponentSessionCont
       for (String photoId : basket) {
         medias.add(getMediaById(photoId));
       }
-      aGalleryExporter().exportPhotos(exportDesc, medias, exportReport);
+      aGalleryExporter().writePhotos(exportDesc, medias, output);
     }
-    return exportReport;
   }
 
   /**
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.gallery.servlets;
+
+import org.silverpeas.components.gallery.constant.MediaResolution;
+import org.silverpeas.components.gallery.control.GallerySessionController;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.silverpeas.core.web.http.FileResponse.encodeAttachmentFilenameAsUtf8;
+
+/**
+ * Streams into the response the zip archive of the media of an album or of the basket. The
+ * archive is written while it is sent, without any temporary file, so its length isn't known: no
+ * Content-Length header is set.
+ * <p>
+ * The servlet is reached only by a forward from the {@link GalleryRequestRouter} which has
+ * already checked the user can access the gallery and which provides the session controller.
+ * </p>
+ */
+public class GalleryExportServlet extends HttpServlet {
+
+  public static final String PATH = "/GalleryExport";
+  private static final long serialVersionUID = -2905093866839596148L;
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException {
+    doPost(req, res);
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException {
+    GallerySessionController gallerySC = (GallerySessionController) req.getAttribute("Gallery");
+    if (gallerySC == null || !gallerySC.isExportEnable()) {
+      res.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+    String function = req.getPathInfo() != null ? req.getPathInfo().substring(1) : "";
+    MediaResolution resolution = MediaResolution.fromNameOrLabel(req.getParameter("format"));
+    String zipName = "exportGallery_" +
+        new SimpleDateFormat("yyyy-MM-dd-HH'H'mm'm'ss's'").format(new Date()) + ".zip";
+    res.setContentType("application/zip");
+    res.setHeader("Content-Disposition", encodeAttachmentFilenameAsUtf8(zipName));
+    try {
+      if ("ExportAlbum".equals(function)) {
+        gallerySC.exportAlbum(req.getParameter("albumId"), resolution, res.getOutputStream());
+      } else if ("ExportSelection".equals(function)) {
+        gallerySC.exportSelection(resolution, res.getOutputStream());
+        gallerySC.clearBasket();
+      } else {
+        res.reset();
+        res.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+      res.flushBuffer();
+    } catch (IOException e) {
+      // the archive is left incomplete: the connection is broken so that the client detects it
+      SilverLogger.getLogger(this).error("Export of the media of {0} failed",
+          new String[]{gallerySC.getComponentId()}, e);
+      if (!res.isCommitted()) {
+        res.reset();
+        res.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        return;
+      }
+      throw e;
+    }
+  }
+}
@@ -49,7 +49,6 @@ import org.silverpeas.core.contribution.template.publication.PublicationTemplate
 import org.silverpeas.core.contribution.template.publication.PublicationTemplateException;
 import org.silverpeas.core.contribution.template.publication.PublicationTemplateImpl;
 import org.silverpeas.core.exception.SilverpeasException;
-import org.silverpeas.core.importexport.report.ExportReport;
 import org.silverpeas.core.index.indexing.model.FieldDescription;
 import org.silverpeas.core.index.search.model.QueryDescription;
 import org.silverpeas.core.node.model.NodeDetail;
@@ -1109,22 +1108,9 @@ public class GalleryRequestRouter extends ComponentRequestRouter<GallerySessionC
           request.setAttribute("Url", url);
           destination = rootDest + "download.jsp";
         }
-      } else if (function.startsWith("Export")) {
-        if ("ExportAlbum".equals(function)) {
-          String albumId = request.getParameter("albumId");
-          String format = request.getParameter("format");
-          ExportReport exportRpt =
-              gallerySC.exportAlbum(albumId, MediaResolution.fromNameOrLabel(format));
-          request.setAttribute("ExportReport", exportRpt);
-          destination = rootDest +"downloadZip.jsp";
-        } else if ("ExportSelection".equals(function)) {
-          String format = request.getParameter("format");
-          ExportReport exportRpt =
-              gallerySC.exportSelection(MediaResolution.fromNameOrLabel(format));
-          request.setAttribute("ExportReport", exportRpt);
-          gallerySC.clearBasket();
-          destination = rootDest +"downloadZip.jsp";
-        }
+      } else if ("ExportAlbum".equals(function) || "ExportSelection".equals(function)) {
+        // the zip archive is streamed into the response by the export servlet
+        destination = GalleryExportServlet.PATH + "/" + function;
       } else {
         destination = rootDest + function;
       }
@@ -52,7 +52,6 @@
 <view:setConstant var="ORIGINAL_RESOLUTION" constant="org.silverpeas.components.gallery.constant.MediaResolution.ORIGINAL"/>
 
 <fmt:message key="gallery.export.basket" var="exportBasketLabel"/>
-<fmt:message key="gallery.exported.basket" var="exportedBasketLabel"/>
 
 <html>
 <head>
@@ -141,28 +140,10 @@ function exportBasket() {
   });
 }
 
-//make an ajax call here and then display a waiting message until we receive the asynchronous response
+// the zip archive is streamed by the server while it is downloaded by the browser
 function callExport() {
-  $.get("<c:url value='/Rgallery/${instanceId}/ExportSelection'/>", {format:$("input[name=format]:checked").val()},
-    function(data){
-      $.closeProgressMessage();
-      //alert('data = ' + data);
-      $("#basket-export-result-dialog").html(data);
-      $("#basket-export-result-dialog").dialog({
-        autoOpen: true,
-        title: "${exportedBasketLabel}",
-        modal: true,
-        minWidth: 500,
-        buttons: {
-          '<fmt:message key="GML.close"/>': function() {
-            $("#basket-export-result-dialog").html("");
-            $( this ).dialog( "close" );
-          }
-        }
-      });
-      $("#basket-export-result-dialog").show();
-    }, 'text');
-  $.progressMessage();
+  var params = $.param({format:$("input[name=format]:checked").val()});
+  window.location.href = "<c:url value='/Rgallery/${instanceId}/ExportSelection'/>?" + params;
 }
 
 $(document).ready(function() {
@@ -260,8 +241,6 @@ $(document).ready(function() {
   </form>
 </div>
 
-<div id="basket-export-result-dialog" style="display: none;">
-</div>
 
 <form name="mediaFormDelete" action="" method="POST">
   <input type="hidden" name="MediaId">
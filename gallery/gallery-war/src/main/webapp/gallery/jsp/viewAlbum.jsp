@@ -64,7 +64,6 @@
 <fmt:message key="gallery.cut" var="cutAlbumIcon" bundle="${icons}"/>
 <c:url value="${cutAlbumIcon}" var="cutAlbumIcon"/>
 <fmt:message key="gallery.export.album" var="exportAlbumLabel"/>
-<fmt:message key="gallery.exported.album" var="exportedAlbumLabel"/>
 <fmt:message key="gallery.updateSelectedMedia" var="updateSelectedMediaLabel"/>
 <fmt:message key="gallery.updateSelectedMedia" var="updateSelectedMediaIcon" bundle="${icons}"/>
 <c:url value="${updateSelectedMediaIcon}" var="updateSelectedMediaIcon"/>
@@ -300,28 +299,10 @@ function exportAlbum() {
   });
 }
 
-//make an ajax call here and then display a waiting message until we receive the asynchronous response
+// the zip archive is streamed by the server while it is downloaded by the browser
 function callExport() {
-  $.get("<c:url value='/Rgallery/${componentId}/ExportAlbum'/>", { albumId:'${currentAlbum.id}',format:$("input[name=format]:checked").val()},
-    function(data){
-      $.closeProgressMessage();
-      //alert('data = ' + data);
-      $("#album-export-result-dialog").html(data);
-      $("#album-export-result-dialog").dialog({
-        autoOpen: true,
-        title: "${exportedAlbumLabel}",
-        modal: true,
-        minWidth: 500,
-        buttons: {
-          '<fmt:message key="GML.close"/>': function() {
-            $("#album-export-result-dialog").html("");
-            $( this ).dialog( "close" );
-          }
-        }
-      });
-      $("#album-export-result-dialog").show();
-    }, 'text');
-  $.progressMessage();
+  var params = $.param({albumId:'${currentAlbum.id}', format:$("input[name=format]:checked").val()});
+  window.location.href = "<c:url value='/Rgallery/${componentId}/ExportAlbum'/>?" + params;
 }
 
 
@@ -485,8 +466,6 @@ function CutSelectedMedia() {
       <input type="radio" name="format" value="${PREVIEW_RESOLUTION.label}" /><fmt:message key="gallery.export.format.preview"/>
     </fieldset>
   </form>
-</div>
-<div id="album-export-result-dialog" style="display: none;">
 </div>
 
     <%@include file="albumManager.jsp" %>
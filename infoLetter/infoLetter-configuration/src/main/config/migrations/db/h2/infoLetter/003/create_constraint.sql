@@ -0,0 +1,29 @@
+ALTER TABLE SC_IL_Letter ADD
+	 CONSTRAINT PK_InfoLetter_Letter PRIMARY KEY
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Publication ADD
+	 CONSTRAINT PK_InfoLetter_Publication PRIMARY KEY
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Sending ADD
+	 CONSTRAINT PK_InfoLetter_Sending PRIMARY KEY
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Delivery ADD
+	 CONSTRAINT PK_InfoLetter_Delivery PRIMARY KEY
+	(
+		sendingId, recipient
+	)
+;
+
+CREATE INDEX IDX_InfoLetter_Delivery_Due ON SC_IL_Delivery (status, nextAttempt);
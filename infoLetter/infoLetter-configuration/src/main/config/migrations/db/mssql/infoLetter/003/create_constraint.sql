@@ -0,0 +1,29 @@
+ALTER TABLE SC_IL_Letter WITH NOCHECK ADD
+	 CONSTRAINT PK_InfoLetter_Letter PRIMARY KEY  CLUSTERED
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Publication WITH NOCHECK ADD
+	 CONSTRAINT PK_InfoLetter_Publication PRIMARY KEY  CLUSTERED
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Sending WITH NOCHECK ADD
+	 CONSTRAINT PK_InfoLetter_Sending PRIMARY KEY  CLUSTERED
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Delivery WITH NOCHECK ADD
+	 CONSTRAINT PK_InfoLetter_Delivery PRIMARY KEY  CLUSTERED
+	(
+		sendingId, recipient
+	)
+;
+
+CREATE INDEX IDX_InfoLetter_Delivery_Due ON SC_IL_Delivery (status, nextAttempt);
\ No newline at end of file
@@ -0,0 +1,37 @@
+CREATE TABLE SC_IL_Sending
+(
+	id			int		NOT NULL ,
+	publicationId		int		NOT NULL ,
+	subject			varchar (2000)	NOT NULL ,
+	sender			varchar (1000)	NULL ,
+	mimeMultipart		varchar (50)	NOT NULL ,
+	creationDate		bigint		NOT NULL ,
+	instanceId		varchar (50)	NOT NULL
+);
+
+CREATE TABLE SC_IL_Delivery
+(
+	sendingId		int		NOT NULL ,
+	recipient		int		NOT NULL ,
+	email			varchar (1000)	NOT NULL ,
+	status			int		NOT NULL ,
+	attempts		int		NOT NULL ,
+	nextAttempt		bigint		NOT NULL ,
+	lastAttempt		bigint		NULL
+);
+
+ALTER TABLE SC_IL_Sending WITH NOCHECK ADD
+	 CONSTRAINT PK_InfoLetter_Sending PRIMARY KEY  CLUSTERED
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Delivery WITH NOCHECK ADD
+	 CONSTRAINT PK_InfoLetter_Delivery PRIMARY KEY  CLUSTERED
+	(
+		sendingId, recipient
+	)
+;
+
+CREATE INDEX IDX_InfoLetter_Delivery_Due ON SC_IL_Delivery (status, nextAttempt);
\ No newline at end of file
@@ -1,13 +0,0 @@
-ALTER TABLE SC_IL_Letter ADD
-	 CONSTRAINT PK_InfoLetter_Letter PRIMARY KEY
-	(
-		id
-	)
-;
-
-ALTER TABLE SC_IL_Publication ADD
-	 CONSTRAINT PK_InfoLetter_Publication PRIMARY KEY
-	(
-		id
-	)
-;
\ No newline at end of file
@@ -23,4 +23,26 @@ CREATE TABLE SC_IL_ExtSus
 	letter			int		NOT NULL ,
 	email			varchar (1000)	NOT NULL ,
 	instanceId		varchar (50)	NOT NULL
+);
+
+CREATE TABLE SC_IL_Sending
+(
+	id			int		NOT NULL ,
+	publicationId		int		NOT NULL ,
+	subject			varchar (2000)	NOT NULL ,
+	sender			varchar (1000)	NULL ,
+	mimeMultipart		varchar (50)	NOT NULL ,
+	creationDate		NUMBER(19, 0)	NOT NULL ,
+	instanceId		varchar (50)	NOT NULL
+);
+
+CREATE TABLE SC_IL_Delivery
+(
+	sendingId		int		NOT NULL ,
+	recipient		int		NOT NULL ,
+	email			varchar (1000)	NOT NULL ,
+	status			int		NOT NULL ,
+	attempts		int		NOT NULL ,
+	nextAttempt		NUMBER(19, 0)	NOT NULL ,
+	lastAttempt		NUMBER(19, 0)	NULL
 );
\ No newline at end of file
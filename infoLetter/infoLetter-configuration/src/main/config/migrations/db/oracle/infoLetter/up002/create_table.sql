@@ -0,0 +1,37 @@
+CREATE TABLE SC_IL_Sending
+(
+	id			int		NOT NULL ,
+	publicationId		int		NOT NULL ,
+	subject			varchar (2000)	NOT NULL ,
+	sender			varchar (1000)	NULL ,
+	mimeMultipart		varchar (50)	NOT NULL ,
+	creationDate		NUMBER(19, 0)	NOT NULL ,
+	instanceId		varchar (50)	NOT NULL
+);
+
+CREATE TABLE SC_IL_Delivery
+(
+	sendingId		int		NOT NULL ,
+	recipient		int		NOT NULL ,
+	email			varchar (1000)	NOT NULL ,
+	status			int		NOT NULL ,
+	attempts		int		NOT NULL ,
+	nextAttempt		NUMBER(19, 0)	NOT NULL ,
+	lastAttempt		NUMBER(19, 0)	NULL
+);
+
+ALTER TABLE SC_IL_Sending ADD
+	 CONSTRAINT PK_InfoLetter_Sending PRIMARY KEY
+	(
+		id
+	)
+;
+
+ALTER TABLE SC_IL_Delivery ADD
+	 CONSTRAINT PK_InfoLetter_Delivery PRIMARY KEY
+	(
+		sendingId, recipient
+	)
+;
+
+CREATE INDEX IDX_InfoLetter_Delivery_Due ON SC_IL_Delivery (status, nextAttempt);
\ No newline at end of file
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * <p>
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "http://www.silverpeas.org/docs/core/legal/floss_exception.html"
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter;
+
+import org.silverpeas.components.infoletter.service.InfoLetterSendingQueue;
+import org.silverpeas.core.initialization.Initialization;
+
+import javax.inject.Inject;
+
+/**
+ * Initializes the InfoLetter application.
+ */
+public class InfoLetterInitialize implements Initialization {
+
+  @Inject
+  private InfoLetterSendingQueue sendingQueue;
+
+  @Override
+  public void init() {
+    // sends the info letters that were still to be delivered when the server stopped
+    sendingQueue.start();
+  }
+}
@@ -25,11 +25,12 @@ package org.silverpeas.components.infoletter.implementation;
 
 import org.silverpeas.components.infoletter.InfoLetterContentManager;
 import org.silverpeas.components.infoletter.InfoLetterException;
+import org.silverpeas.components.infoletter.model.ExternalSubscribersImport;
 import org.silverpeas.components.infoletter.model.InfoLetter;
 import org.silverpeas.components.infoletter.model.InfoLetterPublication;
 import org.silverpeas.components.infoletter.model.InfoLetterPublicationPdC;
 import org.silverpeas.components.infoletter.model.InfoLetterService;
-import org.silverpeas.components.infoletter.service.ByteArrayDataSource;
+import org.silverpeas.components.infoletter.service.InfoLetterSendingQueue;
 import org.silverpeas.core.ResourceReference;
 import org.silverpeas.core.WAPrimaryKey;
 import org.silverpeas.core.admin.component.model.ComponentInst;
@@ -37,14 +38,8 @@ import org.silverpeas.core.admin.service.OrganizationController;
 import org.silverpeas.core.admin.service.OrganizationControllerProvider;
 import org.silverpeas.core.admin.user.model.Group;
 import org.silverpeas.core.admin.user.model.UserDetail;
-import org.silverpeas.core.contribution.attachment.AttachmentServiceProvider;
-import org.silverpeas.core.contribution.attachment.model.DocumentType;
-import org.silverpeas.core.contribution.attachment.model.SimpleDocument;
-import org.silverpeas.core.contribution.content.wysiwyg.service.WysiwygContentTransformer;
 import org.silverpeas.core.contribution.content.wysiwyg.service.WysiwygController;
-import org.silverpeas.core.contribution.content.wysiwyg.service.process.MailContentProcess;
 import org.silverpeas.core.i18n.I18NHelper;
-import org.silverpeas.core.mail.MailSending;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
 import org.silverpeas.core.persistence.jdbc.bean.IdPK;
 import org.silverpeas.core.persistence.jdbc.bean.PersistenceException;
@@ -58,29 +53,26 @@ import org.silverpeas.core.subscription.service.GroupSubscriptionSubscriber;
 import org.silverpeas.core.subscription.service.ResourceSubscriptionProvider;
 import org.silverpeas.core.subscription.service.UserSubscriptionSubscriber;
 import org.silverpeas.core.subscription.util.SubscriptionSubscriberList;
-import org.silverpeas.core.util.MimeTypes;
+import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
-import javax.activation.DataHandler;
-import javax.activation.FileDataSource;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.mail.MessagingException;
-import javax.mail.Multipart;
+import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
-import javax.mail.internet.MimeBodyPart;
-import javax.mail.internet.MimeMultipart;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.Statement;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
-
-import static org.silverpeas.core.mail.MailAddress.eMail;
+import java.util.stream.Stream;
 
 /**
  * Class declaration
@@ -91,12 +83,22 @@ public class InfoLetterDataManager implements InfoLetterService {
 
   private static final String TABLE_EXTERNAL_EMAILS = "SC_IL_ExtSus";
   private static final String INSTANCE_ID = "instanceId = '";
+  private static final String SELECT_EXTERNAL_EMAILS =
+      "SELECT email FROM " + TABLE_EXTERNAL_EMAILS + " WHERE instanceId = ? AND letter = ?";
+  private static final String DELETE_EXTERNAL_EMAILS =
+      "DELETE FROM " + TABLE_EXTERNAL_EMAILS + " WHERE instanceId = ? AND letter = ?";
+  private static final String INSERT_EXTERNAL_EMAIL =
+      "INSERT INTO " + TABLE_EXTERNAL_EMAILS + " (letter, email, instanceId) VALUES (?, ?, ?)";
+  private static final int BATCH_SIZE = 1000;
+  private static final int MAX_EMAIL_LENGTH = 100;
 
   private SilverpeasBeanDAO<InfoLetter> infoLetterDAO;
   private SilverpeasBeanDAO<InfoLetterPublication> infoLetterPublicationDAO;
 
   @Inject
   private InfoLetterContentManager infoLetterContentManager;
+  @Inject
+  private InfoLetterSendingQueue sendingQueue;
 
   public InfoLetterDataManager() {
     try {
@@ -230,8 +232,8 @@ public class InfoLetterDataManager implements InfoLetterService {
   }
 
   /**
-   * Deletes all the info letters (and then all the publications and external subscribers) in the
-   * specified component instance.
+   * Deletes all the info letters (and then all the publications, external subscribers and mail
+   * sendings) in the specified component instance.
    * @param componentId the unique identifier of the InfoLetter instance.
    */
   @Override
@@ -245,6 +247,7 @@ public class InfoLetterDataManager implements InfoLetterService {
         statement.setString(1, componentId);
         statement.execute();
       }
+      sendingQueue.deleteSendings(connection, componentId);
     } catch (Exception e) {
       throw new InfoLetterException(e);
     }
@@ -304,17 +307,14 @@ public class InfoLetterDataManager implements InfoLetterService {
   @Override
   public Set<String> getEmailsExternalsSuscribers(WAPrimaryKey letterPK) {
     Set<String> retour = new LinkedHashSet<>();
-    try (Connection con = openConnection()) {
-      InfoLetter letter = getInfoLetter(letterPK);
-      String selectQuery = "SELECT * FROM " + TABLE_EXTERNAL_EMAILS;
-      selectQuery += " where instanceId = '" + letter.getInstanceId() + "' ";
-      selectQuery += " and letter = " + letterPK.getId() + " ";
-
-      try (Statement selectStmt = con.createStatement()) {
-        try (ResultSet rs = selectStmt.executeQuery(selectQuery)) {
-          while (rs.next()) {
-            retour.add(rs.getString("email"));
-          }
+    InfoLetter letter = getInfoLetter(letterPK);
+    try (Connection con = openConnection();
+         PreparedStatement selectStmt = con.prepareStatement(SELECT_EXTERNAL_EMAILS)) {
+      selectStmt.setString(1, letter.getInstanceId());
+      selectStmt.setInt(2, Integer.parseInt(letterPK.getId()));
+      try (ResultSet rs = selectStmt.executeQuery()) {
+        while (rs.next()) {
+          retour.add(rs.getString("email"));
         }
       }
     } catch (Exception e) {
@@ -325,31 +325,139 @@ public class InfoLetterDataManager implements InfoLetterService {
 
   @Override
   public void setEmailsExternalsSubscribers(WAPrimaryKey letterPK, Set<String> emails) {
-    try (Connection con = openConnection()) {
-      InfoLetter letter = getInfoLetter(letterPK);
-      String query = "DELETE FROM " + TABLE_EXTERNAL_EMAILS;
-      query += " where instanceId = '" + letter.getInstanceId() + "' ";
-      query += " and letter = " + letterPK.getId() + " ";
-
-      try (Statement stmt = con.createStatement()) {
-        stmt.executeUpdate(query);
-      }
-      if (!emails.isEmpty()) {
+    InfoLetter letter = getInfoLetter(letterPK);
+    Connection con = openConnection();
+    try {
+      con.setAutoCommit(false);
+      deleteExternalEmails(con, letter);
+      try (ExternalEmailsInsert insert = new ExternalEmailsInsert(con, letter)) {
         for (String email : emails) {
-          query = "INSERT INTO " + TABLE_EXTERNAL_EMAILS + "(letter, email, instanceId)";
-          query +=
-              " values (" + letterPK.getId() + ", '" + email + "', '" + letter.getInstanceId() +
-                  "')";
-          try (Statement stmt = con.createStatement()) {
-            stmt.executeUpdate(query);
-          }
+          insert.add(email);
         }
       }
+      con.commit();
     } catch (Exception e) {
+      DBUtil.rollback(con);
       throw new InfoLetterException(e);
+    } finally {
+      closeTransactionalConnection(con);
     }
   }
 
+  /**
+   * The addresses are consumed one after the other from the stream and inserted by batches, so
+   * that neither an insert per address nor a copy of the whole list is made here. The stream
+   * itself isn't lazier than its source: an import from a CSV file gets the rows already parsed
+   * by the CSV reader. Only the normalized form of the addresses is kept to detect the
+   * duplicates. An address is normalized by trimming it, by removing its enclosing quotes and by
+   * lowering the case of its domain (see {@link #normalizeEmail(String)}). Blank values are
+   * ignored.
+   */
+  @Override
+  public ExternalSubscribersImport importEmailsExternalsSubscribers(WAPrimaryKey letterPK,
+      Stream<String> emails, boolean replace) {
+    InfoLetter letter = getInfoLetter(letterPK);
+    Set<String> knownEmails = new HashSet<>();
+    if (!replace) {
+      for (String email : getEmailsExternalsSuscribers(letterPK)) {
+        knownEmails.add(StringUtil.defaultStringIfNotDefined(normalizeEmail(email), email));
+      }
+    }
+    Connection con = openConnection();
+    try {
+      con.setAutoCommit(false);
+      if (replace) {
+        deleteExternalEmails(con, letter);
+      }
+      final ExternalSubscribersImport report;
+      try (ExternalEmailsInsert insert = new ExternalEmailsInsert(con, letter)) {
+        report = importEmails(emails.iterator(), knownEmails, insert);
+      }
+      con.commit();
+      return report;
+    } catch (Exception e) {
+      DBUtil.rollback(con);
+      throw new InfoLetterException(e);
+    } finally {
+      closeTransactionalConnection(con);
+    }
+  }
+
+  /**
+   * Normalizes the specified email addresses and passes to the given insert those that are
+   * valid and not yet known.
+   * @param emails the email addresses to import.
+   * @param knownEmails the normalized addresses already subscribed. The inserted addresses are
+   * added to them.
+   * @param insert the insert of the normalized addresses.
+   * @return the report of the import.
+   * @throws SQLException if an address cannot be inserted.
+   */
+  static ExternalSubscribersImport importEmails(Iterator<String> emails, Set<String> knownEmails,
+      EmailInsert insert) throws SQLException {
+    int inserted = 0;
+    int duplicates = 0;
+    int invalid = 0;
+    while (emails.hasNext()) {
+      String email = emails.next();
+      if (StringUtil.isNotDefined(email)) {
+        continue;
+      }
+      String normalizedEmail = normalizeEmail(email);
+      if (normalizedEmail == null) {
+        invalid++;
+      } else if (!knownEmails.add(normalizedEmail)) {
+        duplicates++;
+      } else {
+        insert.add(normalizedEmail);
+        inserted++;
+      }
+    }
+    return new ExternalSubscribersImport(inserted, duplicates, invalid);
+  }
+
+  /**
+   * Normalizes the specified email address.
+   * @param email an email address.
+   * @return the normalized address or null if the address isn't valid.
+   */
+  static String normalizeEmail(String email) {
+    String address = email.trim();
+    if (address.length() > 1 && address.startsWith("\"") && address.endsWith("\"")) {
+      address = address.substring(1, address.length() - 1).trim();
+    }
+    int at = address.lastIndexOf('@');
+    if (at <= 0 || at == address.length() - 1 || address.length() > MAX_EMAIL_LENGTH) {
+      return null;
+    }
+    address = address.substring(0, at) + address.substring(at).toLowerCase(Locale.ROOT);
+    try {
+      if (!address.equals(new InternetAddress(address, true).getAddress())) {
+        return null;
+      }
+    } catch (AddressException e) {
+      return null;
+    }
+    return address;
+  }
+
+  private void deleteExternalEmails(Connection con, InfoLetter letter) throws SQLException {
+    try (PreparedStatement deleteStmt = con.prepareStatement(DELETE_EXTERNAL_EMAILS)) {
+      deleteStmt.setString(1, letter.getInstanceId());
+      deleteStmt.setInt(2, Integer.parseInt(letter.getPK().getId()));
+      deleteStmt.executeUpdate();
+    }
+  }
+
+  private void closeTransactionalConnection(Connection con) {
+    try {
+      con.setAutoCommit(true);
+    } catch (SQLException e) {
+      SilverLogger.getLogger(this).warn(e);
+    }
+    DBUtil.close(con);
+  }
+
   @Override
   public void toggleSuscriber(String userId, String componentId, boolean isUserSubscribing) {
     Subscription subscription =
@@ -394,96 +502,62 @@ public class InfoLetterDataManager implements InfoLetterService {
     return con;
   }
 
-  private void attachFilesToMail(Multipart mp, List<SimpleDocument> listAttachedFiles)
-      throws MessagingException {
-    for (SimpleDocument attachment : listAttachedFiles) {
-      // create the second message part
-      MimeBodyPart mbp = new MimeBodyPart();
-
-      // attach the file to the message
-      FileDataSource fds = new FileDataSource(attachment.getAttachmentPath());
-      mbp.setDataHandler(new DataHandler(fds));
-      // For Displaying images in the mail
-      mbp.setFileName(attachment.getFilename());
-      mbp.setHeader("Content-ID", "<" + attachment.getFilename() + ">");
-
-
-      // create the Multipart and its parts to it
-      mp.addBodyPart(mbp);
+  @Override
+  public Set<String> sendLetterByMail(InfoLetterPublicationPdC ilp, String server,
+      String mimeMultipart, Set<String> listEmailDest, String subject, String emailFrom) {
+    if (listEmailDest.isEmpty()) {
+      return new LinkedHashSet<>();
     }
+    return sendingQueue.enqueue(ilp, mimeMultipart, listEmailDest, subject, emailFrom);
   }
 
-  private Multipart createContentMessageMail(InfoLetterPublicationPdC ilp, String mimeMultipart)
-      throws Exception {
-    Multipart multipart = new MimeMultipart(mimeMultipart);
-
-    // create and fill the first message part
-    ResourceReference foreignKey = new ResourceReference(ilp.getPK().getId(), ilp.getComponentInstanceId());
-
-    // Load and transform WYSIWYG content for mailing
-    String wysiwygContent =
-        WysiwygController.load(foreignKey.getInstanceId(), foreignKey.getId(), null);
-    MailContentProcess.MailResult wysiwygMailTransformResult =
-        WysiwygContentTransformer.on(wysiwygContent).toMailContent();
-
-    // Prepare Mail parts
-    // First the WYSIWYG
-    MimeBodyPart wysiwygBodyPart = new MimeBodyPart();
-    wysiwygBodyPart.setDataHandler(new DataHandler(
-        new ByteArrayDataSource(wysiwygMailTransformResult.getWysiwygContent(),
-            MimeTypes.HTML_MIME_TYPE)));
-    multipart.addBodyPart(wysiwygBodyPart);
-
-    // Then all the referenced media content
-    wysiwygMailTransformResult.applyOn(multipart);
-
-    // Finally explicit attached files
-    List<SimpleDocument> listAttachedFilesFromTab =
-        AttachmentServiceProvider.getAttachmentService().
-            listDocumentsByForeignKeyAndType(foreignKey, DocumentType.attachment, null);
-    attachFilesToMail(multipart, listAttachedFilesFromTab);
-
-    // The completed multipart mail to send
-    return multipart;
+  /**
+   * A batch insertion of external subscribers of a letter.
+   */
+  /**
+   * An insert of normalized email addresses.
+   */
+  @FunctionalInterface
+  interface EmailInsert {
+    void add(String email) throws SQLException;
   }
 
-  @Override
-  public Set<String> sendLetterByMail(InfoLetterPublicationPdC ilp, String server,
-      String mimeMultipart, Set<String> listEmailDest, String subject, String emailFrom) {
+  private static class ExternalEmailsInsert implements EmailInsert, AutoCloseable {
+    private final PreparedStatement insertStmt;
+    private final InfoLetter letter;
+    private int pending = 0;
 
-    Set<String> emailErrors = new LinkedHashSet<>();
+    private ExternalEmailsInsert(Connection con, InfoLetter letter) throws SQLException {
+      this.insertStmt = con.prepareStatement(INSERT_EXTERNAL_EMAIL);
+      this.letter = letter;
+    }
 
-    if (!listEmailDest.isEmpty()) {
-      try {
-        // create the Multipart and its parts to it
-        Multipart mp = createContentMessageMail(ilp, mimeMultipart);
-        for (String receiverEmail : listEmailDest) {
-          sendMail(subject, emailFrom, emailErrors, mp, receiverEmail);
-        }
-      } catch (Exception e) {
-        throw new InfoLetterException(e);
+    @Override
+    public void add(String email) throws SQLException {
+      insertStmt.setInt(1, Integer.parseInt(letter.getPK().getId()));
+      insertStmt.setString(2, email);
+      insertStmt.setString(3, letter.getInstanceId());
+      insertStmt.addBatch();
+      pending++;
+      if (pending >= BATCH_SIZE) {
+        flush();
       }
     }
-    return emailErrors;
-  }
-
-  private void sendMail(final String subject, final String emailFrom, final Set<String> emailErrors,
-      final Multipart mp, final String receiverEmail) {
-    try {
-      // Verifying the email
-      new InternetAddress(receiverEmail);
-
-      // Prepare the mail
-      MailSending mail =
-          MailSending.from(eMail(emailFrom)).to(eMail(receiverEmail)).withSubject(subject)
-              .withContent(mp);
 
-      // Sending the mail
-      mail.send();
+    private void flush() throws SQLException {
+      if (pending > 0) {
+        insertStmt.executeBatch();
+        pending = 0;
+      }
+    }
 
-    } catch (Exception ex) {
-      SilverLogger.getLogger(this).error(ex);
-      emailErrors.add(receiverEmail);
+    @Override
+    public void close() throws SQLException {
+      try {
+        flush();
+      } finally {
+        insertStmt.close();
+      }
     }
   }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.model;
+
+/**
+ * The report of an import of external subscribers into an info letter.
+ */
+public class ExternalSubscribersImport {
+
+  private final int inserted;
+  private final int duplicates;
+  private final int invalid;
+
+  public ExternalSubscribersImport(final int inserted, final int duplicates, final int invalid) {
+    this.inserted = inserted;
+    this.duplicates = duplicates;
+    this.invalid = invalid;
+  }
+
+  /**
+   * Gets the number of email addresses that were added to the external subscribers.
+   * @return the number of inserted addresses.
+   */
+  public int getInserted() {
+    return inserted;
+  }
+
+  /**
+   * Gets the number of email addresses that were skipped because they were already imported or
+   * already subscribed.
+   * @return the number of duplicate addresses.
+   */
+  public int getDuplicates() {
+    return duplicates;
+  }
+
+  /**
+   * Gets the number of email addresses that were skipped because they aren't valid.
+   * @return the number of invalid addresses.
+   */
+  public int getInvalid() {
+    return invalid;
+  }
+}
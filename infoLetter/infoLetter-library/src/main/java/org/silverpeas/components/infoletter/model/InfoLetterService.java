@@ -25,6 +25,7 @@ package org.silverpeas.components.infoletter.model;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.silverpeas.core.subscription.util.SubscriptionSubscriberList;
 import org.silverpeas.core.admin.user.model.Group;
@@ -144,6 +145,19 @@ public interface InfoLetterService {
    */
   void setEmailsExternalsSubscribers(WAPrimaryKey letterPK, Set<String> emails);
 
+  /**
+   * Imports the specified email addresses as external subscribers of the given letter. The
+   * addresses are normalized and deduplicated; the invalid ones are skipped. They are all saved
+   * in a single transaction.
+   * @param letterPK the primary key of the letter.
+   * @param emails the email addresses to import. They are read only once.
+   * @param replace true if the imported addresses replace the current external subscribers, false
+   * if they are added to them.
+   * @return the report of the import.
+   */
+  ExternalSubscribersImport importEmailsExternalsSubscribers(WAPrimaryKey letterPK,
+      Stream<String> emails, boolean replace);
+
   /**
    * Toggle subscription unsubscription of a user to the news letter
    * @param userId the user identifier
@@ -171,14 +185,15 @@ public interface InfoLetterService {
   int getSilverObjectId(String pubId, String componentId);
 
   /**
-   * Send letter by mail
+   * Send letter by mail. The mails aren't sent immediately but they are enqueued to be delivered
+   * in background to each of the valid recipients.
    * @param ilp the information letter
    * @param server
    * @param mimeMultipart
    * @param listEmailDest
    * @param subject
    * @param emailFrom
-   * @return list of emails in error
+   * @return list of the invalid emails to which the letter won't be sent
    */
   Set<String> sendLetterByMail(InfoLetterPublicationPdC ilp, String server,
       String mimeMultipart, Set<String> listEmailDest, String subject, String emailFrom);
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistence of the sendings of info letters by mail and of their deliveries to each recipient.
+ */
+class InfoLetterSendingDAO {
+
+  private static final String SENDING_TABLE = "SC_IL_Sending";
+  private static final String DELIVERY_TABLE = "SC_IL_Delivery";
+  private static final int BATCH_SIZE = 500;
+
+  private static final String INSERT_SENDING = "INSERT INTO " + SENDING_TABLE +
+      " (id, instanceId, publicationId, subject, sender, mimeMultipart, creationDate)" +
+      " VALUES (?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_DELIVERY = "INSERT INTO " + DELIVERY_TABLE +
+      " (sendingId, recipient, email, status, attempts, nextAttempt, lastAttempt)" +
+      " VALUES (?, ?, ?, ?, ?, ?, ?)";
+  private static final String SELECT_SENDING =
+      "SELECT id, instanceId, publicationId, subject, sender, mimeMultipart, creationDate FROM " +
+          SENDING_TABLE + " WHERE id = ?";
+  private static final String SELECT_DUE_DELIVERIES =
+      "SELECT sendingId, recipient, email, status, attempts, nextAttempt, lastAttempt FROM " +
+          DELIVERY_TABLE + " WHERE status = ? AND nextAttempt <= ? ORDER BY nextAttempt";
+  private static final String UPDATE_DELIVERY = "UPDATE " + DELIVERY_TABLE +
+      " SET status = ?, attempts = ?, nextAttempt = ?, lastAttempt = ?" +
+      " WHERE sendingId = ? AND recipient = ?";
+  private static final String DELETE_DELIVERIES = "DELETE FROM " + DELIVERY_TABLE +
+      " WHERE sendingId IN (SELECT id FROM " + SENDING_TABLE + " WHERE instanceId = ?)";
+  private static final String DELETE_SENDINGS =
+      "DELETE FROM " + SENDING_TABLE + " WHERE instanceId = ?";
+
+  private final ConnectionProvider connections;
+
+  InfoLetterSendingDAO() {
+    this(DBUtil::openConnection);
+  }
+
+  InfoLetterSendingDAO(ConnectionProvider connections) {
+    this.connections = connections;
+  }
+
+  /**
+   * Saves the specified sending with a pending delivery for each of the given recipients. The
+   * deliveries are inserted by batches, all in the same transaction so that a sending is never
+   * saved with only a part of its recipients.
+   * @param sending the sending to save. Its identifier is set by this method.
+   * @param emails the email addresses of the recipients.
+   * @throws SQLException if an error occurs while saving the sending.
+   */
+  void createSending(LetterSending sending, List<String> emails) throws SQLException {
+    try (Connection con = connections.open()) {
+      con.setAutoCommit(false);
+      try {
+        sending.setId(nextSendingId());
+        insertSending(con, sending);
+        insertDeliveries(con, sending, emails);
+        con.commit();
+      } catch (SQLException | RuntimeException e) {
+        DBUtil.rollback(con);
+        throw e;
+      } finally {
+        con.setAutoCommit(true);
+      }
+    }
+  }
+
+  /**
+   * Gets a new unique identifier for a sending.
+   * @return the identifier of the next sending.
+   * @throws SQLException if an error occurs while computing the identifier.
+   */
+  int nextSendingId() throws SQLException {
+    return DBUtil.getNextId(SENDING_TABLE, "id");
+  }
+
+  private void insertSending(Connection con, LetterSending sending) throws SQLException {
+    try (PreparedStatement prepStmt = con.prepareStatement(INSERT_SENDING)) {
+      prepStmt.setInt(1, sending.getId());
+      prepStmt.setString(2, sending.getInstanceId());
+      prepStmt.setInt(3, sending.getPublicationId());
+      prepStmt.setString(4, sending.getSubject());
+      prepStmt.setString(5, sending.getSender());
+      prepStmt.setString(6, sending.getMimeMultipart());
+      prepStmt.setLong(7, sending.getCreationDate());
+      prepStmt.executeUpdate();
+    }
+  }
+
+  private void insertDeliveries(Connection con, LetterSending sending, List<String> emails)
+      throws SQLException {
+    try (PreparedStatement prepStmt = con.prepareStatement(INSERT_DELIVERY)) {
+      int pending = 0;
+      for (int i = 0; i < emails.size(); i++) {
+        prepStmt.setInt(1, sending.getId());
+        prepStmt.setInt(2, i);
+        prepStmt.setString(3, emails.get(i));
+        prepStmt.setInt(4, LetterDelivery.PENDING);
+        prepStmt.setInt(5, 0);
+        prepStmt.setLong(6, sending.getCreationDate());
+        prepStmt.setNull(7, Types.BIGINT);
+        prepStmt.addBatch();
+        pending++;
+        if (pending >= BATCH_SIZE) {
+          prepStmt.executeBatch();
+          pending = 0;
+        }
+      }
+      if (pending > 0) {
+        prepStmt.executeBatch();
+      }
+    }
+  }
+
+  /**
+   * Gets the specified sending.
+   * @param id the identifier of a sending.
+   * @return the sending or null if it doesn't exist anymore.
+   * @throws SQLException if an error occurs while getting the sending.
+   */
+  LetterSending getSending(int id) throws SQLException {
+    try (Connection con = connections.open();
+         PreparedStatement prepStmt = con.prepareStatement(SELECT_SENDING)) {
+      prepStmt.setInt(1, id);
+      try (ResultSet rs = prepStmt.executeQuery()) {
+        if (rs.next()) {
+          LetterSending sending = new LetterSending();
+          sending.setId(rs.getInt("id"));
+          sending.setInstanceId(rs.getString("instanceId"));
+          sending.setPublicationId(rs.getInt("publicationId"));
+          sending.setSubject(rs.getString("subject"));
+          sending.setSender(rs.getString("sender"));
+          sending.setMimeMultipart(rs.getString("mimeMultipart"));
+          sending.setCreationDate(rs.getLong("creationDate"));
+          return sending;
+        }
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Lists the pending deliveries that have to be attempted at the specified time, the oldest
+   * first.
+   * @param now the current time in milliseconds.
+   * @param max the maximum number of deliveries to return.
+   * @return a list of pending deliveries.
+   * @throws SQLException if an error occurs while getting the deliveries.
+   */
+  List<LetterDelivery> listDueDeliveries(long now, int max) throws SQLException {
+    List<LetterDelivery> deliveries = new ArrayList<>();
+    try (Connection con = connections.open();
+         PreparedStatement prepStmt = con.prepareStatement(SELECT_DUE_DELIVERIES)) {
+      prepStmt.setInt(1, LetterDelivery.PENDING);
+      prepStmt.setLong(2, now);
+      prepStmt.setMaxRows(max);
+      try (ResultSet rs = prepStmt.executeQuery()) {
+        while (rs.next()) {
+          LetterDelivery delivery = new LetterDelivery();
+          delivery.setSendingId(rs.getInt("sendingId"));
+          delivery.setRecipient(rs.getInt("recipient"));
+          delivery.setEmail(rs.getString("email"));
+          delivery.setStatus(rs.getInt("status"));
+          delivery.setAttempts(rs.getInt("attempts"));
+          delivery.setNextAttempt(rs.getLong("nextAttempt"));
+          long lastAttempt = rs.getLong("lastAttempt");
+          delivery.setLastAttempt(rs.wasNull() ? null : lastAttempt);
+          deliveries.add(delivery);
+        }
+      }
+    }
+    return deliveries;
+  }
+
+  /**
+   * Updates the status and the attempts of the specified delivery.
+   * @param delivery the delivery to update.
+   * @throws SQLException if an error occurs while updating the delivery.
+   */
+  void updateDelivery(LetterDelivery delivery) throws SQLException {
+    try (Connection con = connections.open();
+         PreparedStatement prepStmt = con.prepareStatement(UPDATE_DELIVERY)) {
+      prepStmt.setInt(1, delivery.getStatus());
+      prepStmt.setInt(2, delivery.getAttempts());
+      prepStmt.setLong(3, delivery.getNextAttempt());
+      if (delivery.getLastAttempt() == null) {
+        prepStmt.setNull(4, Types.BIGINT);
+      } else {
+        prepStmt.setLong(4, delivery.getLastAttempt());
+      }
+      prepStmt.setInt(5, delivery.getSendingId());
+      prepStmt.setInt(6, delivery.getRecipient());
+      prepStmt.executeUpdate();
+    }
+  }
+
+  /**
+   * Deletes all the sendings, and their deliveries, of the specified component instance.
+   * @param con the connection to use.
+   * @param instanceId the unique identifier of an InfoLetter instance.
+   * @throws SQLException if an error occurs while deleting the sendings.
+   */
+  void deleteSendings(Connection con, String instanceId) throws SQLException {
+    try (PreparedStatement prepStmt = con.prepareStatement(DELETE_DELIVERIES)) {
+      prepStmt.setString(1, instanceId);
+      prepStmt.executeUpdate();
+    }
+    try (PreparedStatement prepStmt = con.prepareStatement(DELETE_SENDINGS)) {
+      prepStmt.setString(1, instanceId);
+      prepStmt.executeUpdate();
+    }
+  }
+
+  /**
+   * Provides the connections to the database in which the sendings are stored.
+   */
+  @FunctionalInterface
+  interface ConnectionProvider {
+
+    Connection open() throws SQLException;
+  }
+}
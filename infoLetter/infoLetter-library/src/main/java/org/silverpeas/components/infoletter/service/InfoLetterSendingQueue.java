@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+import org.silverpeas.components.infoletter.InfoLetterException;
+import org.silverpeas.components.infoletter.model.InfoLetterPublicationPdC;
+import org.silverpeas.core.mail.engine.SmtpConfiguration;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Outbound queue of the mails by which the publications of the info letters are sent.
+ * <p>
+ * Instead of being sent one after the other by the thread of the user request, a sending is
+ * persisted with a pending delivery for each of its recipients. The pending deliveries are then
+ * sent by batches by a bounded pool of senders, each of them keeping its own connection to the
+ * SMTP server opened between two mails, and at a rate that can be limited so that the SMTP
+ * server isn't flooded. The content of the mail is built only once per sending and is then just
+ * copied for each recipient. A delivery that fails is attempted again later with an exponential
+ * backoff, up to a maximum number of attempts. As the deliveries are persisted, the ones that were
+ * pending when the server stopped are sent at the next start.
+ * </p>
+ * Once sent or abandoned, a delivery is kept with its status so that the outcome of a sending is
+ * known for each recipient.
+ */
+@Singleton
+public class InfoLetterSendingQueue {
+
+  private static final String SETTINGS = "org.silverpeas.infoLetter.settings.infoLetterSettings";
+  private static final int DEFAULT_BATCH_SIZE = 50;
+  private static final int DEFAULT_SENDERS = 2;
+  private static final int DEFAULT_MAX_PER_SECOND = 0;
+  private static final int DEFAULT_MAX_ATTEMPTS = 5;
+  private static final int DEFAULT_RETRY_DELAY = 60;
+  private static final int DEFAULT_MAX_RETRY_DELAY = 3600;
+  private static final int DEFAULT_POLLING_INTERVAL = 30;
+  private static final int DEFAULT_CONNECTION_TIMEOUT = 30;
+  private static final int DEFAULT_TIMEOUT = 60;
+  private static final int MAX_BACKOFF_SHIFT = 20;
+
+  private final InfoLetterSendingDAO dao;
+  private final LetterMailContent mailContent;
+  private final Supplier<ReusableSmtpTransport> transportFactory;
+  private final int batchSize;
+  private final int senderCount;
+  private final int maxAttempts;
+  private final long retryDelay;
+  private final long maxRetryDelay;
+  private final long pollingInterval;
+  private final RateLimiter rateLimiter;
+  private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+  private final Map<Integer, byte[]> contents = new ConcurrentHashMap<>();
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final Set<ReusableSmtpTransport> openedTransports = ConcurrentHashMap.newKeySet();
+  private final ThreadLocal<ReusableSmtpTransport> transports;
+  private ScheduledExecutorService dispatcher;
+  private ExecutorService senders;
+
+  public InfoLetterSendingQueue() {
+    this(ResourceLocator.getSettingBundle(SETTINGS));
+  }
+
+  private InfoLetterSendingQueue(SettingBundle settings) {
+    this(settings, new InfoLetterSendingDAO(), new LetterMailContent(),
+        transportFactory(settings));
+  }
+
+  InfoLetterSendingQueue(SettingBundle settings, InfoLetterSendingDAO dao,
+      LetterMailContent mailContent, Supplier<ReusableSmtpTransport> transportFactory) {
+    this.dao = dao;
+    this.mailContent = mailContent;
+    this.transportFactory = transportFactory;
+    batchSize = Math.max(1, settings.getInteger("mail.sending.batchSize", DEFAULT_BATCH_SIZE));
+    senderCount = Math.max(1, settings.getInteger("mail.sending.senders", DEFAULT_SENDERS));
+    maxAttempts =
+        Math.max(1, settings.getInteger("mail.sending.maxAttempts", DEFAULT_MAX_ATTEMPTS));
+    retryDelay = TimeUnit.SECONDS.toMillis(
+        Math.max(1, settings.getInteger("mail.sending.retryDelay", DEFAULT_RETRY_DELAY)));
+    maxRetryDelay = Math.max(retryDelay, TimeUnit.SECONDS.toMillis(
+        settings.getInteger("mail.sending.maxRetryDelay", DEFAULT_MAX_RETRY_DELAY)));
+    pollingInterval = Math.max(1,
+        settings.getInteger("mail.sending.pollingInterval", DEFAULT_POLLING_INTERVAL));
+    rateLimiter =
+        new RateLimiter(settings.getInteger("mail.sending.maxPerSecond", DEFAULT_MAX_PER_SECOND));
+    transports = ThreadLocal.withInitial(() -> {
+      ReusableSmtpTransport transport = this.transportFactory.get();
+      openedTransports.add(transport);
+      return transport;
+    });
+  }
+
+  private static Supplier<ReusableSmtpTransport> transportFactory(SettingBundle settings) {
+    final SmtpConfiguration smtpConfig = SmtpConfiguration.fromDefaultSettings();
+    final int connectionTimeout = (int) TimeUnit.SECONDS.toMillis(
+        settings.getInteger("mail.sending.connectionTimeout", DEFAULT_CONNECTION_TIMEOUT));
+    final int timeout = (int) TimeUnit.SECONDS.toMillis(
+        settings.getInteger("mail.sending.timeout", DEFAULT_TIMEOUT));
+    return () -> ReusableSmtpTransport.from(smtpConfig, connectionTimeout, timeout);
+  }
+
+  /**
+   * Starts the sending of the pending deliveries, including the ones that were persisted before
+   * a restart. Does nothing if the queue is already started.
+   */
+  public void start() {
+    if (started.compareAndSet(false, true)) {
+      dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "infoletter-sending-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      senders = new ThreadPoolExecutor(senderCount, senderCount, 60L, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(senderCount * 2), r -> {
+        Thread thread = new Thread(r, "infoletter-sending-sender");
+        thread.setDaemon(true);
+        return thread;
+      }, new ThreadPoolExecutor.CallerRunsPolicy());
+      dispatcher.scheduleWithFixedDelay(this::dispatch, 0, pollingInterval, TimeUnit.SECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (started.compareAndSet(true, false)) {
+      dispatcher.shutdownNow();
+      senders.shutdownNow();
+      try {
+        senders.awaitTermination(pollingInterval, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      for (ReusableSmtpTransport transport : openedTransports) {
+        transport.close();
+      }
+      openedTransports.clear();
+    }
+  }
+
+  /**
+   * Enqueues the sending of the specified publication to the given recipients. The mail is sent
+   * to each recipient separately.
+   * @param ilp the publication to send.
+   * @param mimeMultipart the subtype of the multipart content of the mail.
+   * @param emails the email addresses of the recipients.
+   * @param subject the subject of the mail.
+   * @param emailFrom the email address of the sender.
+   * @return the email addresses that are invalid and to which nothing will be sent.
+   */
+  public Set<String> enqueue(InfoLetterPublicationPdC ilp, String mimeMultipart,
+      Set<String> emails, String subject, String emailFrom) {
+    Set<String> emailErrors = new LinkedHashSet<>();
+    List<String> recipients = new ArrayList<>(emails.size());
+    for (String email : emails) {
+      try {
+        new InternetAddress(email);
+        recipients.add(email);
+      } catch (AddressException e) {
+        SilverLogger.getLogger(this).error(e);
+        emailErrors.add(email);
+      }
+    }
+    if (!recipients.isEmpty()) {
+      LetterSending sending = new LetterSending();
+      sending.setInstanceId(ilp.getComponentInstanceId());
+      sending.setPublicationId(Integer.parseInt(ilp.getPK().getId()));
+      sending.setSubject(subject);
+      sending.setSender(emailFrom);
+      sending.setMimeMultipart(mimeMultipart);
+      sending.setCreationDate(System.currentTimeMillis());
+      try {
+        dao.createSending(sending, recipients);
+      } catch (SQLException e) {
+        throw new InfoLetterException(e);
+      }
+      start();
+      dispatcher.execute(this::dispatch);
+    }
+    return emailErrors;
+  }
+
+  /**
+   * Deletes all the sendings of the specified InfoLetter instance, whatever the status of their
+   * deliveries.
+   * @param con the connection to use.
+   * @param instanceId the unique identifier of an InfoLetter instance.
+   * @throws SQLException if an error occurs while deleting the sendings.
+   */
+  public void deleteSendings(Connection con, String instanceId) throws SQLException {
+    dao.deleteSendings(con, instanceId);
+  }
+
+  /**
+   * Computes the delay before attempting again a delivery that has failed.
+   * @param attempts the number of failed attempts.
+   * @param retryDelay the delay after the first failure in milliseconds.
+   * @param maxRetryDelay the maximum delay in milliseconds.
+   * @return the delay in milliseconds, doubled at each failed attempt.
+   */
+  static long computeRetryDelay(int attempts, long retryDelay, long maxRetryDelay) {
+    int shift = Math.min(Math.max(attempts - 1, 0), MAX_BACKOFF_SHIFT);
+    return Math.min(retryDelay << shift, maxRetryDelay);
+  }
+
+  private void dispatch() {
+    try {
+      List<LetterDelivery> deliveries =
+          dao.listDueDeliveries(System.currentTimeMillis(), senderCount * batchSize * 2);
+      if (deliveries.isEmpty() && inFlight.isEmpty()) {
+        // nothing more to send: the contents of the terminated sendings are released
+        contents.clear();
+        return;
+      }
+      List<LetterDelivery> batch = new ArrayList<>(batchSize);
+      for (LetterDelivery delivery : deliveries) {
+        if (inFlight.add(delivery.getKey())) {
+          batch.add(delivery);
+          if (batch.size() == batchSize) {
+            submit(batch);
+            batch = new ArrayList<>(batchSize);
+          }
+        }
+      }
+      if (!batch.isEmpty()) {
+        submit(batch);
+      }
+    } catch (Exception e) {
+      SilverLogger.getLogger(this).error(e.getMessage(), e);
+    }
+  }
+
+  private void submit(final List<LetterDelivery> batch) {
+    senders.execute(() -> deliver(batch));
+  }
+
+  private void deliver(List<LetterDelivery> batch) {
+    Map<Integer, LetterSending> sendings = new HashMap<>();
+    ReusableSmtpTransport transport = transports.get();
+    for (LetterDelivery delivery : batch) {
+      try {
+        LetterSending sending = getSending(delivery.getSendingId(), sendings);
+        if (sending != null) {
+          MimeMessage mail = buildMail(transport.getSession(), sending, delivery.getEmail());
+          rateLimiter.acquire();
+          transport.send(mail);
+          delivery.setStatus(LetterDelivery.SENT);
+          delivery.setAttempts(delivery.getAttempts() + 1);
+          delivery.setLastAttempt(System.currentTimeMillis());
+          dao.updateDelivery(delivery);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Exception e) {
+        retryLater(delivery, e);
+      }
+    }
+    for (LetterDelivery delivery : batch) {
+      inFlight.remove(delivery.getKey());
+    }
+  }
+
+  private LetterSending getSending(int sendingId, Map<Integer, LetterSending> sendings)
+      throws SQLException {
+    LetterSending sending = sendings.get(sendingId);
+    if (sending == null) {
+      sending = dao.getSending(sendingId);
+      if (sending != null) {
+        sendings.put(sendingId, sending);
+      }
+    }
+    return sending;
+  }
+
+  private void retryLater(LetterDelivery delivery, Exception error) {
+    try {
+      int attempts = delivery.getAttempts() + 1;
+      long now = System.currentTimeMillis();
+      delivery.setAttempts(attempts);
+      delivery.setLastAttempt(now);
+      if (attempts >= maxAttempts) {
+        delivery.setStatus(LetterDelivery.FAILED);
+        SilverLogger.getLogger(this)
+            .error("Delivery of the info letter sending {0} to {1} abandoned after {2} attempts",
+                new Object[]{delivery.getSendingId(), delivery.getEmail(), attempts}, error);
+      } else {
+        delivery.setNextAttempt(now + computeRetryDelay(attempts, retryDelay, maxRetryDelay));
+        SilverLogger.getLogger(this)
+            .warn("Delivery of the info letter sending {0} to {1} failed ({2}), attempt {3}/{4}",
+                delivery.getSendingId(), delivery.getEmail(), error.getMessage(), attempts,
+                maxAttempts);
+      }
+      dao.updateDelivery(delivery);
+    } catch (Exception e) {
+      SilverLogger.getLogger(this).error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Builds the mail of the specified sending for the given recipient. The content is computed
+   * once per sending and is then copied for each of its recipients.
+   */
+  private MimeMessage buildMail(Session session, LetterSending sending, String email)
+      throws Exception {
+    byte[] content = contents.get(sending.getId());
+    if (content == null) {
+      content = mailContent.build(session, sending);
+      contents.putIfAbsent(sending.getId(), content);
+    }
+    MimeMessage mail = new MimeMessage(session, new ByteArrayInputStream(content));
+    mail.setRecipient(Message.RecipientType.TO, new InternetAddress(email));
+    mail.setSentDate(new Date());
+    return mail;
+  }
+
+  /**
+   * Limits the number of mails sent per second by all the senders. A limit of 0 or less means no
+   * limit.
+   */
+  private static class RateLimiter {
+
+    private final long interval;
+    private long next = System.nanoTime();
+
+    private RateLimiter(int maxPerSecond) {
+      this.interval = maxPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxPerSecond : 0;
+    }
+
+    private void acquire() throws InterruptedException {
+      if (interval <= 0) {
+        return;
+      }
+      long wait;
+      synchronized (this) {
+        long now = System.nanoTime();
+        long slot = Math.max(now, next);
+        next = slot + interval;
+        wait = slot - now;
+      }
+      if (wait > 0) {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      }
+    }
+  }
+}
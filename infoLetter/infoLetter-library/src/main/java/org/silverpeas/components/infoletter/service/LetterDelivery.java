@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+/**
+ * The delivery of a sending of an info letter to one of its recipients. The status of the
+ * delivery is kept once it is sent or abandoned so that the outcome of a sending can be known for
+ * each recipient.
+ */
+class LetterDelivery {
+
+  static final int PENDING = 0;
+  static final int SENT = 1;
+  static final int FAILED = 2;
+
+  private int sendingId;
+  private int recipient;
+  private String email;
+  private int status = PENDING;
+  private int attempts;
+  private long nextAttempt;
+  private Long lastAttempt;
+
+  /**
+   * Gets a key identifying this delivery among all the others.
+   * @return the key of the delivery.
+   */
+  String getKey() {
+    return sendingId + ":" + recipient;
+  }
+
+  int getSendingId() {
+    return sendingId;
+  }
+
+  void setSendingId(final int sendingId) {
+    this.sendingId = sendingId;
+  }
+
+  int getRecipient() {
+    return recipient;
+  }
+
+  void setRecipient(final int recipient) {
+    this.recipient = recipient;
+  }
+
+  String getEmail() {
+    return email;
+  }
+
+  void setEmail(final String email) {
+    this.email = email;
+  }
+
+  int getStatus() {
+    return status;
+  }
+
+  void setStatus(final int status) {
+    this.status = status;
+  }
+
+  int getAttempts() {
+    return attempts;
+  }
+
+  void setAttempts(final int attempts) {
+    this.attempts = attempts;
+  }
+
+  long getNextAttempt() {
+    return nextAttempt;
+  }
+
+  void setNextAttempt(final long nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  Long getLastAttempt() {
+    return lastAttempt;
+  }
+
+  void setLastAttempt(final Long lastAttempt) {
+    this.lastAttempt = lastAttempt;
+  }
+}
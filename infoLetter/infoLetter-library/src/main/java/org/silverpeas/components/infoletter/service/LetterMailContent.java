@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+import org.silverpeas.core.ResourceReference;
+import org.silverpeas.core.contribution.attachment.AttachmentServiceProvider;
+import org.silverpeas.core.contribution.attachment.model.DocumentType;
+import org.silverpeas.core.contribution.attachment.model.SimpleDocument;
+import org.silverpeas.core.contribution.content.wysiwyg.service.WysiwygContentTransformer;
+import org.silverpeas.core.contribution.content.wysiwyg.service.WysiwygController;
+import org.silverpeas.core.contribution.content.wysiwyg.service.process.MailContentProcess;
+import org.silverpeas.core.util.MimeTypes;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.silverpeas.core.util.StringUtil.isDefined;
+
+/**
+ * The content of the mail by which a publication of an info letter is sent: its WYSIWYG content
+ * transformed for the mail, the media it refers and its attached files.
+ */
+class LetterMailContent {
+
+  /**
+   * Builds the mail of the specified sending, without any recipient.
+   * @param session the mail session with which the mail is built.
+   * @param sending the sending of a publication.
+   * @return the mail in its RFC 822 format.
+   * @throws Exception if the content of the publication cannot be loaded or the mail cannot be
+   * built.
+   */
+  byte[] build(Session session, LetterSending sending) throws Exception {
+    MimeMessage mail = new MimeMessage(session);
+    if (isDefined(sending.getSender())) {
+      mail.setFrom(new InternetAddress(sending.getSender()));
+    } else {
+      mail.setFrom(InternetAddress.getLocalAddress(session));
+    }
+    mail.setSubject(sending.getSubject(), "UTF-8");
+    mail.setContent(createContentMessageMail(
+        new ResourceReference(String.valueOf(sending.getPublicationId()),
+            sending.getInstanceId()), sending.getMimeMultipart()));
+    mail.saveChanges();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      mail.writeTo(output);
+    } catch (IOException e) {
+      throw new MessagingException(e.getMessage(), e);
+    }
+    return output.toByteArray();
+  }
+
+  private Multipart createContentMessageMail(ResourceReference foreignKey, String mimeMultipart)
+      throws Exception {
+    Multipart multipart = new MimeMultipart(mimeMultipart);
+
+    // Load and transform WYSIWYG content for mailing
+    String wysiwygContent =
+        WysiwygController.load(foreignKey.getInstanceId(), foreignKey.getId(), null);
+    MailContentProcess.MailResult wysiwygMailTransformResult =
+        WysiwygContentTransformer.on(wysiwygContent).toMailContent();
+
+    // Prepare Mail parts
+    // First the WYSIWYG
+    MimeBodyPart wysiwygBodyPart = new MimeBodyPart();
+    wysiwygBodyPart.setDataHandler(new DataHandler(
+        new ByteArrayDataSource(wysiwygMailTransformResult.getWysiwygContent(),
+            MimeTypes.HTML_MIME_TYPE)));
+    multipart.addBodyPart(wysiwygBodyPart);
+
+    // Then all the referenced media content
+    wysiwygMailTransformResult.applyOn(multipart);
+
+    // Finally explicit attached files
+    List<SimpleDocument> listAttachedFilesFromTab =
+        AttachmentServiceProvider.getAttachmentService().
+            listDocumentsByForeignKeyAndType(foreignKey, DocumentType.attachment, null);
+    attachFilesToMail(multipart, listAttachedFilesFromTab);
+
+    // The completed multipart mail to send
+    return multipart;
+  }
+
+  private void attachFilesToMail(Multipart mp, List<SimpleDocument> listAttachedFiles)
+      throws MessagingException {
+    for (SimpleDocument attachment : listAttachedFiles) {
+      MimeBodyPart mbp = new MimeBodyPart();
+
+      // attach the file to the message
+      FileDataSource fds = new FileDataSource(attachment.getAttachmentPath());
+      mbp.setDataHandler(new DataHandler(fds));
+      // For Displaying images in the mail
+      mbp.setFileName(attachment.getFilename());
+      mbp.setHeader("Content-ID", "<" + attachment.getFilename() + ">");
+
+      mp.addBodyPart(mbp);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+/**
+ * The sending of a publication of an info letter by mail. It carries what is required to build
+ * the mail whatever the moment it is actually sent, even after a restart of the server.
+ */
+class LetterSending {
+
+  private int id;
+  private String instanceId;
+  private int publicationId;
+  private String subject;
+  private String sender;
+  private String mimeMultipart;
+  private long creationDate;
+
+  int getId() {
+    return id;
+  }
+
+  void setId(final int id) {
+    this.id = id;
+  }
+
+  String getInstanceId() {
+    return instanceId;
+  }
+
+  void setInstanceId(final String instanceId) {
+    this.instanceId = instanceId;
+  }
+
+  int getPublicationId() {
+    return publicationId;
+  }
+
+  void setPublicationId(final int publicationId) {
+    this.publicationId = publicationId;
+  }
+
+  String getSubject() {
+    return subject;
+  }
+
+  void setSubject(final String subject) {
+    this.subject = subject;
+  }
+
+  String getSender() {
+    return sender;
+  }
+
+  void setSender(final String sender) {
+    this.sender = sender;
+  }
+
+  String getMimeMultipart() {
+    return mimeMultipart;
+  }
+
+  void setMimeMultipart(final String mimeMultipart) {
+    this.mimeMultipart = mimeMultipart;
+  }
+
+  long getCreationDate() {
+    return creationDate;
+  }
+
+  void setCreationDate(final long creationDate) {
+    this.creationDate = creationDate;
+  }
+}
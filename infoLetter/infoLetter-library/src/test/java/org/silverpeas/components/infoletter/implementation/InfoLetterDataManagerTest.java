@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.implementation;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.infoletter.model.ExternalSubscribersImport;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Unit tests on the normalization of the email addresses of the external subscribers and on the
+ * report of their import.
+ */
+public class InfoLetterDataManagerTest {
+
+  @Test
+  public void anAddressIsTrimmed() {
+    assertThat(InfoLetterDataManager.normalizeEmail("  john.doe@silverpeas.org "),
+        is("john.doe@silverpeas.org"));
+  }
+
+  @Test
+  public void theEnclosingQuotesOfAnAddressAreRemoved() {
+    assertThat(InfoLetterDataManager.normalizeEmail("\" john.doe@silverpeas.org\""),
+        is("john.doe@silverpeas.org"));
+  }
+
+  @Test
+  public void onlyTheCaseOfTheDomainIsLowered() {
+    assertThat(InfoLetterDataManager.normalizeEmail("John.Doe@SilverPeas.ORG"),
+        is("John.Doe@silverpeas.org"));
+  }
+
+  @Test
+  public void anAddressLongerThanTheColumnIsInvalid() {
+    final String domain = "@silverpeas.org";
+    final StringBuilder local = new StringBuilder();
+    while (local.length() + domain.length() < 100) {
+      local.append('a');
+    }
+    assertThat(InfoLetterDataManager.normalizeEmail(local + domain), is(local + domain));
+    assertThat(InfoLetterDataManager.normalizeEmail("a" + local + domain), is(nullValue()));
+  }
+
+  @Test
+  public void anAddressWithoutLocalPartOrDomainIsInvalid() {
+    assertThat(InfoLetterDataManager.normalizeEmail("john.doe"), is(nullValue()));
+    assertThat(InfoLetterDataManager.normalizeEmail("@silverpeas.org"), is(nullValue()));
+    assertThat(InfoLetterDataManager.normalizeEmail("john.doe@"), is(nullValue()));
+    assertThat(InfoLetterDataManager.normalizeEmail("\"\""), is(nullValue()));
+  }
+
+  @Test
+  public void anAddressWithAPersonalNameOrSeveralAddressesIsInvalid() {
+    assertThat(InfoLetterDataManager.normalizeEmail("John <john.doe@silverpeas.org>"),
+        is(nullValue()));
+    assertThat(InfoLetterDataManager.normalizeEmail("john@silverpeas.org, jane@silverpeas.org"),
+        is(nullValue()));
+    assertThat(InfoLetterDataManager.normalizeEmail("john doe@silverpeas.org"), is(nullValue()));
+  }
+
+  @Test
+  public void theValidAndNewAddressesAreInsertedOnceNormalized() throws SQLException {
+    final List<String> inserted = new ArrayList<>();
+    final ExternalSubscribersImport report = InfoLetterDataManager.importEmails(
+        Arrays.asList(" john.doe@Silverpeas.org", "\"jane.doe@silverpeas.org\"").iterator(),
+        new HashSet<>(), inserted::add);
+    assertThat(inserted, contains("john.doe@silverpeas.org", "jane.doe@silverpeas.org"));
+    assertThat(report.getInserted(), is(2));
+    assertThat(report.getDuplicates(), is(0));
+    assertThat(report.getInvalid(), is(0));
+  }
+
+  @Test
+  public void theDuplicatesAndTheInvalidAddressesAreCountedButNotInserted()
+      throws SQLException {
+    final Set<String> known = new HashSet<>(Arrays.asList("john.doe@silverpeas.org"));
+    final List<String> inserted = new ArrayList<>();
+    final ExternalSubscribersImport report = InfoLetterDataManager.importEmails(
+        Arrays.asList("john.doe@SILVERPEAS.org", "jane.doe@silverpeas.org", "not an email",
+            "jane.doe@silverpeas.org ", "", "  ", null, "bob@").iterator(), known,
+        inserted::add);
+    assertThat(inserted, contains("jane.doe@silverpeas.org"));
+    assertThat(report.getInserted(), is(1));
+    assertThat(report.getDuplicates(), is(2));
+    assertThat(report.getInvalid(), is(2));
+    assertThat(known, containsInAnyOrder("john.doe@silverpeas.org", "jane.doe@silverpeas.org"));
+  }
+}
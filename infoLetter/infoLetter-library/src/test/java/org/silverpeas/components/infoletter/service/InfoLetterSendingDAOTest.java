@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests on the persistence of the sendings of info letters and of their deliveries, run
+ * against an embedded H2 database.
+ */
+@EnableSilverTestEnv
+public class InfoLetterSendingDAOTest {
+
+  static final String DB_URL = "jdbc:h2:mem:infoletter;DB_CLOSE_DELAY=-1";
+  private static final String INSTANCE_ID = "infoLetter1";
+
+  private Connection connection;
+  private InfoLetterSendingDAO dao;
+
+  @BeforeEach
+  public void createTables() throws SQLException {
+    connection = DriverManager.getConnection(DB_URL);
+    createTables(connection);
+    dao = newDAO();
+  }
+
+  @AfterEach
+  public void dropTables() throws SQLException {
+    dropTables(connection);
+    connection.close();
+  }
+
+  static void createTables(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table SC_IL_Sending (id int primary key, " +
+          "publicationId int not null, subject varchar(2000) not null, " +
+          "sender varchar(1000), mimeMultipart varchar(50) not null, " +
+          "creationDate bigint not null, instanceId varchar(50) not null)");
+      statement.execute("create table SC_IL_Delivery (sendingId int not null, " +
+          "recipient int not null, email varchar(1000) not null, status int not null, " +
+          "attempts int not null, nextAttempt bigint not null, lastAttempt bigint, " +
+          "primary key (sendingId, recipient))");
+    }
+  }
+
+  static void dropTables(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table SC_IL_Delivery");
+      statement.execute("drop table SC_IL_Sending");
+    }
+  }
+
+  /**
+   * Gets a DAO working on the H2 database, with its own generator of the sending identifiers.
+   */
+  static InfoLetterSendingDAO newDAO() {
+    final AtomicInteger ids = new AtomicInteger();
+    return new InfoLetterSendingDAO(() -> DriverManager.getConnection(DB_URL)) {
+      @Override
+      int nextSendingId() {
+        return ids.incrementAndGet();
+      }
+    };
+  }
+
+  static LetterSending newSending(String instanceId, long creationDate) {
+    LetterSending sending = new LetterSending();
+    sending.setInstanceId(instanceId);
+    sending.setPublicationId(5);
+    sending.setSubject("Letter");
+    sending.setSender("letter@silverpeas.org");
+    sending.setMimeMultipart("related");
+    sending.setCreationDate(creationDate);
+    return sending;
+  }
+
+  @Test
+  public void aSendingIsSavedWithAPendingDeliveryPerRecipient() throws SQLException {
+    final LetterSending sending = newSending(INSTANCE_ID, 1000L);
+    dao.createSending(sending, Arrays.asList("a@silverpeas.org", "b@silverpeas.org"));
+
+    final LetterSending saved = dao.getSending(sending.getId());
+    assertThat(saved, is(notNullValue()));
+    assertThat(saved.getInstanceId(), is(INSTANCE_ID));
+    assertThat(saved.getPublicationId(), is(5));
+    assertThat(saved.getSubject(), is("Letter"));
+    assertThat(saved.getSender(), is("letter@silverpeas.org"));
+    assertThat(saved.getMimeMultipart(), is("related"));
+    assertThat(saved.getCreationDate(), is(1000L));
+
+    final List<LetterDelivery> deliveries = dao.listDueDeliveries(1000L, 10);
+    assertThat(deliveries.size(), is(2));
+    for (LetterDelivery delivery : deliveries) {
+      assertThat(delivery.getSendingId(), is(sending.getId()));
+      assertThat(delivery.getStatus(), is(LetterDelivery.PENDING));
+      assertThat(delivery.getAttempts(), is(0));
+      assertThat(delivery.getLastAttempt(), is(nullValue()));
+    }
+  }
+
+  @Test
+  public void aSendingIsSavedWithNoneOfItsRecipientsWhenOneOfThemCannotBeSaved() {
+    final LetterSending sending = newSending(INSTANCE_ID, 1000L);
+    assertThrows(SQLException.class,
+        () -> dao.createSending(sending, Arrays.asList("a@silverpeas.org", null)));
+    assertThat(count("SC_IL_Sending"), is(0));
+    assertThat(count("SC_IL_Delivery"), is(0));
+  }
+
+  @Test
+  public void onlyTheDeliveriesToAttemptAreListedTheOldestFirst() throws SQLException {
+    final LetterSending later = newSending(INSTANCE_ID, 3000L);
+    dao.createSending(later, Arrays.asList("c@silverpeas.org"));
+    final LetterSending sooner = newSending(INSTANCE_ID, 1000L);
+    dao.createSending(sooner, Arrays.asList("a@silverpeas.org"));
+    final LetterSending future = newSending(INSTANCE_ID, 9000L);
+    dao.createSending(future, Arrays.asList("d@silverpeas.org"));
+
+    assertThat(emails(dao.listDueDeliveries(5000L, 10)),
+        contains("a@silverpeas.org", "c@silverpeas.org"));
+    assertThat(emails(dao.listDueDeliveries(5000L, 1)), contains("a@silverpeas.org"));
+  }
+
+  @Test
+  public void anUpdatedDeliveryIsRescheduledOrNoMoreDue() throws SQLException {
+    final LetterSending sending = newSending(INSTANCE_ID, 1000L);
+    dao.createSending(sending, Arrays.asList("a@silverpeas.org", "b@silverpeas.org"));
+    final List<LetterDelivery> deliveries = dao.listDueDeliveries(1000L, 10);
+
+    final LetterDelivery failed = deliveries.get(0);
+    failed.setAttempts(1);
+    failed.setLastAttempt(1000L);
+    failed.setNextAttempt(2000L);
+    dao.updateDelivery(failed);
+    final LetterDelivery sent = deliveries.get(1);
+    sent.setStatus(LetterDelivery.SENT);
+    sent.setAttempts(1);
+    sent.setLastAttempt(1000L);
+    dao.updateDelivery(sent);
+
+    assertThat(dao.listDueDeliveries(1500L, 10), is(empty()));
+    final List<LetterDelivery> due = dao.listDueDeliveries(2000L, 10);
+    assertThat(emails(due), contains(failed.getEmail()));
+    assertThat(due.get(0).getAttempts(), is(1));
+    assertThat(due.get(0).getLastAttempt(), is(1000L));
+  }
+
+  @Test
+  public void theSendingsOfAnInstanceAreDeletedWithTheirDeliveries() throws SQLException {
+    final LetterSending sending = newSending(INSTANCE_ID, 1000L);
+    dao.createSending(sending, Arrays.asList("a@silverpeas.org", "b@silverpeas.org"));
+    final LetterSending other = newSending("infoLetter2", 1000L);
+    dao.createSending(other, Arrays.asList("c@silverpeas.org"));
+
+    dao.deleteSendings(connection, INSTANCE_ID);
+
+    assertThat(dao.getSending(sending.getId()), is(nullValue()));
+    assertThat(dao.getSending(other.getId()), is(notNullValue()));
+    assertThat(emails(dao.listDueDeliveries(1000L, 10)), contains("c@silverpeas.org"));
+  }
+
+  private static List<String> emails(List<LetterDelivery> deliveries) {
+    final String[] emails = new String[deliveries.size()];
+    for (int i = 0; i < emails.length; i++) {
+      emails[i] = deliveries.get(i).getEmail();
+    }
+    return Arrays.asList(emails);
+  }
+
+  private int count(String table) {
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery("select count(*) from " + table)) {
+      rs.next();
+      return rs.getInt(1);
+    } catch (SQLException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.infoletter.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.silverpeas.components.infoletter.model.InfoLetterPublicationPdC;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.util.ResourceLocator;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests on the sending of the publications of the info letters through the sending queue,
+ * with the deliveries persisted in an embedded H2 database. The settings of the queue in the
+ * test resources send the recipients by batches of two, retry a failed delivery after one second
+ * and abandon it after two attempts.
+ */
+@EnableSilverTestEnv
+public class InfoLetterSendingQueueTest {
+
+  private static final String INSTANCE_ID = "infoLetter1";
+  private static final long TIMEOUT = 10000L;
+
+  private Connection connection;
+  private InfoLetterSendingDAO dao;
+  private LetterMailContent mailContent;
+  private ReusableSmtpTransport transport;
+  private InfoLetterSendingQueue queue;
+  private InfoLetterPublicationPdC publication;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    connection = DriverManager.getConnection(InfoLetterSendingDAOTest.DB_URL);
+    InfoLetterSendingDAOTest.createTables(connection);
+    dao = InfoLetterSendingDAOTest.newDAO();
+
+    final Session session = Session.getInstance(new Properties());
+    transport = mock(ReusableSmtpTransport.class);
+    when(transport.getSession()).thenReturn(session);
+    mailContent = mock(LetterMailContent.class);
+    when(mailContent.build(any(), any())).thenAnswer(invocation -> {
+      LetterSending sending = invocation.getArgument(1);
+      MimeMessage mail = new MimeMessage(session);
+      mail.setFrom(new InternetAddress(sending.getSender()));
+      mail.setSubject(sending.getSubject());
+      mail.setText("Hello world");
+      mail.saveChanges();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      mail.writeTo(output);
+      return output.toByteArray();
+    });
+    queue = new InfoLetterSendingQueue(
+        ResourceLocator.getSettingBundle("org.silverpeas.infoLetter.settings.infoLetterSettings"),
+        dao, mailContent, () -> transport);
+
+    publication = mock(InfoLetterPublicationPdC.class, RETURNS_DEEP_STUBS);
+    when(publication.getComponentInstanceId()).thenReturn(INSTANCE_ID);
+    when(publication.getPK().getId()).thenReturn("5");
+  }
+
+  @AfterEach
+  public void tearDown() throws SQLException {
+    queue.stop();
+    InfoLetterSendingDAOTest.dropTables(connection);
+    connection.close();
+  }
+
+  @Test
+  public void theRetryDelayIsDoubledAtEachAttemptUpToTheMaximum() {
+    assertThat(InfoLetterSendingQueue.computeRetryDelay(1, 60L, 1000L), is(60L));
+    assertThat(InfoLetterSendingQueue.computeRetryDelay(2, 60L, 1000L), is(120L));
+    assertThat(InfoLetterSendingQueue.computeRetryDelay(4, 60L, 1000L), is(480L));
+    assertThat(InfoLetterSendingQueue.computeRetryDelay(5, 60L, 1000L), is(1000L));
+    assertThat(InfoLetterSendingQueue.computeRetryDelay(500, 60L, 1000L), is(1000L));
+  }
+
+  @Test
+  public void aPublicationIsSentSeparatelyToEachRecipient() throws Exception {
+    final Set<String> errors =
+        queue.enqueue(publication, "related", emails("a@silverpeas.org", "b@silverpeas.org",
+            "c@silverpeas.org"), "Letter", "letter@silverpeas.org");
+    assertThat(errors.isEmpty(), is(true));
+
+    awaitUntil(() -> countDeliveries(LetterDelivery.SENT) == 3);
+    final List<String> recipients = new ArrayList<>();
+    for (MimeMessage mail : sentMails(3)) {
+      assertThat(mail.getAllRecipients().length, is(1));
+      recipients.add(mail.getAllRecipients()[0].toString());
+    }
+    assertThat(recipients,
+        containsInAnyOrder("a@silverpeas.org", "b@silverpeas.org", "c@silverpeas.org"));
+    // the content is built once for the whole sending
+    verify(mailContent, times(1)).build(any(), any());
+  }
+
+  @Test
+  public void theInvalidAddressesAreReportedAndSkipped() throws Exception {
+    final Set<String> errors = queue.enqueue(publication, "related",
+        emails("a@silverpeas.org", "invalid<address"), "Letter", "letter@silverpeas.org");
+    assertThat(errors, contains("invalid<address"));
+
+    awaitUntil(() -> countDeliveries(LetterDelivery.SENT) == 1);
+    assertThat(countDeliveries(-1), is(1));
+  }
+
+  @Test
+  public void aFailedDeliveryIsRetriedLater() throws Exception {
+    doThrow(new MessagingException("connection lost")).doNothing()
+        .when(transport).send(any(MimeMessage.class));
+    queue.enqueue(publication, "related", emails("a@silverpeas.org"), "Letter",
+        "letter@silverpeas.org");
+
+    awaitUntil(() -> countDeliveries(LetterDelivery.SENT) == 1);
+    verify(transport, times(2)).send(any(MimeMessage.class));
+    assertThat(attemptsOf("a@silverpeas.org"), is(2));
+  }
+
+  @Test
+  public void aDeliveryIsAbandonedAfterTheMaximumNumberOfAttempts() throws Exception {
+    doThrow(new MessagingException("unknown host")).when(transport)
+        .send(any(MimeMessage.class));
+    queue.enqueue(publication, "related", emails("a@silverpeas.org"), "Letter",
+        "letter@silverpeas.org");
+
+    awaitUntil(() -> countDeliveries(LetterDelivery.FAILED) == 1);
+    verify(transport, times(2)).send(any(MimeMessage.class));
+    assertThat(attemptsOf("a@silverpeas.org"), is(2));
+    assertThat(countDeliveries(LetterDelivery.SENT), is(0));
+  }
+
+  @Test
+  public void thePersistedDeliveriesAreSentAtStart() throws Exception {
+    final LetterSending sending =
+        InfoLetterSendingDAOTest.newSending(INSTANCE_ID, System.currentTimeMillis());
+    dao.createSending(sending, Arrays.asList("a@silverpeas.org", "b@silverpeas.org"));
+
+    queue.start();
+    awaitUntil(() -> countDeliveries(LetterDelivery.SENT) == 2);
+    verify(transport, times(2)).send(any(MimeMessage.class));
+  }
+
+  private static Set<String> emails(String... emails) {
+    return new LinkedHashSet<>(Arrays.asList(emails));
+  }
+
+  private List<MimeMessage> sentMails(int count) throws MessagingException {
+    final ArgumentCaptor<MimeMessage> mails = ArgumentCaptor.forClass(MimeMessage.class);
+    verify(transport, times(count)).send(mails.capture());
+    return mails.getAllValues();
+  }
+
+  /**
+   * Counts the deliveries with the specified status, or all of them if the status is negative.
+   */
+  private int countDeliveries(int status) {
+    final String query = "select count(*) from SC_IL_Delivery" +
+        (status < 0 ? "" : " where status = " + status);
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery(query)) {
+      rs.next();
+      return rs.getInt(1);
+    } catch (SQLException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private int attemptsOf(String email) {
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery(
+             "select attempts from SC_IL_Delivery where email = '" + email + "'")) {
+      rs.next();
+      return rs.getInt(1);
+    } catch (SQLException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long end = System.currentTimeMillis() + TIMEOUT;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > end) {
+        throw new AssertionError("Condition not met after " + TIMEOUT + "ms");
+      }
+      Thread.sleep(50);
+    }
+  }
+}
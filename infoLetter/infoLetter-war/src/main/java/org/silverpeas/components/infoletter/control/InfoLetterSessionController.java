@@ -27,6 +27,7 @@ import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.FileUtils;
 import org.silverpeas.components.infoletter.InfoLetterException;
 import org.silverpeas.components.infoletter.InfoLetterPeasTrappedException;
+import org.silverpeas.components.infoletter.model.ExternalSubscribersImport;
 import org.silverpeas.components.infoletter.model.InfoLetter;
 import org.silverpeas.components.infoletter.model.InfoLetterPublication;
 import org.silverpeas.components.infoletter.model.InfoLetterPublicationPdC;
@@ -82,6 +83,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -89,6 +92,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.stream.Stream;
 
 import static org.silverpeas.core.pdc.pdc.model.PdcClassification.aPdcClassificationOfContent;
 
@@ -403,18 +407,14 @@ public class InfoLetterSessionController extends AbstractComponentSessionControl
     return dataInterface.getEmailsExternalsSuscribers(letterPK);
   }
 
-  public void addExternalsSuscribers(WAPrimaryKey letterPK, String newmails) {
+  public ExternalSubscribersImport addExternalsSuscribers(WAPrimaryKey letterPK,
+      String newmails) {
     StringTokenizer st = new StringTokenizer(newmails);
-    Set<String> emails = getEmailsExternalsSuscribers(letterPK);
+    Stream.Builder<String> emails = Stream.builder();
     while (st.hasMoreTokens()) {
-      String mail = st.nextToken().trim();
-      if (mail.indexOf('@') > -1) { // Current address contains arobase
-        if (!emails.contains(mail)) {
-          emails.add(mail);
-        }
-      }
+      emails.add(st.nextToken());
     }
-    dataInterface.setEmailsExternalsSubscribers(letterPK, emails);
+    return dataInterface.importEmailsExternalsSubscribers(letterPK, emails.build(), false);
   }
 
   public void deleteExternalsSuscribers(WAPrimaryKey letterPK, String[] mails) {
@@ -538,13 +538,16 @@ public class InfoLetterSessionController extends AbstractComponentSessionControl
   }
 
   /**
-   * Import Csv emails
+   * Import Csv emails. The file is parsed according to the usersCSVFormat settings and the emails
+   * of its first column replace the current external subscribers. The CSV reader parses the
+   * whole file in memory before the emails are imported.
    * @param filePart
+   * @return the report of the import
    * @throws UtilTrappedException
    * @throws InfoLetterPeasTrappedException
    * @throws InfoLetterException
    */
-  public void importCsvEmails(FileItem filePart)
+  public ExternalSubscribersImport importCsvEmails(FileItem filePart)
       throws UtilTrappedException, InfoLetterPeasTrappedException, InfoLetterException {
     InputStream is;
     try {
@@ -566,46 +569,8 @@ public class InfoLetterSessionController extends AbstractComponentSessionControl
       ute.setGoBackPage("Emails");
       throw ute;
     }
-
-    StringBuilder listErrors = new StringBuilder("");
-    String email;
-
-    for (int i = 0; i < csvValues.length; i++) {
-      // email
-      email = csvValues[i][0].getValueString();
-      if (email.length() == 0) {// champ obligatoire
-        listErrors.append(getString("GML.ligne")).append(" = ").append(Integer.toString(i + 1))
-            .append(", ");
-        listErrors.append(getString("GML.colonne")).append(" = 1, ");
-        listErrors.append(getString("GML.valeur")).append(" = ").append(email).append(", ");
-        listErrors.append(getString("GML.obligatoire")).append("<BR>");
-      } else if (email.length() > 100) {// verifier 100 char max
-        listErrors.append(getString("GML.ligne")).append(" = ").append(Integer.toString(i + 1))
-            .append(", ");
-        listErrors.append(getString("GML.colonne")).append(" = 1, ");
-        listErrors.append(getString("GML.valeur")).append(" = ").append(email).append(", ");
-        listErrors.append(getString("GML.nbCarMax")).append(" 100 ")
-            .append(getString("GML.caracteres")).append("<BR>");
-      }
-    }
-
-    if (listErrors.length() > 0) {
-      InfoLetterPeasTrappedException ie =
-          new InfoLetterPeasTrappedException("InfoLetterSessionController.importCsvEmails",
-              SilverpeasException.ERROR, "infoLetter.EX_CSV_FILE", listErrors.toString());
-      ie.setGoBackPage("Emails");
-      throw ie;
-    }
-
-    // pas d'erreur, on importe les emails
-    Set<String> emails = new LinkedHashSet<>();
-    for (final Variant[] csvValue : csvValues) {
-      // Email
-      email = csvValue[0].getValueString();
-      emails.add(email);
-    }
-
-    dataInterface.setEmailsExternalsSubscribers(this.getCurrentLetter().getPK(), emails);
+    return dataInterface.importEmailsExternalsSubscribers(getCurrentLetter().getPK(),
+        Arrays.stream(csvValues).map(csvValue -> csvValue[0].getValueString()), true);
   }
 
   /**
@@ -645,12 +610,7 @@ public class InfoLetterSessionController extends AbstractComponentSessionControl
     roles.add("admin");
     String[] userIds = getOrganisationController().getUsersIdsByRoleNames(getComponentId(), roles);
     if (userIds != null) {
-      for (String userId : userIds) {
-        String email = getUserDetail(userId).geteMail();
-        if (StringUtil.isDefined(email)) {
-          emails.add(email);
-        }
-      }
+      addEmails(userIds, emails);
     }
     return emails;
   }
@@ -662,15 +622,28 @@ public class InfoLetterSessionController extends AbstractComponentSessionControl
   private Set<String> getEmailsInternalSubscribers(
       SubscriptionSubscriberMapBySubscriberType subscriberIdsByTypes) {
     Set<String> emails = new LinkedHashSet<>();
+    Collection<String> userIds = subscriberIdsByTypes.getAllUserIds();
+    addEmails(userIds.toArray(new String[0]), emails);
+    return emails;
+  }
 
-    for (String userId : subscriberIdsByTypes.getAllUserIds()) {
-      String email = getUserDetail(userId).geteMail();
-      if (StringUtil.isDefined(email)) {
-        emails.add(email);
+  /**
+   * Adds the emails of the specified users. The users are all loaded in one go.
+   * @param userIds the unique identifiers of users.
+   * @param emails the emails to which the ones of the users are added.
+   */
+  private void addEmails(String[] userIds, Set<String> emails) {
+    if (userIds.length == 0) {
+      return;
+    }
+    UserDetail[] users = getOrganisationController().getUserDetails(userIds);
+    if (users != null) {
+      for (UserDetail user : users) {
+        if (user != null && StringUtil.isDefined(user.geteMail())) {
+          emails.add(user.geteMail());
+        }
       }
     }
-
-    return emails;
   }
 
   /**
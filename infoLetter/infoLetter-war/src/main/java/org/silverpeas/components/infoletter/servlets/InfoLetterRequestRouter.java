@@ -482,7 +482,7 @@ public class InfoLetterRequestRouter extends ComponentRequestRouter<InfoLetterSe
         }
       } else if (function.startsWith("ImportEmailsCsv")) {
         FileItem fileItem = request.getSingleFile();
-        infoLetterSC.importCsvEmails(fileItem);
+        request.setAttribute("ImportReport", infoLetterSC.importCsvEmails(fileItem));
         destination = "importEmailsCsv.jsp?Result=OK";
       } else if (function.equals("ExportEmailsCsv")) {
         boolean exportOk = infoLetterSC.exportCsvEmails();
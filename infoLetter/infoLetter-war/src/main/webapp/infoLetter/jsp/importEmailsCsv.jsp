@@ -24,6 +24,7 @@
 
 --%>
 <%@page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+<%@ page import="org.silverpeas.components.infoletter.model.ExternalSubscribersImport" %>
 <%@ taglib uri="http://www.silverpeas.com/tld/viewGenerator" prefix="view"%>
 <%@ include file="check.jsp" %>
 <!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Transitional//EN" "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd">
@@ -33,6 +34,7 @@
 	browseBar.setPath(resource.getString("infoLetter.importEmailsCsv"));
 
 	String result = request.getParameter("Result");
+	ExternalSubscribersImport importReport = (ExternalSubscribersImport) request.getAttribute("ImportReport");
 	boolean importOk = false;
 	if ("OK".equals(result)) {
 		importOk = true;
@@ -77,6 +79,11 @@ function SubmitWithVerif(verifParams) {
 			<% if (importOk) { %>
 			<div class="inlineMessage-ok">
 				<%=resource.getString("infoLetter.importEmailsCsvSucceed") %>
+				<% if (importReport != null) { %>
+				<br/><%=resource.getStringWithParams("infoLetter.importEmailsCsvReport",
+						String.valueOf(importReport.getInserted()), String.valueOf(importReport.getDuplicates()),
+						String.valueOf(importReport.getInvalid())) %>
+				<% } %>
 			</div>
 			<% } else { %>
 				<div class="inlineMessage">
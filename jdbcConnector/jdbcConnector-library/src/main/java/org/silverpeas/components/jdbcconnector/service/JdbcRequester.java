@@ -25,8 +25,15 @@
 package org.silverpeas.components.jdbcconnector.service;
 
 import org.silverpeas.components.jdbcconnector.model.DataSourceConnectionInfo;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.util.PaginationList;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.SilverpeasList;
 import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.util.logging.SilverLogger;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -35,6 +42,8 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A requester of a remote enterprise data source by using the yet configured
@@ -45,6 +54,14 @@ import java.util.List;
  */
 public class JdbcRequester {
 
+  private static final SettingBundle settings =
+      ResourceLocator.getSettingBundle("org.silverpeas.jdbcConnector.settings.dataSources");
+  private static final String CACHE_TTL_PROPERTY = "query.cache.timeToLive";
+  private static final int DEFAULT_CACHE_TTL = 30;
+  private static final String FILTERED_QUERY_ALIAS = "filtered_rows";
+  private static final String COUNTED_QUERY_ALIAS = "counted_rows";
+  private static final int EXPORT_FETCH_SIZE = 100;
+
   private final String instanceId;
   private final DataSourceConnectionInfo currentConnectionInfo;
 
@@ -73,6 +90,16 @@ public class JdbcRequester {
     }
   }
 
+  /**
+   * Constructs a new JDBC requester of the data source referred by the specified connection
+   * information.
+   * @param connectionInfo the information about the connection with a remote data source.
+   */
+  JdbcRequester(final DataSourceConnectionInfo connectionInfo) {
+    this.instanceId = connectionInfo.getInstanceId();
+    this.currentConnectionInfo = connectionInfo;
+  }
+
   /**
    * Gets information about the current JDBC connection used to request the data source.
    * @return a {@link DataSourceConnectionInfo} instance with all the information about the
@@ -173,43 +200,336 @@ public class JdbcRequester {
 
   /**
    * Requests the data source by using the SQL query that was set with the current underlying
-   * {@link DataSourceConnectionInfo} instance. A {@link JdbcConnectorRuntimeException} is thrown
-   * if the data returned by the requesting fails to be read. If no request was set, then nothing
-   * is requested and hence nothing is returned.
-   * @return a list of rows, each of them represented by a {@link TableRow} instance. If no SQL
-   * query is defined with the underlying {@link DataSourceConnectionInfo} instance, then an empty
-   * list is returned.
+   * {@link DataSourceConnectionInfo} instance and returns only the specified page of the rows
+   * satisfying the given filter. If no request was set, then nothing is requested and hence
+   * nothing is returned.
+   * @param filter the filter the rows have to satisfy.
+   * @param page the page of rows to return.
+   * @return the asked page of rows, each of them represented by a {@link TableRow} instance. The
+   * total number of rows satisfying the filter is given by
+   * {@link SilverpeasList#originalListSize()}. If no SQL query is defined with the underlying
+   * {@link DataSourceConnectionInfo} instance, then an empty list is returned.
    * @throws JdbcConnectorException if either no connection can be established or the requesting
    * failed.
+   * @see #request(String, RowFilter, PaginationPage)
    */
-  public List<TableRow> request() throws JdbcConnectorException {
+  public SilverpeasList<TableRow> request(final RowFilter filter, final PaginationPage page)
+      throws JdbcConnectorException {
     if (isSQLRequestDefined()) {
-      return Collections.emptyList();
+      return PaginationList.from(Collections.emptyList(), 0);
     }
-    return request(currentConnectionInfo.getSqlRequest());
+    return request(currentConnectionInfo.getSqlRequest(), filter, page);
   }
 
   /**
-   * Requests the data source with the specified SQL query. A
-   * {@link JdbcConnectorRuntimeException} is thrown if the data returned by the requesting fails
-   * to be read.
-   * @return a list of rows, each of them represented by a {@link TableRow} instance.
+   * Requests the data source with the specified SQL query and returns only the specified page of
+   * the rows satisfying the given filter.
+   * <p>
+   * The filter is applied by the data source when it can be expressed in SQL (see
+   * {@link RowFilter#toSql(String)}): the query is then wrapped into a filtering one. Otherwise,
+   * it is applied on each row while reading the whole result. When no filter is left to apply
+   * on the rows, they are counted by the data source with a <code>count(*)</code> query and the
+   * reading of the result stops at the end of the asked page. Whatever the case, only the rows
+   * of the asked page are kept in memory. The row limit of the
+   * underlying {@link DataSourceConnectionInfo} instance is applied to the rows satisfying the
+   * filter when it is done by the data source, to the rows returned by the query otherwise.
+   * </p>
+   * <p>
+   * The pages are cached for a short time (see the <code>query.cache.timeToLive</code> property
+   * in the settings) in order to avoid requesting the data source each time a same page is
+   * displayed.
+   * </p>
+   * @param sqlQuery the SQL query.
+   * @param filter the filter the rows have to satisfy.
+   * @param page the page of rows to return.
+   * @return the asked page of rows, each of them represented by a {@link TableRow} instance. The
+   * total number of rows satisfying the filter is given by
+   * {@link SilverpeasList#originalListSize()}.
    * @throws JdbcConnectorException if either no connection can be established or the requesting
    * failed.
    */
-  public List<TableRow> request(final String sqlQuery) throws JdbcConnectorException {
-    final List<TableRow> rows = new ArrayList<>();
-    try (Connection connection = currentConnectionInfo.openConnection();
-         PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
+  public SilverpeasList<TableRow> request(final String sqlQuery, final RowFilter filter,
+      final PaginationPage page) throws JdbcConnectorException {
+    final QueryResultCache.Key key =
+        new QueryResultCache.Key(instanceId, currentConnectionInfo.getDataSourceName(),
+            currentConnectionInfo.getLogin(), currentConnectionInfo.getDataMaxNumber(), sqlQuery,
+            filter, page);
+    return QueryResultCache.get(key, settings.getInteger(CACHE_TTL_PROPERTY, DEFAULT_CACHE_TTL),
+        () -> fetch(sqlQuery, filter, page));
+  }
+
+  /**
+   * Clears the pages of rows that were cached for the component instance of this requester so
+   * that the next requests are performed against the data source.
+   */
+  public void clearCache() {
+    QueryResultCache.clear(instanceId);
+  }
+
+  /**
+   * Reads all the rows returned by the SQL query set with the current underlying
+   * {@link DataSourceConnectionInfo} instance and satisfying the given filter, and passes them
+   * one by one to the specified handler. Unlike {@link #request(RowFilter, PaginationPage)}, the
+   * rows aren't cached nor kept in memory: each of them is given to the handler as soon as it is
+   * read, so that the whole result can be exported whatever its size. The filter and the row limit
+   * are applied in the same way as when requesting a page of rows.
+   * @param filter the filter the rows have to satisfy.
+   * @param handler the handler of each row satisfying the filter.
+   * @throws JdbcConnectorException if either no connection can be established or the requesting
+   * failed.
+   * @throws IOException if the handling of a row failed.
+   */
+  public void export(final RowFilter filter, final RowHandler handler)
+      throws JdbcConnectorException, IOException {
+    if (StringUtil.isNotDefined(currentConnectionInfo.getSqlRequest())) {
+      return;
+    }
+    try (Connection connection = currentConnectionInfo.openConnection()) {
+      export(connection, currentConnectionInfo.getSqlRequest(), filter, handler);
+    } catch (SQLException e) {
+      throw new JdbcConnectorException(e);
+    }
+  }
+
+  /**
+   * Reads with the specified connection all the rows returned by the given SQL query and
+   * satisfying the given filter, and passes them one by one to the specified handler. The filter
+   * is applied by the data source when it can be expressed in SQL, otherwise it is applied on each
+   * read row.
+   * @param connection an opened connection with the data source.
+   * @param sqlQuery the SQL query.
+   * @param filter the filter the rows have to satisfy.
+   * @param handler the handler of each row satisfying the filter.
+   * @throws SQLException if the requesting failed.
+   * @throws IOException if the handling of a row failed.
+   */
+  void export(final Connection connection, final String sqlQuery, final RowFilter filter,
+      final RowHandler handler) throws SQLException, IOException {
+    final Optional<SqlCondition> condition = filter.isNone() ? Optional.empty() :
+        filter.toSql(quote(filter.getFieldName(), connection.getMetaData()));
+    if (condition.isPresent()) {
+      final AtomicLong handled = new AtomicLong(0);
+      try {
+        read(connection, filtered(sqlQuery, condition.get()), condition.get().getParameters(),
+            RowFilter.NONE, row -> {
+              handler.handle(row);
+              handled.incrementAndGet();
+            });
+        return;
+      } catch (SQLException e) {
+        // once rows are handled, reading them again would duplicate them
+        if (handled.get() > 0) {
+          throw e;
+        }
+        SilverLogger.getLogger(this)
+            .warn("The filter on {0} cannot be applied by the data source {1}: {2}",
+                filter.getFieldName(), currentConnectionInfo.getDataSourceName(),
+                e.getMessage());
+      }
+    }
+    read(connection, sqlQuery, Collections.emptyList(), filter, handler);
+  }
+
+  private SilverpeasList<TableRow> fetch(final String sqlQuery, final RowFilter filter,
+      final PaginationPage page) throws JdbcConnectorException {
+    try (Connection connection = currentConnectionInfo.openConnection()) {
+      return fetch(connection, sqlQuery, filter, page);
+    } catch (SQLException e) {
+      throw new JdbcConnectorException(e);
+    }
+  }
+
+  /**
+   * Fetches with the specified connection the page of the rows returned by the given SQL query
+   * and satisfying the given filter. The filter is applied by the data source when it can be
+   * expressed in SQL, otherwise it is applied while reading all the rows of the query.
+   * @param connection an opened connection with the data source.
+   * @param sqlQuery the SQL query.
+   * @param filter the filter the rows have to satisfy.
+   * @param page the page of rows to fetch.
+   * @return the asked page of rows with the total number of rows satisfying the filter.
+   * @throws SQLException if the requesting failed.
+   */
+  SilverpeasList<TableRow> fetch(final Connection connection, final String sqlQuery,
+      final RowFilter filter, final PaginationPage page) throws SQLException {
+    final Optional<SqlCondition> condition = filter.isNone() ? Optional.empty() :
+        filter.toSql(quote(filter.getFieldName(), connection.getMetaData()));
+    if (condition.isPresent()) {
+      try {
+        return fetchPage(connection, filtered(sqlQuery, condition.get()),
+            condition.get().getParameters(), page);
+      } catch (SQLException e) {
+        SilverLogger.getLogger(this)
+            .warn("The filter on {0} cannot be applied by the data source {1}: {2}",
+                filter.getFieldName(), currentConnectionInfo.getDataSourceName(),
+                e.getMessage());
+      }
+    }
+    if (filter.isNone()) {
+      return fetchPage(connection, sqlQuery, Collections.emptyList(), page);
+    }
+    return scan(connection, sqlQuery, Collections.emptyList(), filter, page);
+  }
+
+  /**
+   * Fetches the page of the rows returned by the specified query: the rows are counted by the
+   * data source and the reading of the query result stops at the end of the page. If the data
+   * source cannot count the rows of the query (some of them reject for example an ordered
+   * subquery), then all the rows are read to be counted.
+   */
+  private SilverpeasList<TableRow> fetchPage(final Connection connection, final String sqlQuery,
+      final List<Object> parameters, final PaginationPage page) throws SQLException {
+    long count;
+    try {
+      count = count(connection, sqlQuery, parameters);
+    } catch (SQLException e) {
+      SilverLogger.getLogger(this)
+          .debug("The rows cannot be counted by the data source {0}: {1}",
+              currentConnectionInfo.getDataSourceName(), e.getMessage());
+      return scan(connection, sqlQuery, parameters, RowFilter.NONE, page);
+    }
+    final int rowLimit = currentConnectionInfo.getDataMaxNumber();
+    if (rowLimit > 0) {
+      count = Math.min(count, rowLimit);
+    }
+    final long first = (long) (page.getPageNumber() - 1) * page.getPageSize();
+    final long last = Math.min(first + page.getPageSize(), count);
+    final List<TableRow> rows = new ArrayList<>(page.getPageSize());
+    if (first < last) {
+      try (PreparedStatement statement = prepare(connection, sqlQuery, parameters)) {
+        statement.setMaxRows((int) Math.min(last, Integer.MAX_VALUE));
+        statement.setFetchSize(page.getPageSize());
+        try (ResultSet rs = statement.executeQuery()) {
+          long skipped = 0;
+          while (skipped < first && rs.next()) {
+            skipped++;
+          }
+          while (rows.size() < page.getPageSize() && rs.next()) {
+            rows.add(new TableRow(rs));
+          }
+        }
+      }
+    }
+    return PaginationList.from(rows, count);
+  }
+
+  /**
+   * Fetches the page of the rows returned by the specified query by reading all of them: the rows
+   * satisfying the filter are counted and only those of the page are kept.
+   */
+  private SilverpeasList<TableRow> scan(final Connection connection, final String sqlQuery,
+      final List<Object> parameters, final RowFilter filter, final PaginationPage page)
+      throws SQLException {
+    final long first = (long) (page.getPageNumber() - 1) * page.getPageSize();
+    final long last = first + page.getPageSize();
+    final List<TableRow> rows = new ArrayList<>(page.getPageSize());
+    long count = 0;
+    try (PreparedStatement statement = prepare(connection, sqlQuery, parameters)) {
+      statement.setMaxRows(currentConnectionInfo.getDataMaxNumber());
+      statement.setFetchSize(page.getPageSize());
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          final boolean inPage = count >= first && count < last;
+          if (filter.isNone()) {
+            // the rows out of the page are just counted
+            if (inPage) {
+              rows.add(new TableRow(rs));
+            }
+            count++;
+          } else {
+            final TableRow row = new TableRow(rs);
+            if (filter.accept(row)) {
+              if (inPage) {
+                rows.add(row);
+              }
+              count++;
+            }
+          }
+        }
+      }
+    }
+    return PaginationList.from(rows, count);
+  }
+
+  /**
+   * Reads all the rows returned by the specified query, within the row limit, and passes those
+   * satisfying the filter to the handler.
+   */
+  private void read(final Connection connection, final String sqlQuery,
+      final List<Object> parameters, final RowFilter filter, final RowHandler handler)
+      throws SQLException, IOException {
+    try (PreparedStatement statement = prepare(connection, sqlQuery, parameters)) {
       statement.setMaxRows(currentConnectionInfo.getDataMaxNumber());
+      statement.setFetchSize(EXPORT_FETCH_SIZE);
       try (ResultSet rs = statement.executeQuery()) {
         while (rs.next()) {
-          rows.add(new TableRow(rs));
+          final TableRow row = new TableRow(rs);
+          if (filter.accept(row)) {
+            handler.handle(row);
+          }
         }
-        return rows;
+      }
+    }
+  }
+
+  private static long count(final Connection connection, final String sqlQuery,
+      final List<Object> parameters) throws SQLException {
+    final String countQuery =
+        "select count(*) from (" + trimmed(sqlQuery) + ") " + COUNTED_QUERY_ALIAS;
+    try (PreparedStatement statement = prepare(connection, countQuery, parameters);
+         ResultSet rs = statement.executeQuery()) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+  private static PreparedStatement prepare(final Connection connection, final String sqlQuery,
+      final List<Object> parameters) throws SQLException {
+    final PreparedStatement statement = connection.prepareStatement(sqlQuery);
+    try {
+      for (int i = 0; i < parameters.size(); i++) {
+        statement.setObject(i + 1, parameters.get(i));
       }
     } catch (SQLException e) {
-      throw new JdbcConnectorException(e);
+      statement.close();
+      throw e;
+    }
+    return statement;
+  }
+
+  private static String trimmed(final String sqlQuery) {
+    String query = sqlQuery.trim();
+    while (query.endsWith(";")) {
+      query = query.substring(0, query.length() - 1).trim();
+    }
+    return query;
+  }
+
+  private static String filtered(final String sqlQuery, final SqlCondition condition) {
+    return "select * from (" + trimmed(sqlQuery) + ") " + FILTERED_QUERY_ALIAS + " where " +
+        condition.getClause();
+  }
+
+  private static String quote(final String identifier, final DatabaseMetaData metaData)
+      throws SQLException {
+    // a space is returned by the JDBC driver if the quoting of identifiers isn't supported
+    final String quote = metaData.getIdentifierQuoteString();
+    if (quote == null || quote.trim().isEmpty()) {
+      return identifier;
     }
+    return quote + identifier.replace(quote, quote + quote) + quote;
+  }
+
+  /**
+   * A handler of the rows read from the data source while exporting the result of a SQL query.
+   */
+  @FunctionalInterface
+  public interface RowHandler {
+
+    /**
+     * Handles the specified row.
+     * @param row a row read from the data source.
+     * @throws IOException if the handling of the row failed.
+     */
+    void handle(final TableRow row) throws IOException;
   }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.jdbcconnector.service;
+
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.util.SilverpeasList;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the pages of rows read from the remote data sources. It is shared by all the users
+ * of a ConnecteurJDBC instance so that the displaying of a same result by several users, or
+ * several times by a same user, doesn't request the data source each time.
+ * <p>
+ * A page is cached for a short time only as the data in the data source can change at any time.
+ * It is identified by the component instance, the connection information (data source, login
+ * and row limit), the SQL query, the filter and the page itself.
+ * </p>
+ */
+final class QueryResultCache {
+
+  private static final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+  private QueryResultCache() {
+  }
+
+  /**
+   * Gets the page of rows identified by the specified key. If the page isn't in the cache or if
+   * it has expired, then it is loaded with the specified loader and it is put into the cache.
+   * @param key the key identifying the page of rows.
+   * @param timeToLive the time in seconds a page lives in the cache. 0 or less means no cache.
+   * @param loader the loader of the page from the data source.
+   * @return the page of rows.
+   * @throws JdbcConnectorException if the loading of the page fails.
+   */
+  static SilverpeasList<TableRow> get(final Key key, final int timeToLive, final Loader loader)
+      throws JdbcConnectorException {
+    if (timeToLive <= 0) {
+      return loader.load();
+    }
+    final long now = System.currentTimeMillis();
+    final Entry entry = cache.get(key);
+    if (entry != null && entry.expiration > now) {
+      return entry.rows;
+    }
+    final SilverpeasList<TableRow> rows = loader.load();
+    cache.values().removeIf(e -> e.expiration <= now);
+    cache.put(key, new Entry(rows, now + timeToLive * 1000L));
+    return rows;
+  }
+
+  /**
+   * Removes from the cache all the pages of rows of the specified component instance.
+   * @param instanceId the unique identifier of a ConnecteurJDBC instance.
+   */
+  static void clear(final String instanceId) {
+    cache.keySet().removeIf(k -> k.instanceId.equals(instanceId));
+  }
+
+  @FunctionalInterface
+  interface Loader {
+    SilverpeasList<TableRow> load() throws JdbcConnectorException;
+  }
+
+  /**
+   * The key of a page of rows in the cache.
+   */
+  static class Key {
+    private final String instanceId;
+    private final String dataSource;
+    private final String login;
+    private final int rowLimit;
+    private final String sqlQuery;
+    private final RowFilter filter;
+    private final int pageNumber;
+    private final int pageSize;
+
+    Key(final String instanceId, final String dataSource, final String login, final int rowLimit,
+        final String sqlQuery, final RowFilter filter, final PaginationPage page) {
+      this.instanceId = instanceId;
+      this.dataSource = dataSource;
+      this.login = login;
+      this.rowLimit = rowLimit;
+      this.sqlQuery = sqlQuery;
+      this.filter = filter;
+      this.pageNumber = page.getPageNumber();
+      this.pageSize = page.getPageSize();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return rowLimit == key.rowLimit && pageNumber == key.pageNumber &&
+          pageSize == key.pageSize && instanceId.equals(key.instanceId) &&
+          Objects.equals(dataSource, key.dataSource) && Objects.equals(login, key.login) &&
+          sqlQuery.equals(key.sqlQuery) && filter.equals(key.filter);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(instanceId, dataSource, login, rowLimit, sqlQuery, filter, pageNumber,
+          pageSize);
+    }
+  }
+
+  private static class Entry {
+    private final SilverpeasList<TableRow> rows;
+    private final long expiration;
+
+    private Entry(final SilverpeasList<TableRow> rows, final long expiration) {
+      this.rows = rows;
+      this.expiration = expiration;
+    }
+  }
+}
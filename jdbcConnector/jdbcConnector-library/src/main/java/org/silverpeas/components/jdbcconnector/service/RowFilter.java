@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.jdbcconnector.service;
+
+import org.silverpeas.components.jdbcconnector.service.comparators.FieldValueComparator;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A filter of the rows returned by a SQL query. It keeps only the rows whose the value of a given
+ * field satisfies a {@link FieldValueComparator} predicate with a reference value.
+ * <p>
+ * The filter is applied preferably by the data source itself (see {@link #toSql(String)}). This
+ * is the case when the reference value is of the type of the field and when this type is one of
+ * the SQL ones (text, number, date or boolean). Otherwise, the filter is applied on each row read
+ * from the data source (see {@link #accept(TableRow)}).
+ * </p>
+ */
+public final class RowFilter {
+
+  /**
+   * The filter accepting all of the rows.
+   */
+  public static final RowFilter NONE = new RowFilter(null, null, null);
+
+  private final String fieldName;
+  private final FieldValueComparator comparator;
+  private final Comparable referenceValue;
+  private final boolean typed;
+
+  /**
+   * Constructs a new filter on the specified field.
+   * @param fieldName the name of the field in the table rows.
+   * @param fieldType the concrete type of the field. The reference value is converted into this
+   * type when the type provides a <code>valueOf(String)</code> static method, otherwise it is
+   * kept as a {@link String}.
+   * @param comparator the predicate the value of the field has to satisfy.
+   * @param value the reference value to which the value of the field is compared.
+   */
+  public RowFilter(final String fieldName, final Class<?> fieldType,
+      final FieldValueComparator comparator, final String value) {
+    Objects.requireNonNull(fieldName);
+    Objects.requireNonNull(fieldType);
+    Objects.requireNonNull(comparator);
+    Objects.requireNonNull(value);
+    this.fieldName = fieldName;
+    this.comparator = comparator;
+    Comparable actualValue;
+    try {
+      Method valueOf = fieldType.getMethod("valueOf", String.class);
+      actualValue = (Comparable) valueOf.invoke(fieldType, value);
+    } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException |
+        ClassCastException e) {
+      actualValue = value;
+    }
+    this.referenceValue = actualValue;
+    this.typed = actualValue != null && fieldType.isInstance(actualValue) && isSqlType(fieldType);
+  }
+
+  private RowFilter(final String fieldName, final FieldValueComparator comparator,
+      final Comparable referenceValue) {
+    this.fieldName = fieldName;
+    this.comparator = comparator;
+    this.referenceValue = referenceValue;
+    this.typed = false;
+  }
+
+  /**
+   * Is this filter accepting all of the rows?
+   * @return true if no rows are filtered, false otherwise.
+   */
+  public boolean isNone() {
+    return comparator == null;
+  }
+
+  /**
+   * Gets the name of the filtered field.
+   * @return the field name or null if this filter is {@link #NONE}.
+   */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * Is the specified row accepted by this filter?
+   * @param row a row read from the data source.
+   * @return true if the value of the filtered field in the row satisfies the predicate of this
+   * filter, false otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean accept(final TableRow row) {
+    return isNone() || (referenceValue != null &&
+        comparator.compare(row.getFieldValue(fieldName), referenceValue));
+  }
+
+  /**
+   * Gets the SQL condition equivalent to this filter.
+   * @param column the name of the filtered field as it has to be written in the SQL query.
+   * @return the SQL condition or nothing if this filter cannot be applied by the data source.
+   */
+  public Optional<SqlCondition> toSql(final String column) {
+    if (isNone() || !typed) {
+      return Optional.empty();
+    }
+    return comparator.toSql(column, referenceValue);
+  }
+
+  private static boolean isSqlType(final Class<?> type) {
+    return String.class.equals(type) || Number.class.isAssignableFrom(type) ||
+        Date.class.isAssignableFrom(type) || Boolean.class.equals(type);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final RowFilter that = (RowFilter) o;
+    return Objects.equals(fieldName, that.fieldName) &&
+        Objects.equals(comparator == null ? null : comparator.getClass(),
+            that.comparator == null ? null : that.comparator.getClass()) &&
+        Objects.equals(referenceValue, that.referenceValue);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(fieldName, comparator == null ? null : comparator.getClass(),
+        referenceValue);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.jdbcconnector.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A condition in the WHERE clause of a SQL query. The values in the condition are passed as
+ * parameters of the query so that they are never interpreted by the data source as SQL.
+ */
+public final class SqlCondition {
+
+  private final String clause;
+  private final List<Object> parameters;
+
+  /**
+   * Constructs a new SQL condition.
+   * @param clause the SQL condition with a <code>?</code> placeholder for each parameter.
+   * @param parameters the values of the parameters, in the order of their placeholders.
+   */
+  public SqlCondition(final String clause, final Object... parameters) {
+    this.clause = clause;
+    this.parameters = Collections.unmodifiableList(Arrays.asList(parameters));
+  }
+
+  /**
+   * Gets the SQL condition.
+   * @return the condition with a <code>?</code> placeholder for each parameter.
+   */
+  public String getClause() {
+    return clause;
+  }
+
+  /**
+   * Gets the values of the parameters of the condition.
+   * @return a list of values in the order of their placeholders in the condition.
+   */
+  public List<Object> getParameters() {
+    return parameters;
+  }
+}
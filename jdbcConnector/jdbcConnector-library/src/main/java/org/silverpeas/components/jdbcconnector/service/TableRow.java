@@ -60,7 +60,7 @@ public class TableRow {
         } else {
           valueToStore = new TableFieldValue(value);
         }
-        this.fields.put(rsMetaData.getColumnName(i), valueToStore);
+        this.fields.put(rsMetaData.getColumnLabel(i), valueToStore);
       }
     } catch (SQLException e) {
       throw new JdbcConnectorRuntimeException(e);
@@ -24,6 +24,10 @@
 
 package org.silverpeas.components.jdbcconnector.service.comparators;
 
+import org.silverpeas.components.jdbcconnector.service.SqlCondition;
+
+import java.util.Optional;
+
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 /**
@@ -49,5 +53,14 @@ public class Equality implements FieldValueComparator {
     }
     return false;
   }
+
+  @Override
+  public Optional<SqlCondition> toSql(final String column, final Comparable referenceValue) {
+    if (NULL_VALUE.equals(referenceValue)) {
+      return Optional.of(new SqlCondition(column + " is null"));
+    }
+    final Object value = EMPTY_VALUE.equals(referenceValue) ? EMPTY : referenceValue;
+    return Optional.of(new SqlCondition(column + " = ?", value));
+  }
 }
   
\ No newline at end of file
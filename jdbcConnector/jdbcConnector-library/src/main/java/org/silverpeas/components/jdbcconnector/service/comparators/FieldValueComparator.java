@@ -24,6 +24,10 @@
 
 package org.silverpeas.components.jdbcconnector.service.comparators;
 
+import org.silverpeas.components.jdbcconnector.service.SqlCondition;
+
+import java.util.Optional;
+
 /**
  * A comparator of comparable values. Such comparator is a comparing predicate between two
  * comparable objects.
@@ -39,5 +43,17 @@ public interface FieldValueComparator {
    * @return true if the comparing predicate between the two specified values is satisfied.
    */
   boolean compare(final Comparable value, final Comparable referenceValue);
+
+  /**
+   * Gets the SQL condition on the specified column that is equivalent to this comparator so that
+   * the comparing can be done directly by the data source. By default, a comparator has no SQL
+   * equivalent.
+   * @param column the column name, as it has to be written in the SQL query.
+   * @param referenceValue the reference value the values of the column are compared to.
+   * @return the SQL condition or nothing if the comparing cannot be done in SQL.
+   */
+  default Optional<SqlCondition> toSql(final String column, final Comparable referenceValue) {
+    return Optional.empty();
+  }
 }
   
\ No newline at end of file
@@ -24,12 +24,18 @@
 
 package org.silverpeas.components.jdbcconnector.service.comparators;
 
+import org.silverpeas.components.jdbcconnector.service.SqlCondition;
+
+import java.util.Optional;
+
 /**
  * The including comparator.
  * @author mmoquillon
  */
 public class Inclusion implements FieldValueComparator {
 
+  private static final String ESCAPE = "!";
+
   @Override
   public boolean compare(final Comparable value, final Comparable referenceValue) {
     if (value == null) {
@@ -37,5 +43,21 @@ public class Inclusion implements FieldValueComparator {
     }
     return value.toString().contains(referenceValue.toString());
   }
+
+  /**
+   * The including is done on the text of the values, so it is performed in SQL only for text
+   * columns, by escaping the wildcards of the <code>LIKE</code> operator in the reference value.
+   */
+  @Override
+  public Optional<SqlCondition> toSql(final String column, final Comparable referenceValue) {
+    if (!(referenceValue instanceof String)) {
+      return Optional.empty();
+    }
+    final String pattern = ((String) referenceValue).replace(ESCAPE, ESCAPE + ESCAPE)
+        .replace("%", ESCAPE + "%")
+        .replace("_", ESCAPE + "_");
+    return Optional.of(
+        new SqlCondition(column + " like ? escape '" + ESCAPE + "'", "%" + pattern + "%"));
+  }
 }
   
\ No newline at end of file
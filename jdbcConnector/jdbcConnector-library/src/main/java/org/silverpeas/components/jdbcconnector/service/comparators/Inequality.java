@@ -24,6 +24,10 @@
 
 package org.silverpeas.components.jdbcconnector.service.comparators;
 
+import org.silverpeas.components.jdbcconnector.service.SqlCondition;
+
+import java.util.Optional;
+
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.silverpeas.components.jdbcconnector.service.comparators.Equality.EMPTY_VALUE;
 import static org.silverpeas.components.jdbcconnector.service.comparators.Equality.NULL_VALUE;
@@ -46,5 +50,18 @@ public class Inequality implements FieldValueComparator {
     }
     return true;
   }
+
+  /**
+   * As with {@link #compare(Comparable, Comparable)}, the null values differ from any reference
+   * value other than {@link Equality#NULL_VALUE}.
+   */
+  @Override
+  public Optional<SqlCondition> toSql(final String column, final Comparable referenceValue) {
+    if (NULL_VALUE.equals(referenceValue)) {
+      return Optional.of(new SqlCondition(column + " is not null"));
+    }
+    final Object value = EMPTY_VALUE.equals(referenceValue) ? EMPTY : referenceValue;
+    return Optional.of(new SqlCondition("(" + column + " is null or " + column + " <> ?)", value));
+  }
 }
   
\ No newline at end of file
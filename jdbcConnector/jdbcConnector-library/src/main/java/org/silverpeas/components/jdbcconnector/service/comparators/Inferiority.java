@@ -24,6 +24,10 @@
 
 package org.silverpeas.components.jdbcconnector.service.comparators;
 
+import org.silverpeas.components.jdbcconnector.service.SqlCondition;
+
+import java.util.Optional;
+
 /**
  * The non-strict inferiority comparator; the two values can be equal.
  * @author mmoquillon
@@ -38,5 +42,10 @@ public class Inferiority implements FieldValueComparator {
     }
     return value.compareTo(referenceValue) <= 0;
   }
+
+  @Override
+  public Optional<SqlCondition> toSql(final String column, final Comparable referenceValue) {
+    return Optional.of(new SqlCondition(column + " <= ?", referenceValue));
+  }
 }
   
\ No newline at end of file
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.jdbcconnector.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.jdbcconnector.model.DataSourceConnectionInfo;
+import org.silverpeas.components.jdbcconnector.service.comparators.Equality;
+import org.silverpeas.components.jdbcconnector.service.comparators.Inclusion;
+import org.silverpeas.components.jdbcconnector.service.comparators.StrictInferiority;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.util.SilverpeasList;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests on the fetching of a page of the rows returned by a SQL query and on the export of
+ * all of them, with the filter applied either by the data source or on the read rows, run against
+ * an embedded H2 database.
+ */
+@EnableSilverTestEnv
+public class JdbcRequesterTest {
+
+  private static final String QUERY = "select * from person order by id";
+
+  private Connection connection;
+
+  @BeforeEach
+  public void createTable() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:jdbcconnector;DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table person (id int primary key, name varchar(20))");
+      for (int i = 1; i <= 10; i++) {
+        statement.execute("insert into person values (" + i + ", 'name" + i + "')");
+      }
+    }
+  }
+
+  @AfterEach
+  public void dropTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table person");
+    }
+    connection.close();
+  }
+
+  @Test
+  public void aPageOfTheQueryResultIsFetchedWithTheCountOfAllTheRows() throws SQLException {
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, RowFilter.NONE, 2, 3);
+    assertThat(idsOf(rows), is(Arrays.asList(4, 5, 6)));
+    assertThat(rows.originalListSize(), is(10L));
+  }
+
+  @Test
+  public void theLastPageFetchesOnlyTheRemainingRows() throws SQLException {
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, RowFilter.NONE, 4, 3);
+    assertThat(idsOf(rows), is(Collections.singletonList(10)));
+    assertThat(rows.originalListSize(), is(10L));
+  }
+
+  @Test
+  public void aPageBeyondTheRowsIsEmpty() throws SQLException {
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, RowFilter.NONE, 5, 3);
+    assertThat(rows.isEmpty(), is(true));
+    assertThat(rows.originalListSize(), is(10L));
+  }
+
+  @Test
+  public void theRowLimitBoundsBothThePagesAndTheCount() throws SQLException {
+    final SilverpeasList<TableRow> rows = fetch(5, QUERY, RowFilter.NONE, 2, 3);
+    assertThat(idsOf(rows), is(Arrays.asList(4, 5)));
+    assertThat(rows.originalListSize(), is(5L));
+  }
+
+  @Test
+  public void aQueryEndingWithASemicolonIsCounted() throws SQLException {
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY + " ;", RowFilter.NONE, 1, 3);
+    assertThat(idsOf(rows), is(Arrays.asList(1, 2, 3)));
+    assertThat(rows.originalListSize(), is(10L));
+  }
+
+  @Test
+  public void aTypedFilterIsAppliedByTheDataSource() throws SQLException {
+    final RowFilter filter = new RowFilter("ID", Integer.class, new StrictInferiority(), "5");
+    assertThat(filter.toSql("ID").isPresent(), is(true));
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, filter, 2, 3);
+    assertThat(idsOf(rows), is(Collections.singletonList(4)));
+    assertThat(rows.originalListSize(), is(4L));
+  }
+
+  @Test
+  public void theWildcardsOfAnInclusionFilterAreEscaped() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("insert into person values (11, 'name_%')");
+    }
+    final RowFilter filter = new RowFilter("NAME", String.class, new Inclusion(), "_%");
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, filter, 1, 3);
+    assertThat(idsOf(rows), is(Collections.singletonList(11)));
+    assertThat(rows.originalListSize(), is(1L));
+  }
+
+  @Test
+  public void theRowLimitAppliesToTheRowsFilteredByTheDataSource() throws SQLException {
+    final RowFilter filter = new RowFilter("ID", Integer.class, new StrictInferiority(), "8");
+    final SilverpeasList<TableRow> rows = fetch(4, QUERY, filter, 1, 10);
+    assertThat(idsOf(rows), is(Arrays.asList(1, 2, 3, 4)));
+    assertThat(rows.originalListSize(), is(4L));
+  }
+
+  @Test
+  public void anUntypedFilterIsAppliedOnTheReadRows() throws SQLException {
+    final RowFilter filter = new RowFilter("NAME", Object.class, new Equality(), "name7");
+    assertThat(filter.toSql("NAME").isPresent(), is(false));
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, filter, 1, 3);
+    assertThat(idsOf(rows), is(Collections.singletonList(7)));
+    assertThat(rows.originalListSize(), is(1L));
+  }
+
+  @Test
+  public void aFilterRejectedByTheDataSourceIsAppliedOnTheReadRows() throws SQLException {
+    final RowFilter filter = new RowFilter("UNKNOWN", String.class, new Equality(), "name7");
+    final SilverpeasList<TableRow> rows = fetch(0, QUERY, filter, 1, 3);
+    assertThat(rows.isEmpty(), is(true));
+    assertThat(rows.originalListSize(), is(0L));
+  }
+
+  @Test
+  public void allTheRowsOfTheQueryAreExported() throws SQLException, IOException {
+    final List<TableRow> rows = export(0, QUERY, RowFilter.NONE);
+    assertThat(idsOf(rows), is(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+  }
+
+  @Test
+  public void theRowLimitBoundsTheExport() throws SQLException, IOException {
+    final List<TableRow> rows = export(3, QUERY, RowFilter.NONE);
+    assertThat(idsOf(rows), is(Arrays.asList(1, 2, 3)));
+  }
+
+  @Test
+  public void aTypedFilterIsAppliedByTheDataSourceOnTheExport() throws SQLException, IOException {
+    final RowFilter filter = new RowFilter("ID", Integer.class, new StrictInferiority(), "8");
+    final List<TableRow> rows = export(4, QUERY, filter);
+    assertThat(idsOf(rows), is(Arrays.asList(1, 2, 3, 4)));
+  }
+
+  @Test
+  public void anUntypedFilterIsAppliedOnTheExportedRows() throws SQLException, IOException {
+    final RowFilter filter = new RowFilter("NAME", Object.class, new Equality(), "name7");
+    final List<TableRow> rows = export(0, QUERY, filter);
+    assertThat(idsOf(rows), is(Collections.singletonList(7)));
+  }
+
+  @Test
+  public void aFilterRejectedByTheDataSourceIsAppliedOnTheExportedRows()
+      throws SQLException, IOException {
+    final RowFilter filter = new RowFilter("UNKNOWN", String.class, new Equality(), "name7");
+    final List<TableRow> rows = export(0, QUERY, filter);
+    assertThat(rows.isEmpty(), is(true));
+  }
+
+  private SilverpeasList<TableRow> fetch(final int rowLimit, final String query,
+      final RowFilter filter, final int pageNumber, final int pageSize) throws SQLException {
+    final JdbcRequester requester = new JdbcRequester(
+        new DataSourceConnectionInfo("java:/datasources/jdbc", "connecteurJDBC1")
+            .withDataMaxNumber(rowLimit));
+    return requester.fetch(connection, query, filter, new PaginationPage(pageNumber, pageSize));
+  }
+
+  private List<TableRow> export(final int rowLimit, final String query, final RowFilter filter)
+      throws SQLException, IOException {
+    final JdbcRequester requester = new JdbcRequester(
+        new DataSourceConnectionInfo("java:/datasources/jdbc", "connecteurJDBC1")
+            .withDataMaxNumber(rowLimit));
+    final List<TableRow> rows = new ArrayList<>();
+    requester.export(connection, query, filter, rows::add);
+    return rows;
+  }
+
+  private static List<Integer> idsOf(final List<TableRow> rows) {
+    return rows.stream().map(r -> (Integer) r.getFieldValue("ID")).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.jdbcconnector.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.util.PaginationList;
+import org.silverpeas.core.util.SilverpeasList;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Unit tests on the caching of the pages of rows.
+ */
+public class QueryResultCacheTest {
+
+  private static final String INSTANCE_ID = "connecteurJDBC1";
+  private static final String OTHER_INSTANCE_ID = "connecteurJDBC2";
+  private static final int TTL = 60;
+
+  private final AtomicInteger loadings = new AtomicInteger(0);
+
+  @AfterEach
+  public void clearCache() {
+    QueryResultCache.clear(INSTANCE_ID);
+    QueryResultCache.clear(OTHER_INSTANCE_ID);
+  }
+
+  @Test
+  public void aPageIsLoadedOnceWhileItLives() throws JdbcConnectorException {
+    final SilverpeasList<TableRow> rows =
+        QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load);
+    assertThat(QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load), sameInstance(rows));
+    assertThat(loadings.get(), is(1));
+  }
+
+  @Test
+  public void eachPageIsCachedApart() throws JdbcConnectorException {
+    QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load);
+    QueryResultCache.get(key(INSTANCE_ID, 2), TTL, this::load);
+    QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load);
+    assertThat(loadings.get(), is(2));
+  }
+
+  @Test
+  public void aFilterIsPartOfTheKey() throws JdbcConnectorException {
+    final RowFilter filter = new RowFilter("ID", Integer.class, (v, r) -> true, "5");
+    QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load);
+    QueryResultCache.get(key(INSTANCE_ID, filter, 1), TTL, this::load);
+    assertThat(loadings.get(), is(2));
+  }
+
+  @Test
+  public void noPageIsCachedWithoutTimeToLive() throws JdbcConnectorException {
+    QueryResultCache.get(key(INSTANCE_ID, 1), 0, this::load);
+    QueryResultCache.get(key(INSTANCE_ID, 1), 0, this::load);
+    assertThat(loadings.get(), is(2));
+  }
+
+  @Test
+  public void clearingAnInstanceReloadsOnlyItsPages() throws JdbcConnectorException {
+    QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load);
+    QueryResultCache.get(key(OTHER_INSTANCE_ID, 1), TTL, this::load);
+    QueryResultCache.clear(INSTANCE_ID);
+    QueryResultCache.get(key(INSTANCE_ID, 1), TTL, this::load);
+    QueryResultCache.get(key(OTHER_INSTANCE_ID, 1), TTL, this::load);
+    assertThat(loadings.get(), is(3));
+  }
+
+  private SilverpeasList<TableRow> load() {
+    loadings.incrementAndGet();
+    return PaginationList.from(Collections.emptyList(), 0);
+  }
+
+  private static QueryResultCache.Key key(final String instanceId, final int pageNumber) {
+    return key(instanceId, RowFilter.NONE, pageNumber);
+  }
+
+  private static QueryResultCache.Key key(final String instanceId, final RowFilter filter,
+      final int pageNumber) {
+    return new QueryResultCache.Key(instanceId, "java:/datasources/jdbc", "login", 0,
+        "select * from person", filter, new PaginationPage(pageNumber, 25));
+  }
+}
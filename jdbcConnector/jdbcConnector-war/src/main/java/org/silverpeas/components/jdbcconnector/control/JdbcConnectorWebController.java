@@ -28,6 +28,10 @@ import org.silverpeas.components.jdbcconnector.model.DataSourceDefinition;
 import org.silverpeas.components.jdbcconnector.service.JdbcConnectorException;
 import org.silverpeas.components.jdbcconnector.service.JdbcConnectorRuntimeException;
 import org.silverpeas.components.jdbcconnector.service.JdbcRequester;
+import org.silverpeas.components.jdbcconnector.service.RowFilter;
+import org.silverpeas.components.jdbcconnector.service.TableRow;
+import org.silverpeas.components.jdbcconnector.servlets.JdbcConnectorExportServlet;
+import org.silverpeas.core.admin.PaginationPage;
 import org.silverpeas.core.admin.user.model.SilverpeasRole;
 import org.silverpeas.core.util.Mutable;
 import org.silverpeas.core.util.StringUtil;
@@ -45,6 +49,8 @@ import org.silverpeas.core.web.mvc.webcomponent.annotation.WebComponentControlle
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +78,8 @@ public class JdbcConnectorWebController extends
   public static final String COMPARING_OPERATOR = "currentComparator";
   public static final String COMPARING_VALUE = "columnValue";
   public static final String COMPARING_OPERATORS = "comparators";
+  public static final String FIRST_ROW_INDEX = "ItemIndex";
+  public static final String CONTROLLER = "jdbcConnector";
 
   private JdbcRequester requester;
   private String lastSqlQueryInError = EMPTY;
@@ -113,6 +121,9 @@ public class JdbcConnectorWebController extends
       if (StringUtil.getBooleanValue(reload)) {
         clearQueryResult();
       }
+      if (context.getRequest().isParameterDefined(FIRST_ROW_INDEX)) {
+        queryResult.setFirstRowIndex(context.getRequest().getParameterAsInteger(FIRST_ROW_INDEX));
+      }
       executeSQLQuery(context);
     }
     setQueryResult(context.getRequest());
@@ -126,6 +137,20 @@ public class JdbcConnectorWebController extends
     home(context);
   }
 
+  /**
+   * Exports as CSV all the rows of the query result satisfying the current filter. The export is
+   * streamed into the response by the {@link JdbcConnectorExportServlet} to which the request is
+   * forwarded.
+   * @param context the context of the incoming request.
+   */
+  @GET
+  @Path("ExportResultSet")
+  @RedirectToInternalJsp(JdbcConnectorExportServlet.NAME)
+  @LowestRoleAccess(value = SilverpeasRole.reader)
+  public void exportResultSet(final JdbcConnectorWebRequestContext context) {
+    context.getRequest().setAttribute(CONTROLLER, this);
+  }
+
   @GET
   @Path("ParameterRequest")
   @RedirectToInternalJsp("requestParameters.jsp")
@@ -144,8 +169,8 @@ public class JdbcConnectorWebController extends
   @LowestRoleAccess(value = SilverpeasRole.reader)
   public void performSQLRequest(final JdbcConnectorWebRequestContext context) {
     if (requester.isDataSourceDefined()) {
-      executeSQLQuery(context);
       readRequestParameters(context.getRequest());
+      executeSQLQuery(context);
     }
     setQueryResult(context.getRequest());
   }
@@ -231,6 +256,35 @@ public class JdbcConnectorWebController extends
     }
   }
 
+  /**
+   * Writes as CSV into the specified writer all the rows of the query result satisfying the
+   * current filter. The rows are read from the data source while they are written, so the memory
+   * used doesn't depend on the number of exported rows.
+   * @param writer the writer into which the CSV rows are written.
+   * @throws JdbcConnectorException if the data source cannot be requested.
+   * @throws IOException if an error occurs while writing the CSV rows.
+   */
+  public void exportResultSet(final Writer writer) throws JdbcConnectorException, IOException {
+    final List<String> fieldNames = queryResult.getFieldNames();
+    writeCSVRow(writer, fieldNames);
+    requester.export(queryResult.getFilter().toRowFilter(), row -> writeCSVRow(writer,
+        fieldNames.stream().map(f -> valueOf(row, f)).collect(Collectors.toList())));
+    writer.flush();
+  }
+
+  private static String valueOf(final TableRow row, final String fieldName) {
+    final Object value = row.getFieldValue(fieldName);
+    return value == null ? EMPTY : value.toString();
+  }
+
+  private static void writeCSVRow(final Writer writer, final List<String> values)
+      throws IOException {
+    writer.write(values.stream()
+        .map(v -> "\"" + v.replace("\"", "\"\"") + "\"")
+        .collect(Collectors.joining(",")));
+    writer.write("\n");
+  }
+
   private Optional<String> validateSQLRequest(String request) {
     Optional<String> validationFailure = Optional.empty();
     String sqlQuery = request.trim();
@@ -242,7 +296,8 @@ public class JdbcConnectorWebController extends
       validationFailure = Optional.of(getString("erreurModifTable"));
     } else {
       try {
-        queryResult.setNewResult(requester.request(sqlQuery));
+        queryResult.setNewResult(requester.request(sqlQuery, RowFilter.NONE,
+            new PaginationPage(1, QueryResult.DEFAULT_PAGE_SIZE)));
       } catch (JdbcConnectorException e) {
         SilverLogger.getLogger(this).error("Error while validating SQL request: " + request, e);
         validationFailure = Optional.of(e.getLocalizedMessage());
@@ -252,10 +307,15 @@ public class JdbcConnectorWebController extends
   }
 
   private void readRequestParameters(final HttpRequest request) {
+    queryResult.resetPagination();
     if (request.isParameterNotNull(COMPARING_COLUMN)) {
       final Mutable<Object> firstNonNullValue = Mutable.of(EMPTY);
-      final String fieldName =
+      String fieldName =
           defaultStringIfNotDefined(request.getParameter(COMPARING_COLUMN), TableRowsFilter.FIELD_NONE);
+      if (!queryResult.getFieldNames().contains(fieldName)) {
+        // only a field of the query result can be filtered as its name is put in the SQL query
+        fieldName = TableRowsFilter.FIELD_NONE;
+      }
       if (!TableRowsFilter.FIELD_NONE.equals(fieldName)) {
         queryResult.getFirstNonNullValueOfColumn(fieldName).ifPresent(firstNonNullValue::set);
       }
@@ -270,20 +330,20 @@ public class JdbcConnectorWebController extends
   }
 
   private void executeSQLQuery(final JdbcConnectorWebRequestContext context) {
-    if (!queryResult.existsRows()) {
-      // the request is executed only once, when no query hasn't be yet performed.
-      // after that, the query result is cached in this web controller.
-      try {
-        queryResult.setNewResult(requester.request());
-      } catch (JdbcConnectorException e) {
-        SilverLogger.getLogger(this).error(e);
-        context.getMessager().addError(getString("sqlRequestExecutionFailure"));
-      }
+    // only the current page of the rows satisfying the filter is fetched. The pages are cached
+    // for a short time by the requester, so they are shared between the users of the instance.
+    try {
+      queryResult.setNewResult(
+          requester.request(queryResult.getFilter().toRowFilter(), queryResult.getPage()));
+    } catch (JdbcConnectorException e) {
+      SilverLogger.getLogger(this).error(e);
+      context.getMessager().addError(getString("sqlRequestExecutionFailure"));
     }
   }
 
   private void clearQueryResult() {
     queryResult.clear();
+    requester.clearCache();
   }
 
   private void setQueryResult(final HttpRequest request) {
@@ -25,6 +25,9 @@
 package org.silverpeas.components.jdbcconnector.control;
 
 import org.silverpeas.components.jdbcconnector.service.TableRow;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.util.SilverpeasArrayList;
+import org.silverpeas.core.util.SilverpeasList;
 
 import java.util.Collections;
 import java.util.List;
@@ -38,8 +41,12 @@ import java.util.Optional;
  */
 public class QueryResult {
 
-  private List<TableRow> rows = Collections.emptyList();
+  static final int DEFAULT_PAGE_SIZE = 25;
+
+  private SilverpeasList<TableRow> rows = new SilverpeasArrayList<>();
   private TableRowsFilter filter = new TableRowsFilter();
+  private final int pageSize = DEFAULT_PAGE_SIZE;
+  private int pageNumber = 1;
 
   private List<String> fieldNames = Collections.emptyList();
 
@@ -51,12 +58,13 @@ public class QueryResult {
   }
 
   void clear() {
-    rows = Collections.emptyList();
+    rows = new SilverpeasArrayList<>();
     filter.clear();
     fieldNames = Collections.emptyList();
+    resetPagination();
   }
 
-  void setNewResult(final List<TableRow> rows) {
+  void setNewResult(final SilverpeasList<TableRow> rows) {
     this.rows = rows;
     if (existsRows() && fieldNames.isEmpty()) {
       this.fieldNames = this.rows.get(0).getFieldNames();
@@ -64,31 +72,64 @@ public class QueryResult {
   }
 
   /**
-   * Gets field names extracted from last query result set.
-   * @return the field names.
+   * Goes back to the first page of the rows. To be called when the rows to display change.
    */
-  public List<String> getFieldNames() {
-    return fieldNames;
+  void resetPagination() {
+    pageNumber = 1;
+  }
+
+  /**
+   * Sets the page of rows to display from the index of its first row.
+   * @param firstRowIndex the index of the first row of the page among all the filtered rows.
+   */
+  void setFirstRowIndex(final int firstRowIndex) {
+    pageNumber = Math.max(0, firstRowIndex) / pageSize + 1;
+  }
+
+  /**
+   * Gets the page of rows to display.
+   * @return the current page.
+   */
+  PaginationPage getPage() {
+    return new PaginationPage(pageNumber, pageSize);
   }
 
   /**
-   * Gets the rows after the applying the filter {@link TableRowsFilter#filter(List)}.
-   * @return the filtered rows.
+   * Gets the index of the first row of the current page among all the filtered rows.
+   * @return the index of the first row in the page.
    */
-  public List<TableRow> getFilteredRows() {
-    return filter.filter(rows);
+  public int getFirstRowIndex() {
+    return (pageNumber - 1) * pageSize;
+  }
+
+  /**
+   * Gets the number of rows in a page.
+   * @return the size of the pages.
+   */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Gets field names extracted from last query result set.
+   * @return the field names.
+   */
+  public List<String> getFieldNames() {
+    return fieldNames;
   }
 
   /**
-   * Gets the rows without applying any filter.
-   * @return the rows (not filtered).
+   * Gets the rows of the current page. They are already filtered by the {@link TableRowsFilter}
+   * when requesting the data source. The total number of rows satisfying the filter is given by
+   * {@link SilverpeasList#originalListSize()}.
+   * @return the filtered rows of the current page.
    */
-  public List<TableRow> getRows() {
+  public SilverpeasList<TableRow> getRows() {
     return rows;
   }
 
   /**
-   * Indicates if it exists rows without taking care of filtering.
+   * Indicates if it exists rows in the current page.
    * @return true if it exists rows, false otherwise.
    */
   boolean existsRows() {
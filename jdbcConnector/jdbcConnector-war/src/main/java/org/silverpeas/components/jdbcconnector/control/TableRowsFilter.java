@@ -24,7 +24,7 @@
 
 package org.silverpeas.components.jdbcconnector.control;
 
-import org.silverpeas.components.jdbcconnector.service.TableRow;
+import org.silverpeas.components.jdbcconnector.service.RowFilter;
 import org.silverpeas.components.jdbcconnector.service.comparators.Equality;
 import org.silverpeas.components.jdbcconnector.service.comparators.FieldValueComparator;
 import org.silverpeas.components.jdbcconnector.service.comparators.Inclusion;
@@ -35,20 +35,17 @@ import org.silverpeas.components.jdbcconnector.service.comparators.StrictInferio
 import org.silverpeas.components.jdbcconnector.service.comparators.StrictSuperiority;
 import org.silverpeas.components.jdbcconnector.service.comparators.Superiority;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 /**
- * Filter of table rows by applying a {@link FieldValueComparator} predicate on them.
+ * Filter of table rows by applying a {@link FieldValueComparator} predicate on them. The
+ * filtering parameters are set from the user inputs and they are then converted into a
+ * {@link RowFilter} to be applied when requesting the data source.
  * @author mmoquillon
  */
 public class TableRowsFilter {
@@ -155,38 +152,16 @@ public class TableRowsFilter {
   }
 
   /**
-   * Filters the specified table rows by applying the underlying filtering parameters that were set
-   * by the setters.
-   * @param rows the rows to filter.
-   * @return a list with all the table rows filtered according to the underlying filtering
-   * parameters.
+   * Gets the filter of table rows matching the filtering parameters that were set by the setters.
+   * @return a {@link RowFilter} instance or {@link RowFilter#NONE} if either no field or no
+   * comparator is set.
    */
-  public List<TableRow> filter(final List<TableRow> rows) {
+  public RowFilter toRowFilter() {
     final FieldValueComparator predicate = comparators.get(comparator);
-    if (!fieldName.equals(FIELD_NONE) && predicate != null) {
-      Comparable actualValue;
-      try {
-        Method valueOf = fieldType.getMethod("valueOf", String.class);
-        actualValue = (Comparable) valueOf.invoke(fieldType, fieldValue);
-      } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException |
-          ClassCastException e) {
-        actualValue = fieldValue;
-      }
-      final Comparable refValue = actualValue;
-      return rows.stream()
-          .filter(byApplying(predicate, fieldName, refValue))
-          .collect(Collectors.toList());
+    if (fieldName.equals(FIELD_NONE) || comparator.equals(FIELD_NONE) || predicate == null) {
+      return RowFilter.NONE;
     }
-    return rows;
-  }
-
-  @SuppressWarnings("unchecked")
-  private Predicate<TableRow> byApplying(final FieldValueComparator comparator,
-      final String fieldName, final Comparable withValue) {
-    return r -> {
-      Comparable v = r.getFieldValue(fieldName);
-      return withValue != null && comparator.compare(v, withValue);
-    };
+    return new RowFilter(fieldName, fieldType, predicate, fieldValue);
   }
 }
   
\ No newline at end of file
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.jdbcconnector.servlets;
+
+import org.silverpeas.components.jdbcconnector.control.JdbcConnectorWebController;
+import org.silverpeas.components.jdbcconnector.service.JdbcConnectorException;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.silverpeas.core.web.http.FileResponse.encodeAttachmentFilenameAsUtf8;
+
+/**
+ * Streams into the response the CSV export of all the rows of a query result satisfying the
+ * current filter. The rows are written while they are read from the data source, without any
+ * temporary file, so the length of the export isn't known: no Content-Length header is set.
+ * <p>
+ * The servlet is reached only by a forward from the {@link JdbcConnectorWebController} which has
+ * already checked the user can access the application and which provides itself as a request
+ * attribute. As the forward targets an internal JSP path, the servlet is mapped on the
+ * {@link #NAME} resource of the JSP directory of the application.
+ * </p>
+ */
+public class JdbcConnectorExportServlet extends HttpServlet {
+
+  public static final String NAME = "ExportResultSet";
+  private static final long serialVersionUID = 4120781926470343265L;
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException {
+    doPost(req, res);
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException {
+    JdbcConnectorWebController controller =
+        (JdbcConnectorWebController) req.getAttribute(JdbcConnectorWebController.CONTROLLER);
+    if (controller == null) {
+      res.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+    String csvName = "exportJdbcConnector_" +
+        new SimpleDateFormat("yyyy-MM-dd-HH'H'mm'm'ss's'").format(new Date()) + ".csv";
+    res.setContentType("text/csv");
+    res.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    res.setHeader("Content-Disposition", encodeAttachmentFilenameAsUtf8(csvName));
+    try {
+      Writer writer = new BufferedWriter(
+          new OutputStreamWriter(res.getOutputStream(), StandardCharsets.UTF_8));
+      controller.exportResultSet(writer);
+      res.flushBuffer();
+    } catch (JdbcConnectorException | IOException e) {
+      // the export is left incomplete: the connection is broken so that the client detects it
+      SilverLogger.getLogger(this).error("Export of the query result of {0} failed",
+          new String[]{controller.getComponentId()}, e);
+      if (!res.isCommitted()) {
+        res.reset();
+        res.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        return;
+      }
+      throw e instanceof IOException ? (IOException) e : new IOException(e);
+    }
+  }
+}
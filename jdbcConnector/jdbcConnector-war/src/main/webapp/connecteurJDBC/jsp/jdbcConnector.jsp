@@ -42,6 +42,7 @@
 <view:setConstant var="comparingValue"     constant="org.silverpeas.components.jdbcconnector.control.JdbcConnectorWebController.COMPARING_VALUE"/>
 <view:setConstant var="comparingOperators" constant="org.silverpeas.components.jdbcconnector.control.JdbcConnectorWebController.COMPARING_OPERATORS"/>
 <view:setConstant var="nothing"            constant="org.silverpeas.components.jdbcconnector.control.TableRowsFilter.FIELD_NONE"/>
+<view:setConstant var="firstRowIndex"      constant="org.silverpeas.components.jdbcconnector.control.JdbcConnectorWebController.FIRST_ROW_INDEX"/>
 
 <c:set var="componentId"       value="${requestScope.browseContext[3]}"/>
 <c:set var="columnToCompare"   value="${requestScope[comparingColumn]}"/>
@@ -55,6 +56,7 @@
 <fmt:message var="windowTitle"   key="windowTitleMain"/>
 <fmt:message var="crumbTitle"    key="titreExecution"/>
 <fmt:message var="reload"        key="reloadRequest"/>
+<fmt:message var="export"        key="GML.export"/>
 <fmt:message var="resultTab"     key="tabbedPaneConsultation"/>
 <fmt:message var="queryTab"      key="tabbedPaneRequete"/>
 <fmt:message var="dataSourceTab" key="tabbedPaneParametresJDBC"/>
@@ -70,6 +72,7 @@
 
 <c:url var="editorIcon" value="/util/icons/connecteurJDBC_request.gif"/>
 <c:url var="infoIcon" value="/util/icons/info.gif"/>
+<c:url var="exportIcon" value="/util/icons/export.gif"/>
 
 <!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Transitional//EN" "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd">
 <html xmlns="http://www.w3.org/1999/xhtml" id="ng-app" ng-app="silverpeas.jdbcConnector">
@@ -91,6 +94,9 @@
 <view:browseBar componentId="${componentId}" path="${requestScope.navigationContext}" extraInformations="${crumbTitle}"/>
 <view:operationPane>
   <view:operation action="Main?reload=true" altText="${reload}" icon="${editorIcon}"/>
+  <c:if test="${not empty queryResult.rows}">
+    <view:operation action="ExportResultSet" altText="${export}" icon="${exportIcon}"/>
+  </c:if>
 </view:operationPane>
 <view:window>
   <view:componentInstanceIntro componentId="${componentId}" language="${currentUserLanguage}"/>
@@ -160,11 +166,12 @@
     </div>
     <div id="result-set">
       <c:set var="fieldNames" value="${queryResult.fieldNames}"/>
-      <view:arrayPane var="ResultSet${componentId}" routingAddress="ViewResultSet" export="true" numberLinesPerPage="25">
+      <view:arrayPane var="ResultSet${componentId}" routingAddress="ViewResultSet" export="false" numberLinesPerPage="${queryResult.pageSize}">
+        <%-- the rows are in the order of the SQL query: sorting them would sort only the page --%>
         <c:forEach var="fieldName" items="${fieldNames}">
-          <view:arrayColumn title="${fieldName}" compareOn="${(r, i) -> r.getFieldValue(fieldNames[i])}"/>
+          <view:arrayColumn title="${fieldName}" sortable="false"/>
         </c:forEach>
-        <view:arrayLines var="row" items="${queryResult.filteredRows}">
+        <view:arrayLines var="row" items="${queryResult.rows}">
           <view:arrayLine>
             <c:forEach var="fieldName" items="${fieldNames}">
               <c:set var="currentValue" value="${row.getFieldValue(fieldName)}"/>
@@ -173,6 +180,10 @@
           </view:arrayLine>
         </view:arrayLines>
       </view:arrayPane>
+      <c:if test="${queryResult.rows.originalListSize() > queryResult.pageSize}">
+        <view:pagination currentPage="${queryResult.firstRowIndex}" totalNumberOfItems="${queryResult.rows.originalListSize()}"
+                         nbItemsPerPage="${queryResult.pageSize}" action="ViewResultSet?${firstRowIndex}="/>
+      </c:if>
       <script type="text/javascript">
         whenSilverpeasReady(function() {
           sp.arrayPane.ajaxControls('#result-set');
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.dao;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.silverpeas.components.kmelia.model.PublicationPlacement;
+import org.silverpeas.components.kmelia.test.WarBuilder4Kmelia;
+import org.silverpeas.core.admin.user.model.SilverpeasRole;
+import org.silverpeas.core.contribution.publication.model.PublicationPK;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
+import org.silverpeas.core.test.rule.DbUnitLoadingRule;
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SilverpeasList;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests the visibility rules applied in SQL by
+ * {@link PublicationDistributionDao#getPublicationPKsInFolder} against the ones of the
+ * publications filtering in memory, and the fathers of the publications got by
+ * {@link PublicationDistributionDao#getFatherIds}.
+ */
+@RunWith(Arquillian.class)
+public class PublicationDistributionDaoIT {
+
+  private static final NodePK FOLDER = new NodePK("1", "kmelia100");
+  private static final String ORDER_BY = "p.pubId";
+  private static final PaginationCriterion ALL = new PaginationCriterion(1, 100);
+
+  private PublicationDistributionDao dao;
+
+  @Rule
+  public DbUnitLoadingRule dbUnitLoadingRule =
+      new DbUnitLoadingRule("create-publication-database.sql", "publication-dataset.xml");
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return WarBuilder4Kmelia.onWarForTestClass(PublicationDistributionDaoIT.class)
+        .testFocusedOn(warBuilder -> {
+          warBuilder.addClasses(PublicationPlacement.class);
+          warBuilder.addPackages(true, "org.silverpeas.components.kmelia.dao");
+        }).build();
+  }
+
+  @Before
+  public void generalSetup() {
+    dao = ServiceProvider.getService(PublicationDistributionDao.class);
+  }
+
+  @Test
+  public void aReaderSeesOnlyTheValidPublicationsInTheirVisibilityPeriod() throws SQLException {
+    assertThat(getIds(SilverpeasRole.user, "20", false, false), contains("1", "7"));
+    assertThat(getIds(SilverpeasRole.reader, "20", false, false), contains("1", "7"));
+  }
+
+  @Test
+  public void aWriterSeesAlsoItsOwnPublicationsWhateverTheirStatusOrVisibilityPeriod()
+      throws SQLException {
+    assertThat(getIds(SilverpeasRole.writer, "10", false, false),
+        contains("1", "2", "4", "5", "7"));
+  }
+
+  @Test
+  public void aPublisherSeesAlsoThePublicationsInTheValidationWorkflow() throws SQLException {
+    assertThat(getIds(SilverpeasRole.publisher, "30", false, false), contains("1", "5", "7"));
+  }
+
+  @Test
+  public void anAdminSeesAllThePublicationsButTheDraftsOfOthers() throws SQLException {
+    assertThat(getIds(SilverpeasRole.admin, "30", false, false),
+        contains("1", "2", "3", "5", "7"));
+  }
+
+  @Test
+  public void aCoWriterSeesTheDraftsOfOthersOnlyWhenTheyAreShared() throws SQLException {
+    assertThat(getIds(SilverpeasRole.writer, "30", true, false),
+        contains("1", "2", "3", "5", "7"));
+    assertThat(getIds(SilverpeasRole.writer, "30", true, true),
+        contains("1", "2", "3", "4", "5", "7"));
+  }
+
+  @Test
+  public void aReaderIsNeverACoWriter() throws SQLException {
+    assertThat(getIds(SilverpeasRole.user, "30", true, true), contains("1", "7"));
+  }
+
+  @Test
+  public void thePublicationsArePagedWithTheTotalNumberOfVisibleOnes() throws SQLException {
+    SilverpeasList<PublicationPK> page =
+        dao.getPublicationPKsInFolder(FOLDER, SilverpeasRole.admin, "30", false, false, ORDER_BY,
+            new PaginationCriterion(2, 2));
+    assertThat(page.size(), is(2));
+    assertThat(page.get(0).getId(), is("3"));
+    assertThat(page.get(1).getId(), is("5"));
+    assertThat(page.originalListSize(), is(5L));
+  }
+
+  @Test
+  public void anAliasIsGivenWithTheInstanceOfItsPublication() throws SQLException {
+    SilverpeasList<PublicationPK> pks =
+        dao.getPublicationPKsInFolder(FOLDER, SilverpeasRole.user, "20", false, false, ORDER_BY,
+            ALL);
+    assertThat(pks.get(1).getId(), is("7"));
+    assertThat(pks.get(1).getInstanceId(), is("kmelia200"));
+  }
+
+  @Test
+  public void theFathersOfThePublicationsAreThoseOfTheGivenInstanceOnly() throws SQLException {
+    Map<String, List<String>> fatherIds =
+        dao.getFatherIds("kmelia100", Arrays.asList("1", "6", "7", "8"));
+    assertThat(fatherIds.size(), is(3));
+    assertThat(fatherIds.get("1"), contains("1"));
+    assertThat(fatherIds.get("6"), contains("2"));
+    assertThat(fatherIds.get("7"), contains("1"));
+
+    fatherIds = dao.getFatherIds("kmelia200", Arrays.asList("1", "7"));
+    assertThat(fatherIds.size(), is(1));
+    assertThat(fatherIds.get("7"), contains("3"));
+  }
+
+  private List<String> getIds(final SilverpeasRole profile, final String userId,
+      final boolean coWriting, final boolean draftVisibleWithCoWriting) throws SQLException {
+    List<String> ids = new ArrayList<>();
+    for (PublicationPK pk : dao.getPublicationPKsInFolder(FOLDER, profile, userId, coWriting,
+        draftVisibleWithCoWriting, ORDER_BY, ALL)) {
+      ids.add(pk.getId());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,25 @@
+CREATE TABLE sb_publication_publi
+(
+  pubId         int           NOT NULL,
+  instanceId    varchar(50)   NOT NULL,
+  pubName       varchar(400)  NOT NULL,
+  pubStatus     varchar(100)  NULL,
+  pubCreatorId  varchar(100)  NOT NULL,
+  pubUpdaterId  varchar(100)  NULL,
+  pubBeginDate  varchar(10)   NOT NULL,
+  pubEndDate    varchar(10)   NOT NULL,
+  pubBeginHour  varchar(5)    NULL,
+  pubEndHour    varchar(5)    NULL,
+  PRIMARY KEY (pubId)
+);
+
+CREATE TABLE sb_publication_publifather
+(
+  pubId       int           NOT NULL,
+  nodeId      int           NOT NULL,
+  instanceId  varchar(50)   NOT NULL,
+  aliasUserId varchar(100)  NULL,
+  aliasDate   varchar(20)   NULL,
+  pubOrder    int           DEFAULT 0 NULL,
+  PRIMARY KEY (pubId, nodeId, instanceId)
+);
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.dao;
+
+import org.silverpeas.components.kmelia.model.PublicationPlacement;
+import org.silverpeas.core.admin.user.model.SilverpeasRole;
+import org.silverpeas.core.contribution.publication.model.PublicationPK;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
+import org.silverpeas.core.util.SilverpeasList;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO on the placements of the publications in the folders, from which the number of
+ * publications per folder is computed and the publications of a folder are listed page by page.
+ */
+public interface PublicationDistributionDao {
+
+  /**
+   * @param instanceId the identifier of a component instance.
+   * @return the placements of all the publications in the folders of the instance, aliases
+   * included.
+   * @throws SQLException on a database access error.
+   */
+  List<PublicationPlacement> getPlacementsInInstance(String instanceId) throws SQLException;
+
+  /**
+   * @param pubId the identifier of a publication.
+   * @return the placements of the publication in the folders of all the component instances.
+   * @throws SQLException on a database access error.
+   */
+  List<PublicationPlacement> getPlacementsOfPublication(String pubId) throws SQLException;
+
+  /**
+   * Counts the publications in the basket of a component instance.
+   * @param instanceId the identifier of a component instance.
+   * @param updaterId the identifier of the user who put the publications in the basket, null to
+   * count all the publications in the basket.
+   * @return the number of publications in the basket.
+   * @throws SQLException on a database access error.
+   */
+  long countPublicationsInBasket(String instanceId, String updaterId) throws SQLException;
+
+  /**
+   * @param instanceId the identifier of a component instance.
+   * @return the identifiers of the valid publications of the instance, in ascending order.
+   * @throws SQLException on a database access error.
+   */
+  List<String> getValidPublicationIds(String instanceId) throws SQLException;
+
+  /**
+   * Gets in one go the folders of the specified component instance in which the given
+   * publications are placed. The aliases of the publications in other component instances are
+   * ignored.
+   * @param instanceId the unique identifier of a kmelia instance.
+   * @param pubIds the identifiers of some publications.
+   * @return the identifiers of the folders of each publication, indexed by publication identifier.
+   * The publications without any folder aren't in the map.
+   * @throws SQLException on a database access error.
+   */
+  Map<String, List<String>> getFatherIds(String instanceId, Collection<String> pubIds)
+      throws SQLException;
+
+  /**
+   * Gets one page of the primary keys of the publications in the specified folder that are
+   * visible by the given user. The visibility rules are the ones applied by
+   * {@link org.silverpeas.components.kmelia.service.KmeliaService#filterPublications}.
+   * @param folder the primary key of a folder.
+   * @param profile the profile of the user in the instance.
+   * @param userId the identifier of the user.
+   * @param coWriting true if the co-writing is enabled in the instance.
+   * @param draftVisibleWithCoWriting true if the drafts are visible to the co-writers.
+   * @param orderBy the SQL ordering of the publications (<code>p</code> is the publication
+   * table and <code>f</code> the table of the placements in the folders).
+   * @param pagination the page to get.
+   * @return the primary keys of the publications of the page, with the total number of visible
+   * publications in the folder as original size. The publications can be aliases of publications
+   * of other instances.
+   * @throws SQLException on a database access error.
+   */
+  SilverpeasList<PublicationPK> getPublicationPKsInFolder(NodePK folder, SilverpeasRole profile,
+      String userId, boolean coWriting, boolean draftVisibleWithCoWriting, String orderBy,
+      PaginationCriterion pagination) throws SQLException;
+
+  /**
+   * Is a manual order defined for the publications of the specified folder?
+   * @param folder the primary key of a folder.
+   * @return true if at least one publication has an explicit rank in the folder.
+   * @throws SQLException on a database access error.
+   */
+  boolean isManualSortingUsed(NodePK folder) throws SQLException;
+}
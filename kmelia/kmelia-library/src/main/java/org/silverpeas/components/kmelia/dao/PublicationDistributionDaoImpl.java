@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.dao;
+
+import org.silverpeas.components.kmelia.model.PublicationPlacement;
+import org.silverpeas.core.admin.user.model.SilverpeasRole;
+import org.silverpeas.core.contribution.publication.model.PublicationDetail;
+import org.silverpeas.core.contribution.publication.model.PublicationPK;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
+import org.silverpeas.core.persistence.jdbc.sql.ResultSetWrapper;
+import org.silverpeas.core.util.CollectionUtil;
+import org.silverpeas.core.util.SilverpeasList;
+
+import javax.inject.Singleton;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is the Jdbc Dao implementation of PublicationDistributionDao
+ */
+@Singleton
+public class PublicationDistributionDaoImpl implements PublicationDistributionDao {
+
+  private static final String QUERY_GET_PLACEMENTS =
+      "f.instanceId, f.nodeId, p.pubId, p.pubStatus, p.pubUpdaterId, p.pubBeginDate, " +
+          "p.pubBeginHour, p.pubEndDate, p.pubEndHour " +
+          "FROM sb_publication_publi p, sb_publication_publifather f WHERE f.pubId = p.pubId";
+  private static final String QUERY_COUNT_PUBLICATIONS_IN_NODE =
+      "COUNT(p.pubId) FROM sb_publication_publi p, sb_publication_publifather f " +
+          "WHERE f.pubId = p.pubId AND f.instanceId = ? AND f.nodeId = ?";
+  private static final String QUERY_GET_VALID_PUBLICATION_IDS =
+      "pubId FROM sb_publication_publi WHERE instanceId = ? AND pubStatus = ? ORDER BY pubId";
+  private static final String QUERY_GET_FATHER_IDS =
+      "pubId, nodeId FROM sb_publication_publifather WHERE instanceId = ?";
+  private static final String QUERY_GET_PUBLICATION_PKS_IN_NODE =
+      "p.pubId, p.instanceId FROM sb_publication_publi p, sb_publication_publifather f " +
+          "WHERE f.pubId = p.pubId AND f.instanceId = ? AND f.nodeId = ?";
+  private static final String QUERY_COUNT_RANKED_PUBLICATIONS_IN_NODE =
+      "COUNT(pubId) FROM sb_publication_publifather " +
+          "WHERE instanceId = ? AND nodeId = ? AND pubOrder > 0";
+  private static final String VISIBILITY_PERIOD_CLAUSE =
+      "((p.pubBeginDate < ? AND p.pubEndDate > ?) OR " +
+          "(p.pubBeginDate = ? AND p.pubEndDate > ? AND p.pubBeginHour < ?) OR " +
+          "(p.pubBeginDate < ? AND p.pubEndDate = ? AND p.pubEndHour > ?) OR " +
+          "(p.pubBeginDate = ? AND p.pubEndDate = ? AND p.pubBeginHour < ? AND p.pubEndHour > ?))";
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+  private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+  @Override
+  public List<PublicationPlacement> getPlacementsInInstance(final String instanceId)
+      throws SQLException {
+    return JdbcSqlQuery.createSelect(QUERY_GET_PLACEMENTS)
+        .and("f.instanceId = ?", instanceId)
+        .execute(PublicationDistributionDaoImpl::toPlacement);
+  }
+
+  @Override
+  public List<PublicationPlacement> getPlacementsOfPublication(final String pubId)
+      throws SQLException {
+    return JdbcSqlQuery.createSelect(QUERY_GET_PLACEMENTS)
+        .and("p.pubId = ?", Integer.parseInt(pubId))
+        .execute(PublicationDistributionDaoImpl::toPlacement);
+  }
+
+  @Override
+  public long countPublicationsInBasket(final String instanceId, final String updaterId)
+      throws SQLException {
+    JdbcSqlQuery query = JdbcSqlQuery.createSelect(QUERY_COUNT_PUBLICATIONS_IN_NODE, instanceId,
+        Integer.parseInt(NodePK.BIN_NODE_ID));
+    if (updaterId != null) {
+      query.and("p.pubUpdaterId = ?", updaterId);
+    }
+    Long count = query.executeUnique(row -> row.getLong(1));
+    return count != null ? count : 0;
+  }
+
+  @Override
+  public List<String> getValidPublicationIds(final String instanceId) throws SQLException {
+    return JdbcSqlQuery.createSelect(QUERY_GET_VALID_PUBLICATION_IDS, instanceId,
+        PublicationDetail.VALID_STATUS).execute(row -> String.valueOf(row.getInt(1)));
+  }
+
+  @Override
+  public Map<String, List<String>> getFatherIds(final String instanceId,
+      final Collection<String> pubIds) throws SQLException {
+    final Map<String, List<String>> fatherIds = new HashMap<>(pubIds.size());
+    for (Collection<String> ids : CollectionUtil.split(new ArrayList<>(pubIds))) {
+      List<Integer> intIds = new ArrayList<>(ids.size());
+      for (String id : ids) {
+        intIds.add(Integer.parseInt(id));
+      }
+      JdbcSqlQuery.createSelect(QUERY_GET_FATHER_IDS, instanceId).and("pubId").in(intIds)
+          .execute(row -> {
+            fatherIds.computeIfAbsent(String.valueOf(row.getInt(1)), id -> new ArrayList<>())
+                .add(String.valueOf(row.getInt(2)));
+            return null;
+          });
+    }
+    return fatherIds;
+  }
+
+  @Override
+  public SilverpeasList<PublicationPK> getPublicationPKsInFolder(final NodePK folder,
+      final SilverpeasRole profile, final String userId, final boolean coWriting,
+      final boolean draftVisibleWithCoWriting, final String orderBy,
+      final PaginationCriterion pagination) throws SQLException {
+    final boolean admin = profile == SilverpeasRole.admin;
+    final boolean coWriter = profile != SilverpeasRole.user && coWriting;
+    final List<Object> params = new ArrayList<>();
+    final StringBuilder clause = new StringBuilder("(");
+
+    // the valid publications: the ones out of their visibility period are visible only by their
+    // last updater, by the administrators and by the co-writers
+    clause.append("(p.pubStatus = ?");
+    params.add(PublicationDetail.VALID_STATUS);
+    if (!admin && !coWriter) {
+      final LocalDateTime now = LocalDateTime.now();
+      final String date = now.format(DATE_FORMATTER);
+      final String hour = now.format(HOUR_FORMATTER);
+      clause.append(" AND (p.pubUpdaterId = ? OR ").append(VISIBILITY_PERIOD_CLAUSE).append(")");
+      params.addAll(Arrays.asList(userId, date, date, date, date, hour, date, date, hour, date,
+          date, hour, hour));
+    }
+    clause.append(")");
+
+    // the drafts: visible only by their authors unless they are shared with the co-writers
+    clause.append(" OR (p.pubStatus = ?");
+    params.add(PublicationDetail.DRAFT_STATUS);
+    if (!coWriter || !draftVisibleWithCoWriting) {
+      clause.append(" AND (p.pubCreatorId = ? OR p.pubUpdaterId = ?)");
+      params.add(userId);
+      params.add(userId);
+    }
+    clause.append(")");
+
+    // the publications in the validation workflow: visible only by their authors, by the
+    // validators and by the co-writers
+    clause.append(" OR (p.pubStatus NOT IN (?, ?)");
+    params.add(PublicationDetail.VALID_STATUS);
+    params.add(PublicationDetail.DRAFT_STATUS);
+    if (!admin && profile != SilverpeasRole.publisher && !coWriter) {
+      clause.append(" AND (p.pubCreatorId = ? OR p.pubUpdaterId = ?)");
+      params.add(userId);
+      params.add(userId);
+    }
+    clause.append("))");
+
+    return JdbcSqlQuery.createSelect(QUERY_GET_PUBLICATION_PKS_IN_NODE, folder.getInstanceId(),
+        Integer.parseInt(folder.getId()))
+        .and(clause.toString(), params.toArray())
+        .orderBy(orderBy)
+        .withPagination(pagination)
+        .execute(row -> new PublicationPK(String.valueOf(row.getInt(1)), row.getString(2)));
+  }
+
+  @Override
+  public boolean isManualSortingUsed(final NodePK folder) throws SQLException {
+    Long count = JdbcSqlQuery.createSelect(QUERY_COUNT_RANKED_PUBLICATIONS_IN_NODE,
+        folder.getInstanceId(), Integer.parseInt(folder.getId()))
+        .executeUnique(row -> row.getLong(1));
+    return count != null && count > 0;
+  }
+
+  private static PublicationPlacement toPlacement(final ResultSetWrapper row)
+      throws SQLException {
+    return new PublicationPlacement(row.getString(1), String.valueOf(row.getInt(2)),
+        String.valueOf(row.getInt(3)), row.getString(4), row.getString(5), row.getString(6),
+        row.getString(7), row.getString(8), row.getString(9));
+  }
+}
@@ -66,6 +66,7 @@ public class KmeliaPublication implements SilverpeasContent {
   private final PublicationPK pk;
   private int rank;
   private boolean read = false;
+  private User creator;
 
   private KmeliaPublication(PublicationPK id) {
     this.pk = id;
@@ -210,10 +211,25 @@ public class KmeliaPublication implements SilverpeasContent {
    */
   @Override
   public User getCreator() {
+    if (creator != null) {
+      return creator;
+    }
     String creatorId = getDetail().getCreatorId();
     return getOrganizationController().getUserDetail(creatorId);
   }
 
+  /**
+   * Sets the creator of this publication when it is already loaded, for example when the
+   * creators of several publications are loaded in one go.
+   *
+   * @param creator the detail about the creator of this publication.
+   * @return itself.
+   */
+  public KmeliaPublication withCreator(final User creator) {
+    this.creator = creator;
+    return this;
+  }
+
   /**
    * Gets the user that has lastly modified this publication. He's the last one that has worked on
    * this publication. If this publication was not modified since its creation, the creator is
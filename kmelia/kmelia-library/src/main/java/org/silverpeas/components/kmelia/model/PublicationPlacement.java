@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.model;
+
+/**
+ * The placement of a publication in a folder of a component instance with the publication
+ * properties that decide whether it is counted in the treeview of a user: its status, its last
+ * updater and its visibility period.
+ */
+public class PublicationPlacement {
+
+  private final String instanceId;
+  private final String nodeId;
+  private final String pubId;
+  private final String status;
+  private final String updaterId;
+  private final String beginDate;
+  private final String beginHour;
+  private final String endDate;
+  private final String endHour;
+
+  /**
+   * @param instanceId the identifier of the instance of the folder.
+   * @param nodeId the identifier of the folder.
+   * @param pubId the identifier of the publication.
+   * @param status the status of the publication.
+   * @param updaterId the identifier of the last updater of the publication.
+   * @param beginDate the begin date of visibility as stored (yyyy/MM/dd).
+   * @param beginHour the begin hour of visibility as stored (HH:mm).
+   * @param endDate the end date of visibility as stored (yyyy/MM/dd).
+   * @param endHour the end hour of visibility as stored (HH:mm).
+   */
+  public PublicationPlacement(String instanceId, String nodeId, String pubId, String status,
+      String updaterId, String beginDate, String beginHour, String endDate, String endHour) {
+    this.instanceId = instanceId;
+    this.nodeId = nodeId;
+    this.pubId = pubId;
+    this.status = status;
+    this.updaterId = updaterId;
+    this.beginDate = beginDate;
+    this.beginHour = beginHour;
+    this.endDate = endDate;
+    this.endHour = endHour;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public String getPubId() {
+    return pubId;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public String getUpdaterId() {
+    return updaterId;
+  }
+
+  /**
+   * Is the publication visible at the specified date and hour? The comparison is the one done by
+   * the publication service on the stored visibility period.
+   * @param date a date formatted as yyyy/MM/dd.
+   * @param hour an hour formatted as HH:mm.
+   * @return true if the publication is visible at the specified moment.
+   */
+  public boolean isVisibleAt(String date, String hour) {
+    if (beginDate == null || endDate == null) {
+      return false;
+    }
+    int afterBegin = date.compareTo(beginDate);
+    int beforeEnd = endDate.compareTo(date);
+    return (afterBegin > 0 && beforeEnd > 0) ||
+        (afterBegin == 0 && beforeEnd > 0 && isAfter(hour, beginHour)) ||
+        (afterBegin > 0 && beforeEnd == 0 && isAfter(endHour, hour)) ||
+        (afterBegin == 0 && beforeEnd == 0 && isAfter(hour, beginHour) && isAfter(endHour, hour));
+  }
+
+  private static boolean isAfter(String hour, String otherHour) {
+    return hour != null && otherHour != null && hour.compareTo(otherHour) > 0;
+  }
+}
@@ -27,6 +27,7 @@ import org.silverpeas.components.kmelia.KmeliaContentManager;
 import org.silverpeas.components.kmelia.KmeliaCopyDetail;
 import org.silverpeas.components.kmelia.KmeliaPublicationHelper;
 import org.silverpeas.components.kmelia.PublicationImport;
+import org.silverpeas.components.kmelia.dao.PublicationDistributionDao;
 import org.silverpeas.components.kmelia.model.KmaxRuntimeException;
 import org.silverpeas.components.kmelia.model.KmeliaPublication;
 import org.silverpeas.components.kmelia.model.KmeliaRuntimeException;
@@ -42,6 +43,7 @@ import org.silverpeas.core.admin.service.OrganizationController;
 import org.silverpeas.core.admin.user.model.ProfileInst;
 import org.silverpeas.core.admin.user.model.SilverpeasRole;
 import org.silverpeas.core.admin.user.model.User;
+import org.silverpeas.core.admin.user.model.UserDetail;
 import org.silverpeas.core.comment.service.CommentService;
 import org.silverpeas.core.contribution.attachment.AttachmentException;
 import org.silverpeas.core.contribution.attachment.AttachmentServiceProvider;
@@ -93,6 +95,7 @@ import org.silverpeas.core.pdc.pdc.model.PdcException;
 import org.silverpeas.core.pdc.pdc.service.PdcClassificationService;
 import org.silverpeas.core.pdc.pdc.service.PdcManager;
 import org.silverpeas.core.pdc.subscription.service.PdcSubscriptionManager;
+import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
 import org.silverpeas.core.personalorganizer.model.Attendee;
 import org.silverpeas.core.personalorganizer.model.TodoDetail;
@@ -124,6 +127,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
 
 import static org.silverpeas.components.kmelia.service.KmeliaServiceContext.*;
@@ -149,6 +153,20 @@ public class DefaultKmeliaService implements KmeliaService {
   private static final String USELESS = "useless";
   private static final String NODE_PREFIX = "Node_";
   private static final String ADMIN_ROLE = "admin";
+  /**
+   * The SQL orderings of the publications of a folder for the sorts that can be done by the
+   * database. The other sorts (author, title and description) are done in memory.
+   */
+  private static final Map<Integer, String> PAGE_ORDERINGS = new HashMap<>();
+
+  static {
+    PAGE_ORDERINGS.put(1, "p.pubUpdateDate ASC, p.pubId ASC");
+    PAGE_ORDERINGS.put(2, "p.pubUpdateDate DESC, p.pubId DESC");
+    PAGE_ORDERINGS.put(3, "p.pubImportance DESC, p.pubId ASC");
+    PAGE_ORDERINGS.put(5, "p.pubCreationDate ASC, p.pubId ASC");
+    PAGE_ORDERINGS.put(6, "p.pubCreationDate DESC, p.pubId DESC");
+    PAGE_ORDERINGS.put(99, "f.pubOrder ASC, p.pubId ASC");
+  }
   @Inject
   private NodeService nodeService;
   @Inject
@@ -173,6 +191,10 @@ public class DefaultKmeliaService implements KmeliaService {
   private PersistentDateReminderService dateReminderService;
   @Inject
   private KmeliaContentManager kmeliaContentManager;
+  @Inject
+  private PublicationCountIndex publicationCountIndex;
+  @Inject
+  private PublicationDistributionDao publicationDistributionDao;
 
   private int getNbPublicationsOnRoot(String componentId) {
     String parameterValue =
@@ -218,10 +240,9 @@ public class DefaultKmeliaService implements KmeliaService {
     try {
       nodeDetail = nodeService.getDetail(pk);
       if (isRightsOnTopicsUsed) {
-        OrganizationController orga = getOrganisationController();
-        if (nodeDetail.haveRights() && !orga
-            .isObjectAvailable(nodeDetail.getRightsDependsOn(), ObjectType.NODE, pk.getInstanceId(),
-                userId)) {
+        UserFolderRights rights =
+            UserFolderRights.get(userId, pk.getInstanceId(), getOrganisationController());
+        if (nodeDetail.haveRights() && !rights.isAvailable(nodeDetail.getRightsDependsOn())) {
           nodeDetail.setUserRole("noRights");
         }
         List<NodeDetail> availableChildren = getAllowedSubfolders(nodeDetail, userId);
@@ -279,6 +300,58 @@ public class DefaultKmeliaService implements KmeliaService {
     return pubDetails2userPubs(pubDetails);
   }
 
+  @Override
+  public SilverpeasList<KmeliaPublication> getPageOfPublicationsOfFolder(NodePK pk,
+      SilverpeasRole profile, String userId, int sortType, PaginationCriterion pagination) {
+    final String orderBy = PAGE_ORDERINGS.get(sortType);
+    if (orderBy == null) {
+      throw new IllegalArgumentException("Unsupported sort of publications: " + sortType);
+    }
+    final SilverpeasList<PublicationPK> pubPKs;
+    try {
+      pubPKs = publicationDistributionDao
+          .getPublicationPKsInFolder(pk, profile, userId, isCoWritingEnable(pk.getInstanceId()),
+              isDraftVisibleWithCoWriting(), orderBy, pagination);
+    } catch (SQLException e) {
+      throw new KmeliaRuntimeException(e);
+    }
+
+    // load the publications of the page and their creators in one go
+    final Map<String, PublicationDetail> details = new HashMap<>(pubPKs.size());
+    final Set<String> creatorIds = new HashSet<>();
+    for (PublicationDetail detail : publicationService.getPublications(pubPKs)) {
+      details.put(detail.getPK().getId(), detail);
+      creatorIds.add(detail.getCreatorId());
+    }
+    final Map<String, UserDetail> creators = new HashMap<>(creatorIds.size());
+    for (UserDetail creator : getOrganisationController()
+        .getUserDetails(creatorIds.toArray(new String[0]))) {
+      if (creator != null) {
+        creators.put(creator.getId(), creator);
+      }
+    }
+    return pubPKs.stream()
+        .map(pubPK -> details.get(pubPK.getId()))
+        .filter(Objects::nonNull)
+        .map(detail -> KmeliaPublication.aKmeliaPublicationFromDetail(detail)
+            .withCreator(creators.get(detail.getCreatorId())))
+        .collect(SilverpeasList.collector(pubPKs));
+  }
+
+  @Override
+  public boolean isPageSortSupported(int sortType) {
+    return PAGE_ORDERINGS.containsKey(sortType);
+  }
+
+  @Override
+  public boolean isManualSortingUsed(NodePK pk) {
+    try {
+      return publicationDistributionDao.isManualSortingUsed(pk);
+    } catch (SQLException e) {
+      throw new KmeliaRuntimeException(e);
+    }
+  }
+
   @Override
   public List<KmeliaPublication> getLatestPublications(String instanceId, int nbPublisOnRoot,
       boolean isRightsOnTopicsUsed, String userId) {
@@ -306,47 +379,26 @@ public class DefaultKmeliaService implements KmeliaService {
     NodePK pk = folder.getNodePK();
     List<NodeDetail> children = (List<NodeDetail>) folder.getChildrenDetails();
     List<NodeDetail> availableChildren = new ArrayList<>();
+    UserFolderRights rights = null;
     for (NodeDetail child : children) {
       NodePK childId = child.getNodePK();
       if (childId.isTrash() || childId.isUnclassed() || !child.haveRights()) {
         availableChildren.add(child);
       } else {
-        addAccordingToRights(userId, pk, availableChildren, child);
+        if (rights == null) {
+          rights = UserFolderRights.get(userId, pk.getInstanceId(), getOrganisationController());
+        }
+        addAccordingToRights(rights, availableChildren, child);
       }
     }
     return availableChildren;
   }
 
-  private void addAccordingToRights(final String userId, final NodePK pk,
+  private void addAccordingToRights(final UserFolderRights rights,
       final List<NodeDetail> availableChildren, final NodeDetail child) {
-    int rightsDependsOn = child.getRightsDependsOn();
-    boolean nodeAvailable =
-        getOrganisationController().isObjectAvailable(rightsDependsOn, ObjectType.NODE, pk.
-            getInstanceId(), userId);
-    if (nodeAvailable) {
+    // the child is available if the user can access it or at least one of its descendants
+    if (rights.isAvailable(child.getRightsDependsOn()) || rights.hasAvailableDescendant(child)) {
       availableChildren.add(child);
-    } else { // check if at least one descendant is available
-      Iterator<NodeDetail> descendants = nodeService.getDescendantDetails(child).iterator();
-      addDescendantIfAvailable(userId, pk, availableChildren, child, rightsDependsOn, descendants);
-    }
-  }
-
-  private void addDescendantIfAvailable(final String userId, final NodePK pk,
-      final List<NodeDetail> availableChildren, final NodeDetail child, final int rightsDependsOn,
-      final Iterator<NodeDetail> descendants) {
-    boolean childAllowed = false;
-    while (!childAllowed && descendants.hasNext()) {
-      NodeDetail descendant = descendants.next();
-      if (descendant.getRightsDependsOn() != rightsDependsOn &&
-          getOrganisationController().isObjectAvailable(descendant.getRightsDependsOn(),
-              ObjectType.NODE, pk.
-                  getInstanceId(), userId)) {
-        // different rights of father check if it is available
-        childAllowed = true;
-        if (!availableChildren.contains(child)) {
-          availableChildren.add(child);
-        }
-      }
     }
   }
 
@@ -475,6 +527,7 @@ public class DefaultKmeliaService implements KmeliaService {
         newNode.setRightsDependsOnMe();
       }
       nodeService.updateRightsDependency(newNode);
+      UserFolderRights.invalidateInstance(newNode.getNodePK().getInstanceId());
     }
   }
 
@@ -537,6 +590,7 @@ public class DefaultKmeliaService implements KmeliaService {
               // the pub have got many fathers
               // delete only the link between pub and current node
               publicationService.removeFather(onePubToCheck, oneNodeToDelete);
+              publicationCountIndex.refreshPublication(onePubToCheck.getId());
             } else {
               sendPublicationToBasket(onePubToCheck);
             }
@@ -545,6 +599,7 @@ public class DefaultKmeliaService implements KmeliaService {
             aliases.clear();
             aliases.add(new Alias(oneNodeToDelete.getId(), oneNodeToDelete.getInstanceId()));
             publicationService.removeAlias(onePubToCheck, aliases);
+            publicationCountIndex.refreshPublication(onePubToCheck.getId());
           }
         }
       }
@@ -554,6 +609,8 @@ public class DefaultKmeliaService implements KmeliaService {
 
       // Delete the topic
       nodeService.removeNode(pkToDelete);
+      UserFolderRights.invalidateInstance(pkToDelete.getInstanceId());
+      publicationCountIndex.invalidate(pkToDelete.getInstanceId());
     } catch (Exception e) {
       throw new KmeliaRuntimeException(e);
     }
@@ -707,58 +764,15 @@ public class DefaultKmeliaService implements KmeliaService {
   private void buildTreeView(final NodePK nodePK, final String profile,
       final boolean coWritingEnable, final boolean draftVisibleWithCoWriting, final String userId,
       final List<NodeDetail> allowedTree) {
-    boolean checkVisibility = false;
-    StringBuilder statusSubQuery = new StringBuilder();
-    if (profile.equals("user")) {
-      checkVisibility = true;
-      statusSubQuery.append(" AND sb_publication_publi.pubStatus = 'Valid' ");
-    } else if (profile.equals("writer")) {
-      statusSubQuery.append(" AND (");
-      if (coWritingEnable && draftVisibleWithCoWriting) {
-        statusSubQuery.append("sb_publication_publi.pubStatus = 'Valid' OR ")
-            .append("sb_publication_publi.pubStatus = 'Draft' OR ")
-            .append("sb_publication_publi.pubStatus = 'Unvalidate' ");
-      } else {
-        checkVisibility = true;
-        statusSubQuery.append("sb_publication_publi.pubStatus = 'Valid' OR ")
-            .append("(sb_publication_publi.pubStatus = 'Draft' AND ")
-            .append("sb_publication_publi.pubUpdaterId = '")
-            .
-                append(userId)
-            .append("') OR (sb_publication_publi.pubStatus = 'Unvalidate' AND ")
-            .
-                append("sb_publication_publi.pubUpdaterId = '")
-            .append(userId)
-            .append("') ");
-      }
-      statusSubQuery.append("OR (sb_publication_publi.pubStatus = 'ToValidate' ")
-          .append("AND sb_publication_publi.pubUpdaterId = '")
-          .append(userId)
-          .append("') ");
-      statusSubQuery.append("OR sb_publication_publi.pubUpdaterId = '").append(userId).append("')");
-    } else {
-      statusSubQuery.append(" AND (");
-      if (coWritingEnable && draftVisibleWithCoWriting) {
-        statusSubQuery.append("sb_publication_publi.pubStatus IN ('Valid','ToValidate','Draft') ");
-      } else {
-        if (profile.equals("publisher")) {
-          checkVisibility = true;
-        }
-        statusSubQuery.append(
-            "sb_publication_publi.pubStatus IN ('Valid','ToValidate') OR (sb_publication_publi" +
-                ".pubStatus = 'Draft' AND sb_publication_publi.pubUpdaterId = '").
-            append(userId).append("') ");
-      }
-      statusSubQuery.append("OR sb_publication_publi.pubUpdaterId = '").append(userId).append("')");
-    }
-
+    TreeViewPublicationFilter filter =
+        new TreeViewPublicationFilter(profile, coWritingEnable, draftVisibleWithCoWriting, userId);
     Map<String, Integer> numbers =
-        publicationService.getDistributionTree(nodePK.getInstanceId(), statusSubQuery.toString(),
-            checkVisibility);
+        publicationCountIndex.getDistribution(nodePK.getInstanceId(), filter);
 
     // set right number of publications in basket
-    NodePK trashPk = new NodePK(NodePK.BIN_NODE_ID, nodePK.getInstanceId());
-    int nbPubsInTrash = getPublicationsInBasket(trashPk, profile, userId).size();
+    String basketUserId = SilverpeasRole.admin.isInRole(profile) ? null : userId;
+    int nbPubsInTrash =
+        publicationCountIndex.countPublicationsInBasket(nodePK.getInstanceId(), basketUserId);
     numbers.put(NodePK.BIN_NODE_ID, nbPubsInTrash);
 
     decorateWithNumberOfPublications(allowedTree, numbers);
@@ -772,7 +786,7 @@ public class DefaultKmeliaService implements KmeliaService {
   }
 
   private int decorateWithNumberOfPublications(NodeDetail node, Map<String, Integer> numbers) {
-    Integer nb = numbers.get(node.getNodePK().getId());
+    int nb = numbers.getOrDefault(node.getNodePK().getId(), 0);
     for (NodeDetail child : node.getChildrenDetails()) {
       nb += decorateWithNumberOfPublications(child, numbers);
     }
@@ -1278,6 +1292,7 @@ public class DefaultKmeliaService implements KmeliaService {
       // update parent
       publicationService.removeAllFather(pub.getPK());
       publicationService.addFather(pub.getPK(), to);
+      publicationCountIndex.refreshPublication(pub.getPK().getId());
       processPublicationAfterMove(pub, to, userId);
     }
   }
@@ -1366,6 +1381,7 @@ public class DefaultKmeliaService implements KmeliaService {
 
       // move publication itself
       publicationService.movePublication(pub.getPK(), to, false);
+      publicationCountIndex.refreshPublication(pub.getPK().getId());
       pub.getPK().setComponentName(to.getInstanceId());
 
       processPublicationAfterMove(pub, to, userId);
@@ -1527,6 +1543,7 @@ public class DefaultKmeliaService implements KmeliaService {
       publicationService.removeAllFather(pubPK);
       // delete the publication
       publicationService.removePublication(pubPK);
+      publicationCountIndex.refreshPublication(pubPK.getId());
       // delete reference to contentManager
       deleteSilverContent(pubPK);
 
@@ -1570,6 +1587,7 @@ public class DefaultKmeliaService implements KmeliaService {
       publicationService.removeAllFather(pubPK);
       // add link between this publication and the basket topic
       publicationService.addFather(pubPK, new NodePK("1", pubPK));
+      publicationCountIndex.refreshPublication(pubPK.getId());
 
       // remove all the todos attached to the publication
       removeAllTodosForPublication(pubPK);
@@ -1611,6 +1629,7 @@ public class DefaultKmeliaService implements KmeliaService {
         Collection<NodePK> fathers = publicationService.getAllFatherPK(pubPK);
         if (isPublicationInBasket(pubPK, fathers)) {
           publicationService.removeFather(pubPK, new NodePK(NodePK.BIN_NODE_ID, fatherPK));
+          publicationCountIndex.refreshPublication(pubPK.getId());
           if (PublicationDetail.VALID_STATUS.equalsIgnoreCase(pubDetail.getStatus())) {
             // index publication
             publicationService.createIndex(pubPK);
@@ -1637,6 +1656,7 @@ public class DefaultKmeliaService implements KmeliaService {
 
     try {
       publicationService.addFather(pubPK, fatherPK);
+      publicationCountIndex.refreshPublication(pubPK.getId());
     } catch (Exception e) {
       throw new KmeliaRuntimeException(e);
     }
@@ -1745,6 +1765,7 @@ public class DefaultKmeliaService implements KmeliaService {
       Collection<NodePK> pubFathers = publicationService.getAllFatherPK(pubPK);
       if (pubFathers.size() >= 2) {
         publicationService.removeFather(pubPK, fatherPK);
+        publicationCountIndex.refreshPublication(pubPK.getId());
       } else {
         // la publication n'a qu'un seul emplacement
         // elle est donc placée dans la corbeille du créateur
@@ -1759,6 +1780,7 @@ public class DefaultKmeliaService implements KmeliaService {
   public void deletePublicationFromAllTopics(PublicationPK pubPK) {
     try {
       publicationService.removeAllFather(pubPK);
+      publicationCountIndex.refreshPublication(pubPK.getId());
 
       // la publication n'a qu'un seul emplacement
       // elle est donc placée dans la corbeille du créateur
@@ -2768,45 +2790,14 @@ public class DefaultKmeliaService implements KmeliaService {
   @Override
   public void indexKmelia(String componentId) {
     indexTopics(new NodePK(USELESS, componentId));
-    indexPublications(new PublicationPK(USELESS, componentId));
+    new KmeliaReindexer(publicationDistributionDao, publicationService, this::indexPublication)
+        .reindex(componentId);
   }
 
-  private void indexPublications(PublicationPK pubPK) {
-    Collection<PublicationDetail> pubs = null;
-    try {
-      pubs = publicationService.getAllPublications(pubPK);
-    } catch (Exception e) {
-      throw new KmeliaRuntimeException(e);
-    }
-
-    if (pubs != null) {
-      for (PublicationDetail pub : pubs) {
-        try {
-          pubPK = pub.getPK();
-          // index only valid publications
-          if (pub.getStatus() != null && pub.isValid()) {
-            List<NodePK> pubFathers = (List<NodePK>) publicationService.getAllFatherPK(pubPK);
-            // index only valid publications which are not only in
-            // dz or basket
-            if (pubFathers.size() >= 2) {
-              indexPublication(pub);
-            } else if (pubFathers.size() == 1) {
-              NodePK nodePK = pubFathers.get(0);
-              // index the valid publication if it is not in the
-              // basket
-              if (!nodePK.isTrash()) {
-                indexPublication(pub);
-              }
-            } else {
-              // don't index publications in the dz
-            }
-          }
-        } catch (Exception e) {
-          SilverLogger.getLogger(this)
-              .error("Error during indexation of publication {0}", pubPK.getId(), e);
-        }
-      }
-    }
+  @Override
+  public boolean resumeKmeliaIndexation(String componentId) {
+    return new KmeliaReindexer(publicationDistributionDao, publicationService,
+        this::indexPublication).resume(componentId);
   }
 
   private void indexPublication(PublicationDetail pub) {
@@ -3260,6 +3251,8 @@ public class DefaultKmeliaService implements KmeliaService {
         }
         if (!fatherIds.isEmpty()) {
           publicationService.removeFathers(pubPK, fatherIds);
+          // the placements of any publication of the instance can be impacted
+          publicationCountIndex.invalidate(componentId);
         }
       }
       // delete coordinate which contains subComponents of this component
@@ -3571,6 +3564,7 @@ public class DefaultKmeliaService implements KmeliaService {
       }
       int coordinateId = coordinatesService.addCoordinate(coordinatePK, allnodes);
       publicationService.addFather(pubPK, new NodePK(String.valueOf(coordinateId), pubPK));
+      publicationCountIndex.refreshPublication(pubPK.getId());
     } catch (Exception e) {
       throw new KmaxRuntimeException(e);
     }
@@ -3623,6 +3617,7 @@ public class DefaultKmeliaService implements KmeliaService {
     try {
       // remove publication fathers
       publicationService.removeFather(pubPK, fatherPK);
+      publicationCountIndex.refreshPublication(pubPK.getId());
       // remove coordinate
       List<String> coordinateIds = new ArrayList<>(1);
       coordinateIds.add(combinationId);
@@ -3676,6 +3671,7 @@ public class DefaultKmeliaService implements KmeliaService {
   public void setAlias(PublicationPK pubPK, List<Alias> alias) {
 
     publicationService.setAlias(pubPK, alias);
+    publicationCountIndex.refreshPublication(pubPK.getId());
 
     // Send subscriptions to aliases subscribers
     PublicationDetail pubDetail = getPublicationDetail(pubPK);
@@ -4401,6 +4397,10 @@ public class DefaultKmeliaService implements KmeliaService {
       }
     }
 
+    UserFolderRights.invalidateInstance(nodePK.getInstanceId());
+    UserFolderRights.invalidateInstance(to.getInstanceId());
+    publicationCountIndex.invalidate(nodePK.getInstanceId());
+    publicationCountIndex.invalidate(to.getInstanceId());
     nodePK.setComponentName(to.getInstanceId());
     return getNodeHeader(nodePK);
   }
@@ -4465,6 +4465,7 @@ public class DefaultKmeliaService implements KmeliaService {
             adminController.addProfileInst(nodeProfileInst, userId);
           }
         }
+        UserFolderRights.invalidateInstance(nodePK.getInstanceId());
       }
     }
 
@@ -20,10 +20,14 @@
  */
 package org.silverpeas.components.kmelia.service;
 
+import org.silverpeas.core.admin.service.OrganizationController;
 import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.util.logging.SilverLogger;
 
 /**
- * Initializes the resources required by the Kmelia application instances.
+ * Initializes the resources required by the Kmelia application instances. The reindexings of
+ * publications that were interrupted by the previous shutdown of the server are resumed in
+ * background.
  */
 public class KmeliaInitialize implements Initialization {
 
@@ -34,5 +38,21 @@ public class KmeliaInitialize implements Initialization {
   public void init() {
     AutomaticDraftOut ado = new AutomaticDraftOut();
     ado.initialize();
+    Thread resumption = new Thread(this::resumeInterruptedReindexings, "kmelia-reindex-resumption");
+    resumption.setDaemon(true);
+    resumption.start();
+  }
+
+  private void resumeInterruptedReindexings() {
+    OrganizationController organizationController = OrganizationController.get();
+    for (String componentName : new String[]{"kmelia", "toolbox"}) {
+      for (String id : organizationController.getCompoId(componentName)) {
+        try {
+          KmeliaService.get().resumeKmeliaIndexation(componentName + id);
+        } catch (RuntimeException e) {
+          SilverLogger.getLogger(this).error(e);
+        }
+      }
+    }
   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.silverpeas.core.contribution.publication.model.PublicationDetail;
+import org.silverpeas.core.contribution.publication.notification.PublicationEvent;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Listens for the events about the publications to keep up to date the number of publications
+ * per folder displayed in the treeview (see {@link PublicationCountIndex}).
+ */
+public class KmeliaPublicationEventListener {
+
+  @Inject
+  private PublicationCountIndex publicationCountIndex;
+
+  public void onPublicationEvent(@Observes PublicationEvent event) {
+    PublicationDetail publication = event.getTransition().getAfter() != null ?
+        event.getTransition().getAfter() : event.getTransition().getBefore();
+    if (publication != null && isHandledByKmelia(publication.getInstanceId())) {
+      publicationCountIndex.refreshPublication(publication.getId());
+    }
+  }
+
+  private boolean isHandledByKmelia(final String instanceId) {
+    return KmeliaHelper.isKmelia(instanceId) || KmeliaHelper.isToolbox(instanceId) ||
+        KmeliaHelper.isKmax(instanceId);
+  }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.silverpeas.components.kmelia.dao.PublicationDistributionDao;
+import org.silverpeas.components.kmelia.model.KmeliaRuntimeException;
+import org.silverpeas.core.contribution.publication.model.PublicationDetail;
+import org.silverpeas.core.contribution.publication.model.PublicationPK;
+import org.silverpeas.core.contribution.publication.service.PublicationService;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.file.FileRepositoryManager;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reindexes all the valid publications of a Kmelia instance.
+ * <p>
+ * The identifiers of the publications are split into batches that are indexed in parallel by a
+ * bounded pool of threads (<code>reindex.threads</code> and <code>reindex.batchSize</code>
+ * properties in the Kmelia settings). For each batch, the publications and their folders are
+ * loaded with one query each instead of one query per publication. The caller is blocked when
+ * all the threads are busy, so that no more than a few batches are loaded in memory at once.
+ * </p>
+ * <p>
+ * The progress is saved in a checkpoint file in the data directory of the instance: it is the
+ * identifier of the last publication below which all the publications are successfully indexed.
+ * If a reindexing is interrupted (crash, restart of the server) or if some batches failed, it can
+ * be resumed after this publication (see {@link #resume(String)}) as long as the checkpoint isn't
+ * older than <code>reindex.checkpoint.ttl</code> hours. A full reindexing always starts from the
+ * first publication and the checkpoint is deleted once all the publications are indexed.
+ * </p>
+ */
+final class KmeliaReindexer {
+
+  private static final SettingBundle settings =
+      ResourceLocator.getSettingBundle("org.silverpeas.kmelia.settings.kmeliaSettings");
+  private static final String CHECKPOINT_FILE = "reindex.checkpoint";
+  private static final int QUEUE_SIZE_PER_THREAD = 2;
+  private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+  private final PublicationDistributionDao dao;
+  private final PublicationService publicationService;
+  private final Consumer<PublicationDetail> indexer;
+  private final int threads;
+  private final int batchSize;
+  private final long checkpointTtl;
+  private final Function<String, Path> checkpointLocator;
+
+  /**
+   * Constructs a reindexer.
+   * @param dao the DAO from which the publications to index and their folders are got.
+   * @param publicationService the service from which the publications are loaded.
+   * @param indexer the indexing of a publication with all its external elements.
+   */
+  KmeliaReindexer(final PublicationDistributionDao dao,
+      final PublicationService publicationService, final Consumer<PublicationDetail> indexer) {
+    this(dao, publicationService, indexer, settings.getInteger("reindex.threads", 4),
+        settings.getInteger("reindex.batchSize", 200),
+        TimeUnit.HOURS.toMillis(settings.getInteger("reindex.checkpoint.ttl", 24)),
+        instanceId -> Paths.get(FileRepositoryManager.getAbsolutePath(instanceId),
+            CHECKPOINT_FILE));
+  }
+
+  /**
+   * Constructs a reindexer with the specified parameters.
+   * @param dao the DAO from which the publications to index and their folders are got.
+   * @param publicationService the service from which the publications are loaded.
+   * @param indexer the indexing of a publication with all its external elements.
+   * @param threads the number of threads indexing the publications in parallel.
+   * @param batchSize the number of publications loaded and indexed at once by a thread.
+   * @param checkpointTtl the time in milliseconds during which a checkpoint can be resumed.
+   * @param checkpointLocator the location of the checkpoint file of a given instance.
+   */
+  KmeliaReindexer(final PublicationDistributionDao dao,
+      final PublicationService publicationService, final Consumer<PublicationDetail> indexer,
+      final int threads, final int batchSize, final long checkpointTtl,
+      final Function<String, Path> checkpointLocator) {
+    this.dao = dao;
+    this.publicationService = publicationService;
+    this.indexer = indexer;
+    this.threads = Math.max(1, threads);
+    this.batchSize = Math.max(1, batchSize);
+    this.checkpointTtl = checkpointTtl;
+    this.checkpointLocator = checkpointLocator;
+  }
+
+  /**
+   * Indexes all the valid publications of the specified instance, except those which are only in
+   * the basket or which aren't in any folder. The checkpoint of a previous reindexing, if any, is
+   * ignored. The method returns once all the publications are processed.
+   * @param instanceId the identifier of a Kmelia instance.
+   */
+  void reindex(final String instanceId) {
+    final Path checkpoint = checkpointLocator.apply(instanceId);
+    deleteCheckpoint(checkpoint);
+    index(instanceId, checkpoint, getValidPublicationIds(instanceId));
+  }
+
+  /**
+   * Resumes the reindexing of the specified instance after its checkpoint. Nothing is done if
+   * there is no checkpoint or if it is expired: either the last reindexing was done or it is too
+   * old to be resumed.
+   * @param instanceId the identifier of a Kmelia instance.
+   * @return true if a reindexing was resumed, false otherwise.
+   */
+  boolean resume(final String instanceId) {
+    final Path checkpoint = checkpointLocator.apply(instanceId);
+    final int lastIndexedId = readCheckpoint(checkpoint);
+    if (lastIndexedId < 0) {
+      return false;
+    }
+    final List<String> pubIds = getValidPublicationIds(instanceId);
+    int start = 0;
+    while (start < pubIds.size() && Integer.parseInt(pubIds.get(start)) <= lastIndexedId) {
+      start++;
+    }
+    SilverLogger.getLogger(this)
+        .info("Reindexing of {0} resumed after publication {1}: {2} publications already indexed",
+            instanceId, lastIndexedId, start);
+    index(instanceId, checkpoint, pubIds.subList(start, pubIds.size()));
+    return true;
+  }
+
+  private void index(final String instanceId, final Path checkpoint, final List<String> pubIds) {
+    final List<List<String>> batches = new ArrayList<>();
+    for (int i = 0; i < pubIds.size(); i += batchSize) {
+      batches.add(pubIds.subList(i, Math.min(i + batchSize, pubIds.size())));
+    }
+    final Progress progress = new Progress(instanceId, checkpoint, batches, pubIds.size());
+    final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+        new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD), r -> {
+      Thread thread = new Thread(r, "kmelia-reindex-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+    try {
+      for (int i = 0; i < batches.size(); i++) {
+        final int batchIndex = i;
+        pool.execute(() -> progress.batchDone(batchIndex,
+            indexBatch(instanceId, batches.get(batchIndex))));
+      }
+    } finally {
+      pool.shutdown();
+      awaitTermination(pool);
+    }
+    progress.end();
+  }
+
+  private List<String> getValidPublicationIds(final String instanceId) {
+    try {
+      return dao.getValidPublicationIds(instanceId);
+    } catch (SQLException e) {
+      throw new KmeliaRuntimeException(e);
+    }
+  }
+
+  /**
+   * Indexes the specified batch of publications.
+   * @return true if all the publications of the batch were indexed, false otherwise.
+   */
+  private boolean indexBatch(final String instanceId, final List<String> pubIds) {
+    final List<PublicationPK> pks = new ArrayList<>(pubIds.size());
+    for (String pubId : pubIds) {
+      pks.add(new PublicationPK(pubId, instanceId));
+    }
+    final Collection<PublicationDetail> publications;
+    final Map<String, List<String>> fatherIds;
+    try {
+      publications = publicationService.getPublications(pks);
+      fatherIds = dao.getFatherIds(instanceId, pubIds);
+    } catch (Exception e) {
+      SilverLogger.getLogger(this)
+          .error("Error while loading the publications {0} to index", pubIds, e);
+      return false;
+    }
+    boolean success = true;
+    for (PublicationDetail pub : publications) {
+      try {
+        if (pub.getStatus() != null && pub.isValid() &&
+            isInAFolder(fatherIds.getOrDefault(pub.getId(), Collections.emptyList()))) {
+          indexer.accept(pub);
+        }
+      } catch (Exception e) {
+        SilverLogger.getLogger(this)
+            .error("Error during indexation of publication {0}", pub.getId(), e);
+        success = false;
+      }
+    }
+    return success;
+  }
+
+  /**
+   * Only the publications which are not only in the basket are indexed. The publications without
+   * any folder aren't indexed either.
+   */
+  private static boolean isInAFolder(final List<String> fatherIds) {
+    return fatherIds.size() >= 2 ||
+        (fatherIds.size() == 1 && !NodePK.BIN_NODE_ID.equals(fatherIds.get(0)));
+  }
+
+  private void awaitTermination(final ThreadPoolExecutor pool) {
+    try {
+      while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+        SilverLogger.getLogger(this).debug("Waiting for the end of the reindexing threads");
+      }
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new KmeliaRuntimeException(e);
+    }
+  }
+
+  private void deleteCheckpoint(final Path checkpoint) {
+    try {
+      Files.deleteIfExists(checkpoint);
+    } catch (IOException e) {
+      SilverLogger.getLogger(this)
+          .warn("Cannot delete the reindexing checkpoint {0}", checkpoint, e);
+    }
+  }
+
+  private int readCheckpoint(final Path checkpoint) {
+    try {
+      if (Files.exists(checkpoint) &&
+          System.currentTimeMillis() - Files.getLastModifiedTime(checkpoint).toMillis() <
+              checkpointTtl) {
+        return Integer.parseInt(
+            new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim());
+      }
+    } catch (IOException | NumberFormatException e) {
+      SilverLogger.getLogger(this).warn("Invalid reindexing checkpoint {0}", checkpoint, e);
+    }
+    return -1;
+  }
+
+  /**
+   * Progress of a reindexing. As the batches are indexed in parallel, they can end in any order:
+   * the checkpoint is moved forward only up to the last batch below which all the batches are
+   * successfully indexed. A failed batch then blocks the checkpoint so that it is indexed again
+   * when the reindexing is resumed.
+   */
+  private class Progress {
+    private final String instanceId;
+    private final Path checkpoint;
+    private final List<List<String>> batches;
+    private final boolean[] doneBatches;
+    private final int total;
+    private final long start = System.currentTimeMillis();
+    private int nextBatchToCheckpoint = 0;
+    private int done = 0;
+    private int failed = 0;
+
+    private Progress(final String instanceId, final Path checkpoint,
+        final List<List<String>> batches, final int total) {
+      this.instanceId = instanceId;
+      this.checkpoint = checkpoint;
+      this.batches = batches;
+      this.doneBatches = new boolean[batches.size()];
+      this.total = total;
+    }
+
+    private synchronized void batchDone(final int batchIndex, final boolean success) {
+      done += batches.get(batchIndex).size();
+      if (!success) {
+        failed++;
+        return;
+      }
+      doneBatches[batchIndex] = true;
+      final int previous = nextBatchToCheckpoint;
+      while (nextBatchToCheckpoint < doneBatches.length && doneBatches[nextBatchToCheckpoint]) {
+        nextBatchToCheckpoint++;
+      }
+      if (nextBatchToCheckpoint > previous) {
+        List<String> batch = batches.get(nextBatchToCheckpoint - 1);
+        writeCheckpoint(batch.get(batch.size() - 1));
+      }
+      final long elapsed = Math.max(1, System.currentTimeMillis() - start);
+      SilverLogger.getLogger(KmeliaReindexer.this)
+          .info("Reindexing of {0}: {1}/{2} publications ({3}%), {4} publications/s", instanceId,
+              done, total, done * 100 / Math.max(1, total), done * 1000L / elapsed);
+    }
+
+    private void writeCheckpoint(final String lastIndexedId) {
+      try {
+        Files.createDirectories(checkpoint.getParent());
+        Files.write(checkpoint, lastIndexedId.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        SilverLogger.getLogger(KmeliaReindexer.this)
+            .warn("Cannot save the reindexing checkpoint {0}", checkpoint, e);
+      }
+    }
+
+    private synchronized void end() {
+      if (failed > 0) {
+        if (!Files.exists(checkpoint)) {
+          // the first batch failed: all the publications are to be indexed again
+          writeCheckpoint("0");
+        }
+        SilverLogger.getLogger(KmeliaReindexer.this)
+            .warn("Reindexing of {0} done with {1} failed batches: it can be resumed from {2}",
+                instanceId, failed, checkpoint);
+        return;
+      }
+      deleteCheckpoint(checkpoint);
+      SilverLogger.getLogger(KmeliaReindexer.this)
+          .info("Reindexing of {0} done: {1} publications in {2} ms", instanceId, done,
+              System.currentTimeMillis() - start);
+    }
+  }
+}
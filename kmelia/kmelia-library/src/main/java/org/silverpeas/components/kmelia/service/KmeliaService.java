@@ -39,8 +39,10 @@ import org.silverpeas.core.node.model.NodeDetail;
 import org.silverpeas.core.node.model.NodePK;
 import org.silverpeas.core.notification.user.client.NotificationMetaData;
 import org.silverpeas.core.pdc.pdc.model.PdcClassification;
+import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
 import org.silverpeas.core.silverstatistics.access.model.HistoryObjectDetail;
 import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SilverpeasList;
 
 import java.util.Collection;
 import java.util.Date;
@@ -192,6 +194,38 @@ public interface KmeliaService extends ApplicationService<KmeliaPublication> {
   List<KmeliaPublication> getLatestPublications(String instanceId, int nbPublisOnRoot,
       boolean isRightsOnTopicsUsed, String userId);
 
+  /**
+   * Gets one page of the publications of the specified folder that are visible by the given user.
+   * Both the sorting and the pagination are done by the database, so only the publications of
+   * the page are loaded, with their creators.
+   * @param pk the primary key of a folder, neither the root nor the basket.
+   * @param profile the profile of the user in the instance.
+   * @param userId the identifier of the user.
+   * @param sortType the sort of the publications, one of those supported (see
+   * {@link #isPageSortSupported(int)}).
+   * @param pagination the page to get.
+   * @return the publications of the page, with the total number of visible publications in the
+   * folder as original size.
+   */
+  SilverpeasList<KmeliaPublication> getPageOfPublicationsOfFolder(NodePK pk,
+      SilverpeasRole profile, String userId, int sortType, PaginationCriterion pagination);
+
+  /**
+   * Can the publications be sorted by the database with the specified sort? The sorts on the
+   * author, the title or the description of the publications can't as they depend on data out of
+   * the publications (user names, translations).
+   * @param sortType a sort of the publications.
+   * @return true if {@link #getPageOfPublicationsOfFolder} supports the sort.
+   */
+  boolean isPageSortSupported(int sortType);
+
+  /**
+   * Is a manual order defined for the publications of the specified folder?
+   * @param pk the primary key of a folder.
+   * @return true if at least one publication of the folder has an explicit rank.
+   */
+  boolean isManualSortingUsed(NodePK pk);
+
   /**
    * Return list of all path to this publication - it's a Collection of NodeDetail collection
    * @param pubPK the id of the publication
@@ -408,6 +442,14 @@ public interface KmeliaService extends ApplicationService<KmeliaPublication> {
 
   void indexKmelia(String componentId);
 
+  /**
+   * Resumes the indexation of the publications of the specified instance if a previous one was
+   * interrupted or partially failed.
+   * @param componentId the identifier of a Kmelia instance.
+   * @return true if an indexation was resumed, false if there was nothing to resume.
+   */
+  boolean resumeKmeliaIndexation(String componentId);
+
   int getSilverObjectId(PublicationPK pubPK);
 
   void deleteSilverContent(PublicationPK pubPK);
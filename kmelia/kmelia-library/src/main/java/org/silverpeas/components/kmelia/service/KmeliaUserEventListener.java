@@ -42,5 +42,6 @@ public class KmeliaUserEventListener extends CDIResourceEventListener<UserEvent>
   public void onDeletion(final UserEvent event) throws Exception {
     UserDetail user = event.getTransition().getBefore();
     kmeliaService.userHaveBeenDeleted(user.getId());
+    UserFolderRights.invalidateUser(user.getId());
   }
 }
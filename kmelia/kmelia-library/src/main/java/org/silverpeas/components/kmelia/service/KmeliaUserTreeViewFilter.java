@@ -23,7 +23,6 @@
  */
 package org.silverpeas.components.kmelia.service;
 
-import org.silverpeas.core.admin.ObjectType;
 import org.silverpeas.core.admin.service.OrganizationController;
 import org.silverpeas.core.node.model.NodeDetail;
 import org.silverpeas.core.node.model.NodePK;
@@ -31,7 +30,6 @@ import org.silverpeas.core.util.ArrayUtil;
 
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import static org.silverpeas.core.util.StringUtil.defaultStringIfNotDefined;
 
@@ -56,7 +54,7 @@ class KmeliaUserTreeViewFilter {
   private final boolean isRightsOnTopicsUsed;
 
 
-  private Map<Integer, List<String>> nodeUserRoles = null;
+  private UserFolderRights nodeUserRights = null;
 
   /**
    * Initializing the instance.
@@ -167,15 +165,16 @@ class KmeliaUserTreeViewFilter {
 
   /**
    * Gets the roles of the user on the node represented by the given identifier.<br>
-   * Data are loaded only one time.
+   * Data are loaded only one time and shared with the other navigation operations of the user
+   * (see {@link UserFolderRights}).
    * @param nodeId a node identifier.
    * @return a list of role.
    */
   private String[] getNodeUserRoles(Integer nodeId) {
-    if (nodeUserRoles == null) {
-      nodeUserRoles = orga.getUserObjectProfiles(userId, instanceId, ObjectType.NODE);
+    if (nodeUserRights == null) {
+      nodeUserRights = UserFolderRights.get(userId, instanceId, orga);
     }
-    List<String> roles = nodeUserRoles.get(nodeId);
-    return (roles != null) ? roles.toArray(new String[roles.size()]) : new String[0];
+    List<String> roles = nodeUserRights.getRoles(nodeId);
+    return roles.toArray(new String[roles.size()]);
   }
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.silverpeas.components.kmelia.dao.PublicationDistributionDao;
+import org.silverpeas.components.kmelia.model.KmeliaRuntimeException;
+import org.silverpeas.components.kmelia.model.PublicationPlacement;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SettingBundle;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Index of the placements of the publications in the folders of the Kmelia instances, from
+ * which the number of publications per folder displayed in the treeview is computed.
+ * <p>
+ * The placements of an instance are loaded in one query the first time the treeview of the
+ * instance is displayed with the number of publications. Then they are maintained incrementally:
+ * each time a publication is created, updated, deleted or moved, only its placements are loaded
+ * again (see {@link #refreshPublication(String)}). So the numbers are computed in memory without
+ * querying the publications at each opening of a folder. As a safety net against changes done
+ * out of the services, the placements of an instance expire after a delay set by the
+ * <code>treeview.counts.cache.ttl</code> property in the Kmelia settings.
+ * </p>
+ */
+@Singleton
+public class PublicationCountIndex {
+
+  private static final SettingBundle settings =
+      ResourceLocator.getSettingBundle("org.silverpeas.kmelia.settings.kmeliaSettings");
+  private static final int DEFAULT_TTL_IN_SECONDS = 3600;
+
+  @Inject
+  private PublicationDistributionDao dao;
+
+  private final ConcurrentMap<String, InstancePlacements> instances = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> modifications = new ConcurrentHashMap<>();
+
+  public static PublicationCountIndex get() {
+    return ServiceProvider.getService(PublicationCountIndex.class);
+  }
+
+  /**
+   * Gets the number of publications per folder of the specified instance. Only the publications
+   * matching the given filter are counted.
+   * @param instanceId the identifier of a Kmelia instance.
+   * @param filter the filter of the publications to count.
+   * @return the number of publications per folder identifier. The folders without any matching
+   * publication aren't in the map.
+   */
+  public Map<String, Integer> getDistribution(final String instanceId,
+      final Predicate<PublicationPlacement> filter) {
+    return getPlacements(instanceId).countBy(filter);
+  }
+
+  /**
+   * Counts the publications in the basket of the specified instance.
+   * @param instanceId the identifier of a Kmelia instance.
+   * @param userId the identifier of the user who deleted the publications, null to count all the
+   * publications in the basket.
+   * @return the number of publications in the basket.
+   */
+  public int countPublicationsInBasket(final String instanceId, final String userId) {
+    try {
+      return (int) dao.countPublicationsInBasket(instanceId, userId);
+    } catch (SQLException e) {
+      throw new KmeliaRuntimeException(e);
+    }
+  }
+
+  /**
+   * Refreshes the placements of the specified publication in all the loaded instances. To be
+   * called each time a publication is created, updated, deleted or moved.
+   * @param pubId the identifier of a publication.
+   */
+  public void refreshPublication(final String pubId) {
+    final List<PublicationPlacement> placements;
+    try {
+      placements = dao.getPlacementsOfPublication(pubId);
+    } catch (SQLException e) {
+      throw new KmeliaRuntimeException(e);
+    }
+    final Set<String> impactedInstanceIds = new HashSet<>();
+    for (PublicationPlacement placement : placements) {
+      impactedInstanceIds.add(placement.getInstanceId());
+    }
+    for (Map.Entry<String, InstancePlacements> instance : instances.entrySet()) {
+      if (instance.getValue().contains(pubId)) {
+        impactedInstanceIds.add(instance.getKey());
+      }
+    }
+    for (String instanceId : impactedInstanceIds) {
+      getModificationCounter(instanceId).incrementAndGet();
+      InstancePlacements instancePlacements = instances.get(instanceId);
+      if (instancePlacements != null) {
+        List<PublicationPlacement> placementsInInstance = new ArrayList<>();
+        for (PublicationPlacement placement : placements) {
+          if (placement.getInstanceId().equals(instanceId)) {
+            placementsInInstance.add(placement);
+          }
+        }
+        instancePlacements.replace(pubId, placementsInInstance);
+      }
+    }
+  }
+
+  /**
+   * Invalidates the placements of the specified instance. They will be loaded again at the next
+   * computing of the number of publications. To be called when the folders of the instance
+   * change deeply (deletion or move of a folder for example).
+   * @param instanceId the identifier of a Kmelia instance.
+   */
+  public void invalidate(final String instanceId) {
+    getModificationCounter(instanceId).incrementAndGet();
+    instances.remove(instanceId);
+  }
+
+  private InstancePlacements getPlacements(final String instanceId) {
+    InstancePlacements placements = instances.get(instanceId);
+    if (placements == null || placements.isExpired()) {
+      final AtomicLong modificationCounter = getModificationCounter(instanceId);
+      final long modificationsBeforeLoading = modificationCounter.get();
+      try {
+        placements = new InstancePlacements(dao.getPlacementsInInstance(instanceId),
+            settings.getInteger("treeview.counts.cache.ttl", DEFAULT_TTL_IN_SECONDS) * 1000L);
+      } catch (SQLException e) {
+        throw new KmeliaRuntimeException(e);
+      }
+      // the loaded placements are kept only if no publication has been modified in the meantime
+      if (modificationCounter.get() == modificationsBeforeLoading) {
+        instances.put(instanceId, placements);
+      }
+    }
+    return placements;
+  }
+
+  private AtomicLong getModificationCounter(final String instanceId) {
+    return modifications.computeIfAbsent(instanceId, i -> new AtomicLong());
+  }
+
+  /**
+   * The placements of the publications of an instance, grouped by publication.
+   */
+  private static class InstancePlacements {
+    private final Map<String, List<PublicationPlacement>> placementsByPublication =
+        new HashMap<>();
+    private final long expiration;
+
+    private InstancePlacements(final List<PublicationPlacement> placements, final long ttl) {
+      for (PublicationPlacement placement : placements) {
+        placementsByPublication.computeIfAbsent(placement.getPubId(), id -> new ArrayList<>())
+            .add(placement);
+      }
+      this.expiration = System.currentTimeMillis() + ttl;
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() > expiration;
+    }
+
+    private synchronized boolean contains(final String pubId) {
+      return placementsByPublication.containsKey(pubId);
+    }
+
+    private synchronized void replace(final String pubId,
+        final List<PublicationPlacement> placements) {
+      if (placements.isEmpty()) {
+        placementsByPublication.remove(pubId);
+      } else {
+        placementsByPublication.put(pubId, placements);
+      }
+    }
+
+    private synchronized Map<String, Integer> countBy(
+        final Predicate<PublicationPlacement> filter) {
+      final Map<String, Integer> numbers = new HashMap<>();
+      for (List<PublicationPlacement> placements : placementsByPublication.values()) {
+        // the status, the updater and the visibility are the same for all the placements
+        if (filter.test(placements.get(0))) {
+          for (PublicationPlacement placement : placements) {
+            numbers.merge(placement.getNodeId(), 1, Integer::sum);
+          }
+        }
+      }
+      return numbers;
+    }
+  }
+}
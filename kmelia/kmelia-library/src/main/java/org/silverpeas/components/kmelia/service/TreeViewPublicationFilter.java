@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.silverpeas.components.kmelia.model.PublicationPlacement;
+import org.silverpeas.core.contribution.publication.model.PublicationDetail;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Predicate;
+
+/**
+ * The filter of the publications counted in the folders of the treeview of a user according to
+ * the profile of the user and to the co-writing parameters of the instance: a user sees only the
+ * valid and visible publications whereas the writers and the publishers see also the
+ * publications they are working on.
+ */
+class TreeViewPublicationFilter implements Predicate<PublicationPlacement> {
+
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+  private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+  private final Predicate<PublicationPlacement> filter;
+  private final boolean checkVisibility;
+  private final String today;
+  private final String now;
+
+  /**
+   * Constructs the filter for the specified user.
+   * @param profile the best profile of the user in the instance.
+   * @param coWritingEnable true if the co-writing is enabled in the instance.
+   * @param draftVisibleWithCoWriting true if the drafts are visible to the co-writers.
+   * @param userId the identifier of the user.
+   */
+  TreeViewPublicationFilter(final String profile, final boolean coWritingEnable,
+      final boolean draftVisibleWithCoWriting, final String userId) {
+    final boolean coWriting = coWritingEnable && draftVisibleWithCoWriting;
+    final Predicate<PublicationPlacement> updatedByUser = p -> userId.equals(p.getUpdaterId());
+    if ("user".equals(profile)) {
+      checkVisibility = true;
+      filter = hasStatus(PublicationDetail.VALID_STATUS);
+    } else if ("writer".equals(profile)) {
+      checkVisibility = !coWriting;
+      if (coWriting) {
+        filter = hasStatus(PublicationDetail.VALID_STATUS, PublicationDetail.DRAFT_STATUS,
+            PublicationDetail.REFUSED_STATUS).or(updatedByUser);
+      } else {
+        // the publications the writer works on are the ones the writer last updated
+        filter = hasStatus(PublicationDetail.VALID_STATUS).or(updatedByUser);
+      }
+    } else {
+      checkVisibility = !coWriting && "publisher".equals(profile);
+      if (coWriting) {
+        filter = hasStatus(PublicationDetail.VALID_STATUS, PublicationDetail.TO_VALIDATE_STATUS,
+            PublicationDetail.DRAFT_STATUS).or(updatedByUser);
+      } else {
+        filter = hasStatus(PublicationDetail.VALID_STATUS, PublicationDetail.TO_VALIDATE_STATUS)
+            .or(updatedByUser);
+      }
+    }
+    LocalDateTime dateTime = LocalDateTime.now();
+    this.today = dateTime.format(DATE_FORMATTER);
+    this.now = dateTime.format(HOUR_FORMATTER);
+  }
+
+  @Override
+  public boolean test(final PublicationPlacement placement) {
+    return filter.test(placement) &&
+        (!checkVisibility || placement.isVisibleAt(today, now));
+  }
+
+  private static Predicate<PublicationPlacement> hasStatus(final String... statuses) {
+    return p -> {
+      for (String status : statuses) {
+        if (status.equals(p.getStatus())) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+}
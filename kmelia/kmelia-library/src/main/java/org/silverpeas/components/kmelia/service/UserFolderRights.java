@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.silverpeas.core.admin.ObjectType;
+import org.silverpeas.core.admin.service.OrganizationController;
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.node.service.NodeService;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The rights of a user on the folders of a Kmelia instance in which the rights are handled at
+ * folder level (rightsOnTopics parameter).
+ * <p>
+ * In such an instance, the rights of a folder depend on the profiles of the nearest folder with
+ * its own rights (see {@link NodeDetail#getRightsDependsOn()}). The profiles of the user on all
+ * the folders of the instance are loaded in one call and kept in a per-user and per-instance
+ * cache, so that navigating the folders doesn't ask the organization for the rights of each
+ * folder and of each of their descendants.
+ * </p>
+ * <p>
+ * The cache is invalidated for an instance each time the rights of its folders are changed, for a
+ * user when the user is deleted, and entirely when a group changes. As the profiles can also be
+ * changed out of Kmelia (inherited rights from the component instance for example), the entries
+ * expire after a delay set by the <code>rightsOnTopics.cache.ttl</code> property in the Kmelia
+ * settings.
+ * </p>
+ */
+public final class UserFolderRights {
+
+  private static final SettingBundle settings =
+      ResourceLocator.getSettingBundle("org.silverpeas.kmelia.settings.kmeliaSettings");
+  private static final int DEFAULT_TTL_IN_SECONDS = 300;
+  private static final int DEFAULT_MAX_ENTRIES = 10000;
+  private static final ConcurrentMap<String, UserFolderRights> cache = new ConcurrentHashMap<>();
+
+  private final String userId;
+  private final String instanceId;
+  private final Map<Integer, List<String>> profiles;
+  private final long expiration;
+  private volatile List<String> availableFolderPaths = null;
+
+  private UserFolderRights(final String userId, final String instanceId,
+      final Map<Integer, List<String>> profiles, final long expiration) {
+    this.userId = userId;
+    this.instanceId = instanceId;
+    this.profiles = profiles;
+    this.expiration = expiration;
+  }
+
+  /**
+   * Gets the rights of the specified user on the folders of the given component instance. The
+   * rights are loaded once from the specified organization controller and then taken from the
+   * cache until they are invalidated or expired.
+   * @param userId the identifier of a user.
+   * @param instanceId the identifier of a Kmelia instance.
+   * @param orga the organization controller from which the profiles of the user are loaded.
+   * @return the rights of the user on the folders of the instance.
+   */
+  static UserFolderRights get(final String userId, final String instanceId,
+      final OrganizationController orga) {
+    final String key = buildKey(userId, instanceId);
+    final long now = System.currentTimeMillis();
+    UserFolderRights rights = cache.get(key);
+    if (rights == null || rights.expiration < now) {
+      Map<Integer, List<String>> profiles = new HashMap<>();
+      Map<Integer, List<String>> userProfiles =
+          orga.getUserObjectProfiles(userId, instanceId, ObjectType.NODE);
+      if (userProfiles != null) {
+        for (Map.Entry<Integer, List<String>> entry : userProfiles.entrySet()) {
+          if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+            profiles.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+          }
+        }
+      }
+      rights = new UserFolderRights(userId, instanceId, profiles,
+          now + settings.getInteger("rightsOnTopics.cache.ttl", DEFAULT_TTL_IN_SECONDS) * 1000L);
+      if (cache.size() >= settings.getInteger("rightsOnTopics.cache.max", DEFAULT_MAX_ENTRIES)) {
+        cache.clear();
+      }
+      cache.put(key, rights);
+    }
+    return rights;
+  }
+
+  /**
+   * Invalidates the rights of all the users on the folders of the specified component instance.
+   * To be called each time the rights of a folder of the instance change.
+   * @param instanceId the identifier of a Kmelia instance.
+   */
+  public static void invalidateInstance(final String instanceId) {
+    cache.values().removeIf(rights -> rights.instanceId.equals(instanceId));
+  }
+
+  /**
+   * Invalidates the rights of the specified user on the folders of all the component instances.
+   * @param userId the identifier of a user.
+   */
+  public static void invalidateUser(final String userId) {
+    cache.values().removeIf(rights -> rights.userId.equals(userId));
+  }
+
+  /**
+   * Invalidates all the cached rights.
+   */
+  public static void invalidateAll() {
+    cache.clear();
+  }
+
+  /**
+   * Gets the roles of the user on the folders whose rights depend on the specified folder.
+   * @param rightsDependsOn the identifier of a folder with its own rights.
+   * @return a list of roles, empty if the user cannot access such folders.
+   */
+  List<String> getRoles(final int rightsDependsOn) {
+    List<String> roles = profiles.get(rightsDependsOn);
+    return roles != null ? roles : Collections.emptyList();
+  }
+
+  /**
+   * Can the user access the folders whose rights depend on the specified folder?
+   * @param rightsDependsOn the identifier of a folder with its own rights.
+   * @return true if the user plays at least one role on such folders, false otherwise.
+   */
+  boolean isAvailable(final int rightsDependsOn) {
+    return profiles.containsKey(rightsDependsOn);
+  }
+
+  /**
+   * Is there at least one descendant of the specified folder the user can access by its own
+   * rights? The paths of the folders the user can access are loaded once, the first time this
+   * method is called, so that the descendants of the folder don't have to be walked.
+   * @param folder a folder of the instance.
+   * @return true if a descendant of the folder with its own rights is available to the user,
+   * false otherwise.
+   */
+  boolean hasAvailableDescendant(final NodeDetail folder) {
+    if (profiles.isEmpty()) {
+      return false;
+    }
+    final String folderPath = folder.getFullPath();
+    for (String path : getAvailableFolderPaths()) {
+      if (path.startsWith(folderPath) && !path.equals(folderPath)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<String> getAvailableFolderPaths() {
+    List<String> paths = availableFolderPaths;
+    if (paths == null) {
+      paths = new ArrayList<>(profiles.size());
+      NodeService nodeService = NodeService.get();
+      for (Integer folderId : profiles.keySet()) {
+        try {
+          NodeDetail folder =
+              nodeService.getHeader(new NodePK(String.valueOf(folderId), instanceId), false);
+          if (folder != null && folder.getRightsDependsOn() == folderId) {
+            paths.add(folder.getFullPath());
+          }
+        } catch (Exception e) {
+          // the folder doesn't exist anymore: its profiles are obsolete
+          SilverLogger.getLogger(this).silent(e);
+        }
+      }
+      availableFolderPaths = paths;
+    }
+    return paths;
+  }
+
+  private static String buildKey(final String userId, final String instanceId) {
+    return userId + "@" + instanceId;
+  }
+}
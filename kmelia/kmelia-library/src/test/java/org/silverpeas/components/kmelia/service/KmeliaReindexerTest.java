@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.kmelia.dao.PublicationDistributionDao;
+import org.silverpeas.core.contribution.publication.model.PublicationDetail;
+import org.silverpeas.core.contribution.publication.model.PublicationPK;
+import org.silverpeas.core.contribution.publication.service.PublicationService;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.silverpeas.core.contribution.publication.model.PublicationDetail.VALID_STATUS;
+
+/**
+ * Tests the batching of the publications to reindex and the checkpoint of the reindexing.
+ */
+@EnableSilverTestEnv
+public class KmeliaReindexerTest {
+
+  private static final String INSTANCE_ID = "kmelia1";
+  private static final int NB_PUBLICATIONS = 10;
+  private static final int BATCH_SIZE = 3;
+
+  private final Set<String> failingPublications = ConcurrentHashMap.newKeySet();
+  private final List<String> indexedPublications = Collections.synchronizedList(new ArrayList<>());
+  private PublicationDistributionDao dao;
+  private PublicationService publicationService;
+  private Path directory;
+  private Path checkpoint;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    directory = Files.createTempDirectory("kmelia-reindex");
+    checkpoint = directory.resolve("reindex.checkpoint");
+    List<String> pubIds = new ArrayList<>();
+    Map<String, List<String>> fatherIds = new HashMap<>();
+    for (int i = 1; i <= NB_PUBLICATIONS; i++) {
+      pubIds.add(String.valueOf(i));
+      fatherIds.put(String.valueOf(i), Collections.singletonList("2"));
+    }
+    dao = mock(PublicationDistributionDao.class);
+    when(dao.getValidPublicationIds(INSTANCE_ID)).thenReturn(pubIds);
+    when(dao.getFatherIds(anyString(), anyCollection())).thenReturn(fatherIds);
+    publicationService = mock(PublicationService.class);
+    when(publicationService.getPublications(anyCollection())).thenAnswer(invocation -> {
+      Collection<PublicationPK> pks = invocation.getArgument(0);
+      List<PublicationDetail> publications = new ArrayList<>(pks.size());
+      for (PublicationPK pk : pks) {
+        PublicationDetail publication = new PublicationDetail();
+        publication.setPk(pk);
+        publication.setStatus(VALID_STATUS);
+        publications.add(publication);
+      }
+      return publications;
+    });
+  }
+
+  @AfterEach
+  public void cleanUp() throws IOException {
+    Files.deleteIfExists(checkpoint);
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void allThePublicationsAreIndexedByBatches() throws Exception {
+    reindexer(2, TimeUnit.HOURS.toMillis(1)).reindex(INSTANCE_ID);
+
+    assertThat(indexedPublications, hasSize(NB_PUBLICATIONS));
+    verify(publicationService, times(4)).getPublications(anyCollection());
+    verify(dao, times(4)).getFatherIds(anyString(), anyCollection());
+    assertThat(Files.exists(checkpoint), is(false));
+  }
+
+  @Test
+  public void aFullReindexingIgnoresTheCheckpointOfAPreviousOne() throws Exception {
+    writeCheckpoint("6");
+
+    reindexer(2, TimeUnit.HOURS.toMillis(1)).reindex(INSTANCE_ID);
+
+    assertThat(indexedPublications, hasSize(NB_PUBLICATIONS));
+    assertThat(Files.exists(checkpoint), is(false));
+  }
+
+  @Test
+  public void anInterruptedReindexingIsResumedAfterItsCheckpoint() throws Exception {
+    writeCheckpoint("6");
+
+    boolean resumed = reindexer(1, TimeUnit.HOURS.toMillis(1)).resume(INSTANCE_ID);
+
+    assertThat(resumed, is(true));
+    assertThat(indexedPublications, contains("7", "8", "9", "10"));
+    assertThat(Files.exists(checkpoint), is(false));
+  }
+
+  @Test
+  public void nothingIsResumedWithoutCheckpoint() {
+    boolean resumed = reindexer(1, TimeUnit.HOURS.toMillis(1)).resume(INSTANCE_ID);
+
+    assertThat(resumed, is(false));
+    assertThat(indexedPublications, hasSize(0));
+  }
+
+  @Test
+  public void anExpiredCheckpointIsNotResumed() throws Exception {
+    writeCheckpoint("6");
+
+    boolean resumed = reindexer(1, -1).resume(INSTANCE_ID);
+
+    assertThat(resumed, is(false));
+    assertThat(indexedPublications, hasSize(0));
+  }
+
+  @Test
+  public void theCheckpointStopsBeforeAFailedBatch() throws Exception {
+    failingPublications.add("5");
+
+    reindexer(1, TimeUnit.HOURS.toMillis(1)).reindex(INSTANCE_ID);
+
+    assertThat(indexedPublications, hasSize(NB_PUBLICATIONS - 1));
+    assertThat(readCheckpoint(), is("3"));
+
+    failingPublications.clear();
+    indexedPublications.clear();
+    reindexer(1, TimeUnit.HOURS.toMillis(1)).resume(INSTANCE_ID);
+
+    assertThat(indexedPublications, contains("4", "5", "6", "7", "8", "9", "10"));
+    assertThat(Files.exists(checkpoint), is(false));
+  }
+
+  @Test
+  public void aFailureInTheFirstBatchMakesAllThePublicationsToBeResumed() throws Exception {
+    when(dao.getFatherIds(anyString(), anyCollection())).thenThrow(new SQLException("failure"))
+        .thenReturn(Collections.emptyMap());
+
+    reindexer(1, TimeUnit.HOURS.toMillis(1)).reindex(INSTANCE_ID);
+
+    assertThat(readCheckpoint(), is("0"));
+  }
+
+  @Test
+  public void theCheckpointIsMovedForwardOnlyUpToTheContiguouslyIndexedBatches() throws Exception {
+    failingPublications.add("8");
+
+    reindexer(2, TimeUnit.HOURS.toMillis(1)).reindex(INSTANCE_ID);
+
+    assertThat(readCheckpoint(), is("6"));
+    assertThat(indexedPublications,
+        containsInAnyOrder("1", "2", "3", "4", "5", "6", "7", "9", "10"));
+  }
+
+  private KmeliaReindexer reindexer(final int threads, final long checkpointTtl) {
+    return new KmeliaReindexer(dao, publicationService, publication -> {
+      if (failingPublications.contains(publication.getId())) {
+        throw new IllegalStateException("Indexing failure of " + publication.getId());
+      }
+      indexedPublications.add(publication.getId());
+    }, threads, BATCH_SIZE, checkpointTtl, instanceId -> checkpoint);
+  }
+
+  private void writeCheckpoint(final String lastIndexedId) throws IOException {
+    Files.write(checkpoint, lastIndexedId.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String readCheckpoint() throws IOException {
+    return new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim();
+  }
+}
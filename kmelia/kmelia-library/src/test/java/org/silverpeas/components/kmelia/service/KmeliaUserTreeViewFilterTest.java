@@ -44,6 +44,8 @@ import java.util.List;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -75,6 +77,8 @@ public class KmeliaUserTreeViewFilterTest {
 
   @BeforeEach
   public void setup() {
+    UserFolderRights.invalidateAll();
+
     // Verifying common data
     List<NodeDetail> commonTree = buildCommonTree();
 
@@ -88,6 +92,30 @@ public class KmeliaUserTreeViewFilterTest {
     assertThat(node_AA.getChildrenDetails(), hasSize(2));
   }
 
+  @Test
+  public void userNodeRolesAreLoadedOnceUntilTheRightsOfTheInstanceChange() {
+    when(organisationController.getUserObjectProfiles(USER_ID, INSTANCE_ID, ObjectType.NODE))
+        .thenReturn(UserNodeRoleMapping.from(NODE_AAB_ID, READER_ROLE));
+    for (int i = 0; i < 2; i++) {
+      List<NodeDetail> commonTree = buildCommonTree();
+      commonTree.get(2).setRightsDependsOnMe();
+      KmeliaUserTreeViewFilter
+          .from(USER_ID, INSTANCE_ID, ROOT_NODE_PK, READER_ROLE, true)
+          .setBestUserRoleAndFilter(commonTree);
+    }
+    verify(organisationController, times(1))
+        .getUserObjectProfiles(USER_ID, INSTANCE_ID, ObjectType.NODE);
+
+    UserFolderRights.invalidateInstance(INSTANCE_ID);
+    List<NodeDetail> commonTree = buildCommonTree();
+    commonTree.get(2).setRightsDependsOnMe();
+    KmeliaUserTreeViewFilter
+        .from(USER_ID, INSTANCE_ID, ROOT_NODE_PK, READER_ROLE, true)
+        .setBestUserRoleAndFilter(commonTree);
+    verify(organisationController, times(2))
+        .getUserObjectProfiles(USER_ID, INSTANCE_ID, ObjectType.NODE);
+  }
+
   @Test
   public void setBestUserRoleAndFilterOnNotExistingTree() {
     assertThrows(NullPointerException.class,
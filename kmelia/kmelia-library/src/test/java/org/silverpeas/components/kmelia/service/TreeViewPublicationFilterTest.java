@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.kmelia.service;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.kmelia.model.PublicationPlacement;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests the filtering of the publications counted in the treeview according to the profile of
+ * the user.
+ */
+@EnableSilverTestEnv
+public class TreeViewPublicationFilterTest {
+
+  private static final String USER_ID = "26";
+  private static final String OTHER_USER_ID = "38";
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+  private static final String YESTERDAY = LocalDate.now().minusDays(1).format(DATE_FORMATTER);
+  private static final String TOMORROW = LocalDate.now().plusDays(1).format(DATE_FORMATTER);
+  private static final String NEVER = "9999/99/99";
+
+  @Test
+  public void aSimpleUserCountsOnlyTheValidAndVisiblePublications() {
+    TreeViewPublicationFilter filter = new TreeViewPublicationFilter("user", false, false, USER_ID);
+    assertThat(filter.test(placement("Valid", OTHER_USER_ID, YESTERDAY, NEVER)), is(true));
+    assertThat(filter.test(placement("Valid", OTHER_USER_ID, TOMORROW, NEVER)), is(false));
+    assertThat(filter.test(placement("Valid", OTHER_USER_ID, YESTERDAY, YESTERDAY)), is(false));
+    assertThat(filter.test(placement("Draft", USER_ID, YESTERDAY, NEVER)), is(false));
+  }
+
+  @Test
+  public void aWriterCountsAlsoThePublicationsLastUpdatedByTheWriter() {
+    TreeViewPublicationFilter filter =
+        new TreeViewPublicationFilter("writer", false, false, USER_ID);
+    assertThat(filter.test(placement("Valid", OTHER_USER_ID, YESTERDAY, NEVER)), is(true));
+    assertThat(filter.test(placement("Draft", USER_ID, YESTERDAY, NEVER)), is(true));
+    assertThat(filter.test(placement("ToValidate", USER_ID, YESTERDAY, NEVER)), is(true));
+    assertThat(filter.test(placement("Draft", OTHER_USER_ID, YESTERDAY, NEVER)), is(false));
+    assertThat(filter.test(placement("Draft", USER_ID, TOMORROW, NEVER)), is(false));
+  }
+
+  @Test
+  public void aCoWriterCountsTheDraftsOfOthersWhateverTheirVisibility() {
+    TreeViewPublicationFilter filter = new TreeViewPublicationFilter("writer", true, true, USER_ID);
+    assertThat(filter.test(placement("Draft", OTHER_USER_ID, TOMORROW, NEVER)), is(true));
+    assertThat(filter.test(placement("Unvalidate", OTHER_USER_ID, YESTERDAY, NEVER)), is(true));
+    assertThat(filter.test(placement("ToValidate", OTHER_USER_ID, YESTERDAY, NEVER)), is(false));
+  }
+
+  @Test
+  public void aPublisherCountsThePublicationsToValidateButOnlyTheVisibleOnes() {
+    TreeViewPublicationFilter filter =
+        new TreeViewPublicationFilter("publisher", false, false, USER_ID);
+    assertThat(filter.test(placement("ToValidate", OTHER_USER_ID, YESTERDAY, NEVER)), is(true));
+    assertThat(filter.test(placement("ToValidate", OTHER_USER_ID, TOMORROW, NEVER)), is(false));
+    assertThat(filter.test(placement("Draft", OTHER_USER_ID, YESTERDAY, NEVER)), is(false));
+  }
+
+  @Test
+  public void anAdminCountsThePublicationsWhateverTheirVisibility() {
+    TreeViewPublicationFilter filter =
+        new TreeViewPublicationFilter("admin", false, false, USER_ID);
+    assertThat(filter.test(placement("ToValidate", OTHER_USER_ID, TOMORROW, NEVER)), is(true));
+    assertThat(filter.test(placement("Draft", USER_ID, TOMORROW, NEVER)), is(true));
+    assertThat(filter.test(placement("Draft", OTHER_USER_ID, YESTERDAY, NEVER)), is(false));
+  }
+
+  private static PublicationPlacement placement(String status, String updaterId, String beginDate,
+      String endDate) {
+    return new PublicationPlacement("kmelia1", "2", "1", status, updaterId, beginDate, "00:00",
+        endDate, "23:59");
+  }
+}
@@ -39,6 +39,7 @@ import org.silverpeas.components.kmelia.model.*;
 import org.silverpeas.components.kmelia.search.KmeliaSearchServiceProvider;
 import org.silverpeas.components.kmelia.service.KmeliaHelper;
 import org.silverpeas.components.kmelia.service.KmeliaService;
+import org.silverpeas.components.kmelia.service.UserFolderRights;
 import org.silverpeas.core.ResourceReference;
 import org.silverpeas.core.admin.ObjectType;
 import org.silverpeas.core.admin.component.model.ComponentInst;
@@ -109,6 +110,7 @@ import org.silverpeas.core.pdc.pdc.model.PdcException;
 import org.silverpeas.core.pdc.pdc.model.PdcPosition;
 import org.silverpeas.core.pdc.pdc.service.PdcClassificationService;
 import org.silverpeas.core.pdc.pdc.service.PdcManager;
+import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
 import org.silverpeas.core.security.authorization.AccessControlContext;
 import org.silverpeas.core.security.authorization.NodeAccessController;
 import org.silverpeas.core.security.authorization.PublicationAccessController;
@@ -203,6 +205,8 @@ public class KmeliaSessionController extends AbstractComponentSessionController
   // pagination de la liste des publications
   private int indexOfFirstPubToDisplay = 0;
   private int nbPublicationsPerPage = DEFAULT_NBPUBLIS_PER_PAGE;
+  // the publications of the current folder are loaded in session only when they are required
+  private boolean publicationsOfCurrentFolderToLoad = false;
   // Specific for Kmax
   private List<Integer> timeAxis = null;
   private List<String> currentCombination = null;
@@ -1087,6 +1091,10 @@ public class KmeliaSessionController extends AbstractComponentSessionController
   }
 
   private synchronized void orderPubs(int sortType) {
+    if (publicationsOfCurrentFolderToLoad) {
+      // the publications will be sorted once loaded
+      return;
+    }
     cacheDirectlyPublicationsListInSession(sort(getSessionPublicationsList(), sortType));
   }
 
@@ -1522,6 +1530,7 @@ public class KmeliaSessionController extends AbstractComponentSessionController
   }
 
   private void cacheDirectlyPublicationsListInSession(final List<KmeliaPublication> publications) {
+    publicationsOfCurrentFolderToLoad = false;
     getSessionCacheService().getCache().put(PUB_LIST_SESSION_CACHE_KEY, publications);
   }
 
@@ -1613,6 +1622,10 @@ public class KmeliaSessionController extends AbstractComponentSessionController
 
   @SuppressWarnings("unchecked")
   public List<KmeliaPublication> getSessionPublicationsList() {
+    if (publicationsOfCurrentFolderToLoad) {
+      publicationsOfCurrentFolderToLoad = false;
+      getPublicationsOfCurrentFolder();
+    }
     return (List) getSessionCacheService().getCache().get(PUB_LIST_SESSION_CACHE_KEY);
   }
 
@@ -2266,6 +2279,7 @@ public class KmeliaSessionController extends AbstractComponentSessionController
   private void deleteTopicRole(String profileId) {
     // Remove the profile
     getAdmin().deleteProfileInst(profileId);
+    UserFolderRights.invalidateInstance(getComponentId());
   }
 
   public void updateTopicRole(String role, String nodeId, String[] groupIds, String[] userIds) {
@@ -2294,6 +2308,7 @@ public class KmeliaSessionController extends AbstractComponentSessionController
       // Create the profile
       getAdmin().addProfileInst(profile);
     }
+    UserFolderRights.invalidateInstance(getComponentId());
   }
 
   public ProfileInst getTopicProfile(String role, String topicId) {
@@ -3216,6 +3231,82 @@ public class KmeliaSessionController extends AbstractComponentSessionController
     return publicationsToDisplay;
   }
 
+  /**
+   * Resets the publications of the current folder in session. They will be loaded only when
+   * required: the display of the publications list of a folder doesn't require them when the
+   * page to display can be got directly (see {@link #getPageOfPublicationsOfCurrentFolder()}).
+   */
+  public void resetPublicationsOfCurrentFolder() {
+    cacheDirectlyPublicationsListInSession(null);
+    publicationsOfCurrentFolderToLoad = true;
+  }
+
+  /**
+   * Gets the page of publications of the current folder to display without loading all the
+   * publications of the folder in session: the visibility filtering, the sorting and the
+   * pagination are done by the database.
+   * @return the page of publications with the total number of publications in the folder as
+   * original size or null if the page can't be got directly. It is the case for the special
+   * folders (root, basket, publications to validate), for the sorts on data out of the
+   * publications and when the publications of the folder are already in session.
+   */
+  public SilverpeasList<KmeliaPublication> getPageOfPublicationsOfCurrentFolder() {
+    if (!publicationsOfCurrentFolderToLoad ||
+        KmeliaHelper.SPECIALFOLDER_TOVALIDATE.equalsIgnoreCase(currentFolderId) ||
+        NodePK.ROOT_NODE_ID.equals(currentFolderId) || NodePK.BIN_NODE_ID.equals(currentFolderId)) {
+      return null;
+    }
+    int sort = StringUtil.isInteger(getSortValue()) ? Integer.parseInt(getSortValue()) : -1;
+    if (sort == -1) {
+      sort = getKmeliaService().isManualSortingUsed(getCurrentFolderPK()) ? 99 :
+          Integer.parseInt(defaultSortValue);
+    }
+    if (!getKmeliaService().isPageSortSupported(sort)) {
+      return null;
+    }
+    final int nbPerPage = Math.max(1, getNbPublicationsPerPage());
+    SilverpeasList<KmeliaPublication> page = getPageOfPublicationsOfCurrentFolder(sort, nbPerPage);
+    if (page.isEmpty() && page.originalListSize() > 0 && indexOfFirstPubToDisplay > 0) {
+      // the current page doesn't exist anymore (some publications have been removed)
+      indexOfFirstPubToDisplay = (int) ((page.originalListSize() - 1) / nbPerPage) * nbPerPage;
+      page = getPageOfPublicationsOfCurrentFolder(sort, nbPerPage);
+    }
+    return page;
+  }
+
+  private SilverpeasList<KmeliaPublication> getPageOfPublicationsOfCurrentFolder(int sort,
+      int nbPerPage) {
+    PaginationCriterion pagination =
+        new PaginationCriterion(indexOfFirstPubToDisplay / nbPerPage + 1, nbPerPage);
+    return getKmeliaService()
+        .getPageOfPublicationsOfFolder(getCurrentFolderPK(), SilverpeasRole.from(getProfile()),
+            getUserId(), sort, pagination);
+  }
+
+  /**
+   * Gets in one go the clones of the specified publications.
+   * @param publications some publications.
+   * @return the detail of the clones indexed by the identifier of their publication.
+   */
+  public Map<String, PublicationDetail> getClonesOf(Collection<KmeliaPublication> publications) {
+    Map<String, String> cloneIds = new HashMap<>();
+    List<PublicationPK> clonePKs = new ArrayList<>();
+    for (KmeliaPublication publication : publications) {
+      PublicationDetail detail = publication.getDetail();
+      if (detail.haveGotClone() && !detail.isClone()) {
+        cloneIds.put(detail.getCloneId(), detail.getPK().getId());
+        clonePKs.add(new PublicationPK(detail.getCloneId(), detail.getPK().getInstanceId()));
+      }
+    }
+    Map<String, PublicationDetail> clones = new HashMap<>(clonePKs.size());
+    if (!clonePKs.isEmpty()) {
+      for (PublicationDetail clone : getPublicationService().getPublications(clonePKs)) {
+        clones.put(cloneIds.get(clone.getPK().getId()), clone);
+      }
+    }
+    return clones;
+  }
+
   public List<KmeliaPublication> getPublicationsOfCurrentFolder() {
     List<KmeliaPublication> publications;
     if (!KmeliaHelper.SPECIALFOLDER_TOVALIDATE.equalsIgnoreCase(currentFolderId)) {
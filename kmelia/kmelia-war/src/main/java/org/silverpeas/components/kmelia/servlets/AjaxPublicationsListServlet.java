@@ -52,6 +52,7 @@ import org.silverpeas.core.template.SilverpeasTemplateFactory;
 import org.silverpeas.core.util.MultiSilverpeasBundle;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.SilverpeasList;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.URLUtil;
 import org.silverpeas.core.util.WebEncodeHelper;
@@ -81,6 +82,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.silverpeas.core.admin.user.model.SilverpeasRole.*;
 import static org.silverpeas.core.contribution.publication.model.PublicationDetail.*;
@@ -131,7 +133,7 @@ public class AjaxPublicationsListServlet extends HttpServlet {
 
       if (StringUtil.isDefined(nodeId)) {
         kmeliaSC.setCurrentFolderId(nodeId, true);
-        kmeliaSC.getPublicationsOfCurrentFolder();
+        kmeliaSC.resetPublicationsOfCurrentFolder();
         // used by drag n drop
         session.setAttribute("Silverpeas_DragAndDrop_TopicId", nodeId);
       }
@@ -173,6 +175,9 @@ public class AjaxPublicationsListServlet extends HttpServlet {
       boolean linksAllowed = true;
       boolean seeAlso = false;
       List<KmeliaPublication> publications;
+      // the publications of the current page only, out of a greater number of publications
+      boolean pageOnly = false;
+      long nbPublications = -1;
       TopicDetail currentTopic;
       String role = kmeliaSC.getProfile();
       if (toLink) {
@@ -199,7 +204,14 @@ public class AjaxPublicationsListServlet extends HttpServlet {
       } else if (searchInProgress) {
         publications = kmeliaSC.search(query);
       } else {
-        publications = kmeliaSC.getSessionPublicationsList();
+        SilverpeasList<KmeliaPublication> page = kmeliaSC.getPageOfPublicationsOfCurrentFolder();
+        if (page != null) {
+          publications = page;
+          pageOnly = true;
+          nbPublications = page.originalListSize();
+        } else {
+          publications = kmeliaSC.getSessionPublicationsList();
+        }
       }
 
       if (attachmentToLink) {
@@ -237,16 +249,21 @@ public class AjaxPublicationsListServlet extends HttpServlet {
         }
       } else {
         if (publications != null) {
-          displayPublications(publications, sortAllowed, linksAllowed, seeAlso, searchInProgress,
-              kmeliaSC, role, gef, resources, selectedIds, pubIdToHighlight, writer,
-              attachmentToLink);
+          if (!pageOnly) {
+            nbPublications = publications.size();
+          }
+          displayPublications(publications, pageOnly, (int) nbPublications, sortAllowed,
+              linksAllowed, seeAlso, searchInProgress, kmeliaSC, role, gef, resources, selectedIds,
+              pubIdToHighlight, writer, attachmentToLink);
         }
       }
     }
   }
 
   /**
-   * @param allPubs
+   * @param allPubs all the publications to display or only the ones of the current page
+   * @param pageOnly true if allPubs contains only the publications of the current page
+   * @param nbPubs the total number of publications to display
    * @param sortAllowed
    * @param linksAllowed
    * @param seeAlso
@@ -263,7 +280,8 @@ public class AjaxPublicationsListServlet extends HttpServlet {
    * @throws IOException
    * @throws NumberFormatException
    */
-  private void displayPublications(List<KmeliaPublication> allPubs, boolean sortAllowed,
+  private void displayPublications(List<KmeliaPublication> allPubs, boolean pageOnly, int nbPubs,
+      boolean sortAllowed,
       boolean linksAllowed, boolean seeAlso, boolean toSearch, KmeliaSessionController kmeliaScc,
       String profile, GraphicElementFactory gef, MultiSilverpeasBundle resources,
       List<PublicationPK> selectedIds, String pubIdToHighlight, Writer out, boolean linkAttachment)
@@ -295,11 +313,13 @@ public class AjaxPublicationsListServlet extends HttpServlet {
 
     int nbPubsPerPage = kmeliaScc.getNbPublicationsPerPage();
     int firstDisplayedItemIndex = kmeliaScc.getIndexOfFirstPubToDisplay();
-    int nbPubs = allPubs.size();
     Board board = gef.getBoard();
     Pagination pagination = gef.getPagination(nbPubs, nbPubsPerPage, firstDisplayedItemIndex);
-    List<KmeliaPublication> pubs = allPubs.subList(pagination.getFirstItemIndex(), pagination.
-        getLastItemIndex());
+    List<KmeliaPublication> pubs = allPubs;
+    if (!pageOnly) {
+      pubs = allPubs.subList(pagination.getFirstItemIndex(), pagination.getLastItemIndex());
+    }
+    Map<String, PublicationDetail> clones = kmeliaScc.getClonesOf(pubs);
     out.write("<form name=\"publicationsForm\" onsubmit=\"return false;\">");
     if (!pubs.isEmpty()) {
       out.write(board.printBefore());
@@ -308,8 +328,8 @@ public class AjaxPublicationsListServlet extends HttpServlet {
       for (KmeliaPublication aPub : pubs) {
         PublicationDetail pub = aPub.getDetail();
         PublicationDetail pubOrClone = pub;
-        if (pub.haveGotClone() && !pub.isClone()) {
-          pubOrClone = kmeliaScc.getPublicationDetail(pub.getCloneId());
+        if (pub.haveGotClone() && !pub.isClone() && clones.containsKey(pub.getPK().getId())) {
+          pubOrClone = clones.get(pub.getPK().getId());
         }
         User currentUser = aPub.getCreator();
 
@@ -29,3 +29,6 @@ REFERENCES sc_mailinglist_list (id);
 ALTER TABLE sc_mailinglist_message
 ADD CONSTRAINT mailinglist_message_mailid_key
 UNIQUE (mailId, componentId);
+ALTER TABLE sc_mailinglist_delivery
+ADD CONSTRAINT pk_mailinglist_delivery
+PRIMARY KEY (id);
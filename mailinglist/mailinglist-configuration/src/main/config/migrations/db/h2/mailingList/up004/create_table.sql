@@ -0,0 +1,14 @@
+CREATE TABLE sc_mailinglist_delivery (
+  id          VARCHAR(255) NOT NULL,
+  version     INT4         NOT NULL,
+  componentId VARCHAR(255) NOT NULL,
+  messageId   VARCHAR(255) NOT NULL,
+  recipients  TEXT         NOT NULL,
+  attempts    INT4         NOT NULL,
+  nextAttempt INT8         NOT NULL,
+  sent        BOOL         NOT NULL
+);
+
+ALTER TABLE sc_mailinglist_delivery
+ADD CONSTRAINT pk_mailinglist_delivery
+PRIMARY KEY (id);
@@ -48,3 +48,14 @@ CREATE TABLE sc_mailinglist_internal_sub (
   externalid      VARCHAR(255) NOT NULL,
   mailinglistid   VARCHAR(255) NOT NULL
 );
+
+CREATE TABLE sc_mailinglist_delivery (
+  id          VARCHAR(255) NOT NULL,
+  version     INT          NOT NULL,
+  componentId VARCHAR(255) NOT NULL,
+  messageId   VARCHAR(255) NOT NULL,
+  recipients  TEXT         NOT NULL,
+  attempts    INT          NOT NULL,
+  nextAttempt BIGINT       NOT NULL,
+  sent        BIT          NOT NULL
+);
@@ -49,3 +49,14 @@ CREATE TABLE sc_mailinglist_internal_sub (
   externalid      VARCHAR2(255) NOT NULL,
   mailinglistid   VARCHAR2(255) NOT NULL
 );
+
+CREATE TABLE sc_mailinglist_delivery (
+  id          VARCHAR2(255) NOT NULL,
+  version     NUMBER(10, 0) NOT NULL,
+  componentId VARCHAR2(255) NOT NULL,
+  messageId   VARCHAR2(255) NOT NULL,
+  recipients  CLOB          NOT NULL,
+  attempts    NUMBER(10, 0) NOT NULL,
+  nextAttempt NUMBER(19, 0) NOT NULL,
+  sent        NUMBER(1)     NOT NULL
+);
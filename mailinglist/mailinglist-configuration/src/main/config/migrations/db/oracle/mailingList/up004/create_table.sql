@@ -0,0 +1,14 @@
+CREATE TABLE sc_mailinglist_delivery (
+  id          VARCHAR2(255) NOT NULL,
+  version     NUMBER(10, 0) NOT NULL,
+  componentId VARCHAR2(255) NOT NULL,
+  messageId   VARCHAR2(255) NOT NULL,
+  recipients  CLOB          NOT NULL,
+  attempts    NUMBER(10, 0) NOT NULL,
+  nextAttempt NUMBER(19, 0) NOT NULL,
+  sent        NUMBER(1)     NOT NULL
+);
+
+ALTER TABLE sc_mailinglist_delivery
+ADD CONSTRAINT pk_mailinglist_delivery
+PRIMARY KEY (id);
@@ -41,6 +41,17 @@ CREATE TABLE sc_mailinglist_message (
   body            TEXT
 );
 
+CREATE TABLE sc_mailinglist_delivery (
+  id          VARCHAR(255) NOT NULL,
+  version     INT4         NOT NULL,
+  componentId VARCHAR(255) NOT NULL,
+  messageId   VARCHAR(255) NOT NULL,
+  recipients  TEXT         NOT NULL,
+  attempts    INT4         NOT NULL,
+  nextAttempt INT8         NOT NULL,
+  sent        BOOL         NOT NULL
+);
+
 CREATE TABLE sc_mailinglist_internal_sub (
   id              VARCHAR(255) NOT NULL,
   version         INT4         NOT NULL,
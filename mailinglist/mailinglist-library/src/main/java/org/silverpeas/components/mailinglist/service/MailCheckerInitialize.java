@@ -27,6 +27,7 @@ import org.silverpeas.components.mailinglist.model.MailingListComponent;
 import org.silverpeas.components.mailinglist.service.job.MessageChecker;
 import org.silverpeas.components.mailinglist.service.model.MailingListService;
 import org.silverpeas.components.mailinglist.service.model.beans.MailingList;
+import org.silverpeas.components.mailinglist.service.notification.MailDeliveryQueue;
 import org.silverpeas.core.initialization.Initialization;
 import org.silverpeas.core.scheduler.SchedulerException;
 import org.silverpeas.core.scheduler.trigger.JobTrigger;
@@ -44,6 +45,8 @@ public class MailCheckerInitialize implements Initialization {
   private MessageChecker messageChecker;
   @Inject
   private MailingListService mailingListService;
+  @Inject
+  private MailDeliveryQueue deliveryQueue;
   private static SettingBundle settings;
   private static final int DEFAULT_FREQUENCY = 1;
 
@@ -65,6 +68,8 @@ public class MailCheckerInitialize implements Initialization {
 
   @Override
   public void init() throws Exception {
+    // sends the mails that were still to be delivered when the server stopped
+    deliveryQueue.start();
     try {
       MessageChecker checker = getMessageChecker();
       checker.unschedule();
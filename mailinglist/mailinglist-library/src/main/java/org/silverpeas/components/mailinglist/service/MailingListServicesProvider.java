@@ -26,6 +26,7 @@ package org.silverpeas.components.mailinglist.service;
 import org.silverpeas.components.mailinglist.service.job.MessageChecker;
 import org.silverpeas.components.mailinglist.service.model.MailingListService;
 import org.silverpeas.components.mailinglist.service.model.MessageService;
+import org.silverpeas.components.mailinglist.service.notification.MailDeliveryQueue;
 import org.silverpeas.components.mailinglist.service.notification.NotificationFormatter;
 import org.silverpeas.components.mailinglist.service.notification.NotificationHelper;
 import org.silverpeas.core.util.ServiceProvider;
@@ -47,6 +48,10 @@ public class MailingListServicesProvider {
     return ServiceProvider.getService(MessageChecker.class);
   }
 
+  public static MailDeliveryQueue getMailDeliveryQueue() {
+    return ServiceProvider.getService(MailDeliveryQueue.class);
+  }
+
   public static NotificationHelper getNotificationHelper() {
     return NotificationHelper.get();
   }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.job;
+
+import javax.mail.FetchProfile;
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.UIDFolder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetcher of the new messages of an IMAP mailbox. It remembers between two checks of the
+ * mailbox the UIDVALIDITY of the folder and the UID of the last message that was processed so
+ * that only the messages arrived since the previous check are fetched from the server. When the
+ * UIDVALIDITY of the folder changes, the UIDs of the previous check aren't meaningful anymore and
+ * all the messages of the folder are fetched again.
+ * <p>
+ * The envelope, the flags, the content information and the UID of the new messages are fetched
+ * in bulk. The position in the mailbox is moved forward only once the fetched messages are
+ * acknowledged, so that the messages of a check that failed are fetched again at the next one.
+ * A message that fails again and again would then block the position in the mailbox: the failures
+ * of each message are counted and the message is given up once a maximum number of attempts is
+ * reached.
+ * </p>
+ */
+class ImapMailboxFetcher {
+
+  private final int maxAttempts;
+  private final Map<Long, Integer> failures = new HashMap<>();
+  private long uidValidity = -1;
+  private long lastUid = -1;
+  private long fetchedUidValidity = -1;
+  private long fetchedLastUid = -1;
+
+  /**
+   * Constructs a fetcher giving up a message after the specified number of failed attempts to
+   * process it.
+   * @param maxAttempts the maximum number of attempts to process a message.
+   */
+  ImapMailboxFetcher(int maxAttempts) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+  }
+
+  /**
+   * Fetches the messages arrived in the specified folder since the last acknowledged fetch.
+   * @param folder an opened IMAP folder.
+   * @return the new messages ordered by their UID.
+   * @throws MessagingException if an error occurs while fetching the messages.
+   */
+  synchronized Message[] fetchNewMessages(Folder folder) throws MessagingException {
+    UIDFolder uidFolder = (UIDFolder) folder;
+    long validity = uidFolder.getUIDValidity();
+    long threshold = validity == uidValidity ? lastUid : -1;
+    if (validity != uidValidity) {
+      failures.clear();
+    }
+    Message[] messages;
+    if (threshold >= 0) {
+      messages = uidFolder.getMessagesByUID(threshold + 1, UIDFolder.LASTUID);
+    } else {
+      messages = folder.getMessages();
+    }
+    FetchProfile profile = new FetchProfile();
+    profile.add(FetchProfile.Item.ENVELOPE);
+    profile.add(FetchProfile.Item.FLAGS);
+    profile.add(FetchProfile.Item.CONTENT_INFO);
+    profile.add(UIDFolder.FetchProfileItem.UID);
+    folder.fetch(messages, profile);
+
+    // the range n:* always matches the last message of the folder, even when its UID is lower
+    // than n, so the messages that were already processed have to be filtered out
+    List<Message> newMessages = new ArrayList<>(messages.length);
+    long maxUid = threshold;
+    for (Message message : messages) {
+      if (message != null && !message.isExpunged()) {
+        long uid = uidFolder.getUID(message);
+        if (uid > threshold) {
+          newMessages.add(message);
+          maxUid = Math.max(maxUid, uid);
+        }
+      }
+    }
+    fetchedUidValidity = validity;
+    fetchedLastUid = maxUid;
+    return newMessages.toArray(new Message[0]);
+  }
+
+  /**
+   * Acknowledges the messages returned by the last fetch up to the specified one: they won't be
+   * fetched anymore whereas the ones after it will be fetched again at the next check.
+   * @param folder the opened IMAP folder from which the messages were fetched.
+   * @param lastProcessed the last message to acknowledge.
+   * @throws MessagingException if the UID of the message cannot be got.
+   */
+  synchronized void acknowledge(Folder folder, Message lastProcessed) throws MessagingException {
+    long uid = ((UIDFolder) folder).getUID(lastProcessed);
+    uidValidity = fetchedUidValidity;
+    lastUid = Math.min(uid, fetchedLastUid);
+    failures.keySet().removeIf(failedUid -> failedUid <= lastUid);
+  }
+
+  /**
+   * Records a failed attempt to process the specified message returned by the last fetch.
+   * @param folder the opened IMAP folder from which the message was fetched.
+   * @param failed the message that failed to be processed.
+   * @return true if the maximum number of attempts is reached: the message is then given up and
+   * can be acknowledged as if it was processed. False if it has to be fetched again.
+   * @throws MessagingException if the UID of the message cannot be got.
+   */
+  synchronized boolean giveUp(Folder folder, Message failed) throws MessagingException {
+    long uid = ((UIDFolder) folder).getUID(failed);
+    int attempts = failures.merge(uid, 1, Integer::sum);
+    if (attempts >= maxAttempts) {
+      failures.remove(uid);
+      return true;
+    }
+    return false;
+  }
+}
@@ -123,14 +123,11 @@ public class MailProcessor {
       }
     } else if (message.getContentType().contains(MimeTypes.HTML_MIME_TYPE)) {
       message.setBody(content);
-      Reader reader = null;
-      try {
-        reader = new StringReader(content);
-        cleaner.parse(reader);
-        message.setSummary(cleaner.getSummary());
-      } finally {
-        if (reader != null) {
-          reader.close();
+      // the cleaner is stateful and the mails are processed concurrently
+      synchronized (cleaner) {
+        try (Reader reader = new StringReader(content)) {
+          cleaner.parse(reader);
+          message.setSummary(cleaner.getSummary());
         }
       }
     } else { // Managing as text/plain
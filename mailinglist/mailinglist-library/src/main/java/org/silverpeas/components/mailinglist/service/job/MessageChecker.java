@@ -38,9 +38,10 @@ import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.SettingBundle;
 import org.silverpeas.core.util.logging.SilverLogger;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.mail.FetchProfile;
+import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 import javax.mail.Folder;
 import javax.mail.Message;
@@ -51,18 +52,31 @@ import javax.mail.Store;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Singleton
 public class MessageChecker {
 
   private static final String MAILING_LIST_JOB_NAME = "mailingListScheduler";
+  private static final int DEFAULT_PROCESSING_THREADS = 4;
+  private static final int DEFAULT_PROCESSING_QUEUE = 100;
+  private static final int DEFAULT_PROCESSING_MAX_ATTEMPTS = 3;
 
   public static final String IMAP_PROTOCOL = "imap";
   public static final String IMAP_SSL_PROTOCOL = "imaps";
@@ -77,6 +91,8 @@ public class MessageChecker {
   private int port;
   private boolean leaveOnServer;
   private Session mailSession;
+  private final ImapMailboxFetcher mailboxFetcher;
+  private final ExecutorService processingPool;
   @Inject
   private MailingListService mailingListService;
 
@@ -116,6 +132,28 @@ public class MessageChecker {
     port = notifConfig.getInteger("mail.server.port", smtpConfig.getPort());
     leaveOnServer = notifConfig.getBoolean("mail.server.leave", true);
     mailSession = Session.getInstance(new Properties());
+    int threads = Math.max(1,
+        notifConfig.getInteger("mail.processing.threads", DEFAULT_PROCESSING_THREADS));
+    int queueSize = Math.max(1,
+        notifConfig.getInteger("mail.processing.queue", DEFAULT_PROCESSING_QUEUE));
+    mailboxFetcher = new ImapMailboxFetcher(notifConfig.getInteger("mail.processing.maxAttempts",
+        DEFAULT_PROCESSING_MAX_ATTEMPTS));
+    final AtomicInteger threadCount = new AtomicInteger(0);
+    processingPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueSize), r -> {
+      Thread thread =
+          new Thread(r, "mailinglist-mail-processing-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /**
+   * Stops the processing of the mails: the mails being processed are interrupted.
+   */
+  @PreDestroy
+  public void stop() {
+    processingPool.shutdownNow();
   }
 
   public String getLogin() {
@@ -197,21 +235,22 @@ public class MessageChecker {
       // -- Open the folder for read write --
       inbox.open(Folder.READ_WRITE);
 
-      // -- Get the message wrappers and process them --
-      Message[] msgs = inbox.getMessages();
-      if (isImap()) {
-        FetchProfile profile = new FetchProfile();
-        profile.add(FetchProfile.Item.FLAGS);
-        inbox.fetch(msgs, profile);
-      }
-      Map<MessageListener, MessageEvent> eventsMap = new HashMap<>();
-      for (final Message msg : msgs) {
-        processMessage(inbox, listenersByEmail, eventsMap, msg);
-      }
+      // -- Get the new message wrappers and process them --
+      Message[] msgs = fetchMessages(inbox);
+      Set<Message> processed = new HashSet<>(msgs.length);
+      Map<MessageListener, MessageEvent> eventsMap =
+          processMessages(inbox, listenersByEmail, msgs, processed);
       for (final Map.Entry<MessageListener, MessageEvent> entry : eventsMap.entrySet()) {
         MessageListener mailingList = entry.getKey();
         mailingList.onMessage(entry.getValue());
       }
+      if (isImap() && !Thread.currentThread().isInterrupted()) {
+        giveUpFailedMessages(inbox, msgs, processed);
+        Message lastProcessed = getLastProcessedInSequence(msgs, processed);
+        if (lastProcessed != null) {
+          mailboxFetcher.acknowledge(inbox, lastProcessed);
+        }
+      }
     } catch (Exception mex) {
       SilverLogger.getLogger(this).error(mex);
     } finally {
@@ -230,26 +269,131 @@ public class MessageChecker {
 
   }
 
-  private void processMessage(final Folder inbox,
-      final Map<String, MessageListener> listenersByEmail,
-      final Map<MessageListener, MessageEvent> eventsMap, final Message msg) {
-    try {
-      MimeMessage message = (MimeMessage) msg;
-      if (isImap()) {
-        if (!message.isSet(Flag.SEEN) && !message.isSet(Flag.DELETED)) {
-          message = new MimeMessage(message);
-          processEmail(message, eventsMap, listenersByEmail);
+  /**
+   * Fetches the messages to process. With IMAP, only the messages arrived since the last check
+   * are fetched, in bulk; with POP3 all the messages of the mailbox are got as they are deleted
+   * once processed.
+   * @param inbox the opened mailbox.
+   * @return the messages to process.
+   * @throws MessagingException if an error occurs while fetching the messages.
+   */
+  private Message[] fetchMessages(final Folder inbox) throws MessagingException {
+    if (isImap()) {
+      return mailboxFetcher.fetchNewMessages(inbox);
+    }
+    return inbox.getMessages();
+  }
+
+  /**
+   * Gives up the messages that failed to be processed too many times: they are then considered as
+   * processed so that they don't prevent the following messages from being acknowledged.
+   * @param inbox the opened mailbox.
+   * @param msgs the messages fetched from the mailbox.
+   * @param processed the messages that were successfully processed. The given up messages are
+   * added to them.
+   * @throws MessagingException if the UID of a message cannot be got.
+   */
+  private void giveUpFailedMessages(final Folder inbox, final Message[] msgs,
+      final Set<Message> processed) throws MessagingException {
+    for (Message msg : msgs) {
+      if (!processed.contains(msg) && mailboxFetcher.giveUp(inbox, msg)) {
+        SilverLogger.getLogger(this)
+            .error("The message {0} ({1}) cannot be processed: it is given up",
+                ((MimeMessage) msg).getMessageID(), msg.getSubject());
+        processed.add(msg);
+      }
+    }
+  }
+
+  /**
+   * Gets the last of the specified messages up to which all the messages were processed: the
+   * messages following the first one that failed to be processed aren't acknowledged so that
+   * it is fetched again at the next check.
+   * @param msgs the messages fetched from the mailbox, in the order of their UID.
+   * @param processed the messages that were successfully processed.
+   * @return the last message processed without any gap or null if the first message failed.
+   */
+  private Message getLastProcessedInSequence(final Message[] msgs,
+      final Set<Message> processed) {
+    Message last = null;
+    for (Message msg : msgs) {
+      if (!processed.contains(msg)) {
+        break;
+      }
+      last = msg;
+    }
+    return last;
+  }
+
+  /**
+   * Processes the specified messages. The messages are read from the mailbox by the current
+   * thread, one after the other, whereas their parsing and the saving of their attachments are
+   * performed by a bounded pool of workers. The events are built in the order of the messages
+   * in the mailbox. The processed messages are then flagged in bulk.
+   * @param inbox the opened mailbox.
+   * @param listenersByEmail the map of MessageListeners with their email address as key.
+   * @param msgs the messages to process.
+   * @param processed the set into which are put the messages that were successfully processed.
+   * @return the events to send to each mailing list.
+   */
+  private Map<MessageListener, MessageEvent> processMessages(final Folder inbox,
+      final Map<String, MessageListener> listenersByEmail, final Message[] msgs,
+      final Set<Message> processed) {
+    Map<Message, Future<Map<MessageListener, MessageEvent>>> parsing = new LinkedHashMap<>();
+    List<Message> skipped = new ArrayList<>();
+    for (final Message msg : msgs) {
+      try {
+        if (isImap() && (msg.isSet(Flag.SEEN) || msg.isSet(Flag.DELETED))) {
+          skipped.add(msg);
+          continue;
         }
-      } else {
-        processEmail(message, eventsMap, listenersByEmail);
+        final MimeMessage message = new MimeMessage((MimeMessage) msg);
+        parsing.put(msg, processingPool.submit(() -> {
+          Map<MessageListener, MessageEvent> events = new HashMap<>();
+          processEmail(message, events, listenersByEmail);
+          return events;
+        }));
+      } catch (MessagingException e) {
+        SilverLogger.getLogger(this).error(e);
       }
+    }
+
+    Map<MessageListener, MessageEvent> eventsMap = new HashMap<>();
+    processed.addAll(skipped);
+    for (Map.Entry<Message, Future<Map<MessageListener, MessageEvent>>> entry : parsing
+        .entrySet()) {
+      try {
+        for (Map.Entry<MessageListener, MessageEvent> event : entry.getValue().get().entrySet()) {
+          eventsMap.computeIfAbsent(event.getKey(), l -> new MessageEvent())
+              .getMessages()
+              .addAll(event.getValue().getMessages());
+        }
+        processed.add(entry.getKey());
+      } catch (ExecutionException e) {
+        SilverLogger.getLogger(this).error(e.getCause().getMessage(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        SilverLogger.getLogger(this).error(e);
+        break;
+      }
+    }
+    flagProcessedMessages(inbox, processed);
+    return eventsMap;
+  }
 
+  private void flagProcessedMessages(final Folder inbox, final Set<Message> processed) {
+    if (processed.isEmpty()) {
+      return;
+    }
+    try {
+      Flags flags;
       if (isLeaveOnServer() && inbox.getMode() == Folder.READ_WRITE) {
-        msg.setFlag(Flag.SEEN, true);
+        flags = new Flags(Flag.SEEN);
       } else {
-        msg.setFlag(Flag.DELETED, true);
+        flags = new Flags(Flag.DELETED);
       }
-    } catch (MessagingException | IOException e) {
+      inbox.setFlags(processed.toArray(new Message[0]), flags, true);
+    } catch (MessagingException e) {
       SilverLogger.getLogger(this).error(e);
     }
   }
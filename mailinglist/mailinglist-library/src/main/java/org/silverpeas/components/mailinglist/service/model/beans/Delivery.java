@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.model.beans;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A pending delivery of a message of a mailing list to a batch of its external subscribers. The
+ * deliveries are persisted so that the sending of a message to the subscribers survives a
+ * restart, and they are removed once the message is sent to the recipients of the batch. A
+ * delivery is marked as sent before being removed so that it is never sent again when its
+ * removal fails.
+ */
+@Entity
+@Table(name = "sc_mailinglist_delivery")
+@NamedQueries({
+    @NamedQuery(name = "findDueDeliveries", query = "from Delivery where sent = false and " +
+        "nextAttempt <= :now order by nextAttempt"),
+    @NamedQuery(name = "deleteSentDeliveries", query = "delete from Delivery where sent = true")})
+public class Delivery extends IdentifiableObject {
+
+  private static final String SEPARATOR = ",";
+
+  @Column(nullable = false)
+  private String componentId;
+  @Column(nullable = false)
+  private String messageId;
+  @Lob
+  @Column(nullable = false)
+  private String recipients;
+  @Column(nullable = false)
+  private int attempts;
+  @Column(nullable = false)
+  private long nextAttempt;
+  @Column(nullable = false)
+  private boolean sent;
+
+  public String getComponentId() {
+    return componentId;
+  }
+
+  public void setComponentId(String componentId) {
+    this.componentId = componentId;
+  }
+
+  /**
+   * Gets the unique identifier of the message to deliver.
+   * @return the identifier of a {@link Message}.
+   */
+  public String getMessageId() {
+    return messageId;
+  }
+
+  public void setMessageId(String messageId) {
+    this.messageId = messageId;
+  }
+
+  public List<String> getRecipients() {
+    if (recipients == null || recipients.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return new ArrayList<>(Arrays.asList(recipients.split(SEPARATOR)));
+  }
+
+  public void setRecipients(Collection<String> recipients) {
+    this.recipients = String.join(SEPARATOR, recipients);
+  }
+
+  /**
+   * Gets the number of attempts of delivery that have failed.
+   * @return the number of failed attempts.
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  /**
+   * Gets the time in milliseconds from which the delivery can be attempted.
+   * @return a time in milliseconds since the epoch.
+   */
+  public long getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public void setNextAttempt(long nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  /**
+   * Is the message already sent to the recipients of this delivery?
+   * @return true if the delivery is done and it just remains to remove it.
+   */
+  public boolean isSent() {
+    return sent;
+  }
+
+  public void setSent(boolean sent) {
+    this.sent = sent;
+  }
+}
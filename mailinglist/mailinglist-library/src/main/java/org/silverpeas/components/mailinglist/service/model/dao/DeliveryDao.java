@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.model.dao;
+
+import org.silverpeas.components.mailinglist.service.model.beans.Delivery;
+import org.silverpeas.core.util.ServiceProvider;
+
+import java.util.List;
+
+public interface DeliveryDao {
+
+  static DeliveryDao get() {
+    return ServiceProvider.getService(DeliveryDao.class);
+  }
+
+  public void saveDeliveries(List<Delivery> deliveries);
+
+  public void updateDelivery(Delivery delivery);
+
+  public void deleteDelivery(Delivery delivery);
+
+  /**
+   * Deletes the deliveries that were marked as sent but that weren't removed.
+   * @return the number of deleted deliveries.
+   */
+  public int deleteSentDeliveries();
+
+  /**
+   * Lists the deliveries that can be attempted at the given time, the oldest first.
+   * @param now the time in milliseconds.
+   * @param max the maximum number of deliveries to return.
+   * @return a list of deliveries.
+   */
+  public List<Delivery> listDueDeliveries(long now, int max);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.model.dao;
+
+import org.silverpeas.components.mailinglist.service.model.beans.Delivery;
+import org.silverpeas.core.annotation.Repository;
+
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
+import java.util.List;
+
+@Repository("deliveryDao")
+@Singleton
+@Transactional
+public class DeliveryDaoImpl implements DeliveryDao {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private EntityManager getEntityManager() {
+    return this.entityManager;
+  }
+
+  @Override
+  public void saveDeliveries(List<Delivery> deliveries) {
+    for (Delivery delivery : deliveries) {
+      getEntityManager().persist(delivery);
+    }
+  }
+
+  @Override
+  public void updateDelivery(Delivery delivery) {
+    getEntityManager().merge(delivery);
+  }
+
+  @Override
+  public void deleteDelivery(Delivery delivery) {
+    Delivery reattachedDelivery = getEntityManager().find(Delivery.class, delivery.getId());
+    if (reattachedDelivery != null) {
+      getEntityManager().remove(reattachedDelivery);
+    }
+  }
+
+  @Override
+  public int deleteSentDeliveries() {
+    return getEntityManager().createNamedQuery("deleteSentDeliveries").executeUpdate();
+  }
+
+  @Override
+  public List<Delivery> listDueDeliveries(long now, int max) {
+    TypedQuery<Delivery> query =
+        getEntityManager().createNamedQuery("findDueDeliveries", Delivery.class);
+    query.setParameter("now", now);
+    query.setMaxResults(max);
+    return query.getResultList();
+  }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.notification;
+
+import org.silverpeas.components.mailinglist.service.model.MailingListService;
+import org.silverpeas.components.mailinglist.service.model.MessageService;
+import org.silverpeas.components.mailinglist.service.model.beans.Delivery;
+import org.silverpeas.components.mailinglist.service.model.beans.ExternalUser;
+import org.silverpeas.components.mailinglist.service.model.beans.MailingList;
+import org.silverpeas.components.mailinglist.service.model.beans.Message;
+import org.silverpeas.components.mailinglist.service.model.dao.DeliveryDao;
+import org.silverpeas.core.mail.engine.SmtpConfiguration;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Outbound queue of the mails sent to the external subscribers of the mailing lists.
+ * <p>
+ * Instead of being sent by the thread that processes the incoming messages, a message to
+ * deliver is split into batches of recipients that are persisted as {@link Delivery} instances.
+ * The pending deliveries are then sent by a bounded pool of senders, each of them keeping its
+ * own connection to the SMTP server opened between two mails. A delivery that fails is attempted
+ * again later with an exponential backoff, up to a maximum number of attempts. As the deliveries
+ * are persisted, the ones that were pending when the server stopped are sent at the next start.
+ * A delivery is marked as sent before being removed: when its removal fails, it is removed later
+ * instead of being sent again.
+ * </p>
+ * The throughput of the sending is measured for each mailing list and displayed to the
+ * administrators of the list with its external subscribers.
+ */
+@Singleton
+public class MailDeliveryQueue {
+
+  private static final String SETTINGS = "org.silverpeas.mailinglist.notification";
+  private static final int DEFAULT_BATCH_SIZE = SimpleNotificationHelper.BATCH_SIZE;
+  private static final int DEFAULT_SENDERS = 2;
+  private static final int DEFAULT_MAX_ATTEMPTS = 5;
+  private static final int DEFAULT_RETRY_DELAY = 60;
+  private static final int DEFAULT_MAX_RETRY_DELAY = 3600;
+  private static final int DEFAULT_POLLING_INTERVAL = 30;
+  private static final int DEFAULT_CONNECTION_TIMEOUT = 30;
+  private static final int DEFAULT_TIMEOUT = 60;
+  private static final int MAX_BACKOFF_SHIFT = 20;
+
+  @Inject
+  private DeliveryDao deliveryDao;
+  @Inject
+  private MessageService messageService;
+  @Inject
+  private MailingListService mailingListService;
+  @Inject
+  private NotificationFormatter notificationFormatter;
+
+  private final int batchSize;
+  private final int senderCount;
+  private final int maxAttempts;
+  private final long retryDelay;
+  private final long maxRetryDelay;
+  private final long pollingInterval;
+  private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+  private final Map<String, Throughput> throughputs = new ConcurrentHashMap<>();
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final Set<String> sentButNotMarked = ConcurrentHashMap.newKeySet();
+  private final Set<ReusableSmtpTransport> openedTransports = ConcurrentHashMap.newKeySet();
+  private final ThreadLocal<ReusableSmtpTransport> transports;
+  private ScheduledExecutorService dispatcher;
+  private ExecutorService senders;
+
+  public MailDeliveryQueue() {
+    this(ResourceLocator.getSettingBundle(SETTINGS));
+  }
+
+  private MailDeliveryQueue(SettingBundle settings) {
+    this(settings, transportFactory(settings));
+  }
+
+  /**
+   * Constructs a queue sending the mails through the transports provided by the specified
+   * factory.
+   * @param settings the settings of the sending.
+   * @param transportFactory the factory of the transport used by each sender.
+   */
+  MailDeliveryQueue(SettingBundle settings, Supplier<ReusableSmtpTransport> transportFactory) {
+    batchSize = Math.max(1, settings.getInteger("mail.delivery.batchSize", DEFAULT_BATCH_SIZE));
+    senderCount = Math.max(1, settings.getInteger("mail.delivery.senders", DEFAULT_SENDERS));
+    maxAttempts =
+        Math.max(1, settings.getInteger("mail.delivery.maxAttempts", DEFAULT_MAX_ATTEMPTS));
+    retryDelay = TimeUnit.SECONDS.toMillis(
+        Math.max(1, settings.getInteger("mail.delivery.retryDelay", DEFAULT_RETRY_DELAY)));
+    maxRetryDelay = Math.max(retryDelay, TimeUnit.SECONDS.toMillis(
+        settings.getInteger("mail.delivery.maxRetryDelay", DEFAULT_MAX_RETRY_DELAY)));
+    pollingInterval = Math.max(1,
+        settings.getInteger("mail.delivery.pollingInterval", DEFAULT_POLLING_INTERVAL));
+    transports = ThreadLocal.withInitial(() -> {
+      ReusableSmtpTransport transport = transportFactory.get();
+      openedTransports.add(transport);
+      return transport;
+    });
+  }
+
+  private static Supplier<ReusableSmtpTransport> transportFactory(SettingBundle settings) {
+    final SmtpConfiguration smtpConfig = SmtpConfiguration.fromDefaultSettings();
+    final int connectionTimeout = (int) TimeUnit.SECONDS.toMillis(Math.max(1,
+        settings.getInteger("mail.delivery.connectionTimeout", DEFAULT_CONNECTION_TIMEOUT)));
+    final int timeout = (int) TimeUnit.SECONDS.toMillis(
+        Math.max(1, settings.getInteger("mail.delivery.timeout", DEFAULT_TIMEOUT)));
+    return () -> ReusableSmtpTransport.from(smtpConfig, connectionTimeout, timeout);
+  }
+
+  /**
+   * Starts the sending of the pending deliveries, including the ones that were persisted before
+   * a restart. Does nothing if the queue is already started.
+   */
+  public void start() {
+    if (started.compareAndSet(false, true)) {
+      dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mailinglist-delivery-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      senders = new ThreadPoolExecutor(senderCount, senderCount, 60L, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(senderCount * 2), r -> {
+        Thread thread = new Thread(r, "mailinglist-delivery-sender");
+        thread.setDaemon(true);
+        return thread;
+      }, new ThreadPoolExecutor.CallerRunsPolicy());
+      dispatcher.scheduleWithFixedDelay(this::dispatch, 0, pollingInterval, TimeUnit.SECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (started.compareAndSet(true, false)) {
+      dispatcher.shutdownNow();
+      senders.shutdownNow();
+      try {
+        senders.awaitTermination(pollingInterval, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      for (ReusableSmtpTransport transport : openedTransports) {
+        transport.close();
+      }
+      openedTransports.clear();
+    }
+  }
+
+  /**
+   * Gets the maximum number of recipients in copy of a mail sent to the external subscribers.
+   * @return the size of the batches of recipients.
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Enqueues the delivery of the specified message to all the external subscribers of the given
+   * mailing list. The recipients are split into batches whose size is set by the
+   * <code>mail.delivery.batchSize</code> parameter.
+   * @param message the message to deliver. It must be already saved.
+   * @param list the mailing list to which the message was sent.
+   */
+  public void enqueue(Message message, MailingList list) {
+    List<Delivery> deliveries = new ArrayList<>();
+    List<String> recipients = new ArrayList<>(batchSize);
+    for (ExternalUser externalUser : list.getExternalSubscribers()) {
+      recipients.add(externalUser.getEmail());
+      if (recipients.size() == batchSize) {
+        deliveries.add(newDelivery(message, recipients));
+        recipients = new ArrayList<>(batchSize);
+      }
+    }
+    if (!recipients.isEmpty()) {
+      deliveries.add(newDelivery(message, recipients));
+    }
+    if (!deliveries.isEmpty()) {
+      deliveryDao.saveDeliveries(deliveries);
+      start();
+      dispatcher.execute(this::dispatch);
+    }
+  }
+
+  /**
+   * Gets the throughput of the mails sent for the specified mailing list.
+   * @param componentId the unique identifier of a mailing list.
+   * @return the measured throughput since the start of the server.
+   */
+  public Throughput getThroughput(String componentId) {
+    return throughputs.computeIfAbsent(componentId, k -> new Throughput());
+  }
+
+  /**
+   * Computes the delay before attempting again a delivery that has failed.
+   * @param attempts the number of failed attempts.
+   * @param retryDelay the delay after the first failure in milliseconds.
+   * @param maxRetryDelay the maximum delay in milliseconds.
+   * @return the delay in milliseconds, doubled at each failed attempt.
+   */
+  static long computeRetryDelay(int attempts, long retryDelay, long maxRetryDelay) {
+    int shift = Math.min(Math.max(attempts - 1, 0), MAX_BACKOFF_SHIFT);
+    return Math.min(retryDelay << shift, maxRetryDelay);
+  }
+
+  private Delivery newDelivery(Message message, List<String> recipients) {
+    Delivery delivery = new Delivery();
+    delivery.setComponentId(message.getComponentId());
+    delivery.setMessageId(message.getId());
+    delivery.setRecipients(recipients);
+    delivery.setAttempts(0);
+    delivery.setNextAttempt(System.currentTimeMillis());
+    return delivery;
+  }
+
+  private void dispatch() {
+    try {
+      deliveryDao.deleteSentDeliveries();
+      List<Delivery> deliveries =
+          deliveryDao.listDueDeliveries(System.currentTimeMillis(), senderCount * 4);
+      for (final Delivery delivery : deliveries) {
+        if (sentButNotMarked.contains(delivery.getId())) {
+          markAsSent(delivery);
+        } else if (inFlight.add(delivery.getId())) {
+          senders.execute(() -> deliver(delivery));
+        }
+      }
+    } catch (Exception e) {
+      SilverLogger.getLogger(this).error(e.getMessage(), e);
+    }
+  }
+
+  private void deliver(Delivery delivery) {
+    try {
+      Message message = messageService.getMessage(delivery.getMessageId());
+      MailingList list = mailingListService.findMailingList(delivery.getComponentId());
+      if (message == null || list == null) {
+        deliveryDao.deleteDelivery(delivery);
+        return;
+      }
+      List<String> recipients = delivery.getRecipients();
+      ReusableSmtpTransport transport = transports.get();
+      long start = System.nanoTime();
+      transport.send(buildMail(transport.getSession(), message, list, recipients));
+      getThroughput(delivery.getComponentId()).sent(recipients.size(), System.nanoTime() - start);
+      // marked before leaving the in-flight deliveries so that a dispatch doesn't send it again
+      markAsSent(delivery);
+    } catch (Exception e) {
+      retryLater(delivery, e);
+    } finally {
+      inFlight.remove(delivery.getId());
+    }
+  }
+
+  /**
+   * Marks the specified delivery as sent and then removes it. If the delivery cannot be marked,
+   * it is kept in memory as sent so that it isn't sent again by this queue and its marking is
+   * attempted again at the next dispatch. If it cannot be removed, it is removed at the next
+   * dispatch with the other deliveries marked as sent.
+   * @param delivery a delivery whose mail was sent.
+   */
+  private void markAsSent(Delivery delivery) {
+    try {
+      delivery.setSent(true);
+      deliveryDao.updateDelivery(delivery);
+      sentButNotMarked.remove(delivery.getId());
+    } catch (Exception e) {
+      sentButNotMarked.add(delivery.getId());
+      SilverLogger.getLogger(this)
+          .warn("The delivery of the message {0} of {1} is sent but cannot be marked as sent: {2}",
+              delivery.getMessageId(), delivery.getComponentId(), e.getMessage());
+      return;
+    }
+    try {
+      deliveryDao.deleteDelivery(delivery);
+    } catch (Exception e) {
+      SilverLogger.getLogger(this)
+          .warn("The delivery of the message {0} of {1} is sent but not removed: {2}",
+              delivery.getMessageId(), delivery.getComponentId(), e.getMessage());
+    }
+  }
+
+  private void retryLater(Delivery delivery, Exception error) {
+    try {
+      int attempts = delivery.getAttempts() + 1;
+      Throughput throughput = getThroughput(delivery.getComponentId());
+      if (attempts >= maxAttempts) {
+        deliveryDao.deleteDelivery(delivery);
+        throughput.abandoned();
+        SilverLogger.getLogger(this)
+            .error("Delivery of the message {0} of {1} abandoned after {2} attempts",
+                new Object[]{delivery.getMessageId(), delivery.getComponentId(), attempts}, error);
+      } else {
+        delivery.setAttempts(attempts);
+        delivery.setNextAttempt(System.currentTimeMillis() +
+            computeRetryDelay(attempts, retryDelay, maxRetryDelay));
+        deliveryDao.updateDelivery(delivery);
+        throughput.failed();
+        SilverLogger.getLogger(this)
+            .warn("Delivery of the message {0} of {1} failed ({2}), attempt {3}/{4}",
+                delivery.getMessageId(), delivery.getComponentId(), error.getMessage(), attempts,
+                maxAttempts);
+      }
+    } catch (Exception e) {
+      SilverLogger.getLogger(this).error(e.getMessage(), e);
+    }
+  }
+
+  private MimeMessage buildMail(Session session, Message message, MailingList list,
+      List<String> recipients) throws MessagingException {
+    MimeMessage mail = new MimeMessage(session);
+    mail.setFrom(new InternetAddress(list.getSubscribedAddress()));
+    InternetAddress[] addresses = new InternetAddress[recipients.size()];
+    for (int i = 0; i < addresses.length; i++) {
+      addresses[i] = new InternetAddress(recipients.get(i));
+    }
+    mail.setRecipients(javax.mail.Message.RecipientType.BCC, addresses);
+    mail.setSubject(MessageMailContent.formatSubject(notificationFormatter, message, list),
+        "UTF-8");
+    mail.setSentDate(new Date());
+    String contentType = MessageMailContent.getContentType(message);
+    if (!message.getAttachments().isEmpty()) {
+      mail.setContent(MessageMailContent.buildMultipart(message, contentType));
+    } else {
+      mail.setContent(message.getBody(), contentType);
+    }
+    return mail;
+  }
+
+  /**
+   * The throughput of the mails sent for a mailing list.
+   */
+  public static class Throughput {
+
+    private final LongAdder sentMails = new LongAdder();
+    private final LongAdder sentRecipients = new LongAdder();
+    private final LongAdder sendingTime = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder abandonedMails = new LongAdder();
+
+    private void sent(int recipients, long nanos) {
+      sentMails.increment();
+      sentRecipients.add(recipients);
+      sendingTime.add(nanos);
+    }
+
+    private void failed() {
+      failedAttempts.increment();
+    }
+
+    private void abandoned() {
+      failedAttempts.increment();
+      abandonedMails.increment();
+    }
+
+    public long getSentMails() {
+      return sentMails.sum();
+    }
+
+    public long getSentRecipients() {
+      return sentRecipients.sum();
+    }
+
+    public long getFailedAttempts() {
+      return failedAttempts.sum();
+    }
+
+    public long getAbandonedMails() {
+      return abandonedMails.sum();
+    }
+
+    /**
+     * Gets the number of recipients to which a mail is sent per second of sending.
+     * @return the number of recipients per second or 0 if no mail was sent.
+     */
+    public double getRecipientsPerSecond() {
+      long nanos = sendingTime.sum();
+      return nanos == 0 ? 0 : getSentRecipients() * 1e9 / nanos;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.notification;
+
+import org.silverpeas.components.mailinglist.service.model.beans.Attachment;
+import org.silverpeas.components.mailinglist.service.model.beans.MailingList;
+import org.silverpeas.components.mailinglist.service.model.beans.Message;
+import org.silverpeas.core.ui.DisplayI18NHelper;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMultipart;
+
+import static org.silverpeas.core.util.StringUtil.isDefined;
+
+/**
+ * The content of the mail with which a message of a mailing list is sent to the external
+ * subscribers, whether the mail is sent directly or through the {@link MailDeliveryQueue}.
+ */
+final class MessageMailContent {
+
+  private MessageMailContent() {
+  }
+
+  /**
+   * Formats the subject of the mail in the default language.
+   * @param formatter the formatter of the notifications.
+   * @param message the message to send.
+   * @param list the mailing list to which the message was sent.
+   * @return the subject of the mail.
+   */
+  static String formatSubject(NotificationFormatter formatter, Message message,
+      MailingList list) {
+    return formatter.formatTitle(message, list.getName(), DisplayI18NHelper.getDefaultLanguage(),
+        false);
+  }
+
+  /**
+   * Gets the content type of the body of the message, the charset being UTF-8 when it isn't set.
+   * @param message the message to send.
+   * @return the content type of the body.
+   */
+  static String getContentType(Message message) {
+    String contentType =
+        isDefined(message.getContentType()) ? message.getContentType() : "text/plain";
+    return contentType.contains("charset") ? contentType : contentType + "; charset=UTF-8";
+  }
+
+  /**
+   * Builds the multipart content made up of the attachments of the message followed by its body.
+   * @param message a message with attachments.
+   * @param contentType the content type of the body.
+   * @return the multipart content of the mail.
+   * @throws MessagingException if the multipart cannot be built.
+   */
+  static Multipart buildMultipart(Message message, String contentType)
+      throws MessagingException {
+    Multipart multiPart = new MimeMultipart();
+    for (Attachment attachment : message.getAttachments()) {
+      MimeBodyPart part = new MimeBodyPart();
+      part.setDataHandler(new DataHandler(new FileDataSource(attachment.getPath())));
+      part.setFileName(attachment.getFileName());
+      multiPart.addBodyPart(part);
+    }
+    MimeBodyPart body = new MimeBodyPart();
+    body.setContent(message.getBody(), contentType);
+    multiPart.addBodyPart(body);
+    return multiPart;
+  }
+}
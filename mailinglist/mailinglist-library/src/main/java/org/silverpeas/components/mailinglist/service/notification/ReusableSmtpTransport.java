@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.notification;
+
+import org.silverpeas.core.mail.engine.SmtpConfiguration;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Properties;
+
+/**
+ * A connection to the SMTP server that is kept opened between the sending of several mails
+ * instead of opening a new one for each of them. A transport isn't thread-safe: each sender uses
+ * its own one. When the server closes the connection, it is opened again at the next sending.
+ * <p>
+ * The opening of the connection and the exchanges with the server are bounded by timeouts so
+ * that a server that hangs doesn't block the sender indefinitely.
+ * </p>
+ */
+class ReusableSmtpTransport implements AutoCloseable {
+
+  private final Session session;
+  private final String host;
+  private final int port;
+  private final String login;
+  private final String password;
+  private final String protocol;
+  private Transport transport;
+
+  ReusableSmtpTransport(String host, int port, String login, String password,
+      boolean secure, int connectionTimeout, int timeout) {
+    this.host = host;
+    this.port = port;
+    this.login = login;
+    this.password = password;
+    this.protocol = secure ? "smtps" : "smtp";
+    Properties properties = new Properties();
+    properties.setProperty("mail." + protocol + ".host", host);
+    properties.setProperty("mail." + protocol + ".port", String.valueOf(port));
+    properties.setProperty("mail." + protocol + ".auth", String.valueOf(login != null));
+    properties.setProperty("mail." + protocol + ".connectiontimeout",
+        String.valueOf(connectionTimeout));
+    properties.setProperty("mail." + protocol + ".timeout", String.valueOf(timeout));
+    this.session = Session.getInstance(properties);
+  }
+
+  /**
+   * Constructs a transport to the SMTP server of the specified configuration.
+   * @param configuration the configuration of the SMTP server.
+   * @param connectionTimeout the timeout in milliseconds of the opening of the connection.
+   * @param timeout the timeout in milliseconds of the reading from the server.
+   * @return the transport.
+   */
+  static ReusableSmtpTransport from(SmtpConfiguration configuration,
+      int connectionTimeout, int timeout) {
+    return new ReusableSmtpTransport(configuration.getServer(), configuration.getPort(),
+        configuration.isAuthenticate() ? configuration.getUsername() : null,
+        configuration.isAuthenticate() ? configuration.getPassword() : null,
+        configuration.isSecure(), connectionTimeout, timeout);
+  }
+
+  /**
+   * Gets the session with which the mails to send have to be built.
+   * @return the mail session.
+   */
+  Session getSession() {
+    return session;
+  }
+
+  /**
+   * Sends the specified mail to all its recipients through the opened connection.
+   * @param mail the mail to send.
+   * @throws MessagingException if the mail cannot be sent.
+   */
+  void send(MimeMessage mail) throws MessagingException {
+    if (transport == null || !transport.isConnected()) {
+      close();
+      transport = session.getTransport(protocol);
+      transport.connect(host, port, login, password);
+    }
+    mail.saveChanges();
+    try {
+      transport.sendMessage(mail, mail.getAllRecipients());
+    } catch (MessagingException e) {
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (transport != null) {
+      try {
+        transport.close();
+      } catch (MessagingException e) {
+        // the connection is already lost
+      }
+      transport = null;
+    }
+  }
+}
@@ -32,7 +32,6 @@ import org.silverpeas.core.notification.user.client.UserRecipient;
 import org.silverpeas.core.personalorganizer.service.CalendarRuntimeException;
 import org.silverpeas.core.personalorganizer.service.SilverpeasCalendar;
 import org.silverpeas.core.personalorganizer.model.ToDoHeader;
-import org.silverpeas.components.mailinglist.service.model.beans.Attachment;
 import org.silverpeas.components.mailinglist.service.model.beans.ExternalUser;
 import org.silverpeas.components.mailinglist.service.model.beans.InternalGroupSubscriber;
 import org.silverpeas.components.mailinglist.service.model.beans.InternalUser;
@@ -45,15 +44,9 @@ import org.silverpeas.core.mail.ReceiverMailAddressSet;
 import org.silverpeas.core.mail.engine.SmtpConfiguration;
 import org.silverpeas.core.exception.SilverpeasException;
 
-import javax.activation.DataHandler;
-import javax.activation.DataSource;
-import javax.activation.FileDataSource;
 import javax.inject.Inject;
 import javax.mail.MessagingException;
-import javax.mail.Multipart;
 import javax.mail.internet.AddressException;
-import javax.mail.internet.MimeBodyPart;
-import javax.mail.internet.MimeMultipart;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.Collection;
@@ -81,6 +74,8 @@ public class SimpleNotificationHelper implements NotificationHelper {
   private SilverpeasCalendar calendarBm;
   @Inject
   private OrganizationController controller;
+  @Inject
+  private MailDeliveryQueue deliveryQueue;
 
   public void notifyModerators(Message message, MailingList list)
       throws NotificationManagerException {
@@ -146,32 +141,28 @@ public class SimpleNotificationHelper implements NotificationHelper {
   }
 
   /**
+   * Sends the message to the external subscribers of the mailing list. When the sending is
+   * performed in an external thread, the message is enqueued into the {@link MailDeliveryQueue}
+   * and it is delivered later by the senders of the queue.
    * @param message
    * @param list
    * @throws AddressException
    * @throws MessagingException
    */
   public void notifyExternals(Message message, MailingList list) throws MessagingException {
+    if (isExternalThread() && deliveryQueue != null) {
+      if (!list.getExternalSubscribers().isEmpty()) {
+        deliveryQueue.enqueue(message, list);
+      }
+      return;
+    }
     MailSending mail = MailSending.from(eMail(list.getSubscribedAddress()));
-    String subject = notificationFormatter
-        .formatTitle(message, list.getName(), DisplayI18NHelper.getDefaultLanguage(), false);
-    mail.withSubject(subject);
-
+    mail.withSubject(MessageMailContent.formatSubject(notificationFormatter, message, list));
+    String contentType = MessageMailContent.getContentType(message);
     if (!message.getAttachments().isEmpty()) {
-      Multipart multiPart = new MimeMultipart();
-      for (Attachment attachment : message.getAttachments()) {
-        MimeBodyPart part = new MimeBodyPart();
-        DataSource source = new FileDataSource(attachment.getPath());
-        part.setDataHandler(new DataHandler(source));
-        part.setFileName(attachment.getFileName());
-        multiPart.addBodyPart(part);
-      }
-      MimeBodyPart body = new MimeBodyPart();
-      body.setContent(message.getBody(), message.getContentType());
-      multiPart.addBodyPart(body);
-      mail.withContent(multiPart);
+      mail.withContent(MessageMailContent.buildMultipart(message, contentType));
     } else {
-      mail.withContent(of(message.getBody()).withContentType(message.getContentType()));
+      mail.withContent(of(message.getBody()).withContentType(contentType));
     }
     sendMail(mail, list.getExternalSubscribers());
   }
@@ -180,7 +171,7 @@ public class SimpleNotificationHelper implements NotificationHelper {
       throws MessagingException {
     ReceiverMailAddressSet receivers =
         ReceiverMailAddressSet.ofRecipientType(ReceiverMailAddressSet.MailRecipientType.BCC)
-            .withReceiversBatchSizeOf(BATCH_SIZE);
+            .withReceiversBatchSizeOf(getBatchSize());
     for (ExternalUser externalUser : externalUsers) {
       receivers.add(eMail(externalUser.getEmail()));
     }
@@ -193,6 +184,16 @@ public class SimpleNotificationHelper implements NotificationHelper {
     }
   }
 
+  /**
+   * Gets the number of recipients in copy of each mail sent to the external subscribers. It is
+   * the one of the {@link MailDeliveryQueue} so that the mails are the same whether they are sent
+   * directly or through the queue.
+   * @return the size of the batches of recipients.
+   */
+  protected int getBatchSize() {
+    return deliveryQueue != null ? deliveryQueue.getBatchSize() : BATCH_SIZE;
+  }
+
   public NotificationSender getNotificationSender() {
     return notificationSender;
   }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "http://www.silverpeas.org/docs/core/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.job;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the incremental fetching of the messages of an IMAP mailbox against an embedded mail
+ * server.
+ */
+public class ImapMailboxFetcherTest {
+
+  private static final String ADDRESS = "mailinglist@silverpeas.org";
+  private static final String LOGIN = "mailinglist";
+  private static final String PASSWORD = "secret";
+  private static final int MAX_ATTEMPTS = 2;
+
+  private GreenMail greenMail;
+  private ImapMailboxFetcher fetcher;
+
+  @Before
+  public void setUp() {
+    greenMail = new GreenMail(ServerSetupTest.SMTP_IMAP);
+    greenMail.start();
+    greenMail.setUser(ADDRESS, LOGIN, PASSWORD);
+    fetcher = new ImapMailboxFetcher(MAX_ATTEMPTS);
+  }
+
+  @After
+  public void tearDown() {
+    greenMail.stop();
+  }
+
+  @Test
+  public void onlyTheNewMessagesAreFetchedOnceAcknowledged() throws Exception {
+    send("first", "second");
+    assertEquals(2, fetchNewMessages(true));
+    assertEquals(0, fetchNewMessages(true));
+
+    send("third");
+    Store store = connect();
+    try {
+      Folder inbox = openInbox(store);
+      Message[] messages = fetcher.fetchNewMessages(inbox);
+      assertEquals(1, messages.length);
+      assertEquals("third", messages[0].getSubject());
+      inbox.close(false);
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void theMessagesAreFetchedAgainWhenNotAcknowledged() throws Exception {
+    send("first", "second");
+    assertEquals(2, fetchNewMessages(false));
+    assertEquals(2, fetchNewMessages(true));
+    assertEquals(0, fetchNewMessages(true));
+  }
+
+  @Test
+  public void theMessagesAfterAFailedOneAreFetchedAgain() throws Exception {
+    send("first", "second", "third");
+    Store store = connect();
+    try {
+      Folder inbox = openInbox(store);
+      Message[] messages = fetcher.fetchNewMessages(inbox);
+      assertEquals(3, messages.length);
+      // the second message failed: only the first one is acknowledged
+      assertFalse(fetcher.giveUp(inbox, messages[1]));
+      fetcher.acknowledge(inbox, messages[0]);
+
+      messages = fetcher.fetchNewMessages(inbox);
+      assertEquals(2, messages.length);
+      assertEquals("second", messages[0].getSubject());
+      assertEquals("third", messages[1].getSubject());
+      fetcher.acknowledge(inbox, messages[1]);
+      assertEquals(0, fetcher.fetchNewMessages(inbox).length);
+      inbox.close(false);
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void aMessageIsGivenUpAfterTheMaximumNumberOfAttempts() throws Exception {
+    send("first", "second");
+    Store store = connect();
+    try {
+      Folder inbox = openInbox(store);
+      Message[] messages = fetcher.fetchNewMessages(inbox);
+      assertFalse(fetcher.giveUp(inbox, messages[0]));
+      messages = fetcher.fetchNewMessages(inbox);
+      assertEquals(2, messages.length);
+      assertTrue(fetcher.giveUp(inbox, messages[0]));
+      fetcher.acknowledge(inbox, messages[1]);
+      assertEquals(0, fetcher.fetchNewMessages(inbox).length);
+      inbox.close(false);
+    } finally {
+      store.close();
+    }
+  }
+
+  private void send(String... subjects) throws InterruptedException {
+    int expected = greenMail.getReceivedMessages().length + subjects.length;
+    for (String subject : subjects) {
+      GreenMailUtil.sendTextEmailTest(ADDRESS, "sender@silverpeas.org", subject, "Hello");
+    }
+    greenMail.waitForIncomingEmail(5000, expected);
+  }
+
+  private int fetchNewMessages(boolean acknowledge) throws MessagingException {
+    Store store = connect();
+    try {
+      Folder inbox = openInbox(store);
+      Message[] messages = fetcher.fetchNewMessages(inbox);
+      if (acknowledge && messages.length > 0) {
+        fetcher.acknowledge(inbox, messages[messages.length - 1]);
+      }
+      inbox.close(false);
+      return messages.length;
+    } finally {
+      store.close();
+    }
+  }
+
+  private Store connect() throws MessagingException {
+    Store store = greenMail.getImap().createStore();
+    store.connect(LOGIN, PASSWORD);
+    return store;
+  }
+
+  private Folder openInbox(Store store) throws MessagingException {
+    Folder inbox = store.getFolder("INBOX");
+    inbox.open(Folder.READ_ONLY);
+    return inbox;
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.notification;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.mailinglist.service.model.MailingListService;
+import org.silverpeas.components.mailinglist.service.model.MessageService;
+import org.silverpeas.components.mailinglist.service.model.beans.Delivery;
+import org.silverpeas.components.mailinglist.service.model.beans.ExternalUser;
+import org.silverpeas.components.mailinglist.service.model.beans.MailingList;
+import org.silverpeas.components.mailinglist.service.model.beans.Message;
+import org.silverpeas.components.mailinglist.service.model.dao.DeliveryDao;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.util.ResourceLocator;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests on the sending of the mails to the external subscribers through the delivery queue.
+ * The settings of the queue in the test resources send the recipients by batches of two, retry
+ * a failed delivery after one second and abandon it after two attempts.
+ */
+@EnableSilverTestEnv
+public class MailDeliveryQueueTest {
+
+  private static final String COMPONENT_ID = "mailinglist1";
+  private static final long TIMEOUT = 10000L;
+
+  private final InMemoryDeliveryDao deliveryDao = new InMemoryDeliveryDao();
+  private ReusableSmtpTransport transport;
+  private MailDeliveryQueue queue;
+  private MailingList list;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    transport = mock(ReusableSmtpTransport.class);
+    when(transport.getSession()).thenReturn(Session.getInstance(new Properties()));
+    queue = new MailDeliveryQueue(
+        ResourceLocator.getSettingBundle("org.silverpeas.mailinglist.notification"),
+        () -> transport);
+
+    Message message = new Message();
+    message.setComponentId(COMPONENT_ID);
+    message.setTitle("Hello");
+    message.setBody("Hello world");
+    FieldUtils.writeField(message, "id", "message1", true);
+    MessageService messageService = mock(MessageService.class);
+    when(messageService.getMessage(any())).thenReturn(message);
+
+    list = new MailingList();
+    list.setComponentId(COMPONENT_ID);
+    list.setName("list");
+    list.setSubscribedAddress("list@silverpeas.org");
+    for (String email : new String[]{"a@silverpeas.org", "b@silverpeas.org",
+        "c@silverpeas.org"}) {
+      ExternalUser user = new ExternalUser();
+      user.setComponentId(COMPONENT_ID);
+      user.setEmail(email);
+      list.addExternalSubscriber(user);
+    }
+    MailingListService mailingListService = mock(MailingListService.class);
+    when(mailingListService.findMailingList(COMPONENT_ID)).thenReturn(list);
+
+    NotificationFormatter formatter = mock(NotificationFormatter.class);
+    when(formatter.formatTitle(any(), any(), any(), anyBoolean())).thenReturn("[list] Hello");
+
+    FieldUtils.writeField(queue, "deliveryDao", deliveryDao, true);
+    FieldUtils.writeField(queue, "messageService", messageService, true);
+    FieldUtils.writeField(queue, "mailingListService", mailingListService, true);
+    FieldUtils.writeField(queue, "notificationFormatter", formatter, true);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    queue.stop();
+  }
+
+  @Test
+  public void theRetryDelayIsDoubledAtEachAttemptUpToTheMaximum() {
+    assertThat(MailDeliveryQueue.computeRetryDelay(1, 60L, 1000L), is(60L));
+    assertThat(MailDeliveryQueue.computeRetryDelay(2, 60L, 1000L), is(120L));
+    assertThat(MailDeliveryQueue.computeRetryDelay(4, 60L, 1000L), is(480L));
+    assertThat(MailDeliveryQueue.computeRetryDelay(5, 60L, 1000L), is(1000L));
+    assertThat(MailDeliveryQueue.computeRetryDelay(500, 60L, 1000L), is(1000L));
+  }
+
+  @Test
+  public void aMessageIsEnqueuedByBatchesOfRecipients() throws Exception {
+    queue.enqueue(new Message(), list);
+    assertThat(deliveryDao.saved.size(), is(2));
+    List<String> recipients = new ArrayList<>();
+    for (Delivery delivery : deliveryDao.saved) {
+      assertThat(delivery.getComponentId(), is(COMPONENT_ID));
+      recipients.addAll(delivery.getRecipients());
+    }
+    assertThat(recipients,
+        containsInAnyOrder("a@silverpeas.org", "b@silverpeas.org", "c@silverpeas.org"));
+
+    verify(transport, timeout(TIMEOUT).times(2)).send(any(MimeMessage.class));
+    awaitUntil(deliveryDao.deliveries::isEmpty);
+    assertThat(queue.getThroughput(COMPONENT_ID).getSentMails(), is(2L));
+    assertThat(queue.getThroughput(COMPONENT_ID).getSentRecipients(), is(3L));
+  }
+
+  @Test
+  public void aSentDeliveryIsMarkedAsSentBeforeBeingRemoved() throws Exception {
+    queue.enqueue(new Message(), list);
+    awaitUntil(deliveryDao.deliveries::isEmpty);
+    List<String> ids = new ArrayList<>();
+    for (Delivery delivery : deliveryDao.saved) {
+      ids.add(delivery.getId());
+    }
+    assertThat(new ArrayList<>(deliveryDao.markedAsSent), containsInAnyOrder(ids.toArray()));
+    assertThat(new ArrayList<>(deliveryDao.deleted), containsInAnyOrder(ids.toArray()));
+    assertThat(deliveryDao.deletedUnmarked.isEmpty(), is(true));
+    // each mail is sent once, even though the queue is dispatched again in the meantime
+    verify(transport, times(2)).send(any(MimeMessage.class));
+  }
+
+  @Test
+  public void aFailedDeliveryIsRetriedLater() throws Exception {
+    list.getExternalSubscribers().removeIf(u -> !"a@silverpeas.org".equals(u.getEmail()));
+    doThrow(new MessagingException("connection lost")).doNothing()
+        .when(transport).send(any(MimeMessage.class));
+    queue.enqueue(new Message(), list);
+
+    verify(transport, timeout(TIMEOUT).times(2)).send(any(MimeMessage.class));
+    awaitUntil(deliveryDao.deliveries::isEmpty);
+    Delivery delivery = deliveryDao.saved.get(0);
+    assertThat(delivery.getAttempts(), is(1));
+    assertThat(delivery.isSent(), is(true));
+    assertThat(queue.getThroughput(COMPONENT_ID).getFailedAttempts(), is(1L));
+    assertThat(queue.getThroughput(COMPONENT_ID).getSentMails(), is(1L));
+  }
+
+  @Test
+  public void aDeliveryIsAbandonedAfterTheMaximumNumberOfAttempts() throws Exception {
+    list.getExternalSubscribers().removeIf(u -> !"a@silverpeas.org".equals(u.getEmail()));
+    doThrow(new MessagingException("unknown host")).when(transport)
+        .send(any(MimeMessage.class));
+    queue.enqueue(new Message(), list);
+
+    awaitUntil(deliveryDao.deliveries::isEmpty);
+    verify(transport, times(2)).send(any(MimeMessage.class));
+    assertThat(deliveryDao.markedAsSent.isEmpty(), is(true));
+    assertThat(deliveryDao.deletedUnmarked.size(), is(1));
+    assertThat(queue.getThroughput(COMPONENT_ID).getAbandonedMails(), is(1L));
+    assertThat(queue.getThroughput(COMPONENT_ID).getSentMails(), is(0L));
+  }
+
+  @Test
+  public void thePendingDeliveriesAreSentAtStart() throws Exception {
+    Delivery pending = new Delivery();
+    pending.setComponentId(COMPONENT_ID);
+    pending.setMessageId("message1");
+    pending.setRecipients(Collections.singletonList("a@silverpeas.org"));
+    pending.setNextAttempt(System.currentTimeMillis());
+    deliveryDao.saveDeliveries(Collections.singletonList(pending));
+
+    queue.start();
+    verify(transport, timeout(TIMEOUT)).send(any(MimeMessage.class));
+    awaitUntil(deliveryDao.deliveries::isEmpty);
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long end = System.currentTimeMillis() + TIMEOUT;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > end) {
+        throw new AssertionError("Condition not met after " + TIMEOUT + "ms");
+      }
+      Thread.sleep(50);
+    }
+  }
+
+  /**
+   * A store of the deliveries in memory, recording the deliveries marked as sent and the removed
+   * ones, whether they were marked as sent before or not.
+   */
+  private static class InMemoryDeliveryDao implements DeliveryDao {
+
+    private final Map<String, Delivery> deliveries = new ConcurrentHashMap<>();
+    private final List<Delivery> saved = new ArrayList<>();
+    private final Set<String> markedAsSent = ConcurrentHashMap.newKeySet();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final Set<String> deletedUnmarked = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public synchronized void saveDeliveries(final List<Delivery> toSave) {
+      for (Delivery delivery : toSave) {
+        try {
+          FieldUtils.writeField(delivery, "id", UUID.randomUUID().toString(), true);
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException(e);
+        }
+        saved.add(delivery);
+        deliveries.put(delivery.getId(), delivery);
+      }
+    }
+
+    @Override
+    public void updateDelivery(final Delivery delivery) {
+      if (delivery.isSent()) {
+        markedAsSent.add(delivery.getId());
+      }
+    }
+
+    @Override
+    public void deleteDelivery(final Delivery delivery) {
+      deliveries.remove(delivery.getId());
+      deleted.add(delivery.getId());
+      if (!markedAsSent.contains(delivery.getId())) {
+        deletedUnmarked.add(delivery.getId());
+      }
+    }
+
+    @Override
+    public int deleteSentDeliveries() {
+      int count = 0;
+      for (Delivery delivery : new ArrayList<>(deliveries.values())) {
+        if (delivery.isSent()) {
+          deleteDelivery(delivery);
+          count++;
+        }
+      }
+      return count;
+    }
+
+    @Override
+    public List<Delivery> listDueDeliveries(final long now, final int max) {
+      List<Delivery> due = new ArrayList<>();
+      for (Delivery delivery : deliveries.values()) {
+        if (!delivery.isSent() && delivery.getNextAttempt() <= now && due.size() < max) {
+          due.add(delivery);
+        }
+      }
+      return due;
+    }
+  }
+}
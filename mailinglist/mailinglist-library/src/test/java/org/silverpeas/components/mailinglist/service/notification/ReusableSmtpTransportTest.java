@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "http://www.silverpeas.org/docs/core/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mailinglist.service.notification;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.mail.Message.RecipientType;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the sending of several mails through a same SMTP connection against an embedded mail
+ * server.
+ */
+public class ReusableSmtpTransportTest {
+
+  private static final int TIMEOUT = 5000;
+
+  private GreenMail greenMail;
+
+  @Before
+  public void setUp() {
+    greenMail = new GreenMail(ServerSetupTest.SMTP);
+    greenMail.start();
+  }
+
+  @After
+  public void tearDown() {
+    greenMail.stop();
+  }
+
+  @Test
+  public void severalMailsAreSentWithTheSameTransport() throws Exception {
+    try (ReusableSmtpTransport transport = new ReusableSmtpTransport("localhost",
+        ServerSetupTest.SMTP.getPort(), null, null, false, TIMEOUT, TIMEOUT)) {
+      for (int i = 0; i < 3; i++) {
+        transport.send(newMail(transport, "Message " + i, "user" + i + "@silverpeas.org",
+            "other" + i + "@silverpeas.org"));
+      }
+    }
+    // each mail is delivered to its two recipients
+    greenMail.waitForIncomingEmail(5000, 6);
+    assertEquals(6, greenMail.getReceivedMessages().length);
+  }
+
+  @Test
+  public void theTransportReconnectsAfterTheConnectionIsClosed() throws Exception {
+    try (ReusableSmtpTransport transport = new ReusableSmtpTransport("localhost",
+        ServerSetupTest.SMTP.getPort(), null, null, false, TIMEOUT, TIMEOUT)) {
+      transport.send(newMail(transport, "First", "user@silverpeas.org"));
+      transport.close();
+      transport.send(newMail(transport, "Second", "user@silverpeas.org"));
+    }
+    greenMail.waitForIncomingEmail(5000, 2);
+    assertEquals(2, greenMail.getReceivedMessages().length);
+  }
+
+  private MimeMessage newMail(ReusableSmtpTransport transport, String subject,
+      String... recipients) throws Exception {
+    MimeMessage mail = new MimeMessage(transport.getSession());
+    mail.setFrom(new InternetAddress("mailinglist@silverpeas.org"));
+    for (String recipient : recipients) {
+      mail.addRecipient(RecipientType.BCC, new InternetAddress(recipient));
+    }
+    mail.setSubject(subject);
+    mail.setText("Hello");
+    return mail;
+  }
+}
@@ -41,6 +41,7 @@ public interface MailingListRoutage {
   public static final String IS_LIST_MODERATED_ATT = "currentListIsModerated";
   public static final String RSS_URL_ATT = "mailinglistRss";
   public static final String USERS_LIST_ATT = "currentUsersList";
+  public static final String DELIVERY_THROUGHPUT_ATT = "currentDeliveryThroughput";
   public static final String PREVIOUS_PATH_ATT = "currentFromPath";
   public static final String PORTLET_MODE_ATT = "portletMode";
 
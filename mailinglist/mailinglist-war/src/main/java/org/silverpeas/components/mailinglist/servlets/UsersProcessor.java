@@ -106,6 +106,8 @@ public class UsersProcessor implements MailingListRoutage {
     if ((Boolean) request.getAttribute(IS_USER_ADMIN_ATT)) {
       MailingList list = MailingListServicesProvider.getMailingListService()
           .findMailingList(rest.getComponentId());
+      request.setAttribute(DELIVERY_THROUGHPUT_ATT,
+          MailingListServicesProvider.getMailDeliveryQueue().getThroughput(rest.getComponentId()));
       int page = 0;
       if (request.getParameter(CURRENT_PAGE_PARAM) != null) {
         try {
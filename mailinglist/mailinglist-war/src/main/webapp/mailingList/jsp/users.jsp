@@ -118,6 +118,35 @@
       </tr>
     </table>
     </form>
+
+    <c:set var="throughput" value="${requestScope.currentDeliveryThroughput}" />
+    <c:if test="${not empty throughput}">
+    <table class="tableArrayPane" width="98%" cellspacing="2" cellpadding="2" border="0">
+      <tr>
+        <td class="ArrayColumn" colspan="2"><fmt:message key="mailingList.users.delivery.title" /></td>
+      </tr>
+      <tr>
+        <td><fmt:message key="mailingList.users.delivery.sent" /></td>
+        <td><c:out value="${throughput.sentMails}" /></td>
+      </tr>
+      <tr>
+        <td><fmt:message key="mailingList.users.delivery.recipients" /></td>
+        <td><c:out value="${throughput.sentRecipients}" /></td>
+      </tr>
+      <tr>
+        <td><fmt:message key="mailingList.users.delivery.failed" /></td>
+        <td><c:out value="${throughput.failedAttempts}" /></td>
+      </tr>
+      <tr>
+        <td><fmt:message key="mailingList.users.delivery.abandoned" /></td>
+        <td><c:out value="${throughput.abandonedMails}" /></td>
+      </tr>
+      <tr>
+        <td><fmt:message key="mailingList.users.delivery.rate" /></td>
+        <td><fmt:formatNumber value="${throughput.recipientsPerSecond}" maxFractionDigits="1" /></td>
+      </tr>
+    </table>
+    </c:if>
     </center>
   </view:frame>
 </view:window>
@@ -27,6 +27,9 @@ package org.silverpeas.components.mydb.model;
 import org.silverpeas.components.mydb.model.predicates.AbstractColumnValuePredicate;
 import org.silverpeas.components.mydb.model.predicates.ColumnValuePredicate;
 import org.silverpeas.components.mydb.service.MyDBRuntimeException;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.util.PaginationList;
+import org.silverpeas.core.util.SilverpeasList;
 import org.silverpeas.core.util.StringUtil;
 
 import java.util.ArrayList;
@@ -45,6 +48,7 @@ public class DbTable {
 
   private final String name;
   private final List<DbColumn> columns = new ArrayList<>();
+  private final int dataMaxNumber;
   private JdbcRequester requester = null;
 
   /**
@@ -107,6 +111,7 @@ public class DbTable {
     StringUtil.requireDefined(name);
     Objects.requireNonNull(ds);
     this.name = name;
+    this.dataMaxNumber = ds.getDataMaxNumber();
     setJdbcRequester(new JdbcRequester(ds));
   }
 
@@ -171,6 +176,123 @@ public class DbTable {
     });
   }
 
+  /**
+   * Gets a page of the contents of this table. Only the rows of the page are fetched from the
+   * database: the pagination and the sort are done by the database itself. The rows are ordered
+   * by the specified column, then by the primary key of the table (or by its first column if it
+   * has no primary key) so that the pages are stable between two requests.
+   * @param filter a predicate to use for filtering the table content.
+   * @param order the order of the rows. If null, the rows are ordered by the primary key.
+   * @param page the page of rows to get.
+   * @return a list with the rows of the page. The total number of rows matching the filter is
+   * given by {@link SilverpeasList#originalListSize()}. Both are limited by the
+   * {@link MyDBConnectionInfo#getDataMaxNumber()} property.
+   */
+  public SilverpeasList<TableRow> getRows(final ColumnValuePredicate filter,
+      final RowOrder order, final PaginationPage page) {
+    return getRowsPage(filter, order, page, null);
+  }
+
+  /**
+   * Gets a page of the contents of this table that follows the specified row. If the table has
+   * a single column primary key and if the rows are ordered by it or by a column that isn't
+   * nullable, the page is located from the values of these columns in that row instead of being
+   * located by an offset so that the database doesn't have to go through all the previous rows.
+   * Otherwise, this method is like
+   * {@link #getRows(ColumnValuePredicate, RowOrder, PaginationPage)}.
+   * @param filter a predicate to use for filtering the table content.
+   * @param order the order of the rows. If null, the rows are ordered by the primary key.
+   * @param page the page of rows to get.
+   * @param lastRow the last row of the previous page.
+   * @return a list with the rows of the page. The total number of rows matching the filter is
+   * given by {@link SilverpeasList#originalListSize()}.
+   */
+  public SilverpeasList<TableRow> getRowsAfter(final ColumnValuePredicate filter,
+      final RowOrder order, final PaginationPage page, final TableRow lastRow) {
+    return getRowsPage(filter, order, page, lastRow);
+  }
+
+  private SilverpeasList<TableRow> getRowsPage(final ColumnValuePredicate filter,
+      final RowOrder order, final PaginationPage page, final TableRow lastRow) {
+    if (!(filter instanceof AbstractColumnValuePredicate)) {
+      throw new IllegalArgumentException(
+          "DbTable doesn't support predicate other than AbstractColumnValuePredicate objects");
+    }
+    final AbstractColumnValuePredicate predicate = (AbstractColumnValuePredicate) filter;
+    final long offset = (long) (page.getPageNumber() - 1) * page.getPageSize();
+    final int maxRows = dataMaxNumber;
+    final List<String> orderColumns = getOrderColumns(order);
+    final boolean descending = order != null && order.isDescending();
+    return requester.perform((r, c) -> {
+      long count = r.count(c, this.name, predicate);
+      if (maxRows > 0) {
+        count = Math.min(count, maxRows);
+      }
+      final int limit = (int) Math.max(0, Math.min(page.getPageSize(), count - offset));
+      final Optional<List<Object>> lastValues = getLastValues(orderColumns, lastRow);
+      final JdbcRequester.RowWindow window = lastValues
+          .map(v -> JdbcRequester.RowWindow.after(orderColumns, descending, v, limit))
+          .orElseGet(() -> JdbcRequester.RowWindow.at(orderColumns, descending, offset, limit));
+      final JdbcRequester.DataConverters<TableFieldValue, TableRow> converters =
+          new JdbcRequester.DataConverters<>(TableFieldValue::new, TableRow::new);
+      return PaginationList.from(r.request(c, this.name, predicate, window, converters), count);
+    });
+  }
+
+  private Optional<DbColumn> getUniqueKey() {
+    final List<DbColumn> pkColumns =
+        columns.stream().filter(DbColumn::isPrimaryKey).collect(Collectors.toList());
+    return pkColumns.size() == 1 ? Optional.of(pkColumns.get(0)) : Optional.empty();
+  }
+
+  /**
+   * Gets the columns by which the rows are ordered: the column of the specified order, if it
+   * exists in this table, followed by the columns of the primary key.
+   */
+  private List<String> getOrderColumns(final RowOrder order) {
+    final List<String> orderColumns = new ArrayList<>();
+    if (order != null) {
+      getColumn(order.getColumnName()).ifPresent(c -> orderColumns.add(c.getName()));
+    }
+    columns.stream()
+        .filter(DbColumn::isPrimaryKey)
+        .map(DbColumn::getName)
+        .filter(n -> !orderColumns.contains(n))
+        .forEach(orderColumns::add);
+    if (orderColumns.isEmpty()) {
+      orderColumns.add(columns.isEmpty() ? "1" : columns.get(0).getName());
+    }
+    return orderColumns;
+  }
+
+  /**
+   * Gets the values of the order columns in the specified row when they can locate the rows
+   * that follow it: the order has to end with a single column primary key and the other order
+   * columns must not be nullable as the position of the null values in the order depends on the
+   * database.
+   */
+  private Optional<List<Object>> getLastValues(final List<String> orderColumns,
+      final TableRow lastRow) {
+    final Optional<DbColumn> key = getUniqueKey();
+    if (lastRow == null || !key.isPresent() ||
+        !key.get().getName().equals(orderColumns.get(orderColumns.size() - 1))) {
+      return Optional.empty();
+    }
+    final List<Object> values = new ArrayList<>(orderColumns.size());
+    for (String columnName : orderColumns) {
+      final Optional<DbColumn> column = getColumn(columnName);
+      if (!column.isPresent() || (column.get().isNullable() && !column.get().isPrimaryKey())) {
+        return Optional.empty();
+      }
+      final Object value = lastRow.getFieldValue(columnName).toSQLObject();
+      if (value == null) {
+        return Optional.empty();
+      }
+      values.add(value);
+    }
+    return Optional.of(values);
+  }
+
   /**
    * Deletes the specified row.
    * @param row the row to delete in this database table.
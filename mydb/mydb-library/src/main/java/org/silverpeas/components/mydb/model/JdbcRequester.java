@@ -25,6 +25,7 @@
 package org.silverpeas.components.mydb.model;
 
 import org.silverpeas.components.mydb.model.predicates.AbstractColumnValuePredicate;
+import org.silverpeas.components.mydb.model.predicates.Identity;
 import org.silverpeas.components.mydb.service.MyDBException;
 import org.silverpeas.components.mydb.service.MyDBRuntimeException;
 import org.silverpeas.core.persistence.Transaction;
@@ -38,6 +39,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -206,20 +208,69 @@ class JdbcRequester {
     Objects.requireNonNull(predicate);
     JdbcSqlQuery query = JdbcSqlQuery.createSelect("*").from(tableName);
     query = predicate.apply(query).orderBy(this.orderBy);
-    return query.executeWith(connection, rs -> {
-      try {
-        final Map<String, V> row = new LinkedHashMap<>();
-        ResultSetMetaData rsMetaData = rs.getMetaData();
-        for (int i = 1; i <= rsMetaData.getColumnCount(); i++) {
-          V value = converters.getValueConverter()
-              .convert(rs.getObject(i), rs.getMetaData().getColumnType(i));
-          row.put(rsMetaData.getColumnName(i), value);
-        }
-        return converters.getRowConverter().convert(row);
-      } catch (SQLException e) {
-        throw new MyDBRuntimeException(e);
-      }
-    });
+    return query.executeWith(connection, new RowReader<>(converters)::read);
+  }
+
+  /**
+   * Requests the specified window of the content of the specified table by applying the given
+   * predicate. Only the rows in the window are fetched from the database: the pagination is
+   * performed by the database itself with the SQL dialect it supports.
+   * @param connection a connection to the database.
+   * @param tableName the name of the table to request.
+   * @param predicate a predicate to use to filter the table's content.
+   * @param window the window of rows to fetch.
+   * @param converters the converters to use to convert each row and each row's value to a business
+   * object.
+   * @param <V> the type of the business objects representing the row's values.
+   * @param <R> the type of the business objects representing the rows.
+   * @return a list with the rows of the window, matching the given predicate, in their business
+   * representation.
+   * @throws SQLException if an error occurs while requesting the database.
+   */
+  <V, R> List<R> request(final Connection connection, final String tableName,
+      final AbstractColumnValuePredicate predicate, final RowWindow window,
+      final DataConverters<V, R> converters) throws SQLException {
+    Objects.requireNonNull(connection);
+    Objects.requireNonNull(tableName);
+    Objects.requireNonNull(predicate);
+    Objects.requireNonNull(window);
+    if (window.getLimit() <= 0) {
+      return new ArrayList<>();
+    }
+    JdbcSqlQuery query = predicate.apply(JdbcSqlQuery.createSelect("*").from(tableName));
+    final long offset;
+    if (window.isAfterKey()) {
+      final String keyCriterion =
+          SqlDialect.after(window.getOrderColumns(), window.isDescending());
+      query = predicate instanceof Identity ? query.where(keyCriterion, window.getKeyValues()) :
+          query.and(keyCriterion, window.getKeyValues());
+      offset = 0;
+    } else {
+      offset = window.getOffset();
+    }
+    final SqlDialect dialect = SqlDialect.from(connection.getMetaData());
+    query.orderBy(window.getOrderBy())
+        .addSqlPart(dialect.paginate(offset, window.getLimit()));
+    return query.executeWith(connection, new RowReader<>(converters)::read);
+  }
+
+  /**
+   * Counts the rows in the specified table that match the given predicate.
+   * @param connection a connection to the database.
+   * @param tableName the name of the table to request.
+   * @param predicate a predicate to use to filter the table's content.
+   * @return the number of rows matching the predicate.
+   * @throws SQLException if an error occurs while requesting the database.
+   */
+  long count(final Connection connection, final String tableName,
+      final AbstractColumnValuePredicate predicate) throws SQLException {
+    Objects.requireNonNull(connection);
+    Objects.requireNonNull(tableName);
+    Objects.requireNonNull(predicate);
+    final JdbcSqlQuery query =
+        predicate.apply(JdbcSqlQuery.createSelect("count(*)").from(tableName));
+    final List<Long> count = query.executeWith(connection, rs -> rs.getLong(1));
+    return count.isEmpty() ? 0 : count.get(0);
   }
 
   /**
@@ -328,6 +379,156 @@ class JdbcRequester {
     }
   }
 
+  /**
+   * A window of ordered rows to fetch in a table. The window is either located by an offset or,
+   * when the rows are ordered by columns that identify uniquely a row, after the values of these
+   * columns in the last row of the previous window so that the database doesn't have to skip the
+   * rows before the window.
+   */
+  static class RowWindow {
+    private final List<String> orderColumns;
+    private final boolean descending;
+    private final long offset;
+    private final int limit;
+    private final List<Object> lastValues;
+
+    private RowWindow(final List<String> orderColumns, final boolean descending,
+        final long offset, final int limit, final List<Object> lastValues) {
+      this.orderColumns = orderColumns;
+      this.descending = descending;
+      this.offset = offset;
+      this.limit = limit;
+      this.lastValues = lastValues;
+    }
+
+    /**
+     * A window starting at the specified offset.
+     * @param orderBy the name of the column by which the rows are ordered.
+     * @param offset the number of rows to skip.
+     * @param limit the maximum number of rows in the window.
+     * @return a window of rows.
+     */
+    static RowWindow at(final String orderBy, final long offset, final int limit) {
+      return at(Collections.singletonList(orderBy), false, offset, limit);
+    }
+
+    /**
+     * A window starting at the specified offset.
+     * @param orderColumns the names of the columns by which the rows are ordered.
+     * @param descending true if the rows are in the descending order of the columns.
+     * @param offset the number of rows to skip.
+     * @param limit the maximum number of rows in the window.
+     * @return a window of rows.
+     */
+    static RowWindow at(final List<String> orderColumns, final boolean descending,
+        final long offset, final int limit) {
+      return new RowWindow(orderColumns, descending, offset, limit, null);
+    }
+
+    /**
+     * A window starting after the row with the specified key.
+     * @param keyColumn the name of the column with the unique key of the rows.
+     * @param lastKey the key of the last row before the window.
+     * @param limit the maximum number of rows in the window.
+     * @return a window of rows.
+     */
+    static RowWindow after(final String keyColumn, final Object lastKey, final int limit) {
+      Objects.requireNonNull(lastKey);
+      return after(Collections.singletonList(keyColumn), false,
+          Collections.singletonList(lastKey), limit);
+    }
+
+    /**
+     * A window starting after the row with the specified values. The columns by which the rows
+     * are ordered must identify uniquely a row and must not be nullable.
+     * @param orderColumns the names of the columns by which the rows are ordered.
+     * @param descending true if the rows are in the descending order of the columns.
+     * @param lastValues the values of the order columns in the last row before the window.
+     * @param limit the maximum number of rows in the window.
+     * @return a window of rows.
+     */
+    static RowWindow after(final List<String> orderColumns, final boolean descending,
+        final List<Object> lastValues, final int limit) {
+      Objects.requireNonNull(lastValues);
+      if (lastValues.size() != orderColumns.size()) {
+        throw new IllegalArgumentException("A value is expected for each order column");
+      }
+      return new RowWindow(orderColumns, descending, 0, limit, lastValues);
+    }
+
+    List<String> getOrderColumns() {
+      return orderColumns;
+    }
+
+    boolean isDescending() {
+      return descending;
+    }
+
+    String getOrderBy() {
+      return SqlDialect.orderBy(orderColumns, descending);
+    }
+
+    long getOffset() {
+      return offset;
+    }
+
+    int getLimit() {
+      return limit;
+    }
+
+    boolean isAfterKey() {
+      return lastValues != null;
+    }
+
+    /**
+     * Gets the parameters of the criterion locating the window after the last row of the
+     * previous one.
+     * @return the values of the parameters in the order expected by
+     * {@link SqlDialect#after(List, boolean)}.
+     */
+    List<Object> getKeyValues() {
+      final List<Object> values = new ArrayList<>();
+      for (int i = 0; i < lastValues.size(); i++) {
+        values.addAll(lastValues.subList(0, i + 1));
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Reads the rows of a query result. The names and the types of the columns are get once from
+   * the metadata of the result set and then reused for each row.
+   * @param <V> the type of the business objects representing the row's values.
+   * @param <R> the type of the business objects representing the rows.
+   */
+  private static class RowReader<V, R> {
+    private final DataConverters<V, R> converters;
+    private String[] names;
+    private int[] types;
+
+    private RowReader(final DataConverters<V, R> converters) {
+      this.converters = converters;
+    }
+
+    R read(final ResultSet rs) throws SQLException {
+      if (names == null) {
+        final ResultSetMetaData rsMetaData = rs.getMetaData();
+        final int count = rsMetaData.getColumnCount();
+        names = new String[count];
+        types = new int[count];
+        for (int i = 0; i < count; i++) {
+          names[i] = rsMetaData.getColumnName(i + 1);
+          types[i] = rsMetaData.getColumnType(i + 1);
+        }
+      }
+      final Map<String, V> row = new LinkedHashMap<>(names.length);
+      for (int i = 0; i < names.length; i++) {
+        row.put(names[i], converters.getValueConverter().convert(rs.getObject(i + 1), types[i]));
+      }
+      return converters.getRowConverter().convert(row);
+    }
+  }
+
   /**
    * Descriptor of a foreign key. It should be mapped to a column in a given table for which it
    * references another column of another table.
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.mydb.model;
+
+import java.util.Objects;
+
+/**
+ * The order in which the rows of a table are fetched: the ascending or the descending order of
+ * the values of one of its columns. The rows having the same value are then ordered by the
+ * primary key of the table so that the order is stable between two requests.
+ */
+public class RowOrder {
+
+  private final String columnName;
+  private final boolean descending;
+
+  private RowOrder(final String columnName, final boolean descending) {
+    Objects.requireNonNull(columnName);
+    this.columnName = columnName;
+    this.descending = descending;
+  }
+
+  /**
+   * The ascending order of the values of the specified column.
+   * @param columnName the name of a column.
+   * @return the order of the rows.
+   */
+  public static RowOrder ascendingBy(final String columnName) {
+    return new RowOrder(columnName, false);
+  }
+
+  /**
+   * The descending order of the values of the specified column.
+   * @param columnName the name of a column.
+   * @return the order of the rows.
+   */
+  public static RowOrder descendingBy(final String columnName) {
+    return new RowOrder(columnName, true);
+  }
+
+  /**
+   * Gets the name of the column by which the rows are ordered.
+   * @return the name of the column.
+   */
+  public String getColumnName() {
+    return columnName;
+  }
+
+  /**
+   * Are the rows in the descending order of the values of the column?
+   * @return true if the order is descending, false if it is ascending.
+   */
+  public boolean isDescending() {
+    return descending;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.mydb.model;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The SQL dialect to use to fetch only a window of the rows returned by a query. The dialect
+ * is guessed from the product name of the database.
+ * <p>
+ * The databases that don't support the <code>LIMIT</code> clause are expected to support the
+ * <code>OFFSET ... FETCH</code> clause of the SQL:2008 standard (Oracle 12c and later,
+ * SQL Server 2012 and later, Derby, DB2, ...).
+ * </p>
+ */
+enum SqlDialect {
+
+  /**
+   * The <code>LIMIT ... OFFSET ...</code> clause of PostgreSQL, MySQL, H2, HSQLDB or SQLite.
+   */
+  LIMIT_OFFSET {
+    @Override
+    String paginate(final long offset, final int limit) {
+      return "limit " + limit + " offset " + offset;
+    }
+  },
+
+  /**
+   * The <code>OFFSET ... ROWS FETCH NEXT ... ROWS ONLY</code> clause of the SQL:2008 standard.
+   */
+  OFFSET_FETCH {
+    @Override
+    String paginate(final long offset, final int limit) {
+      return "offset " + offset + " rows fetch next " + limit + " rows only";
+    }
+  };
+
+  private static final String[] LIMIT_OFFSET_PRODUCTS =
+      {"postgresql", "mysql", "mariadb", "h2", "hsql", "sqlite"};
+
+  /**
+   * Gets the dialect of the specified database.
+   * @param metaData the metadata of the database.
+   * @return the SQL dialect to use with the database.
+   * @throws SQLException if the product name of the database cannot be get.
+   */
+  static SqlDialect from(final DatabaseMetaData metaData) throws SQLException {
+    final String product = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT);
+    for (String name : LIMIT_OFFSET_PRODUCTS) {
+      if (product.contains(name)) {
+        return LIMIT_OFFSET;
+      }
+    }
+    return OFFSET_FETCH;
+  }
+
+  /**
+   * Gets the SQL order of the rows by the specified columns, all of them in the same direction.
+   * The clause is the same whatever the dialect.
+   * @param columns the names of the columns by which the rows are ordered.
+   * @param descending true if the rows are ordered in the descending order of the columns.
+   * @return the SQL order to pass to the <code>ORDER BY</code> clause.
+   */
+  static String orderBy(final List<String> columns, final boolean descending) {
+    final String direction = descending ? " desc" : "";
+    return columns.stream().map(c -> c + direction).collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Gets the SQL criterion selecting the rows that follow, in the order of the specified
+   * columns, the row having the given values for these columns. The parameters of the criterion
+   * are, for each column, the values of the columns before it followed by its own value.
+   * <p>
+   * For example, for the columns <code>a, b</code> in the ascending order, the criterion is
+   * <code>(a > ? or (a = ? and b > ?))</code>.
+   * </p>
+   * @param columns the names of the columns by which the rows are ordered.
+   * @param descending true if the rows are ordered in the descending order of the columns.
+   * @return the SQL criterion.
+   */
+  static String after(final List<String> columns, final boolean descending) {
+    final String comparison = descending ? " < ?" : " > ?";
+    final StringBuilder criterion = new StringBuilder("(");
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        criterion.append(" or ");
+      }
+      if (i == 0) {
+        criterion.append(columns.get(0)).append(comparison);
+      } else {
+        criterion.append("(");
+        for (int j = 0; j < i; j++) {
+          criterion.append(columns.get(j)).append(" = ? and ");
+        }
+        criterion.append(columns.get(i)).append(comparison).append(")");
+      }
+    }
+    return criterion.append(")").toString();
+  }
+
+  /**
+   * Gets the SQL clause restricting the rows returned by an ordered query to the specified
+   * window.
+   * @param offset the number of rows to skip.
+   * @param limit the maximum number of rows to return.
+   * @return the SQL clause to append to the query.
+   */
+  abstract String paginate(final long offset, final int limit);
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.mydb.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.components.mydb.model.predicates.AbstractColumnValuePredicate;
+import org.silverpeas.components.mydb.model.predicates.Identity;
+import org.silverpeas.components.mydb.model.predicates.StrictInferiority;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests on the fetching of a window of the rows of a table, either by an offset or after a
+ * key, run against an embedded H2 database.
+ */
+@EnableSilverTestEnv
+public class JdbcRequesterTest {
+
+  private static final String TABLE = "PERSON";
+  private static final String KEY = "ID";
+  private static final String GROUP = "GRP";
+
+  private Connection connection;
+  private JdbcRequester requester;
+  private DbColumn keyColumn;
+
+  @BeforeEach
+  public void createTable() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:jdbcrequester;DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table person (id int primary key, name varchar(20), grp int not null)");
+      for (int i = 10; i >= 1; i--) {
+        statement.execute("insert into person values (" + i + ", 'name" + i + "', " + i % 3 + ")");
+      }
+    }
+    requester = new JdbcRequester(new MyDBConnectionInfo("java:/datasources/mydb", "mydb1"));
+    final List<DbColumn> columns = new ArrayList<>();
+    requester.loadColumns(connection, TABLE, d -> columns.add(new DbColumn(d)));
+    keyColumn = columns.stream().filter(c -> KEY.equals(c.getName())).findFirst().orElse(null);
+  }
+
+  @AfterEach
+  public void dropTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table person");
+    }
+    connection.close();
+  }
+
+  @Test
+  public void theKeyColumnIsLoadedAsPrimaryKey() {
+    assertThat(keyColumn.isPrimaryKey(), is(true));
+  }
+
+  @Test
+  public void aWindowAtAnOffsetFetchesOnlyItsRowsInOrder() throws SQLException {
+    assertThat(fetchIds(new Identity(), JdbcRequester.RowWindow.at(KEY, 3, 4)),
+        is(Arrays.asList(4, 5, 6, 7)));
+  }
+
+  @Test
+  public void theLastWindowAtAnOffsetFetchesOnlyTheRemainingRows() throws SQLException {
+    assertThat(fetchIds(new Identity(), JdbcRequester.RowWindow.at(KEY, 8, 5)),
+        is(Arrays.asList(9, 10)));
+  }
+
+  @Test
+  public void aWindowAfterAKeyFetchesTheFollowingRows() throws SQLException {
+    assertThat(fetchIds(new Identity(), JdbcRequester.RowWindow.after(KEY, 6, 3)),
+        is(Arrays.asList(7, 8, 9)));
+  }
+
+  @Test
+  public void aWindowAfterAKeyIsCombinedWithTheFilter() throws SQLException {
+    final AbstractColumnValuePredicate filter = new StrictInferiority(keyColumn, 9);
+    assertThat(fetchIds(filter, JdbcRequester.RowWindow.after(KEY, 6, 5)),
+        is(Arrays.asList(7, 8)));
+  }
+
+  @Test
+  public void bothWindowsFetchTheSameRows() throws SQLException {
+    final AbstractColumnValuePredicate filter = new StrictInferiority(keyColumn, 9);
+    assertThat(fetchIds(filter, JdbcRequester.RowWindow.after(KEY, 4, 3)),
+        is(fetchIds(filter, JdbcRequester.RowWindow.at(KEY, 4, 3))));
+  }
+
+  @Test
+  public void aWindowIsSortedByTheOrderColumnsThenByTheKey() throws SQLException {
+    final List<String> order = Arrays.asList(GROUP, KEY);
+    assertThat(fetchIds(new Identity(), JdbcRequester.RowWindow.at(order, false, 0, 10)),
+        is(Arrays.asList(3, 6, 9, 1, 4, 7, 10, 2, 5, 8)));
+    assertThat(fetchIds(new Identity(), JdbcRequester.RowWindow.at(order, true, 0, 10)),
+        is(Arrays.asList(8, 5, 2, 10, 7, 4, 1, 9, 6, 3)));
+  }
+
+  @Test
+  public void aWindowAfterTheValuesOfSeveralColumnsFetchesTheFollowingRows()
+      throws SQLException {
+    final List<String> order = Arrays.asList(GROUP, KEY);
+    assertThat(fetchIds(new Identity(),
+        JdbcRequester.RowWindow.after(order, false, Arrays.asList(1, 4), 4)),
+        is(Arrays.asList(7, 10, 2, 5)));
+    assertThat(fetchIds(new Identity(),
+        JdbcRequester.RowWindow.after(order, true, Arrays.asList(1, 7), 3)),
+        is(Arrays.asList(4, 1, 9)));
+  }
+
+  @Test
+  public void bothSortedWindowsFetchTheSameRows() throws SQLException {
+    final List<String> order = Arrays.asList(GROUP, KEY);
+    final AbstractColumnValuePredicate filter = new StrictInferiority(keyColumn, 9);
+    assertThat(fetchIds(filter,
+        JdbcRequester.RowWindow.after(order, false, Arrays.asList(0, 6), 3)),
+        is(fetchIds(filter, JdbcRequester.RowWindow.at(order, false, 2, 3))));
+  }
+
+  @Test
+  public void anEmptyWindowFetchesNothing() throws SQLException {
+    assertThat(fetchIds(new Identity(), JdbcRequester.RowWindow.at(KEY, 0, 0)),
+        is(Collections.emptyList()));
+  }
+
+  @Test
+  public void theCountIsTheOneOfTheFilteredRows() throws SQLException {
+    assertThat(requester.count(connection, TABLE, new Identity()), is(10L));
+    assertThat(requester.count(connection, TABLE, new StrictInferiority(keyColumn, 9)), is(8L));
+  }
+
+  private List<Integer> fetchIds(final AbstractColumnValuePredicate filter,
+      final JdbcRequester.RowWindow window) throws SQLException {
+    final JdbcRequester.DataConverters<Object, Map<String, Object>> converters =
+        new JdbcRequester.DataConverters<>((value, type) -> value, row -> row);
+    return requester.request(connection, TABLE, filter, window, converters)
+        .stream()
+        .map(row -> (Integer) row.get(KEY))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.mydb.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests on the SQL dialects used to paginate the content of a table, run against an
+ * embedded H2 database.
+ */
+@EnableSilverTestEnv
+public class SqlDialectTest {
+
+  private Connection connection;
+
+  @BeforeEach
+  public void createTable() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:sqldialect;DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table person (id int primary key, name varchar(20))");
+      for (int i = 1; i <= 10; i++) {
+        statement.execute("insert into person values (" + i + ", 'name" + i + "')");
+      }
+    }
+  }
+
+  @AfterEach
+  public void dropTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table person");
+    }
+    connection.close();
+  }
+
+  @Test
+  public void theDialectOfH2IsLimitOffset() throws SQLException {
+    assertThat(SqlDialect.from(connection.getMetaData()), is(SqlDialect.LIMIT_OFFSET));
+  }
+
+  @Test
+  public void theDialectIsGuessedFromTheProductName() throws SQLException {
+    assertThat(SqlDialect.from(metaDataOf("PostgreSQL")), is(SqlDialect.LIMIT_OFFSET));
+    assertThat(SqlDialect.from(metaDataOf("MySQL")), is(SqlDialect.LIMIT_OFFSET));
+    assertThat(SqlDialect.from(metaDataOf("MariaDB")), is(SqlDialect.LIMIT_OFFSET));
+    assertThat(SqlDialect.from(metaDataOf("Apache Derby")), is(SqlDialect.OFFSET_FETCH));
+    assertThat(SqlDialect.from(metaDataOf("Oracle")), is(SqlDialect.OFFSET_FETCH));
+    assertThat(SqlDialect.from(metaDataOf("Microsoft SQL Server")),
+        is(SqlDialect.OFFSET_FETCH));
+  }
+
+  @Test
+  public void theLimitOffsetClauseFetchesOnlyTheWindow() throws SQLException {
+    assertThat(fetchIds(SqlDialect.LIMIT_OFFSET.paginate(2, 3)), is(Arrays.asList(3, 4, 5)));
+  }
+
+  @Test
+  public void theOffsetFetchClauseFetchesOnlyTheWindow() throws SQLException {
+    assertThat(fetchIds(SqlDialect.OFFSET_FETCH.paginate(2, 3)), is(Arrays.asList(3, 4, 5)));
+  }
+
+  @Test
+  public void aWindowBeyondTheLastRowFetchesOnlyTheRemainingRows() throws SQLException {
+    assertThat(fetchIds(SqlDialect.LIMIT_OFFSET.paginate(8, 5)), is(Arrays.asList(9, 10)));
+    assertThat(fetchIds(SqlDialect.OFFSET_FETCH.paginate(8, 5)), is(Arrays.asList(9, 10)));
+  }
+
+  @Test
+  public void theOrderIsInTheSameDirectionForAllTheColumns() {
+    assertThat(SqlDialect.orderBy(Arrays.asList("a", "b"), false), is("a, b"));
+    assertThat(SqlDialect.orderBy(Arrays.asList("a", "b"), true), is("a desc, b desc"));
+  }
+
+  @Test
+  public void theCriterionAfterARowComparesEachColumnWhenThePreviousOnesAreEqual() {
+    assertThat(SqlDialect.after(Arrays.asList("a"), false), is("(a > ?)"));
+    assertThat(SqlDialect.after(Arrays.asList("a", "b"), false),
+        is("(a > ? or (a = ? and b > ?))"));
+    assertThat(SqlDialect.after(Arrays.asList("a", "b", "c"), true),
+        is("(a < ? or (a = ? and b < ?) or (a = ? and b = ? and c < ?))"));
+  }
+
+  private List<Integer> fetchIds(final String pagination) throws SQLException {
+    final List<Integer> ids = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery(
+             "select id from person order by id " + pagination)) {
+      while (rs.next()) {
+        ids.add(rs.getInt(1));
+      }
+    }
+    return ids;
+  }
+
+  private static DatabaseMetaData metaDataOf(final String productName) throws SQLException {
+    final DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(metaData.getDatabaseProductName()).thenReturn(productName);
+    return metaData;
+  }
+}
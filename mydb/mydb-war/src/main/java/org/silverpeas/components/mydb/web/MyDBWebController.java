@@ -82,11 +82,14 @@ public class MyDBWebController
   public static final String ALL_COLUMNS = "tableColumns";
   public static final String ROW_INDEX = "row";
   public static final String ROW = "row";
+  public static final String FIRST_ROW_INDEX = "ItemIndex";
+  public static final String SORT_COLUMN = "sortColumn";
   public static final String ERROR_MESSAGE = "error";
   private static final String ERROR_NO_SELECTED_TABLE = "mydb.error.noSelectedTable";
 
   private MyDBConnectionInfo connectionInfo;
   private TableView tableView = new TableView();
+  private TableView fkTableView = new TableView();
 
   /**
    * Constructs a new Web controller for the specified context and with the
@@ -140,6 +143,12 @@ public class MyDBWebController
       if (!tableView.isDefined() && connectionInfo.isDefaultTableNameDefined()) {
         tableView.setTable(DbTable.defaultTable(connectionInfo));
       }
+      if (context.getRequest().isParameterDefined(SORT_COLUMN)) {
+        tableView.sortOn(context.getRequest().getParameter(SORT_COLUMN));
+      }
+      if (context.getRequest().isParameterDefined(FIRST_ROW_INDEX)) {
+        tableView.setFirstRowIndex(context.getRequest().getParameterAsInteger(FIRST_ROW_INDEX));
+      }
       setUpRequestAttributes(context.getRequest());
     } catch (MyDBRuntimeException e) {
       context.getMessager().addError(e.getLocalizedMessage());
@@ -191,15 +200,22 @@ public class MyDBWebController
   public void getForeignKeyTableViewFrom(final MyDBWebRequestContext context) {
     try {
       final String targetTableName = context.getRequest().getParameter(TABLE_VIEW);
-      final Optional<DbTable> targetTable = DbTable.table(targetTableName, connectionInfo);
-      if (targetTable.isPresent()) {
-        TableView targetTableView = new TableView();
-        targetTableView.setTable(targetTable);
-        context.getRequest().setAttribute(TABLE_VIEW, targetTableView);
-      } else {
-        context.getRequest()
-            .setAttribute(ERROR_MESSAGE, getMultilang().getString("mydb.error.nonExistingTable"));
+      // the view is kept between two pages of the same table so that the next page is fetched
+      // from the last row of the previous one
+      final boolean paging = context.getRequest().isParameterDefined(FIRST_ROW_INDEX);
+      if (!paging || !fkTableView.isDefined() || !fkTableView.getName().equals(targetTableName)) {
+        final Optional<DbTable> targetTable = DbTable.table(targetTableName, connectionInfo);
+        if (!targetTable.isPresent()) {
+          context.getRequest()
+              .setAttribute(ERROR_MESSAGE, getMultilang().getString("mydb.error.nonExistingTable"));
+          return;
+        }
+        fkTableView.setTable(targetTable);
+      }
+      if (paging) {
+        fkTableView.setFirstRowIndex(context.getRequest().getParameterAsInteger(FIRST_ROW_INDEX));
       }
+      context.getRequest().setAttribute(TABLE_VIEW, fkTableView);
     } catch (Exception e) {
       context.getRequest().setAttribute(ERROR_MESSAGE, e.getLocalizedMessage());
     }
@@ -381,6 +397,7 @@ public class MyDBWebController
           defaultStringIfNotDefined(request.getParameter(COMPARING_OPERATOR), FIELD_NONE);
       final String value =
           defaultValueIfNotDefined(request.getParameter(COMPARING_VALUE), FIELD_NONE);
+      tableView.resetPagination();
       if (FIELD_NONE.equals(fieldName) || FIELD_NONE.equals(comparator) ||
           FIELD_NONE.equals(value)) {
         tableView.getFilter().clear();
@@ -26,10 +26,16 @@ package org.silverpeas.components.mydb.web;
 
 import org.silverpeas.components.mydb.model.DbColumn;
 import org.silverpeas.components.mydb.model.DbTable;
+import org.silverpeas.components.mydb.model.RowOrder;
 import org.silverpeas.components.mydb.model.TableRow;
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.util.SilverpeasArrayList;
+import org.silverpeas.core.util.SilverpeasList;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -41,13 +47,20 @@ import java.util.stream.Collectors;
  */
 public class TableView {
 
+  static final int DEFAULT_PAGE_SIZE = 25;
+
   private Optional<DbTable> table = Optional.empty();
   private TableRowsFilter filter = new TableRowsFilter();
+  private final int pageSize;
+  private int pageNumber = 1;
+  private RowOrder order = null;
+  private final Map<Integer, TableRow> lastRowOfPages = new HashMap<>();
 
   /**
    * Constructs an empty table view. This view is on nothing.
    */
   TableView() {
+    this.pageSize = DEFAULT_PAGE_SIZE;
   }
 
   /**
@@ -73,6 +86,8 @@ public class TableView {
   void clear() {
     table = Optional.empty();
     filter.clear();
+    order = null;
+    resetPagination();
   }
 
   /**
@@ -81,6 +96,74 @@ public class TableView {
    */
   void setTable(final Optional<DbTable> table) {
     this.table = table;
+    order = null;
+    resetPagination();
+  }
+
+  /**
+   * Sorts the rows on the specified column: in the ascending order of its values if the rows
+   * aren't yet sorted on it, otherwise in the reverse order of the current one. The sort is done
+   * by the database. If there is no column with the given name, nothing is done.
+   * @param name the name of a column.
+   */
+  void sortOn(final String name) {
+    getColumn(name).ifPresent(c -> {
+      if (order != null && order.getColumnName().equals(c.getName()) && !order.isDescending()) {
+        order = RowOrder.descendingBy(c.getName());
+      } else {
+        order = RowOrder.ascendingBy(c.getName());
+      }
+      resetPagination();
+    });
+  }
+
+  /**
+   * Gets the name of the column on which the rows are sorted.
+   * @return the name of the column or an empty string if the rows are sorted by the primary key
+   * of the table.
+   */
+  public String getSortColumn() {
+    return order == null ? "" : order.getColumnName();
+  }
+
+  /**
+   * Are the rows sorted in the descending order of the values of the sort column?
+   * @return true if the sort is descending, false otherwise.
+   */
+  public boolean isSortDescending() {
+    return order != null && order.isDescending();
+  }
+
+  /**
+   * Goes back to the first page of the rows. To be called when the rows to display change.
+   */
+  void resetPagination() {
+    pageNumber = 1;
+    lastRowOfPages.clear();
+  }
+
+  /**
+   * Sets the page of rows to display from the index of its first row.
+   * @param firstRowIndex the index of the first row of the page among all the filtered rows.
+   */
+  void setFirstRowIndex(final int firstRowIndex) {
+    pageNumber = Math.max(0, firstRowIndex) / pageSize + 1;
+  }
+
+  /**
+   * Gets the index of the first row of the current page among all the filtered rows.
+   * @return the index of the first row in the page.
+   */
+  public int getFirstRowIndex() {
+    return (pageNumber - 1) * pageSize;
+  }
+
+  /**
+   * Gets the number of rows in a page.
+   * @return the size of the pages.
+   */
+  public int getPageSize() {
+    return pageSize;
   }
 
   /**
@@ -132,13 +215,12 @@ public class TableView {
   }
 
   /**
-   * Gets the rows without applying any filter.
-   * @return the rows (not filtered).
+   * Gets the rows of the current page with the filter applied. The total number of rows matching
+   * the filter is given by {@link SilverpeasList#originalListSize()}.
+   * @return the filtered rows of the current page.
    */
-  public List<TableRow> getRows() {
-    final List<TableRow> rows = new ArrayList<>();
-    table.ifPresent(t -> rows.addAll(applyFilter(t)));
-    return rows;
+  public SilverpeasList<TableRow> getRows() {
+    return table.map(this::applyFilter).orElseGet(SilverpeasArrayList::new);
   }
 
   /**
@@ -146,7 +228,7 @@ public class TableView {
    * @return true if the table has rows, false otherwise.
    */
   public boolean isEmpty() {
-    return getRows().isEmpty();
+    return getRows().originalListSize() == 0;
   }
 
   /**
@@ -170,6 +252,7 @@ public class TableView {
     table.ifPresent(t -> {
       TableRow row = applyFilter(t).get(rowIdx);
       t.delete(row);
+      lastRowOfPages.clear();
     });
   }
 
@@ -183,6 +266,7 @@ public class TableView {
     table.ifPresent(t -> {
       TableRow previous = applyFilter(t).get(rowIdx);
       t.update(previous, row);
+      lastRowOfPages.clear();
     });
   }
 
@@ -191,11 +275,30 @@ public class TableView {
    * @param row the {@link TableRow} instance to add.
    */
   public void addRow(final TableRow row) {
-    table.ifPresent(t -> t.add(row));
+    table.ifPresent(t -> {
+      t.add(row);
+      lastRowOfPages.clear();
+    });
   }
 
-  private List<TableRow> applyFilter(final DbTable table) {
-    return table.getRows(getFilter().getFilteringPredicate());
+  /**
+   * Gets the rows of the current page. When the last row of the previous page is known, the
+   * page is fetched from it so that the database doesn't have to skip all the rows before the
+   * page.
+   */
+  private SilverpeasList<TableRow> applyFilter(final DbTable table) {
+    final PaginationPage page = new PaginationPage(pageNumber, pageSize);
+    final TableRow previousRow = lastRowOfPages.get(pageNumber - 1);
+    final SilverpeasList<TableRow> rows;
+    if (previousRow != null) {
+      rows = table.getRowsAfter(getFilter().getFilteringPredicate(), order, page, previousRow);
+    } else {
+      rows = table.getRows(getFilter().getFilteringPredicate(), order, page);
+    }
+    if (!rows.isEmpty()) {
+      lastRowOfPages.put(pageNumber, rows.get(rows.size() - 1));
+    }
+    return rows;
   }
 
 }
@@ -53,7 +53,7 @@
     <c:set var="columns" value="${table.columns}"/>
     <c:set var="rows" value="${table.rows}"/>
     <div id="fk-table-view">
-      <view:arrayPane var="Table${table.name}" routingAddress="ViewTargetTable" export="false" numberLinesPerPage="25">
+      <view:arrayPane var="Table${table.name}" routingAddress="ViewTargetTable" export="false" numberLinesPerPage="${table.pageSize}">
         <c:forEach var="column" items="${columns}">
           <c:set var="columnName" value="${column.name}"/>
           <c:if test="${column.primaryKey}">
@@ -75,6 +75,19 @@
           </view:arrayLine>
         </view:arrayLines>
       </view:arrayPane>
+      <c:set var="rowCount" value="${rows.originalListSize()}"/>
+      <c:if test="${rowCount > table.pageSize}">
+        <c:set var="lastRowIndex" value="${table.firstRowIndex + rows.size()}"/>
+        <div id="fk-table-pagination">
+          <c:if test="${table.firstRowIndex > 0}">
+            <a href="javascript:openForeignKeyPage(${table.firstRowIndex - table.pageSize})">&lt;</a>
+          </c:if>
+          <span>${table.firstRowIndex + 1} - ${lastRowIndex} / ${rowCount}</span>
+          <c:if test="${lastRowIndex < rowCount}">
+            <a href="javascript:openForeignKeyPage(${lastRowIndex})">&gt;</a>
+          </c:if>
+        </div>
+      </c:if>
     </div>
   </c:otherwise>
 </c:choose>
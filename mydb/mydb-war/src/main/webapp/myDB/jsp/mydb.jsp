@@ -44,6 +44,8 @@
 <view:setConstant var="comparingOperators" constant="org.silverpeas.components.mydb.web.MyDBWebController.COMPARING_OPERATORS"/>
 <view:setConstant var="nothing" constant="org.silverpeas.components.mydb.web.TableRowsFilter.FIELD_NONE"/>
 <view:setConstant var="rowIndex" constant="org.silverpeas.components.mydb.web.MyDBWebController.ROW_INDEX"/>
+<view:setConstant var="firstRowIndex" constant="org.silverpeas.components.mydb.web.MyDBWebController.FIRST_ROW_INDEX"/>
+<view:setConstant var="sortColumn" constant="org.silverpeas.components.mydb.web.MyDBWebController.SORT_COLUMN"/>
 <view:setConstant var="nullValue" constant="org.silverpeas.components.mydb.model.predicates.AbstractColumnValuePredicate.NULL_VALUE"/>
 
 <c:set var="componentId"       value="${requestScope.browseContext[3]}"/>
@@ -130,6 +132,15 @@
       }
     }
 
+    /**
+     * Sorts the rows of the default table on the column of the clicked header and then refreshes
+     * the view. The rows are sorted by the database so that the sort applies to all the pages.
+     */
+    function sortTableRows(header) {
+      sp.ajaxRequest('ViewTable').withParam('${sortColumn}', $(header).attr('data-column'))
+          .send().then(rowsPane.refreshFromRequestResponse);
+    }
+
     /**
      * Deletes the row at the specified index in the view of the default table and then refreshes
      * the view.
@@ -229,12 +240,18 @@
      */
     var fkRowId = null;
 
+    /**
+     * The name of the table opened to select a row as foreign key.
+     */
+    var fkTableName = null;
+
     /**
      * Open the specified table to select a row as foreign key when inserting a new row in the
      * current table. This function is invoked by the JSP rendered into the popup of row adding.
      */
     function openForeignKey(tableName, fieldName) {
       fkRowId = null;
+      fkTableName = tableName;
       sp.ajaxRequest('ViewTargetTable').withParam('${tableView}', tableName).send().then(
           function(response) {
             renderRowForm('', response, function(row) {
@@ -243,6 +260,23 @@
           });
     }
 
+    /**
+     * Renders into the popup of the row selection for foreign key setting the page of rows
+     * starting at the specified index in the table opened to select a foreign key.
+     */
+    function openForeignKeyPage(firstRowIndex) {
+      sp.ajaxRequest('ViewTargetTable').withParam('${tableView}', fkTableName)
+          .withParam('${firstRowIndex}', firstRowIndex).send().then(function(response) {
+            var page = $('<div>').html(response.responseText);
+            if (page.find('#error').length > 0) {
+              notyError(page.find('#error').html());
+            } else {
+              fkRowId = null;
+              $('#fk-table-view').replaceWith(page.find('#fk-table-view'));
+            }
+          });
+    }
+
     /**
      * A row in a table has been selected as a foreign key. This function is invoked by the JSP
      * rendered into the popup of the row selection for foreign key setting.
@@ -353,14 +387,18 @@
       </form>
     </div>
     <div id="table-view">
-      <view:arrayPane var="Table${componentId}" routingAddress="ViewTable" export="false" numberLinesPerPage="25">
+      <view:arrayPane var="Table${componentId}" routingAddress="ViewTable" export="false" numberLinesPerPage="${currentTable.pageSize}">
         <c:forEach var="column" items="${columns}">
           <c:set var="columnName" value="${column.name}"/>
           <c:if test="${column.primaryKey}">
             <c:set var="columnName">${columnName}
               <img alt="primary key" src="${primaryKeyIcon}" width="10" height="10"/></c:set>
           </c:if>
-          <view:arrayColumn title="${columnName}" compareOn="${(r, i) -> r.getFieldValue(columns[i].name)}"/>
+          <c:if test="${column.name eq currentTable.sortColumn}">
+            <c:set var="columnName">${columnName} ${currentTable.sortDescending ? '&#9660;' : '&#9650;'}</c:set>
+          </c:if>
+          <c:set var="columnName"><a href="#" class="sort-column" data-column="${fn:escapeXml(column.name)}" onclick="sortTableRows(this); return false;">${columnName}</a></c:set>
+          <view:arrayColumn title="${columnName}" sortable="false"/>
         </c:forEach>
         <c:if test="${requestScope.highestUserRole.isGreaterThanOrEquals(publisherRole)}">
           <view:arrayColumn title="${operations}" sortable="false"/>
@@ -383,6 +421,10 @@
         </view:arrayLines>
         </c:if>
       </view:arrayPane>
+      <c:if test="${rows.originalListSize() > currentTable.pageSize}">
+        <view:pagination currentPage="${currentTable.firstRowIndex}" totalNumberOfItems="${rows.originalListSize()}"
+                         nbItemsPerPage="${currentTable.pageSize}" action="ViewTable?${firstRowIndex}="/>
+      </c:if>
     </div>
   </view:frame>
 </view:window>
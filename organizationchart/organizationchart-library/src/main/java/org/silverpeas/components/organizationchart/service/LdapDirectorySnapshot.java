@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.organizationchart.service;
+
+import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory snapshot of the units and of the persons of a LDAP directory below the root of an
+ * organization chart.
+ * <p>
+ * The snapshot is loaded with a single paged subtree search so that an organization chart, with
+ * the members and the sub-units of each of its units, is built without any other request to the
+ * LDAP server. Only the attributes used to build the charts are loaded. The snapshots are shared
+ * between the charts with the same LDAP source and are reloaded once their time to live, defined
+ * in the configuration, is over.
+ * </p>
+ */
+final class LdapDirectorySnapshot {
+
+  private static final int PAGE_SIZE = 500;
+  private static final long MIN_RETRY_DELAY = TimeUnit.SECONDS.toMillis(10);
+  private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(10);
+  private static final Map<String, Holder> snapshots = new ConcurrentHashMap<>();
+
+  private final LdapName base;
+  private final long loadingTime;
+  private final Map<LdapName, Entry> entries = new HashMap<>();
+  private final Map<LdapName, List<Entry>> units = new HashMap<>();
+  private final Map<LdapName, List<Entry>> persons = new HashMap<>();
+
+  private LdapDirectorySnapshot(final LdapName base) {
+    this.base = base;
+    this.loadingTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Gets the snapshot of the LDAP directory described by the specified configuration. The
+   * snapshot is loaded if there is none yet or if the current one is expired.
+   * @param config the configuration of a LDAP organization chart.
+   * @return the snapshot of the directory.
+   * @throws NamingException if the directory cannot be loaded.
+   */
+  static LdapDirectorySnapshot of(LdapOrganizationChartConfiguration config)
+      throws NamingException {
+    String key = String.join("|", config.getEnv().get(Context.PROVIDER_URL),
+        config.getEnv().get(Context.SECURITY_PRINCIPAL), config.getRoot(),
+        config.getLdapClassUnit(), config.getLdapClassPerson(),
+        String.join(",", getReturnedAttributes(config)));
+    return snapshots.computeIfAbsent(key, k -> new Holder()).get(config);
+  }
+
+  /**
+   * Loads a snapshot of the LDAP directory described by the specified configuration.
+   * @param config the configuration of a LDAP organization chart.
+   * @return the loaded snapshot.
+   * @throws NamingException if the directory cannot be loaded.
+   */
+  static LdapDirectorySnapshot load(LdapOrganizationChartConfiguration config)
+      throws NamingException {
+    LdapDirectorySnapshot snapshot = new LdapDirectorySnapshot(new LdapName(config.getRoot()));
+    String unitClass = config.getLdapClassUnit();
+    String personClass = config.getLdapClassPerson();
+    SearchControls ctls = new SearchControls();
+    ctls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+    ctls.setCountLimit(0);
+    ctls.setReturningAttributes(getReturnedAttributes(config));
+    String filter = "(|(objectclass=" + unitClass + ")(objectclass=" + personClass + "))";
+
+    LdapContext ctx = new InitialLdapContext(new Hashtable<>(config.getEnv()), null);
+    try {
+      byte[] cookie = null;
+      do {
+        ctx.setRequestControls(
+            new Control[]{new PagedResultsControl(PAGE_SIZE, cookie, Control.NONCRITICAL)});
+        NamingEnumeration<SearchResult> results = ctx.search(config.getRoot(), filter, ctls);
+        while (results.hasMore()) {
+          SearchResult result = results.next();
+          Attribute objectClasses = result.getAttributes().get("objectClass");
+          boolean isUnit = hasValue(objectClasses, unitClass);
+          boolean isPerson = !isUnit && hasValue(objectClasses, personClass);
+          snapshot.add(result.getNameInNamespace(), result.getAttributes(), isUnit, isPerson);
+        }
+        cookie = getCookie(ctx.getResponseControls());
+      } while (cookie != null && cookie.length > 0);
+    } catch (IOException e) {
+      NamingException ne = new NamingException(e.getMessage());
+      ne.setRootCause(e);
+      throw ne;
+    } finally {
+      ctx.close();
+    }
+    return snapshot;
+  }
+
+  /**
+   * Gets the attributes used to build the charts: the object classes of the entries, the
+   * attributes mapped in the configuration and the additional ones displayed in the charts.
+   * @param config the configuration of a LDAP organization chart.
+   * @return the names of the attributes to load, sorted whatever their case.
+   */
+  static String[] getReturnedAttributes(LdapOrganizationChartConfiguration config) {
+    Set<String> attributes = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    attributes.add("objectClass");
+    for (String attribute : new String[]{config.getAttUnit(), config.getAttName(),
+        config.getAttTitle(), config.getAttDesc(), config.getLdapAttAccount(),
+        config.getLdapAttActif(), config.getLdapAttCSSClass()}) {
+      if (StringUtil.isDefined(attribute)) {
+        attributes.add(attribute);
+      }
+    }
+    if (config.getUnitsChartOthersInfosKeys() != null) {
+      attributes.addAll(config.getUnitsChartOthersInfosKeys().keySet());
+    }
+    if (config.getPersonnsChartOthersInfosKeys() != null) {
+      attributes.addAll(config.getPersonnsChartOthersInfosKeys().keySet());
+    }
+    return attributes.toArray(new String[0]);
+  }
+
+  private static boolean hasValue(Attribute attribute, String value) throws NamingException {
+    if (attribute != null) {
+      NamingEnumeration<?> values = attribute.getAll();
+      while (values.hasMore()) {
+        if (value.equalsIgnoreCase(String.valueOf(values.next()))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static byte[] getCookie(Control[] controls) {
+    if (controls != null) {
+      for (Control control : controls) {
+        if (control instanceof PagedResultsResponseControl) {
+          return ((PagedResultsResponseControl) control).getCookie();
+        }
+      }
+    }
+    return null;
+  }
+
+  private void add(String dn, Attributes attributes, boolean isUnit, boolean isPerson)
+      throws NamingException {
+    LdapName name = new LdapName(dn);
+    Entry entry = new Entry(dn, name, attributes);
+    entries.put(name, entry);
+    if (name.size() > 0) {
+      LdapName parent = (LdapName) name.getPrefix(name.size() - 1);
+      if (isUnit) {
+        units.computeIfAbsent(parent, p -> new ArrayList<>()).add(entry);
+      } else if (isPerson) {
+        persons.computeIfAbsent(parent, p -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
+  private boolean isExpired(long timeToLive) {
+    return System.currentTimeMillis() - loadingTime >= TimeUnit.SECONDS.toMillis(timeToLive);
+  }
+
+  /**
+   * Is the specified entry within the subtree of this snapshot?
+   * @param dn the distinguished name of an entry.
+   * @return true if the entry is the root of this snapshot or one of its descendants.
+   * @throws NamingException if the name isn't a valid distinguished name.
+   */
+  boolean covers(String dn) throws NamingException {
+    return new LdapName(dn).startsWith(base);
+  }
+
+  /**
+   * Is the specified name the one of the root of this snapshot?
+   * @param name a distinguished name.
+   * @return true if the name is the one of the root of the snapshot.
+   */
+  boolean isBase(LdapName name) {
+    return base.equals(name);
+  }
+
+  /**
+   * Gets the unit or the person with the specified distinguished name.
+   * @param name a distinguished name.
+   * @return the entry or null if there is neither unit nor person with such a name.
+   */
+  Entry getEntry(LdapName name) {
+    return entries.get(name);
+  }
+
+  /**
+   * Gets the attributes of the specified entry.
+   * @param dn the distinguished name of an entry.
+   * @return the attributes of the entry, empty if the entry is neither a unit nor a person.
+   * @throws NamingException if the name isn't a valid distinguished name.
+   */
+  Attributes getAttributes(String dn) throws NamingException {
+    Entry entry = entries.get(new LdapName(dn));
+    return entry != null ? entry.getAttributes() : new BasicAttributes(true);
+  }
+
+  /**
+   * Gets the units directly below the specified entry.
+   * @param dn the distinguished name of an entry.
+   * @return the sub-units in the order they were returned by the LDAP server.
+   * @throws NamingException if the name isn't a valid distinguished name.
+   */
+  List<Entry> getUnits(String dn) throws NamingException {
+    return units.getOrDefault(new LdapName(dn), Collections.emptyList());
+  }
+
+  /**
+   * Gets the persons directly below the specified entry.
+   * @param dn the distinguished name of an entry.
+   * @return the persons in the order they were returned by the LDAP server.
+   * @throws NamingException if the name isn't a valid distinguished name.
+   */
+  List<Entry> getPersons(String dn) throws NamingException {
+    return persons.getOrDefault(new LdapName(dn), Collections.emptyList());
+  }
+
+  /**
+   * An entry of the LDAP directory, either a unit or a person.
+   */
+  static class Entry {
+    private final String dn;
+    private final LdapName name;
+    private final Attributes attributes;
+
+    private Entry(final String dn, final LdapName name, final Attributes attributes) {
+      this.dn = dn;
+      this.name = name;
+      this.attributes = attributes;
+    }
+
+    String getDn() {
+      return dn;
+    }
+
+    LdapName getName() {
+      return name;
+    }
+
+    Attributes getAttributes() {
+      return attributes;
+    }
+  }
+
+  /**
+   * Holds the current snapshot of a LDAP source. Only one thread loads a snapshot at a time: the
+   * others wait for the first snapshot, and then get the expired one while it is reloaded instead
+   * of querying the LDAP server too. If a reload fails, the previous snapshot is kept so that the
+   * charts are still displayed, and no other reload is tried before a delay that doubles with each
+   * failure, from 10 seconds up to 10 minutes.
+   */
+  private static class Holder {
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile LdapDirectorySnapshot snapshot;
+    private long retryDelay = 0;
+    private long nextAttempt = 0;
+
+    LdapDirectorySnapshot get(LdapOrganizationChartConfiguration config)
+        throws NamingException {
+      LdapDirectorySnapshot current = snapshot;
+      if (current != null && !current.isExpired(config.getSnapshotTimeToLive())) {
+        return current;
+      }
+      if (current == null) {
+        lock.lock();
+      } else if (!lock.tryLock()) {
+        return current;
+      }
+      try {
+        current = snapshot;
+        if (current != null && !current.isExpired(config.getSnapshotTimeToLive())) {
+          return current;
+        }
+        if (System.currentTimeMillis() < nextAttempt) {
+          if (current == null) {
+            throw new NamingException(
+                "LDAP directory below '" + config.getRoot() + "' not reloaded yet after a failure");
+          }
+          return current;
+        }
+        return reload(config, current);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private LdapDirectorySnapshot reload(LdapOrganizationChartConfiguration config,
+        LdapDirectorySnapshot current) throws NamingException {
+      try {
+        snapshot = load(config);
+        retryDelay = 0;
+        nextAttempt = 0;
+        return snapshot;
+      } catch (NamingException e) {
+        retryDelay = Math.min(Math.max(retryDelay * 2, MIN_RETRY_DELAY), MAX_RETRY_DELAY);
+        nextAttempt = System.currentTimeMillis() + retryDelay;
+        if (current == null) {
+          throw e;
+        }
+        SilverLogger.getLogger(LdapDirectorySnapshot.class)
+            .error("cannot reload the LDAP directory below ''{0}'', next attempt in {1} s",
+                new String[]{config.getRoot(), String.valueOf(retryDelay / 1000)}, e);
+        return current;
+      }
+    }
+  }
+}
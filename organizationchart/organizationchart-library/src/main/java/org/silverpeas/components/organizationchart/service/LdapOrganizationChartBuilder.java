@@ -37,16 +37,11 @@ import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
-import javax.naming.directory.DirContext;
-import javax.naming.directory.InitialDirContext;
-import javax.naming.directory.SearchControls;
-import javax.naming.directory.SearchResult;
 import javax.naming.ldap.LdapName;
 import javax.naming.ldap.Rdn;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -57,7 +52,6 @@ import static org.silverpeas.components.organizationchart.model.OrganizationalCh
 
 class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
 
-  private static final String OBJECT_CLASS = "(objectclass=";
   private final LdapOrganizationChartConfiguration config;
 
   static LdapOrganizationChartBuilder from(LdapOrganizationChartConfiguration config) {
@@ -70,8 +64,6 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
 
   OrganizationalChart buildFor(String baseOu, OrganizationalChartType type) {
 
-    Map<String, String> env = config.getEnv();
-
     List<OrganizationalPerson> ouMembers = null;
     List<OrganizationalUnit> units = null;
 
@@ -84,40 +76,34 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
     OrganizationalUnit parent = new OrganizationalUnit(firstOu[1], rootOu);
     setParents(parent, config.getAttUnit(), rootOu);
 
-    DirContext ctx = null;
     try {
-      ctx = new InitialDirContext(new Hashtable<>(env));
-      SearchControls ctls = new SearchControls();
-      ctls.setSearchScope(SearchControls.ONELEVEL_SCOPE);
-      ctls.setCountLimit(0);
+      LdapDirectorySnapshot snapshot = LdapDirectorySnapshot.of(config);
+      if (!snapshot.covers(rootOu)) {
+        SilverLogger.getLogger(this)
+            .warn("the organization unit ''{0}'' is out of the chart root ''{1}''", rootOu,
+                config.getRoot());
+        return null;
+      }
 
       if (StringUtil.isDefined(config.getLdapAttCSSClass())) {
-        OrganizationalUnit root = getOrganizationalUnit(ctx, rootOu);
-        String cssClass = getSpecificCSSClass(ctx, root);
+        OrganizationalUnit root = getOrganizationalUnit(snapshot, rootOu);
+        String cssClass = getSpecificCSSClass(snapshot, root);
         parent.setSpecificCSSClass(cssClass);
         parent.setDetail(root.getDetail());
       }
 
       // get organization unit members
-      ouMembers = getOUMembers(ctx, ctls, rootOu, type);
+      ouMembers = getOUMembers(snapshot, rootOu, type);
       parent.setHasMembers(ouMembers.size() > 1);
 
       // get sub organization units
       if (type == TYPE_UNITCHART) {
-        units = getSubOrganizationUnits(ctx, ctls, rootOu);
+        units = getSubOrganizationUnits(snapshot, rootOu);
       }
 
     } catch (NamingException e) {
       SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
       return null;
-    } finally {
-      if (ctx != null) {
-        try {
-          ctx.close();
-        } catch (NamingException e) {
-          SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
-        }
-      }
     }
 
     boolean silverpeasUserLinkable = StringUtil.isDefined(config.getDomainId());
@@ -162,48 +148,27 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
     }
   }
 
-  private OrganizationalUnit getParentOU(String ou) {
-
-
-    //OU=DGA2,OU=DGS,OU=Ailleurs
-    String parentOu = ou.substring(ou.indexOf(',') + 1);
-    // DGA2
-    String parentName = parentOu.substring(3, parentOu.indexOf(','));
-
-
-    return new OrganizationalUnit(parentName, parentOu);
-  }
-
   /**
    * Get person list for a given OU.
-   * @param ctx Search context
-   * @param ctls Search controls
+   * @param snapshot snapshot of the LDAP directory
    * @param rootOu rootOu
    * @param type type
    * @return a List of OrganizationalPerson objects.
    * @throws NamingException
    */
-  private List<OrganizationalPerson> getOUMembers(DirContext ctx, SearchControls ctls,
-      String rootOu, OrganizationalChartType type) throws NamingException {
+  private List<OrganizationalPerson> getOUMembers(LdapDirectorySnapshot snapshot, String rootOu,
+      OrganizationalChartType type) throws NamingException {
 
     List<OrganizationalPerson> personList = new ArrayList<>();
 
-    NamingEnumeration<SearchResult> results =
-        ctx.search(rootOu, OBJECT_CLASS + config.getLdapClassPerson() + ")", ctls);
-
-
     int i = 0;
 
-    while (results != null && results.hasMore()) {
-      SearchResult entry = results.next();
-      if (StringUtil.isDefined(entry.getName())) {
-        Attributes attrs = entry.getAttributes();
-        if (isUserActive(config.getLdapAttActif(), attrs)) {
-          OrganizationalPerson person =
-              loadOrganizationalPerson(i, attrs, entry.getNameInNamespace(), type);
-          personList.add(person);
-          i++;
-        }
+    for (LdapDirectorySnapshot.Entry entry : snapshot.getPersons(rootOu)) {
+      Attributes attrs = entry.getAttributes();
+      if (isUserActive(config.getLdapAttActif(), attrs)) {
+        OrganizationalPerson person = loadOrganizationalPerson(i, attrs, entry.getDn(), type);
+        personList.add(person);
+        i++;
       }
     }
     Collections.sort(personList, new OrganizationalPersonComparator());
@@ -212,25 +177,20 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
 
   /**
    * Get sub organization units of a given OU.
-   * @param ctx Search context
-   * @param ctls Search controls
+   * @param snapshot snapshot of the LDAP directory
    * @param rootOu rootOu
    * @return a List of OrganizationalUnit objects.
    * @throws NamingException
    */
-  private List<OrganizationalUnit> getSubOrganizationUnits(DirContext ctx, SearchControls ctls,
+  private List<OrganizationalUnit> getSubOrganizationUnits(LdapDirectorySnapshot snapshot,
       String rootOu) throws NamingException {
 
     ArrayList<OrganizationalUnit> units = new ArrayList<>();
 
-    NamingEnumeration<SearchResult> results =
-        ctx.search(rootOu, OBJECT_CLASS + config.getLdapClassUnit() + ")", ctls);
-
-    while (results != null && results.hasMore()) {
-      SearchResult entry = results.next();
+    for (LdapDirectorySnapshot.Entry entry : snapshot.getUnits(rootOu)) {
       Attributes attrs = entry.getAttributes();
       String ou = getFirstAttributeValue(attrs.get(config.getAttUnit()));
-      String completeOu = entry.getNameInNamespace();
+      String completeOu = entry.getDn();
       OrganizationalUnit unit = new OrganizationalUnit(ou, completeOu);
       setParents(unit, config.getAttUnit(), completeOu);
       // build details map
@@ -244,15 +204,12 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
     }
 
     for (OrganizationalUnit unit : units) {
-      boolean hasSubOrganizations =
-          hasResults(unit.getCompleteName(), OBJECT_CLASS + config.getLdapClassUnit() + ")", ctx,
-              ctls);
-      unit.setHasSubUnits(hasSubOrganizations);
+      unit.setHasSubUnits(!snapshot.getUnits(unit.getCompleteName()).isEmpty());
 
       try {
         // set responsible of subunit
         List<OrganizationalPerson> users =
-            getOUMembers(ctx, ctls, unit.getCompleteName(), TYPE_UNITCHART);
+            getOUMembers(snapshot, unit.getCompleteName(), TYPE_UNITCHART);
         List<OrganizationalPerson> mainActors = getMainActors(users);
         unit.setMainActors(mainActors);
 
@@ -261,7 +218,7 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
 
         // set css class
         if (StringUtil.isDefined(config.getLdapAttCSSClass())) {
-          String cssClass = getSpecificCSSClass(ctx, unit);
+          String cssClass = getSpecificCSSClass(snapshot, unit);
           unit.setSpecificCSSClass(cssClass);
         }
       } catch (Exception e) {
@@ -274,9 +231,9 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
     return units;
   }
 
-  private OrganizationalUnit getOrganizationalUnit(DirContext ctx, String rootOu)
+  private OrganizationalUnit getOrganizationalUnit(LdapDirectorySnapshot snapshot, String rootOu)
       throws NamingException {
-    Attributes attrs = ctx.getAttributes(rootOu);
+    Attributes attrs = snapshot.getAttributes(rootOu);
 
     String ou = getFirstAttributeValue(attrs.get(config.getAttUnit()));
     OrganizationalUnit unit = new OrganizationalUnit(ou, rootOu);
@@ -292,22 +249,19 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
     return unit;
   }
 
-  private String getSpecificCSSClass(DirContext ctx, OrganizationalUnit unit)
+  private String getSpecificCSSClass(LdapDirectorySnapshot snapshot, OrganizationalUnit unit)
       throws NamingException {
     String cssClass = unit.getSpecificCSSClass();
 
     if (!StringUtil.isDefined(cssClass) && !isRoot(unit.getCompleteName())) {
       // get specific CSS class on parents
-      String ou = unit.getCompleteName();
-      while (StringUtil.isDefined(ou) && !StringUtil.isDefined(cssClass) && !isRoot(ou)) {
-        OrganizationalUnit parent = getParentOU(ou);
-        if (parent.getCompleteName() != null) {
-          OrganizationalUnit fullParent =
-              getOrganizationalUnit(ctx, parent.getCompleteName());
-          cssClass = fullParent.getSpecificCSSClass();
-          ou = parent.getCompleteName();
-        } else {
-          ou = "";
+      LdapName ou = new LdapName(unit.getCompleteName());
+      while (!StringUtil.isDefined(cssClass) && ou.size() > 1 && !snapshot.isBase(ou)) {
+        ou = (LdapName) ou.getPrefix(ou.size() - 1);
+        LdapDirectorySnapshot.Entry parent = snapshot.getEntry(ou);
+        if (parent != null) {
+          cssClass =
+              getFirstAttributeValue(parent.getAttributes().get(config.getLdapAttCSSClass()));
         }
       }
     }
@@ -315,26 +269,6 @@ class LdapOrganizationChartBuilder extends AbstractOrganizationChartBuilder {
     return cssClass;
   }
 
-  /**
-   * Launch a search and return true if there are results.
-   * @param baseDN baseDN for search
-   * @param filter search filter
-   * @param ctx search context
-   * @param ctls search controls
-   * @return true is at least one result is found.
-   * @throws NamingException
-   */
-  private boolean hasResults(String baseDN, String filter, DirContext ctx, SearchControls ctls)
-      throws NamingException {
-    NamingEnumeration<SearchResult> results = getResults(baseDN, filter, ctx, ctls);
-    return (results != null && results.hasMoreElements());
-  }
-
-  private NamingEnumeration<SearchResult> getResults(String baseDN, String filter, DirContext ctx,
-      SearchControls ctls) throws NamingException {
-    return ctx.search(baseDN, filter, ctls);
-  }
-
   /**
    * Build a OrganizationalPerson object by retrieving attributes values
    * @param id person Id
@@ -41,10 +41,13 @@ public class LdapOrganizationChartConfiguration extends AbstractOrganizationChar
 
   private String ldapAttActif = null;
   private String domainId = null;
+  private long snapshotTimeToLive = 300;
 
   public LdapOrganizationChartConfiguration() {
     this.env = new Hashtable<>();
     env.put(Context.REFERRAL, "ignore");
+    // the connections to the LDAP server are reused between the loadings of the directory
+    env.put("com.sun.jndi.ldap.connect.pool", "true");
   }
 
   /**
@@ -167,4 +170,20 @@ public class LdapOrganizationChartConfiguration extends AbstractOrganizationChar
     return ldapAttCSSClass;
   }
 
-}
\ No newline at end of file
+  /**
+   * @return the time in seconds during which a snapshot of the LDAP directory is used before
+   * being reloaded.
+   */
+  long getSnapshotTimeToLive() {
+    return snapshotTimeToLive;
+  }
+
+  /**
+   * @param snapshotTimeToLive the time in seconds during which a snapshot of the LDAP directory
+   * is used before being reloaded. With 0, the directory is loaded for each chart.
+   */
+  public void setSnapshotTimeToLive(long snapshotTimeToLive) {
+    this.snapshotTimeToLive = snapshotTimeToLive;
+  }
+
+}
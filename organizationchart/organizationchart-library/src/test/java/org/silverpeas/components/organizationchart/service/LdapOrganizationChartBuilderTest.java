@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.organizationchart.service;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.silverpeas.components.organizationchart.model.OrganizationalChart;
+import org.silverpeas.components.organizationchart.model.OrganizationalChartType;
+import org.silverpeas.components.organizationchart.model.OrganizationalPerson;
+import org.silverpeas.components.organizationchart.model.OrganizationalRole;
+import org.silverpeas.components.organizationchart.model.OrganizationalUnit;
+
+import javax.naming.directory.Attributes;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the building of the LDAP organization charts from the snapshot of an embedded directory.
+ */
+public class LdapOrganizationChartBuilderTest {
+
+  private InMemoryDirectoryServer server;
+  private int port;
+  private LdapOrganizationChartConfiguration config;
+
+  @Before
+  public void startDirectory() throws Exception {
+    InMemoryDirectoryServerConfig serverConfig = new InMemoryDirectoryServerConfig("o=silverpeas");
+    // a fixed port so that the directory can be stopped and restarted at the same URL
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    serverConfig.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", port));
+    server = new InMemoryDirectoryServer(serverConfig);
+    server.add("dn: o=silverpeas", "objectClass: top", "objectClass: organization",
+        "o: silverpeas");
+    addUnit("ou=DGS,o=silverpeas", "DGS", "blue");
+    addUnit("ou=DGA1,ou=DGS,o=silverpeas", "DGA1", null);
+    addUnit("ou=DGA2,ou=DGS,o=silverpeas", "DGA2", null);
+    addUnit("ou=Service,ou=DGA1,ou=DGS,o=silverpeas", "Service", null);
+    addPerson("uid=boss,ou=DGS,o=silverpeas", "Bernard Boss", "Directeur");
+    addPerson("uid=alice,ou=DGS,o=silverpeas", "Alice Martin", "Assistante");
+    addPerson("uid=bob,ou=DGA1,ou=DGS,o=silverpeas", "Bob Durand", "Directeur adjoint");
+    addPerson("uid=carl,ou=DGA1,ou=DGS,o=silverpeas", "Carl Petit", "Technicien");
+    server.startListening();
+
+    config = new LdapOrganizationChartConfiguration();
+    config.setServerURL("ldap://localhost:" + port);
+    config.setInitialContextFactory("com.sun.jndi.ldap.LdapCtxFactory");
+    config.setAuthenticationMode("none");
+    config.setRoot("ou=DGS,o=silverpeas");
+    config.setLdapClassPerson("inetOrgPerson");
+    config.setLdapClassUnit("organizationalUnit");
+    config.setAttUnit("ou");
+    config.setAttName("cn");
+    config.setAttTitle("title");
+    config.setAttDesc("description");
+    config.setLdapAttAccount("uid");
+    config.setLdapAttCSSClass("businessCategory");
+    config.setUnitsChartCentralLabel(
+        Collections.singletonList(new OrganizationalRole("Direction", "directeur")));
+    config.setUnitsChartRightLabel(Collections.emptyList());
+    config.setUnitsChartLeftLabel(Collections.emptyList());
+    config.setPersonnsChartCentralLabel(Collections.emptyList());
+    config.setPersonnsChartCategoriesLabel(Collections.emptyList());
+    config.setUnitsChartOthersInfosKeys(new HashMap<>());
+    config.setPersonnsChartOthersInfosKeys(new HashMap<>());
+    // the directory is reloaded for each chart unless a test says otherwise
+    config.setSnapshotTimeToLive(0);
+  }
+
+  @After
+  public void stopDirectory() {
+    server.shutDown(true);
+  }
+
+  @Test
+  public void theUnitChartIsBuiltFromTheDirectory() {
+    OrganizationalChart chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor(null, OrganizationalChartType.TYPE_UNITCHART);
+
+    assertThat(chart, notNullValue());
+    assertThat(chart.getRoot().getSpecificCSSClass(), is("blue"));
+    assertThat(names(chart.getPersonns()), contains("Alice Martin", "Bernard Boss"));
+
+    List<OrganizationalUnit> units = chart.getUnits();
+    assertThat(units.stream().map(OrganizationalUnit::getName).collect(Collectors.toList()),
+        containsInAnyOrder("DGA1", "DGA2"));
+    OrganizationalUnit dga1 = unit(units, "DGA1");
+    assertThat(dga1.hasSubUnits(), is(true));
+    assertThat(dga1.hasMembers(), is(true));
+    assertThat(names(dga1.getMainActors()), contains("Bob Durand"));
+    assertThat(dga1.getSpecificCSSClass(), is("blue"));
+    OrganizationalUnit dga2 = unit(units, "DGA2");
+    assertThat(dga2.hasSubUnits(), is(false));
+    assertThat(dga2.hasMembers(), is(false));
+  }
+
+  @Test
+  public void theSnapshotIsReusedUntilItExpires() throws Exception {
+    OrganizationalChart chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=DGA2,ou=DGS,o=silverpeas", OrganizationalChartType.TYPE_PERSONNCHART);
+    assertThat(chart.getPersonns(), empty());
+
+    config.setSnapshotTimeToLive(300);
+    addPerson("uid=dan,ou=DGA2,ou=DGS,o=silverpeas", "Dan Leroy", "Technicien");
+    chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=DGA2,ou=DGS,o=silverpeas", OrganizationalChartType.TYPE_PERSONNCHART);
+    assertThat(chart.getPersonns(), empty());
+
+    config.setSnapshotTimeToLive(0);
+    chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=DGA2,ou=DGS,o=silverpeas", OrganizationalChartType.TYPE_PERSONNCHART);
+    assertThat(names(chart.getPersonns()), contains("Dan Leroy"));
+  }
+
+  @Test
+  public void onlyTheAttributesUsedByTheChartsAreLoaded() throws Exception {
+    config.setPersonnsChartOthersInfosKeys(Collections.singletonMap("sn", "Nom"));
+    assertThat(Arrays.asList(LdapDirectorySnapshot.getReturnedAttributes(config)),
+        contains("businessCategory", "cn", "description", "objectClass", "ou", "sn", "title",
+            "uid"));
+
+    config.setPersonnsChartOthersInfosKeys(new HashMap<>());
+    Attributes attrs = LdapDirectorySnapshot.load(config)
+        .getAttributes("uid=boss,ou=DGS,o=silverpeas");
+    assertThat((String) attrs.get("cn").get(), is("Bernard Boss"));
+    assertThat((String) attrs.get("title").get(), is("Directeur"));
+    assertThat(attrs.get("sn"), nullValue());
+  }
+
+  @Test
+  public void aFailedReloadIsNotRetriedBeforeADelay() throws Exception {
+    OrganizationalChart chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=DGA2,ou=DGS,o=silverpeas", OrganizationalChartType.TYPE_PERSONNCHART);
+    assertThat(chart.getPersonns(), empty());
+
+    // the previous snapshot is kept while the directory is unreachable
+    server.shutDown(true);
+    chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=DGA2,ou=DGS,o=silverpeas", OrganizationalChartType.TYPE_PERSONNCHART);
+    assertThat(chart, notNullValue());
+    assertThat(chart.getPersonns(), empty());
+
+    // the directory is back but the reload waits for the end of the delay
+    addPerson("uid=dan,ou=DGA2,ou=DGS,o=silverpeas", "Dan Leroy", "Technicien");
+    server.startListening();
+    chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=DGA2,ou=DGS,o=silverpeas", OrganizationalChartType.TYPE_PERSONNCHART);
+    assertThat(chart.getPersonns(), empty());
+  }
+
+  @Test
+  public void aUnitOutOfTheRootIsRejected() {
+    OrganizationalChart chart = LdapOrganizationChartBuilder.from(config)
+        .buildFor("ou=Other,o=silverpeas", OrganizationalChartType.TYPE_UNITCHART);
+    assertThat(chart, nullValue());
+  }
+
+  private void addUnit(String dn, String name, String cssClass) throws Exception {
+    if (cssClass == null) {
+      server.add("dn: " + dn, "objectClass: top", "objectClass: organizationalUnit", "ou: " + name);
+    } else {
+      server.add("dn: " + dn, "objectClass: top", "objectClass: organizationalUnit", "ou: " + name,
+          "businessCategory: " + cssClass);
+    }
+  }
+
+  private void addPerson(String dn, String fullName, String title) throws Exception {
+    server.add("dn: " + dn, "objectClass: top", "objectClass: person",
+        "objectClass: organizationalPerson", "objectClass: inetOrgPerson", "cn: " + fullName,
+        "sn: " + fullName.substring(fullName.indexOf(' ') + 1), "title: " + title);
+  }
+
+  private static List<String> names(List<OrganizationalPerson> persons) {
+    return persons.stream().map(OrganizationalPerson::getName).collect(Collectors.toList());
+  }
+
+  private static OrganizationalUnit unit(List<OrganizationalUnit> units, String name) {
+    return units.stream().filter(u -> name.equals(u.getName())).findFirst().orElseThrow(
+        AssertionError::new);
+  }
+}
@@ -377,6 +377,7 @@ public class OrganizationChartSessionController extends AbstractComponentSession
     config.setLdapAttActif(getComponentParameterValue(PARAM_LDAP_ATT_ACTIF));
 
     config.setDomainId(getComponentParameterValue(PARAM_DOMAIN_ID));
+    config.setSnapshotTimeToLive(getSettings().getInteger("ldap.snapshot.timeToLive", 300));
 
     return config;
   }
@@ -34,14 +34,22 @@ import org.silverpeas.core.contribution.content.form.RecordTemplate;
 import org.silverpeas.core.contribution.content.form.filter.FilterManager;
 import org.silverpeas.core.contribution.content.form.filter.RecordFilter;
 import org.silverpeas.core.contribution.content.form.record.GenericFieldTemplate;
+import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 import org.silverpeas.core.workflow.api.WorkflowException;
 import org.silverpeas.core.workflow.api.instance.ProcessInstance;
 import org.silverpeas.core.workflow.api.model.ProcessModel;
 import org.silverpeas.core.workflow.api.model.State;
 
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,9 +58,15 @@ import java.util.stream.Stream;
  */
 public class ProcessFilter {
 
+  private static final List<String> TEXT_TYPES = Arrays.asList("text", "jdbc");
+
   private FilterManager filter = null;
   private boolean collapse = false;
   private DataRecord criteria;
+  /**
+   * The folder fields whose values are stored as text and then can be searched in SQL.
+   */
+  private final Set<String> folderTextFields = new HashSet<>();
 
   /**
    * Builds a process filter which can be used to select process intance of a given process model.
@@ -71,6 +85,12 @@ public class ProcessFilter {
     }
 
     try {
+      for (FieldTemplate folderField : folderTemplate.getFieldTemplates()) {
+        if (TEXT_TYPES.contains(folderField.getTypeName())) {
+          folderTextFields.add(folderField.getFieldName());
+        }
+      }
+
       // Affichage d'une liste déroulante des états possibles
       GenericFieldTemplate state = new GenericFieldTemplate("instance.state", "text");
       State[] states = model.getStates();
@@ -180,12 +200,24 @@ public class ProcessFilter {
   }
 
   /**
-   * Returns only the process instance matching the filter.
+   * Returns only the process instance matching the filter. The criteria on the text fields of
+   * the folder are first used to preselect the process instances in the database so that only
+   * the rows of the preselected process instances are built and checked against all the
+   * criteria. Without any criteria, no process instance is checked and the row of a process
+   * instance is built only when it is got from the returned list.
    */
-  List<DataRecord> filter(List<ProcessInstance> allInstances, String role, String lang)
-      throws ProcessManagerException {
+  List<DataRecord> filter(List<ProcessInstance> allInstances, String peasId, String role,
+      String lang) throws ProcessManagerException {
     try {
-      Stream<DataRecord> stream = allInstances.stream().map(p -> getDataRecord(p, role, lang));
+      if (!hasCriteria()) {
+        return new RowRecords(allInstances, p -> getDataRecord(p, role, lang));
+      }
+      List<ProcessInstance> instances = allInstances;
+      final Map<String, String> folderCriteria = getFolderCriteria();
+      if (!folderCriteria.isEmpty()) {
+        instances = preselect(allInstances, peasId, folderCriteria);
+      }
+      Stream<DataRecord> stream = instances.stream().map(p -> getDataRecord(p, role, lang));
       if (getCriteriaRecord() != null) {
         final RecordFilter recordFilter = filter.getRecordFilter(getCriteriaRecord());
         stream = stream.filter(d -> matchCriteria(recordFilter, d));
@@ -197,6 +229,54 @@ public class ProcessFilter {
     }
   }
 
+  /**
+   * Is there any criteria set in this filter?
+   */
+  private boolean hasCriteria() throws ProcessManagerException, FormException {
+    final DataRecord criteriaRecord = getCriteriaRecord();
+    if (criteriaRecord != null) {
+      for (String name : filter.getCriteriaTemplate().getFieldNames()) {
+        final Field criterion = criteriaRecord.getField(name);
+        if (criterion != null && StringUtil.isDefined(criterion.getStringValue())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the criteria set on the text fields of the folder.
+   */
+  private Map<String, String> getFolderCriteria() throws ProcessManagerException, FormException {
+    final Map<String, String> folderCriteria = new HashMap<>();
+    final DataRecord criteriaRecord = getCriteriaRecord();
+    if (criteriaRecord != null) {
+      for (String name : filter.getCriteriaTemplate().getFieldNames()) {
+        final Field criterion = criteriaRecord.getField(name);
+        if (folderTextFields.contains(name) && criterion != null &&
+            StringUtil.isDefined(criterion.getStringValue())) {
+          folderCriteria.put(name, criterion.getStringValue());
+        }
+      }
+    }
+    return folderCriteria;
+  }
+
+  private List<ProcessInstance> preselect(final List<ProcessInstance> allInstances,
+      final String peasId, final Map<String, String> folderCriteria) {
+    try {
+      final Set<String> ids = ProcessFolderSearch.findInstanceIds(peasId, folderCriteria);
+      return allInstances.stream()
+          .filter(p -> ids.contains(p.getInstanceId()))
+          .collect(Collectors.toList());
+    } catch (SQLException e) {
+      // the criteria will be applied on all the process instances
+      SilverLogger.getLogger(this).warn(e);
+      return allInstances;
+    }
+  }
+
   private boolean matchCriteria(final RecordFilter recordFilter, final DataRecord dataRecord) {
     try {
       return recordFilter.match(dataRecord);
@@ -212,4 +292,35 @@ public class ProcessFilter {
       throw new SilverpeasRuntimeException(e);
     }
   }
+
+  /**
+   * The rows of some process instances. The row of a process instance is built the first time
+   * it is got and then it is kept.
+   */
+  private static class RowRecords extends AbstractList<DataRecord> {
+
+    private final List<ProcessInstance> instances;
+    private final Function<ProcessInstance, DataRecord> rowBuilder;
+    private final DataRecord[] rows;
+
+    private RowRecords(final List<ProcessInstance> instances,
+        final Function<ProcessInstance, DataRecord> rowBuilder) {
+      this.instances = instances;
+      this.rowBuilder = rowBuilder;
+      this.rows = new DataRecord[instances.size()];
+    }
+
+    @Override
+    public DataRecord get(final int index) {
+      if (rows[index] == null) {
+        rows[index] = rowBuilder.apply(instances.get(index));
+      }
+      return rows[index];
+    }
+
+    @Override
+    public int size() {
+      return rows.length;
+    }
+  }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.processmanager;
+
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Search of the process instances by the values of their folder and bulk reading of these
+ * values. The folder of a process instance is a form record whose external identifier is the
+ * identifier of the process instance, in the record set
+ * <code>[component instance id]:folder</code>.
+ * <p>
+ * The search is done in SQL on the text values of the folder fields in order to preselect the
+ * process instances to which the criteria of a {@link ProcessFilter} are then applied: a value
+ * matches a criterion as soon as it contains, whatever the case, the value of the criterion.
+ * So, a preselection can include process instances that don't satisfy the criteria, but it
+ * includes all those which satisfy them.
+ * </p>
+ */
+final class ProcessFolderSearch {
+
+  private static final String FOLDER_RECORD_SET = ":folder";
+  private static final String QUERY_FOLDER_RECORDS =
+      "r.externalId from SB_FormTemplate_Record r, SB_FormTemplate_Template t " +
+          "where r.templateId = t.templateId and t.externalId = ?";
+  private static final String FIELD_VALUE_CRITERION =
+      "exists (select 1 from SB_FormTemplate_TextField f where f.recordId = r.recordId " +
+          "and f.fieldName = ? and lower(f.fieldValue) like ?)";
+  private static final String QUERY_FOLDER_TEXT_VALUES =
+      "r.externalId, f.fieldName, f.fieldValue, f.fieldValueIndex " +
+          "from SB_FormTemplate_Record r " +
+          "join SB_FormTemplate_Template t on r.templateId = t.templateId " +
+          "left join SB_FormTemplate_TextField f on f.recordId = r.recordId " +
+          "where t.externalId = ?";
+
+  private ProcessFolderSearch() {
+  }
+
+  /**
+   * Finds the process instances of the specified component instance whose folder may satisfy
+   * all the specified criteria.
+   * @param componentInstanceId the unique identifier of a processManager instance.
+   * @param criteria the values of the criteria indexed by the name of the folder field on which
+   * they apply.
+   * @return the identifiers of the preselected process instances.
+   * @throws SQLException if an error occurs while requesting the database.
+   */
+  static Set<String> findInstanceIds(final String componentInstanceId,
+      final Map<String, String> criteria) throws SQLException {
+    try (Connection connection = DBUtil.openConnection()) {
+      return findInstanceIds(connection, componentInstanceId, criteria);
+    }
+  }
+
+  /**
+   * Finds with the specified connection the process instances of the specified component
+   * instance whose folder may satisfy all the specified criteria.
+   * @see #findInstanceIds(String, Map)
+   */
+  static Set<String> findInstanceIds(final Connection connection,
+      final String componentInstanceId, final Map<String, String> criteria)
+      throws SQLException {
+    final JdbcSqlQuery query = JdbcSqlQuery.createSelect(QUERY_FOLDER_RECORDS,
+        componentInstanceId + FOLDER_RECORD_SET);
+    for (Map.Entry<String, String> criterion : criteria.entrySet()) {
+      query.and(FIELD_VALUE_CRITERION, criterion.getKey(),
+          "%" + criterion.getValue().toLowerCase(Locale.ROOT) + "%");
+    }
+    return new HashSet<>(query.executeWith(connection, row -> row.getString(1)));
+  }
+
+  /**
+   * Gets in one request the values stored as text in the folder of the specified process
+   * instances.
+   * @param componentInstanceId the unique identifier of a processManager instance.
+   * @param instanceIds the identifiers of the process instances.
+   * @return for each process instance having a folder, the text values of its folder fields
+   * indexed by their names. A field without any value isn't in the map of its process instance
+   * and a field with several values is mapped to null.
+   * @throws SQLException if an error occurs while requesting the database.
+   */
+  static Map<String, Map<String, String>> getTextValues(final String componentInstanceId,
+      final Collection<String> instanceIds) throws SQLException {
+    if (instanceIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    try (Connection connection = DBUtil.openConnection()) {
+      return getTextValues(connection, componentInstanceId, instanceIds);
+    }
+  }
+
+  /**
+   * Gets in one request with the specified connection the values stored as text in the folder
+   * of the specified process instances. The values are read as the data of the requests are read
+   * by the formsOnline component for their CSV export: a field with several values is mapped to
+   * null.
+   * @see #getTextValues(String, Collection)
+   */
+  static Map<String, Map<String, String>> getTextValues(final Connection connection,
+      final String componentInstanceId, final Collection<String> instanceIds)
+      throws SQLException {
+    final Map<String, Map<String, String>> folders = new HashMap<>(instanceIds.size());
+    if (instanceIds.isEmpty()) {
+      return folders;
+    }
+    final List<String[]> values = JdbcSqlQuery.createSelect(QUERY_FOLDER_TEXT_VALUES,
+        componentInstanceId + FOLDER_RECORD_SET)
+        .and("r.externalId").in(instanceIds)
+        .executeWith(connection, row -> new String[]{row.getString(1), row.getString(2), row.getString(3),
+            String.valueOf(row.getInt(4))});
+    for (String[] value : values) {
+      final Map<String, String> folder = folders.computeIfAbsent(value[0], id -> new HashMap<>());
+      final String fieldName = value[1];
+      if (fieldName != null) {
+        if (folder.containsKey(fieldName) || !"0".equals(value[3])) {
+          folder.put(fieldName, null);
+        } else {
+          folder.put(fieldName, value[2]);
+        }
+      }
+    }
+    return folders;
+  }
+}
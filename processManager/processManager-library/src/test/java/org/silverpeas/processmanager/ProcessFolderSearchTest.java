@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.processmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Unit tests on the search of the process instances by the values of their folder, run against
+ * an embedded H2 database.
+ */
+@EnableSilverTestEnv
+public class ProcessFolderSearchTest {
+
+  private static final String INSTANCE_ID = "processManager1";
+
+  private Connection connection;
+
+  @BeforeEach
+  public void createFolders() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:processfolder;DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table SB_FormTemplate_Template (templateId int primary key, " +
+          "externalId varchar(250))");
+      statement.execute("create table SB_FormTemplate_Record (recordId int primary key, " +
+          "templateId int, externalId varchar(250))");
+      statement.execute("create table SB_FormTemplate_TextField (recordId int, " +
+          "fieldName varchar(100), fieldValue varchar(4000), fieldValueIndex int)");
+      statement.execute("insert into SB_FormTemplate_Template values " +
+          "(1, 'processManager1:folder'), (2, 'processManager2:folder')");
+      statement.execute("insert into SB_FormTemplate_Record values " +
+          "(1, 1, '10'), (2, 1, '11'), (3, 2, '20'), (4, 1, '12')");
+      statement.execute("insert into SB_FormTemplate_TextField values " +
+          "(1, 'name', 'Dupont Jean', 0), (1, 'city', 'Paris', 0), " +
+          "(2, 'name', 'Durand', 0), (2, 'city', 'Lyon', 0), " +
+          "(2, 'tags', 'a', 0), (2, 'tags', 'b', 1), " +
+          "(3, 'name', 'Dupont', 0), (3, 'city', 'Paris', 0)");
+    }
+  }
+
+  @AfterEach
+  public void dropFolders() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table SB_FormTemplate_TextField");
+      statement.execute("drop table SB_FormTemplate_Record");
+      statement.execute("drop table SB_FormTemplate_Template");
+    }
+    connection.close();
+  }
+
+  @Test
+  public void theInstancesWhoseFolderValueContainsTheCriterionWhateverTheCaseAreFound()
+      throws SQLException {
+    final Set<String> ids = find(criteria("name", "dupont"));
+    assertThat(ids, contains("10"));
+  }
+
+  @Test
+  public void theFoundInstancesSatisfyAllTheCriteria() throws SQLException {
+    final Set<String> ids = find(criteria("name", "DU", "city", "lyon"));
+    assertThat(ids, contains("11"));
+  }
+
+  @Test
+  public void noInstancesAreFoundWhenNoFolderSatisfiesTheCriteria() throws SQLException {
+    final Set<String> ids = find(criteria("name", "martin"));
+    assertThat(ids, is(empty()));
+  }
+
+  @Test
+  public void theTextValuesOfTheFoldersAreGotInOneRequest() throws SQLException {
+    final Map<String, Map<String, String>> folders =
+        ProcessFolderSearch.getTextValues(connection, INSTANCE_ID, Arrays.asList("10", "11"));
+    assertThat(folders.size(), is(2));
+    assertThat(folders.get("10"), hasEntry("name", "Dupont Jean"));
+    assertThat(folders.get("10"), hasEntry("city", "Paris"));
+    assertThat(folders.get("11"), hasEntry("name", "Durand"));
+  }
+
+  @Test
+  public void aFieldWithSeveralValuesIsMappedToNull() throws SQLException {
+    final Map<String, Map<String, String>> folders =
+        ProcessFolderSearch.getTextValues(connection, INSTANCE_ID,
+            Collections.singletonList("11"));
+    assertThat(folders.get("11").containsKey("tags"), is(true));
+    assertThat(folders.get("11").get("tags"), is(nullValue()));
+  }
+
+  @Test
+  public void aFolderWithoutTextValuesIsEmpty() throws SQLException {
+    final Map<String, Map<String, String>> folders =
+        ProcessFolderSearch.getTextValues(connection, INSTANCE_ID,
+            Collections.singletonList("12"));
+    assertThat(folders.get("12"), is(anEmptyMap()));
+  }
+
+  @Test
+  public void theFoldersOfAnotherComponentInstanceAreIgnored() throws SQLException {
+    final Map<String, Map<String, String>> folders =
+        ProcessFolderSearch.getTextValues(connection, INSTANCE_ID,
+            Collections.singletonList("20"));
+    assertThat(folders.isEmpty(), is(true));
+  }
+
+  private Set<String> find(final Map<String, String> criteria) throws SQLException {
+    return ProcessFolderSearch.findInstanceIds(connection, INSTANCE_ID, criteria);
+  }
+
+  private static Map<String, String> criteria(final String... namesAndValues) {
+    final Map<String, String> criteria = new HashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      criteria.put(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return criteria;
+  }
+}
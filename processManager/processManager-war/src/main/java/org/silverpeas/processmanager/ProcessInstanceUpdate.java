@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.processmanager;
+
+import org.silverpeas.core.workflow.api.Workflow;
+import org.silverpeas.core.workflow.api.WorkflowException;
+import org.silverpeas.core.workflow.api.instance.HistoryStep;
+import org.silverpeas.core.workflow.api.instance.ProcessInstance;
+
+/**
+ * An update of a process instance submitted by the current user to the workflow engine. The
+ * workflow engine processes the events asynchronously, so the update is identified by a version
+ * stamp of the process instance: the number of its history steps before the event was submitted.
+ * The update is done once the process instance has more history steps than that.
+ * <p>
+ * It is used to display an up-to-date list of process instances right after an action of the
+ * user: the list is computed as soon as the update is done instead of after a fixed delay.
+ * </p>
+ */
+final class ProcessInstanceUpdate {
+
+  private static final long FIRST_CHECK_DELAY = 20;
+  private static final long MAX_CHECK_DELAY = 200;
+
+  private final String instanceId;
+  private final int stamp;
+  private final InstanceLoader loader;
+
+  /**
+   * Constructs the update of the specified process instance.
+   * @param instanceId the unique identifier of the process instance.
+   * @param stamp the number of history steps of the process instance before the update.
+   * @param loader the loader of the current state of the process instance.
+   */
+  ProcessInstanceUpdate(final String instanceId, final int stamp, final InstanceLoader loader) {
+    this.instanceId = instanceId;
+    this.stamp = stamp;
+    this.loader = loader;
+  }
+
+  /**
+   * The update of the specified process instance by an event that is about to be submitted to
+   * the workflow engine.
+   * @param instance the process instance in its state before the event is submitted.
+   * @return the update of the process instance.
+   */
+  static ProcessInstanceUpdate of(final ProcessInstance instance) {
+    final HistoryStep[] steps = instance.getHistorySteps();
+    return new ProcessInstanceUpdate(instance.getInstanceId(), steps == null ? 0 : steps.length,
+        Workflow.getProcessInstanceManager()::getProcessInstance);
+  }
+
+  /**
+   * The creation of the specified process instance.
+   * @param instanceId the unique identifier of the created process instance.
+   * @return the update of the process instance.
+   */
+  static ProcessInstanceUpdate ofCreation(final String instanceId) {
+    return new ProcessInstanceUpdate(instanceId, 0,
+        Workflow.getProcessInstanceManager()::getProcessInstance);
+  }
+
+  /**
+   * Is this update done by the workflow engine? An update of a process instance that doesn't
+   * exist anymore is considered as done.
+   * @return true if the workflow engine has processed the event of this update, false otherwise.
+   */
+  boolean isDone() {
+    try {
+      final ProcessInstance instance = loader.load(instanceId);
+      final HistoryStep[] steps = instance.getHistorySteps();
+      return steps != null && steps.length > stamp;
+    } catch (WorkflowException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Waits for this update to be done by the workflow engine. The process instance is checked at
+   * increasing intervals, and the waiting stops as soon as the update is done or once the
+   * specified timeout is elapsed.
+   * @param timeout the maximum time to wait in milliseconds.
+   * @return true if the update is done, false if the timeout elapsed before.
+   */
+  boolean await(final long timeout) {
+    final long deadline = System.currentTimeMillis() + timeout;
+    long delay = FIRST_CHECK_DELAY;
+    while (!isDone()) {
+      final long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      try {
+        Thread.sleep(Math.min(delay, remaining));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      delay = Math.min(delay * 2, MAX_CHECK_DELAY);
+    }
+    return true;
+  }
+
+  /**
+   * Loader of the current state of a process instance.
+   */
+  @FunctionalInterface
+  interface InstanceLoader {
+    ProcessInstance load(String instanceId) throws WorkflowException;
+  }
+}
@@ -43,7 +43,6 @@ import org.silverpeas.core.notification.message.MessageNotifier;
 import org.silverpeas.core.util.DateUtil;
 import org.silverpeas.core.util.MapUtil;
 import org.silverpeas.core.util.StringUtil;
-import org.silverpeas.core.util.file.FileRepositoryManager;
 import org.silverpeas.core.util.logging.SilverLogger;
 import org.silverpeas.core.web.mvc.controller.AbstractComponentSessionController;
 import org.silverpeas.core.web.mvc.controller.ComponentContext;
@@ -77,8 +76,9 @@ import org.silverpeas.core.workflow.engine.user.UserSettingsService;
 import org.silverpeas.processmanager.record.QuestionRecord;
 import org.silverpeas.processmanager.record.QuestionTemplate;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
 import java.util.*;
 
 import static org.silverpeas.core.contribution.attachment.AttachmentService.VERSION_MODE;
@@ -91,6 +91,7 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
 
   private static final String PROCESS_MANAGER_SESSION_CONTROLLER =
       "ProcessManagerSessionController";
+  private static final int CSV_EXPORT_BATCH_SIZE = 100;
 
   /**
    * Builds and init a new session controller
@@ -291,18 +292,23 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
   /**
    * Updates the current process instance list with current filter and returns this list. Doesn't
    * change the current process instance when an error occurs.
+   * @param waitForLastUpdate true if the list has to reflect the last process instance update
+   * done by the current user. In that case, the list is computed once the workflow engine has
+   * processed this update or, at most, after the delay defined by the refresh.delay setting.
    */
-  public List<DataRecord> resetCurrentProcessList(boolean doAPause) throws ProcessManagerException {
+  public List<DataRecord> resetCurrentProcessList(boolean waitForLastUpdate)
+      throws ProcessManagerException {
     // Wait to display processes list up-to-date
-    if (doAPause) {
-      doAPause();
+    if (waitForLastUpdate) {
+      waitForLastUpdate();
     }
 
     try {
       String[] groupIds = getOrganisationController().getAllGroupIdsOfUser(getUserId());
       List<ProcessInstance> processList = Workflow.getProcessInstanceManager()
           .getProcessInstances(peasId, currentUser, currentRole, getUserRoles(), groupIds);
-      currentProcessList = getCurrentFilter().filter(processList, currentRole, getLanguage());
+      currentProcessList =
+          getCurrentFilter().filter(processList, peasId, currentRole, getLanguage());
     } catch (WorkflowException e) {
       throw new ProcessManagerException(PROCESS_MANAGER_SESSION_CONTROLLER,
           "processManager.GET_PROCESS_LIST_FAILED", peasId, e);
@@ -1007,7 +1013,9 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
         feedbackUser("processManager.createProcess.feedback");
       }
 
-      return event.getProcessInstance().getInstanceId();
+      String instanceId = event.getProcessInstance().getInstanceId();
+      lastUpdate = !isDraft || firstTimeSaved ? ProcessInstanceUpdate.ofCreation(instanceId) : null;
+      return instanceId;
     } catch (WorkflowException e) {
       throw new ProcessManagerException("SessionController",
           "processManager.CREATION_PROCESSING_FAILED", e);
@@ -1018,15 +1026,15 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
     MessageNotifier.addSuccess(getString(key)).setDisplayLiveTime(10000);
   }
 
-  private void doAPause() {
-    int duration = getSettings().getInteger("refresh.delay", 1000);
-    if (duration > 0) {
-      try {
-        Thread.sleep(duration);
-      } catch (InterruptedException ie) {
-        SilverLogger.getLogger(this).error(ie.getLocalizedMessage(), ie);
-        Thread.currentThread().interrupt();
+  private void waitForLastUpdate() {
+    if (lastUpdate != null) {
+      int timeout = getSettings().getInteger("refresh.delay", 1000);
+      if (timeout > 0 && !lastUpdate.await(timeout)) {
+        SilverLogger.getLogger(this)
+            .debug("The last update is not yet processed by the workflow engine after {0} ms",
+                timeout);
       }
+      lastUpdate = null;
     }
   }
 
@@ -1156,6 +1164,8 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
         task.setProcessInstance(currentProcessInstance);
       }
 
+      ProcessInstanceUpdate update = ProcessInstanceUpdate.of(currentProcessInstance);
+
       // Is a validate or a "save as draft" action ?
       if (isDraft) {
         TaskSavedEvent tse = task.buildTaskSavedEvent(actionName, data);
@@ -1167,6 +1177,8 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
         Workflow.getWorkflowEngine().process(event);
         feedbackUser("processManager.action.feedback");
       }
+      // a draft saved again updates its history step instead of adding a new one
+      lastUpdate = !isDraft || isFirstTimeSaved ? update : null;
     } catch (WorkflowException e) {
       throw new ProcessManagerException("SessionController",
           "processManager.CREATION_PROCESSING_FAILED", e);
@@ -1782,18 +1794,25 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
     return viewReturn;
   }
 
-  public String exportListAsCSV() throws ProcessManagerException {
+  /**
+   * Writes the current process list as CSV into the specified writer. The rows are written as
+   * soon as they are built and the folder values are loaded by batches of process instances, so
+   * that the memory used doesn't depend on the number of exported process instances.
+   * @param writer the writer into which the CSV rows are written.
+   * @throws ProcessManagerException if the process list cannot be fetched.
+   * @throws IOException if an error occurs while writing the CSV rows.
+   */
+  public void exportListAsCSV(Writer writer) throws ProcessManagerException, IOException {
     String fieldsToExport = getComponentParameterValue("fieldsToExport");
-    List<StringBuilder> csvRows;
     if (StringUtil.isDefined(fieldsToExport)) {
-      csvRows = exportDefinedItemsAsCSV();
+      exportDefinedItemsAsCSV(writer);
     } else {
-      csvRows = exportAllFolderAsCSV();
+      exportAllFolderAsCSV(writer);
     }
-    return writeCSVFile(csvRows);
+    writer.flush();
   }
 
-  private List<StringBuilder> exportAllFolderAsCSV() throws ProcessManagerException {
+  private void exportAllFolderAsCSV(Writer writer) throws ProcessManagerException, IOException {
     try {
       List<DataRecord> processList = getCurrentProcessList();
       Item[] items = getFolderItems();
@@ -1802,9 +1821,7 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
 
       List<String> csvCols = getCSVCols();
 
-      ProcessInstanceRowRecord instance;
       StringBuilder csvRow = new StringBuilder();
-      List<StringBuilder> csvRows = new ArrayList<>();
       boolean isProcessIdVisible = isProcessIdVisible();
 
       if (isProcessIdVisible) {
@@ -1824,11 +1841,14 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
           addCSVValue(csvRow, item.getLabel(getCurrentRole(), getLanguage()));
         }
       }
-      csvRows.add(csvRow);
-
-      for (final DataRecord aProcessList : processList) {
-        instance = (ProcessInstanceRowRecord) aProcessList;
-        if (instance != null) {
+      writeCSVRow(writer, csvRow);
+
+      Set<String> textItems = getTextItemNames(items);
+      for (int from = 0; from < processList.size(); from += CSV_EXPORT_BATCH_SIZE) {
+        List<ProcessInstanceRowRecord> batch = getCSVBatch(processList, from);
+        Map<String, Map<String, String>> folders = getFolderTextValues(batch);
+        for (ProcessInstanceRowRecord instance : batch) {
+          Map<String, String> folder = folders.get(instance.getId());
           csvRow = new StringBuilder();
           if (isProcessIdVisible) {
             addCSVValue(csvRow, instance.getId());
@@ -1853,21 +1873,19 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
           String fieldString;
           for (int c = 2; c < csvCols.size(); c++) {
             String fieldName = csvCols.get(c);
-            fieldString = getFieldValue(instance, items, fieldName);
+            fieldString = getFieldValue(instance, folder, textItems, items, fieldName);
             addCSVValue(csvRow, fieldString);
           }
-          csvRows.add(csvRow);
+          writeCSVRow(writer, csvRow);
         }
       }
-
-      return csvRows;
     } catch (FormException e) {
       SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
-      return Collections.emptyList();
     }
   }
 
-  private List<StringBuilder> exportDefinedItemsAsCSV() throws ProcessManagerException {
+  private void exportDefinedItemsAsCSV(Writer writer)
+      throws ProcessManagerException, IOException {
     try {
       List<DataRecord> processList = getCurrentProcessList();
       Item[] items = getFolderItems();
@@ -1881,9 +1899,7 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
         csvCols.add(tokenizer.nextToken());
       }
 
-      ProcessInstanceRowRecord instance;
       StringBuilder csvHeader = new StringBuilder();
-      List<StringBuilder> csvRows = new ArrayList<>();
       boolean isProcessIdVisible = isProcessIdVisible();
 
       if (isProcessIdVisible) {
@@ -1905,12 +1921,15 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
           addCSVValue(csvHeader, col);
         }
       }
-      csvRows.add(csvHeader);
+      writeCSVRow(writer, csvHeader);
 
       StringBuilder csvRow;
-      for (final DataRecord aProcessList : processList) {
-        instance = (ProcessInstanceRowRecord) aProcessList;
-        if (instance != null) {
+      Set<String> textItems = getTextItemNames(items);
+      for (int from = 0; from < processList.size(); from += CSV_EXPORT_BATCH_SIZE) {
+        List<ProcessInstanceRowRecord> batch = getCSVBatch(processList, from);
+        Map<String, Map<String, String>> folders = getFolderTextValues(batch);
+        for (ProcessInstanceRowRecord instance : batch) {
+          Map<String, String> folder = folders.get(instance.getId());
           csvRow = new StringBuilder();
           if (isProcessIdVisible) {
             addCSVValue(csvRow, instance.getId());
@@ -1927,18 +1946,59 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
             if (csvCol.startsWith("${")) {
               fieldString = DataRecordUtil.applySubstitution(csvCol, instance, "fr");
             } else {
-              fieldString = getFieldValue(instance, items, csvCol);
+              fieldString = getFieldValue(instance, folder, textItems, items, csvCol);
             }
             addCSVValue(csvRow, fieldString);
           }
-          csvRows.add(csvRow);
+          writeCSVRow(writer, csvRow);
         }
       }
-
-      return csvRows;
     } catch (FormException e) {
       SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
-      return Collections.emptyList();
+    }
+  }
+
+  private List<ProcessInstanceRowRecord> getCSVBatch(List<DataRecord> processList, int from) {
+    int to = Math.min(from + CSV_EXPORT_BATCH_SIZE, processList.size());
+    List<ProcessInstanceRowRecord> batch = new ArrayList<>(to - from);
+    for (DataRecord aProcessList : processList.subList(from, to)) {
+      if (aProcessList != null) {
+        batch.add((ProcessInstanceRowRecord) aProcessList);
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * Gets the names of the folder items whose values are stored as text and then that can be
+   * read directly from the folders of a batch of process instances.
+   */
+  private Set<String> getTextItemNames(Item[] items) {
+    Set<String> textItems = new HashSet<>();
+    for (Item item : items) {
+      if ("text".equals(item.getType()) || "jdbc".equals(item.getType())) {
+        textItems.add(item.getName());
+      }
+    }
+    return textItems;
+  }
+
+  /**
+   * Gets in one request the text values of the folders of the specified process instances. If
+   * the values cannot be loaded, an empty map is returned and the values are then read from
+   * each process instance.
+   */
+  private Map<String, Map<String, String>> getFolderTextValues(
+      List<ProcessInstanceRowRecord> batch) {
+    List<String> instanceIds = new ArrayList<>(batch.size());
+    for (ProcessInstanceRowRecord instance : batch) {
+      instanceIds.add(instance.getId());
+    }
+    try {
+      return ProcessFolderSearch.getTextValues(getComponentId(), instanceIds);
+    } catch (SQLException e) {
+      SilverLogger.getLogger(this).warn(e);
+      return Collections.emptyMap();
     }
   }
 
@@ -1958,12 +2018,21 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
     }
   }
 
-  private String getFieldValue(ProcessInstanceRowRecord instance, Item[] items, String fieldName) {
+  private String getFieldValue(ProcessInstanceRowRecord instance, Map<String, String> folder,
+      Set<String> textItems, Item[] items, String fieldName) {
     String fieldString;
     try {
-      Field field = instance.getFullProcessInstance().getField(fieldName);
-      fieldString = field.getValue(getLanguage());
-      if (!StringUtil.isDefined(fieldString) || !field.getTypeName().equals(DateField.TYPE)) {
+      boolean isDate;
+      if (folder != null && textItems.contains(fieldName) &&
+          (!folder.containsKey(fieldName) || folder.get(fieldName) != null)) {
+        fieldString = folder.get(fieldName);
+        isDate = false;
+      } else {
+        Field field = instance.getFullProcessInstance().getField(fieldName);
+        fieldString = field.getValue(getLanguage());
+        isDate = field.getTypeName().equals(DateField.TYPE);
+      }
+      if (!StringUtil.isDefined(fieldString) || !isDate) {
         ItemImpl item = (ItemImpl) getItemByName(items, fieldName);
         if (item != null) {
           Map<String, String> keyValuePairs = item.getKeyValuePairs();
@@ -1996,22 +2065,9 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
     return fieldString;
   }
 
-  private String writeCSVFile(List<StringBuilder> csvRows) {
-    String csvFilename = new Date().getTime() + ".csv";
-    try (FileOutputStream fileOutput = new FileOutputStream(
-        FileRepositoryManager.getTemporaryPath() + csvFilename)) {
-      StringBuilder csvRow;
-      for (StringBuilder csvRow1 : csvRows) {
-        csvRow = csvRow1;
-        fileOutput.write(csvRow.toString().getBytes());
-        fileOutput.write("\n".getBytes());
-      }
-      fileOutput.flush();
-    } catch (IOException e) {
-      SilverLogger.getLogger(this).error(e.getLocalizedMessage(), e);
-      csvFilename = null;
-    }
-    return csvFilename;
+  private void writeCSVRow(Writer writer, StringBuilder csvRow) throws IOException {
+    writer.write(csvRow.toString());
+    writer.write("\n");
   }
 
   private List<String> getCSVCols() throws ProcessManagerException, FormException {
@@ -2148,5 +2204,9 @@ public class ProcessManagerSessionController extends AbstractComponentSessionCon
    * Current token Id prevents users to use several windows with the same session.
    */
   private String currentTokenId = null;
+  /**
+   * The last process instance update submitted by the user to the workflow engine.
+   */
+  private ProcessInstanceUpdate lastUpdate = null;
 
 }
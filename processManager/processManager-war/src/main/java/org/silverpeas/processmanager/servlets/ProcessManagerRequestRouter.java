@@ -35,8 +35,6 @@ import org.silverpeas.core.contribution.content.form.PagesContext;
 import org.silverpeas.core.contribution.content.form.RecordTemplate;
 import org.silverpeas.core.util.CollectionUtil;
 import org.silverpeas.core.util.StringUtil;
-import org.silverpeas.core.util.file.FileRepositoryManager;
-import org.silverpeas.core.util.file.FileServerUtils;
 import org.silverpeas.core.util.file.FileUploadUtil;
 import org.silverpeas.core.web.http.HttpRequest;
 import org.silverpeas.core.web.mvc.controller.ComponentContext;
@@ -59,7 +57,6 @@ import org.silverpeas.processmanager.StepVO;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
-import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -177,8 +174,8 @@ public class ProcessManagerRequestRouter
       List<DataRecord> processList;
       if (request.getAttribute("dontreset") == null) {
         String from = (String) request.getAttribute("From");
-        boolean doAPause = "Creation".equals(from) || "Action".equals(from);
-        processList = session.resetCurrentProcessList(doAPause);
+        boolean waitForLastUpdate = "Creation".equals(from) || "Action".equals(from);
+        processList = session.resetCurrentProcessList(waitForLastUpdate);
       } else {
         processList = session.getCurrentProcessList();
       }
@@ -904,16 +901,8 @@ public class ProcessManagerRequestRouter
   private static FunctionHandler exportCSVHandler = new SessionSafeFunctionHandler() {
     protected String computeDestination(String function, ProcessManagerSessionController session,
         HttpServletRequest request, List<FileItem> items) throws ProcessManagerException {
-      String csvFilename = session.exportListAsCSV();
-
-      request.setAttribute("CSVFilename", csvFilename);
-      if (StringUtil.isDefined(csvFilename)) {
-        File file = new File(FileRepositoryManager.getTemporaryPath() + csvFilename);
-        request.setAttribute("CSVFileSize", file.length());
-        request.setAttribute("CSVFileURL", FileServerUtils.getUrlToTempDir(csvFilename));
-      }
-
-      return "/processManager/jsp/downloadCSV.jsp";
+      // the CSV rows are streamed into the response by the export servlet
+      return ProcessManagerExportServlet.PATH;
     }
   };
 
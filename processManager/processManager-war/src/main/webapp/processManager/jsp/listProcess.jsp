@@ -162,8 +162,8 @@
     }
 
     function exportCSV() {
-      SP_openWindow("exportCSV", "exportWindow", "550", "350",
-          "directories=0,menubar=0,toolbar=0,alwaysRaised");
+      // the CSV file is downloaded while it is written: the page stays displayed
+      window.location.href = "exportCSV";
     }
 
     $(function() {
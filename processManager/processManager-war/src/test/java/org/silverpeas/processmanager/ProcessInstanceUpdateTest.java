@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.processmanager;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.workflow.api.WorkflowException;
+import org.silverpeas.core.workflow.api.instance.HistoryStep;
+import org.silverpeas.core.workflow.api.instance.ProcessInstance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests on the waiting for a process instance update to be done by the workflow engine.
+ */
+public class ProcessInstanceUpdateTest {
+
+  private static final String INSTANCE_ID = "42";
+
+  @Test
+  public void anUpdateIsDoneOnceTheInstanceHasMoreHistoryStepsThanItsStamp() {
+    final ProcessInstanceUpdate update =
+        new ProcessInstanceUpdate(INSTANCE_ID, 1, id -> instanceWithSteps(2));
+    assertThat(update.isDone(), is(true));
+  }
+
+  @Test
+  public void anUpdateIsNotDoneWhileTheInstanceHasNoNewHistoryStep() {
+    final ProcessInstanceUpdate update =
+        new ProcessInstanceUpdate(INSTANCE_ID, 2, id -> instanceWithSteps(2));
+    assertThat(update.isDone(), is(false));
+  }
+
+  @Test
+  public void aCreationIsNotDoneWhileTheInstanceHasNoHistory() {
+    final ProcessInstanceUpdate update =
+        new ProcessInstanceUpdate(INSTANCE_ID, 0, id -> instanceWithSteps(-1));
+    assertThat(update.isDone(), is(false));
+  }
+
+  @Test
+  public void anUpdateOfARemovedInstanceIsDone() {
+    final ProcessInstanceUpdate update = new ProcessInstanceUpdate(INSTANCE_ID, 1, id -> {
+      throw mock(WorkflowException.class);
+    });
+    assertThat(update.isDone(), is(true));
+  }
+
+  @Test
+  public void theWaitingStopsAsSoonAsTheUpdateIsDone() {
+    final AtomicInteger loadings = new AtomicInteger(0);
+    final ProcessInstanceUpdate update = new ProcessInstanceUpdate(INSTANCE_ID, 1,
+        id -> instanceWithSteps(loadings.incrementAndGet() < 3 ? 1 : 2));
+    assertThat(update.await(10000), is(true));
+    assertThat(loadings.get(), is(3));
+  }
+
+  @Test
+  public void theWaitingStopsOnceTheTimeoutIsElapsed() {
+    final ProcessInstanceUpdate update =
+        new ProcessInstanceUpdate(INSTANCE_ID, 1, id -> instanceWithSteps(1));
+    final long start = System.currentTimeMillis();
+    assertThat(update.await(100), is(false));
+    assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(100L));
+  }
+
+  /**
+   * A process instance with the specified number of history steps, or without any history if
+   * the number is negative.
+   */
+  private static ProcessInstance instanceWithSteps(final int count) {
+    final ProcessInstance instance = mock(ProcessInstance.class);
+    final HistoryStep[] steps = count < 0 ? null : new HistoryStep[count];
+    when(instance.getInstanceId()).thenReturn(INSTANCE_ID);
+    when(instance.getHistorySteps()).thenReturn(steps);
+    return instance;
+  }
+}
@@ -56,7 +56,6 @@ import javax.inject.Singleton;
 import javax.transaction.Transactional;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -303,9 +302,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
       Date endDate = task.getDateFin();
 
       // Récupération des jours non travaillés
-      List<Date> holidays = getHolidayDates(task.getInstanceId());
-
-      Calendar calendar = Calendar.getInstance();
+      WorkingDayCalendar workingDays = getWorkingDayCalendar(task.getInstanceId());
 
       // quelles sont les tâches liées à la tâche modifiée ? Ce sont :
       // - soit des tâches suivantes (ie tâches qui ont comme précédence la
@@ -314,10 +311,10 @@ public class DefaultProjectManagerService implements ProjectManagerService {
       // N-1
 
       //traitement des tâches suivantes
-      updateNextTasks(task, userId, con, endDate, holidays, calendar);
+      updateNextTasks(task, userId, con, endDate, workingDays);
 
       //traitement des sous-tâches
-      updateSubTasks(task, userId, con, beginDate, holidays, calendar);
+      updateSubTasks(task, userId, con, beginDate, workingDays);
 
       // modification de la tâche en BdD
       if (task.getAvancement() == 100) {
@@ -343,8 +340,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
   }
 
   private void updateSubTasks(final TaskDetail task, final String userId, final Connection con,
-      final Date beginDate, final List<Date> holidays, final Calendar calendar)
-      throws SQLException {
+      final Date beginDate, final WorkingDayCalendar workingDays) throws SQLException {
     // on traite maintenant les sous tâches
     List<TaskDetail> subTasks = ProjectManagerDAO.getTasksByMotherIdAndPreviousId(con, task.
         getInstanceId(), task.getId(), -1);
@@ -355,18 +351,17 @@ public class DefaultProjectManagerService implements ProjectManagerService {
     for (int t = 0; t < subTasks.size(); t++) {
       boolean isModifBeginDate = false;
       subTask = subTasks.get(t);
-      updateSubTask(userId, beginDate, holidays, calendar, subTask, isModifBeginDate);
+      updateSubTask(userId, beginDate, workingDays, subTask, isModifBeginDate);
     }
   }
 
-  private void updateSubTask(final String userId, final Date beginDate, final List<Date> holidays,
-      final Calendar calendar, final TaskDetail subTask, boolean isModifBeginDate) {
+  private void updateSubTask(final String userId, final Date beginDate,
+      final WorkingDayCalendar workingDays, final TaskDetail subTask, boolean isModifBeginDate) {
     Date beginDateSub = subTask.getDateDebut();
     Date saveBeginDate = beginDateSub;
 
     // vérifie si la date de début n'est pas un jour travaillé
-    calendar.setTime(beginDateSub);
-    beginDateSub = goAfterHoliday(holidays, calendar, subTask, beginDateSub);
+    beginDateSub = goAfterHoliday(workingDays, subTask, beginDateSub);
 
     if (beginDate.after(beginDateSub)) {
       // La date de début de la tâche mêre est supérieure à la sous tâche cette tâche doit être décalée
@@ -379,7 +374,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
     Date saveEndDate = endDateSub;
 
     // calcul la date de fin
-    endDateSub = processEndDate(subTask, calendar, holidays);
+    endDateSub = processEndDate(subTask, workingDays);
     subTask.setDateFin(endDateSub);
 
     // regarder si les dates sont modifiées
@@ -398,14 +393,13 @@ public class DefaultProjectManagerService implements ProjectManagerService {
   }
 
   private void updateNextTasks(final TaskDetail task, final String userId, final Connection con,
-      final Date endDate, final List<Date> holidays, final Calendar calendar) throws SQLException {
+      final Date endDate, final WorkingDayCalendar workingDays) throws SQLException {
     // on commence par récupérer les tâches suivantes
     List<TaskDetail> nextTasks = ProjectManagerDAO.getNextTasks(con, task.getId());
 
     // détecte les tâches qui doivent être décalées
     TaskDetail linkedTask;
     TaskDetail motherTask;
-    Calendar calendar2 = Calendar.getInstance();
 
     for (int t = 0; t < nextTasks.size(); t++) {
       linkedTask = nextTasks.get(t);
@@ -415,18 +409,17 @@ public class DefaultProjectManagerService implements ProjectManagerService {
 
       // vérifie si la date de début n'est pas
       // un jour travaillé
-      calendar.setTime(beginDateLinked);
-      beginDateLinked = goAfterHoliday(holidays, calendar, linkedTask, beginDateLinked);
+      beginDateLinked = goAfterHoliday(workingDays, linkedTask, beginDateLinked);
 
       Date endDateLinked = linkedTask.getDateFin();
       Date saveEndDate = endDateLinked;
 
       if (endDate.equals(endDateLinked) || endDate.after(endDateLinked)) {
-        beginDateLinked = moveTask(endDate, holidays, calendar, linkedTask);
+        beginDateLinked = moveTask(endDate, workingDays, linkedTask);
       }
 
       // calcul de la nouvelle date de fin (date début + charge)
-      endDateLinked = processEndDate(linkedTask, calendar, holidays);
+      endDateLinked = processEndDate(linkedTask, workingDays);
       linkedTask.setDateFin(endDateLinked);
 
       // regarder si les dates sont modifiées
@@ -436,15 +429,14 @@ public class DefaultProjectManagerService implements ProjectManagerService {
       motherTask = ProjectManagerDAO.getTask(con, task.getMereId());
       if (motherTask.getMereId() != -1) {
         // c'est une tache, pas le projet
-        updateMotherTask(con, holidays, calendar, linkedTask, motherTask, calendar2);
+        updateMotherTask(con, workingDays, linkedTask, motherTask);
 
       }
     }
   }
 
-  private void updateMotherTask(final Connection con, final List<Date> holidays,
-      final Calendar calendar, final TaskDetail linkedTask, final TaskDetail motherTask,
-      final Calendar calendar2) throws SQLException {
+  private void updateMotherTask(final Connection con, final WorkingDayCalendar workingDays,
+      final TaskDetail linkedTask, final TaskDetail motherTask) throws SQLException {
     boolean updateMother;
     final Date endDateLinked;
     float charge;
@@ -453,10 +445,8 @@ public class DefaultProjectManagerService implements ProjectManagerService {
 
     // vérifie si la date de fin n'est pas
     // un jour travaillé
-    calendar.setTime(motherTask.getDateFin());
-    while (holidays.contains(motherTask.getDateFin())) {
-      calendar.add(Calendar.DATE, 1);
-      motherTask.setDateFin(calendar.getTime());
+    if (!workingDays.isWorkingDay(motherTask.getDateFin())) {
+      motherTask.setDateFin(workingDays.nextWorkingDay(motherTask.getDateFin()));
       updateMother = true;
     }
 
@@ -469,17 +459,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
 
     if (updateMother) {
       // recalcule la charge
-      calendar.setTime(motherTask.getDateDebut());
-      calendar2.setTime(motherTask.getDateFin());
-      charge = 0;
-      while (true) {
-        if (calendar.before(calendar2) || calendar.equals(calendar2)) {
-          charge++;
-        } else {
-          break;
-        }
-        calendar.add(Calendar.DATE, 1);
-      }
+      charge = WorkingDayCalendar.countDays(motherTask.getDateDebut(), motherTask.getDateFin());
 
       // recalcul les charges de la tache mère
       motherTask.setCharge(charge);
@@ -508,23 +488,22 @@ public class DefaultProjectManagerService implements ProjectManagerService {
     }
   }
 
-  private Date moveTask(final Date endDate, final List<Date> holidays, final Calendar calendar,
+  private Date moveTask(final Date endDate, final WorkingDayCalendar workingDays,
       final TaskDetail linkedTask) {
     final Date beginDateLinked;// La date de fin de la tâche précédente est supérieure ou égale à la
     // tâche liéée
     // cette tâche doit être décalée
 
     // calcul de la nouvelle date de début (= date fin + 1)
-    beginDateLinked = getBeginDate(calendar, endDate, holidays);
+    beginDateLinked = workingDays.addWorkingDays(endDate, 1);
     linkedTask.setDateDebut(beginDateLinked);
     return beginDateLinked;
   }
 
-  private Date goAfterHoliday(final List<Date> holidays, final Calendar calendar,
-      final TaskDetail linkedTask, Date beginDateLinked) {
-    while (holidays.contains(beginDateLinked)) {
-      calendar.add(Calendar.DATE, 1);
-      beginDateLinked = calendar.getTime();
+  private Date goAfterHoliday(final WorkingDayCalendar workingDays, final TaskDetail linkedTask,
+      Date beginDateLinked) {
+    if (!workingDays.isWorkingDay(beginDateLinked)) {
+      beginDateLinked = workingDays.nextWorkingDay(beginDateLinked);
       linkedTask.setDateDebut(beginDateLinked);
     }
     return beginDateLinked;
@@ -592,62 +571,29 @@ public class DefaultProjectManagerService implements ProjectManagerService {
     }
   }
 
-  private Date getBeginDate(Calendar calendar, Date endDate, List<Date> holidays) {
-    calendar.setTime(endDate);
-    calendar.add(Calendar.DATE, 1);
-
-    while (holidays.contains(calendar.getTime())) {
-      calendar.add(Calendar.DATE, 1);
-    }
-
-    return calendar.getTime();
-  }
-
   @Override
   public Date processEndDate(TaskDetail task) {
-    return processEndDate(task, null, null);
+    // Récupération des jours non travaillés
+    return processEndDate(task, getWorkingDayCalendar(task.getInstanceId()));
   }
 
-  private Date processEndDate(TaskDetail task, Calendar theCalendar, List<Date> theHolidays) {
-    float toRound = 0.49F;
-    int charge = Math.round(task.getCharge() + toRound) - 1;
-    Calendar calendar = theCalendar;
-    List<Date> holidays = theHolidays;
-    if (calendar == null) {
-      calendar = Calendar.getInstance();
-    }
-    if (holidays == null) {
-      // Récupération des jours non travaillés
-      holidays = getHolidayDates(task.getInstanceId());
-    }
-
-    calendar.setTime(task.getDateDebut());
-
-    while (charge != 0) {
-      calendar.add(Calendar.DATE, 1);
-      Date currentDate = calendar.getTime();
-      if (!holidays.contains(currentDate)) {
-        charge--;
-      }
-    }
-    return calendar.getTime();
+  private Date processEndDate(TaskDetail task, WorkingDayCalendar workingDays) {
+    return processEndDate(task.getCharge(), task.getDateDebut(), workingDays);
   }
 
   @Override
   public Date processEndDate(float fCharge, String instanceId, Date dateDebut) {
+    return processEndDate(fCharge, dateDebut, getWorkingDayCalendar(instanceId));
+  }
+
+  /**
+   * The begin date is the first day of the charge: the end date is the working day at which the
+   * remaining days of the charge are done.
+   */
+  private Date processEndDate(float fCharge, Date dateDebut, WorkingDayCalendar workingDays) {
     float toRound = 0.49F;
     int charge = Math.round(fCharge + toRound) - 1;
-    Calendar calendar = Calendar.getInstance();
-    List<Date> holidays = getHolidayDates(instanceId);
-    calendar.setTime(dateDebut);
-    while (charge != 0) {
-      calendar.add(Calendar.DATE, 1);
-      Date currentDate = calendar.getTime();
-      if (!holidays.contains(currentDate)) {
-        charge--;
-      }
-    }
-    return calendar.getTime();
+    return workingDays.addWorkingDays(dateDebut, charge);
   }
 
   @Override
@@ -658,9 +604,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
     List<TaskDetail> tasks = getTasksByMotherIdAndPreviousId(instanceId, projectId, -1);
 
     // Récupération des jours non travaillés
-    List<Date> holidays = getHolidayDates(instanceId);
-
-    Calendar calendar = Calendar.getInstance();
+    WorkingDayCalendar workingDays = getWorkingDayCalendar(instanceId);
 
     TaskDetail task = null;
     Date beginDate = null;
@@ -676,11 +620,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
       saveBeginDate = beginDate;
 
       // vérifie si la date de début n'est pas un jour travaillé
-      while (holidays.contains(beginDate)) {
-        calendar.setTime(beginDate);
-        calendar.add(Calendar.DATE, 1);
-        beginDate = calendar.getTime();
-      }
+      beginDate = workingDays.nextWorkingDay(beginDate);
       // mise à jour de la date de début si elle est modifiée
       if (!beginDate.equals(saveBeginDate)) {
         task.setDateDebut(beginDate);
@@ -689,7 +629,7 @@ public class DefaultProjectManagerService implements ProjectManagerService {
 
       // calcul la date de fin et mise à jour si elle est modifiée
       saveEndDate = task.getDateFin();
-      endDate = processEndDate(task, calendar, holidays);
+      endDate = processEndDate(task, workingDays);
       if (!endDate.equals(saveEndDate)) {
         task.setDateFin(endDate);
         isModifBeginDate = true;
@@ -748,6 +688,10 @@ public class DefaultProjectManagerService implements ProjectManagerService {
     }
   }
 
+  private WorkingDayCalendar getWorkingDayCalendar(String instanceId) {
+    return WorkingDayCalendar.of(getHolidayDates(instanceId));
+  }
+
   @Override
   public List<Date> getHolidayDates(String instanceId, Date beginDate, Date endDate) {
 
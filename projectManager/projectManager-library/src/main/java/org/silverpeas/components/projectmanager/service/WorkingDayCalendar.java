@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of the GPL, you may
+ * redistribute this Program in connection with Free/Libre Open Source Software ("FLOSS")
+ * applications as described in Silverpeas's FLOSS exception. You should have received a copy of the
+ * text describing the FLOSS exception, and it is also available here:
+ * "http://www.silverpeas.org/docs/core/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.projectmanager.service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * The working days of a project. The non-working days are indexed as a sorted array of days so
+ * that the date computations of the project planning are done by binary searches instead of by
+ * walking through the calendar day after day:
+ * <ul>
+ * <li>checking a day is a working day or adding N working days to a day cost O(log n), where n
+ * is the number of non-working days,</li>
+ * <li>the calendar days between two dates are computed in O(1).</li>
+ * </ul>
+ * The dates are taken by day in the default time zone; the time of day of a date is kept by
+ * the computations.
+ */
+final class WorkingDayCalendar {
+
+  private final long[] nonWorkingDays;
+
+  private WorkingDayCalendar(final long[] nonWorkingDays) {
+    this.nonWorkingDays = nonWorkingDays;
+  }
+
+  /**
+   * Indexes the specified non-working days.
+   * @param nonWorkingDays the non-working days, in any order and possibly with duplicates.
+   * @return the working-day calendar in which all the other days are worked.
+   */
+  static WorkingDayCalendar of(Collection<Date> nonWorkingDays) {
+    long[] days = nonWorkingDays.stream().mapToLong(WorkingDayCalendar::toDay).sorted()
+        .distinct().toArray();
+    return new WorkingDayCalendar(days);
+  }
+
+  /**
+   * Is the specified date a working day?
+   * @param date a date.
+   * @return true if the day of the date isn't a non-working day.
+   */
+  boolean isWorkingDay(Date date) {
+    return Arrays.binarySearch(nonWorkingDays, toDay(date)) < 0;
+  }
+
+  /**
+   * Gets the first working day on or after the specified date.
+   * @param date a date.
+   * @return the date itself if it is a working day, otherwise the date moved to the next
+   * working day.
+   */
+  Date nextWorkingDay(Date date) {
+    return isWorkingDay(date) ? date : addWorkingDays(date, 1);
+  }
+
+  /**
+   * Adds the specified number of working days to the given date. The non-working days are
+   * skipped.
+   * @param date a date.
+   * @param workingDays the number of working days to add.
+   * @return the date of the working day that is the given number of working days after the date,
+   * or the date itself if the number isn't strictly positive.
+   */
+  Date addWorkingDays(Date date, int workingDays) {
+    if (workingDays <= 0) {
+      return date;
+    }
+    long day = toDay(date);
+    long target = day + workingDays;
+    // the non-working days after the date: the result is target + j, where j is the number of
+    // them that are skipped. As nonWorkingDays[first + j] - j never decreases with j, the number
+    // of skipped days is the first j for which nonWorkingDays[first + j] - j > target.
+    int first = countNonWorkingDaysUntil(day);
+    int low = 0;
+    int high = nonWorkingDays.length - first;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (nonWorkingDays[first + middle] - middle <= target) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return addDays(date, target + low - day);
+  }
+
+  /**
+   * Counts the calendar days between the two specified dates, both included.
+   * @param beginDate the first date.
+   * @param endDate the last date.
+   * @return the number of days or 0 if the end date is before the begin date.
+   */
+  static int countDays(Date beginDate, Date endDate) {
+    return (int) Math.max(0, toDay(endDate) - toDay(beginDate) + 1);
+  }
+
+  /**
+   * Counts the non-working days on or before the specified day.
+   */
+  private int countNonWorkingDaysUntil(long day) {
+    int index = Arrays.binarySearch(nonWorkingDays, day);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  private static Date addDays(Date date, long days) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTime(date);
+    calendar.add(Calendar.DATE, (int) days);
+    return calendar.getTime();
+  }
+
+  private static long toDay(Date date) {
+    return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate()
+        .toEpochDay();
+  }
+}
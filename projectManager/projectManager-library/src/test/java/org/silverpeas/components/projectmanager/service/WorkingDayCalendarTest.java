@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.projectmanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Unit tests on the computation of the working days of a project. In November 2018, the 1st is a
+ * Thursday and a holiday, the 2nd is taken off and the weekends are not worked.
+ */
+public class WorkingDayCalendarTest {
+
+  private final WorkingDayCalendar calendar = WorkingDayCalendar.of(
+      Arrays.asList(day(2018, 11, 18), day(2018, 11, 1), day(2018, 11, 2), day(2018, 11, 3),
+          day(2018, 11, 4), day(2018, 11, 10), day(2018, 11, 11), day(2018, 11, 17),
+          day(2018, 11, 3)));
+
+  @Test
+  public void holidaysAndWeekendsAreNotWorked() {
+    assertThat(calendar.isWorkingDay(day(2018, 11, 1)), is(false));
+    assertThat(calendar.isWorkingDay(day(2018, 11, 3)), is(false));
+    assertThat(calendar.isWorkingDay(day(2018, 11, 4)), is(false));
+    assertThat(calendar.isWorkingDay(day(2018, 10, 31)), is(true));
+    assertThat(calendar.isWorkingDay(day(2018, 11, 5)), is(true));
+  }
+
+  @Test
+  public void theTimeOfDayDoesNotMatter() {
+    assertThat(calendar.isWorkingDay(time(2018, 11, 1, 23, 30)), is(false));
+    assertThat(calendar.isWorkingDay(time(2018, 11, 5, 0, 15)), is(true));
+  }
+
+  @Test
+  public void aWorkingDayIsItsOwnNextWorkingDay() {
+    final Date monday = day(2018, 11, 5);
+    assertThat(calendar.nextWorkingDay(monday), sameInstance(monday));
+  }
+
+  @Test
+  public void theNextWorkingDaySkipsAHolidayFollowedByAWeekend() {
+    assertThat(calendar.nextWorkingDay(day(2018, 11, 1)), is(day(2018, 11, 5)));
+    assertThat(calendar.nextWorkingDay(day(2018, 11, 4)), is(day(2018, 11, 5)));
+  }
+
+  @Test
+  public void addingWorkingDaysSkipsTheNonWorkingDaysOfTheRange() {
+    assertThat(calendar.addWorkingDays(day(2018, 10, 31), 1), is(day(2018, 11, 5)));
+    assertThat(calendar.addWorkingDays(day(2018, 11, 5), 5), is(day(2018, 11, 12)));
+    assertThat(calendar.addWorkingDays(day(2018, 10, 30), 12), is(day(2018, 11, 19)));
+  }
+
+  @Test
+  public void addingWorkingDaysFromANonWorkingDay() {
+    assertThat(calendar.addWorkingDays(day(2018, 11, 3), 1), is(day(2018, 11, 5)));
+    assertThat(calendar.addWorkingDays(day(2018, 11, 1), 2), is(day(2018, 11, 6)));
+  }
+
+  @Test
+  public void addingWorkingDaysAfterTheLastNonWorkingDay() {
+    assertThat(calendar.addWorkingDays(day(2018, 11, 16), 3), is(day(2018, 11, 21)));
+    assertThat(calendar.addWorkingDays(day(2018, 11, 19), 2), is(day(2018, 11, 21)));
+  }
+
+  @Test
+  public void addingWorkingDaysKeepsTheTimeOfDay() {
+    assertThat(calendar.addWorkingDays(time(2018, 10, 31, 14, 0), 1),
+        is(time(2018, 11, 5, 14, 0)));
+  }
+
+  @Test
+  public void addingNoWorkingDayGivesTheDateItself() {
+    final Date saturday = day(2018, 11, 3);
+    assertThat(calendar.addWorkingDays(saturday, 0), sameInstance(saturday));
+    assertThat(calendar.addWorkingDays(saturday, -2), sameInstance(saturday));
+  }
+
+  @Test
+  public void withoutNonWorkingDaysAllTheDaysAreWorked() {
+    final WorkingDayCalendar everyDay = WorkingDayCalendar.of(Collections.emptyList());
+    assertThat(everyDay.isWorkingDay(day(2018, 11, 3)), is(true));
+    assertThat(everyDay.addWorkingDays(day(2018, 11, 1), 3), is(day(2018, 11, 4)));
+  }
+
+  @Test
+  public void theCalendarDaysOfARangeIncludeTheNonWorkingOnes() {
+    assertThat(WorkingDayCalendar.countDays(day(2018, 10, 29), day(2018, 11, 4)), is(7));
+    assertThat(WorkingDayCalendar.countDays(day(2018, 10, 27), day(2018, 10, 29)), is(3));
+    assertThat(WorkingDayCalendar.countDays(time(2018, 11, 1, 18, 0), time(2018, 11, 2, 8, 0)),
+        is(2));
+  }
+
+  @Test
+  public void theCalendarDaysOfARangeOfOneDay() {
+    assertThat(WorkingDayCalendar.countDays(day(2018, 11, 3), day(2018, 11, 3)), is(1));
+  }
+
+  @Test
+  public void aRangeEndingBeforeItBeginsHasNoDays() {
+    assertThat(WorkingDayCalendar.countDays(day(2018, 11, 5), day(2018, 11, 2)), is(0));
+  }
+
+  private static Date day(int year, int month, int dayOfMonth) {
+    return Date.from(
+        LocalDate.of(year, month, dayOfMonth).atStartOfDay(ZoneId.systemDefault()).toInstant());
+  }
+
+  private static Date time(int year, int month, int dayOfMonth, int hour, int minute) {
+    return Date.from(LocalDateTime.of(year, month, dayOfMonth, hour, minute)
+        .atZone(ZoneId.systemDefault()).toInstant());
+  }
+}
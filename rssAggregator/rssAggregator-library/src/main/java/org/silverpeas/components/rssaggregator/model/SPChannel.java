@@ -187,4 +187,24 @@ public class SPChannel extends SilverpeasBean implements Serializable {
   public void setFeed(final SyndFeed feed) {
     this.feed = feed;
   }
+
+  /**
+   * Gets a copy of this channel with the specified feed. This channel is left unchanged so that
+   * a channel shared between several threads is never modified.
+   * @param feed the feed of the copy.
+   * @return a new channel with the same properties as this one but the feed.
+   */
+  public SPChannel withFeed(final SyndFeed feed) {
+    SPChannel copy = new SPChannel();
+    copy.setPK(getPK());
+    copy.instanceId = instanceId;
+    copy.url = url;
+    copy.nbDisplayedItems = nbDisplayedItems;
+    copy.refreshRate = refreshRate;
+    copy.displayImage = displayImage;
+    copy.creatorId = creatorId;
+    copy.creationDate = creationDate;
+    copy.feed = feed;
+    return copy;
+  }
 }
\ No newline at end of file
@@ -25,23 +25,23 @@ package org.silverpeas.components.rssaggregator.service;
 
 import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
-import com.rometools.rome.io.FeedException;
-import com.rometools.rome.io.SyndFeedInput;
-import com.rometools.rome.io.XmlReader;
 import org.silverpeas.components.rssaggregator.model.RSSItem;
 import org.silverpeas.components.rssaggregator.model.RssAgregatorException;
 import org.silverpeas.components.rssaggregator.model.SPChannel;
 import org.silverpeas.components.rssaggregator.model.SPChannelPK;
-import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Singleton
 public class DefaultRSSService implements RSSService {
@@ -49,6 +49,9 @@ public class DefaultRSSService implements RSSService {
   @Inject
   private RssAggregator rssAggregator;
 
+  @Inject
+  private RssChannelRefresher refresher;
+
   private RssAggregatorCache cache = RssAggregatorCache.getInstance();
 
   @Override
@@ -58,28 +61,50 @@ public class DefaultRSSService implements RSSService {
     return buildRSSItemList(channels, aggregateContent);
   }
 
+  /**
+   * The channels are served from the cache. The expired ones are refreshed in background and
+   * served as they are in the meantime. The channels that were never fetched before are fetched
+   * in parallel and waited for at most the first load timeout of the {@link RssChannelRefresher}.
+   */
   @Override
   public List<SPChannel> getAllChannels(String applicationId) throws RssAgregatorException {
     List<SPChannel> channelsFromDB = this.rssAggregator.getChannels(applicationId);
-    List<SPChannel> channels = new ArrayList<>();
-    SyndFeed feed = null;
+    List<SPChannel> channels = new ArrayList<>(channelsFromDB.size());
+    Map<Integer, CompletableFuture<SPChannel>> firstLoads = new HashMap<>();
     for (SPChannel channel : channelsFromDB) {
-      SPChannelPK channelPK = (SPChannelPK) channel.getPK();
-      if (cache.isContentNeedToRefresh(channelPK)) {
-        try {
-          feed = getFeedFromUrl(channel.getUrl());
-        } catch (Exception e) {
-          SilverLogger.getLogger(this).error("Syndication feed fetching error with channel " +
-              channelPK + " at " + channel.getUrl(), e);
-          feed = null;
-        } finally {
-          channel.setFeed(feed);
-          cache.addChannelToCache(channel);
-        }
-      } else {
-        channel = cache.getChannelFromCache(channelPK);
+      SPChannel cachedChannel = getCachedChannel(channel);
+      if (cachedChannel == null) {
+        firstLoads.put(channels.size(), refresher.refresh(channel));
+        cachedChannel = channel;
+      }
+      channels.add(cachedChannel);
+    }
+    long deadline = System.currentTimeMillis() + refresher.getFirstLoadTimeout();
+    for (Map.Entry<Integer, CompletableFuture<SPChannel>> firstLoad : firstLoads.entrySet()) {
+      try {
+        long timeout = Math.max(0, deadline - System.currentTimeMillis());
+        channels.set(firstLoad.getKey(), firstLoad.getValue().get(timeout, TimeUnit.MILLISECONDS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException | TimeoutException e) {
+        SilverLogger.getLogger(this).warn("Syndication channel {0} not yet available: {1}",
+            channels.get(firstLoad.getKey()).getUrl(), e.getMessage());
+      }
+    }
+    return channels;
+  }
+
+  @Override
+  public List<SPChannel> getCachedChannels(String applicationId) throws RssAgregatorException {
+    List<SPChannel> channelsFromDB = this.rssAggregator.getChannels(applicationId);
+    List<SPChannel> channels = new ArrayList<>(channelsFromDB.size());
+    for (SPChannel channel : channelsFromDB) {
+      SPChannel cachedChannel = getCachedChannel(channel);
+      if (cachedChannel == null) {
+        refresher.refresh(channel);
       }
-      channels.add(channel);
+      channels.add(cachedChannel);
     }
     return channels;
   }
@@ -87,27 +112,23 @@ public class DefaultRSSService implements RSSService {
   @Override
   public SPChannel getChannel(final String url) throws RssAgregatorException {
     SPChannel channel = new SPChannel(url);
-    channel.setFeed(getFeedFromUrl(url));
+    channel.setFeed(refresher.fetchFeed(url));
     return channel;
   }
 
   /**
-   * Retrieve channel from URL string parameter
-   * @param sUrl the url string parameter
-   * @return RSS channel from URL
-   * @throws RssAgregatorException if MalformedURL or Parse or IO problem occur
+   * Gets the specified channel from the cache and asks for its refresh in background if it has
+   * expired.
+   * @param channel the channel as persisted.
+   * @return the cached channel or null if the channel isn't cached.
    */
-  private SyndFeed getFeedFromUrl(String sUrl) throws RssAgregatorException {
-    SyndFeed feed = null;
-    if (StringUtil.isDefined(sUrl)) {
-      try {
-        SyndFeedInput input = new SyndFeedInput();
-        feed = input.build(new XmlReader(new URL(sUrl)));
-      } catch (IOException|FeedException e) {
-        throw new RssAgregatorException(e.getMessage(), e);
-      }
+  private SPChannel getCachedChannel(SPChannel channel) {
+    SPChannelPK channelPK = (SPChannelPK) channel.getPK();
+    SPChannel cachedChannel = cache.getChannelFromCache(channelPK);
+    if (cachedChannel != null && cache.isContentNeedToRefresh(channelPK)) {
+      refresher.refresh(channel);
     }
-    return feed;
+    return cachedChannel;
   }
 
   /**
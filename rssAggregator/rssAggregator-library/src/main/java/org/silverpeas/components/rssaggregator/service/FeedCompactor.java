@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import com.rometools.rome.feed.synd.SyndContent;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import com.rometools.rome.feed.synd.SyndEntry;
+import com.rometools.rome.feed.synd.SyndEntryImpl;
+import com.rometools.rome.feed.synd.SyndFeed;
+import com.rometools.rome.feed.synd.SyndFeedImpl;
+import com.rometools.rome.feed.synd.SyndImage;
+import com.rometools.rome.feed.synd.SyndImageImpl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compactor of syndication feeds before they are cached. A feed parsed by ROME carries the whole
+ * object graph of the document (wire feed, modules, foreign markup, contents, categories,
+ * enclosures, ...) whereas the aggregator only renders a few properties of the channel and of
+ * its entries. The compacted feed is still a {@link SyndFeed} so that it can be rendered as
+ * before, but it keeps only:
+ * <ul>
+ * <li>the title, the link, the description, the image and the dates of the channel,</li>
+ * <li>the title, the link, the URI, the description, the comments and the dates of the entries
+ * that can be displayed, that is to say the first entries of the feed and the most recent
+ * ones within the number of items to display.</li>
+ * </ul>
+ */
+final class FeedCompactor {
+
+  private static final int OBJECT_WEIGHT = 16;
+  private static final int REFERENCE_WEIGHT = 8;
+  private static final int STRING_WEIGHT = 40;
+  private static final int DATE_WEIGHT = 24;
+  private static final int FEED_WEIGHT = 200;
+  private static final int ENTRY_WEIGHT = 120;
+
+  private FeedCompactor() {
+  }
+
+  /**
+   * Compacts the specified feed.
+   * @param feed a syndication feed. Can be null.
+   * @param nbDisplayedItems the number of entries displayed for the channel of the feed.
+   * @return the compacted feed or null if the specified feed is null.
+   */
+  static SyndFeed compact(final SyndFeed feed, final int nbDisplayedItems) {
+    if (feed == null) {
+      return null;
+    }
+    SyndFeedImpl compacted = new SyndFeedImpl();
+    compacted.setFeedType(feed.getFeedType());
+    compacted.setTitle(feed.getTitle());
+    compacted.setLink(feed.getLink());
+    compacted.setUri(feed.getUri());
+    compacted.setDescription(feed.getDescription());
+    compacted.setPublishedDate(feed.getPublishedDate());
+    compacted.setImage(compact(feed.getImage()));
+    List<SyndEntry> entries = new ArrayList<>();
+    for (SyndEntry entry : getDisplayableEntries(feed.getEntries(), nbDisplayedItems)) {
+      entries.add(compact(entry));
+    }
+    compacted.setEntries(entries);
+    return compacted;
+  }
+
+  /**
+   * Estimates the weight in bytes of the specified feed in the heap. The estimation is coarse
+   * and it is only meaningful for compacted feeds.
+   * @param feed a compacted syndication feed. Can be null.
+   * @return the estimated weight of the feed in bytes.
+   */
+  static long weigh(final SyndFeed feed) {
+    if (feed == null) {
+      return 0;
+    }
+    long weight = FEED_WEIGHT + weigh(feed.getTitle()) + weigh(feed.getLink()) +
+        weigh(feed.getUri()) + weigh(feed.getDescription()) + DATE_WEIGHT;
+    SyndImage image = feed.getImage();
+    if (image != null) {
+      weight += OBJECT_WEIGHT + weigh(image.getTitle()) + weigh(image.getUrl()) +
+          weigh(image.getLink());
+    }
+    for (SyndEntry entry : feed.getEntries()) {
+      weight += ENTRY_WEIGHT + REFERENCE_WEIGHT + weigh(entry.getTitle()) +
+          weigh(entry.getLink()) + weigh(entry.getUri()) + weigh(entry.getComments()) +
+          2 * DATE_WEIGHT;
+      if (entry.getDescription() != null) {
+        weight += OBJECT_WEIGHT + weigh(entry.getDescription().getType()) +
+            weigh(entry.getDescription().getValue());
+      }
+    }
+    return weight;
+  }
+
+  /**
+   * Gets the entries that can be displayed, in the order of the feed: the displayed items are
+   * either the first ones of the feed or the most recent ones according to the view.
+   */
+  private static List<SyndEntry> getDisplayableEntries(final List<SyndEntry> entries,
+      final int nbDisplayedItems) {
+    if (nbDisplayedItems <= 0 || entries.size() <= nbDisplayedItems) {
+      return entries;
+    }
+    Map<SyndEntry, Boolean> displayable = new IdentityHashMap<>();
+    List<SyndEntry> mostRecent = new ArrayList<>(entries);
+    mostRecent.sort(new FeedComparator(true));
+    for (int i = 0; i < nbDisplayedItems; i++) {
+      displayable.put(entries.get(i), Boolean.TRUE);
+      displayable.put(mostRecent.get(i), Boolean.TRUE);
+    }
+    List<SyndEntry> displayableEntries = new ArrayList<>(displayable.size());
+    for (SyndEntry entry : entries) {
+      if (displayable.containsKey(entry)) {
+        displayableEntries.add(entry);
+      }
+    }
+    return displayableEntries;
+  }
+
+  private static SyndEntry compact(final SyndEntry entry) {
+    SyndEntryImpl compacted = new SyndEntryImpl();
+    compacted.setTitle(entry.getTitle());
+    compacted.setLink(entry.getLink());
+    compacted.setUri(entry.getUri());
+    compacted.setComments(entry.getComments());
+    compacted.setPublishedDate(entry.getPublishedDate());
+    compacted.setUpdatedDate(entry.getUpdatedDate());
+    SyndContent description = entry.getDescription();
+    if (description != null) {
+      SyndContentImpl compactedDescription = new SyndContentImpl();
+      compactedDescription.setType(description.getType());
+      compactedDescription.setValue(description.getValue());
+      compacted.setDescription(compactedDescription);
+    }
+    return compacted;
+  }
+
+  private static SyndImage compact(final SyndImage image) {
+    if (image == null) {
+      return null;
+    }
+    SyndImageImpl compacted = new SyndImageImpl();
+    compacted.setTitle(image.getTitle());
+    compacted.setUrl(image.getUrl());
+    compacted.setLink(image.getLink());
+    return compacted;
+  }
+
+  private static long weigh(final String value) {
+    return value == null ? 0 : STRING_WEIGHT + 2L * value.length();
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import com.rometools.rome.feed.synd.SyndFeed;
+import com.rometools.rome.io.FeedException;
+import com.rometools.rome.io.SyndFeedInput;
+import com.rometools.rome.io.XmlReader;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.silverpeas.components.rssaggregator.model.RssAgregatorException;
+import org.silverpeas.core.util.StringUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+
+/**
+ * Fetcher of syndication feeds from their remote source. The feeds are fetched with connection
+ * and read timeouts so that a slow or unreachable remote site cannot hold a thread for ever.
+ * With HTTP, the connections are pooled and the feeds are requested conditionally: when the
+ * validators of a previous fetching are given, the remote server is asked to send the feed only
+ * if it has changed since.
+ */
+public class FeedFetcher implements Closeable {
+
+  private static final String USER_AGENT = "Silverpeas RSS Aggregator";
+
+  private final int connectTimeout;
+  private final int readTimeout;
+  private final CloseableHttpClient httpClient;
+
+  /**
+   * Constructs a new feed fetcher.
+   * @param connectTimeout the timeout in milliseconds to connect to the remote site.
+   * @param readTimeout the timeout in milliseconds to wait for data from the remote site.
+   * @param maxConnections the maximum number of simultaneous HTTP connections.
+   */
+  public FeedFetcher(final int connectTimeout, final int readTimeout, final int maxConnections) {
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeout)
+        .setConnectionRequestTimeout(connectTimeout)
+        .setSocketTimeout(readTimeout)
+        .build();
+    this.httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setUserAgent(USER_AGENT)
+        .build();
+  }
+
+  /**
+   * Fetches the feed at the specified URL.
+   * @param url the URL of the feed.
+   * @param previous the previous fetching of the feed or null if the feed was never fetched. Its
+   * HTTP validators are used to request the feed conditionally.
+   * @return the fetched feed. If the remote server replies the feed didn't change, the previous
+   * feed is returned with an updated fetch time.
+   * @throws RssAgregatorException if the feed cannot be fetched or parsed.
+   */
+  public FetchedFeed fetch(final String url, final FetchedFeed previous)
+      throws RssAgregatorException {
+    if (!StringUtil.isDefined(url)) {
+      return new FetchedFeed(null, null, null);
+    }
+    try {
+      String lowerCaseUrl = url.trim().toLowerCase();
+      if (lowerCaseUrl.startsWith("http://") || lowerCaseUrl.startsWith("https://")) {
+        return fetchByHttp(url.trim(), previous);
+      }
+      return fetchByURLConnection(url.trim());
+    } catch (IOException | FeedException | IllegalArgumentException e) {
+      throw new RssAgregatorException(e.getMessage(), e);
+    }
+  }
+
+  private FetchedFeed fetchByHttp(final String url, final FetchedFeed previous)
+      throws IOException, FeedException, RssAgregatorException {
+    HttpGet request = new HttpGet(url);
+    if (previous != null && previous.getFeed() != null) {
+      if (StringUtil.isDefined(previous.getETag())) {
+        request.setHeader(HttpHeaders.IF_NONE_MATCH, previous.getETag());
+      }
+      if (StringUtil.isDefined(previous.getLastModified())) {
+        request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+      }
+    }
+    try (CloseableHttpResponse response = httpClient.execute(request)) {
+      int status = response.getStatusLine().getStatusCode();
+      HttpEntity entity = response.getEntity();
+      if (status == HttpStatus.SC_NOT_MODIFIED && previous != null) {
+        EntityUtils.consumeQuietly(entity);
+        return previous.revalidated();
+      }
+      if (status != HttpStatus.SC_OK || entity == null) {
+        EntityUtils.consumeQuietly(entity);
+        throw new RssAgregatorException(
+            "Unexpected HTTP status " + status + " while fetching the feed at " + url);
+      }
+      Header contentType = entity.getContentType();
+      try (InputStream content = entity.getContent()) {
+        XmlReader reader = (contentType != null ?
+            new XmlReader(content, contentType.getValue(), true) : new XmlReader(content, true));
+        SyndFeed feed = new SyndFeedInput().build(reader);
+        return new FetchedFeed(feed, getHeaderValue(response, HttpHeaders.ETAG),
+            getHeaderValue(response, HttpHeaders.LAST_MODIFIED));
+      }
+    }
+  }
+
+  private FetchedFeed fetchByURLConnection(final String url) throws IOException, FeedException {
+    URLConnection connection = new URL(url).openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    try (XmlReader reader = new XmlReader(connection)) {
+      return new FetchedFeed(new SyndFeedInput().build(reader), null, null);
+    }
+  }
+
+  private static String getHeaderValue(final CloseableHttpResponse response, final String name) {
+    Header header = response.getFirstHeader(name);
+    return header != null ? header.getValue() : null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    httpClient.close();
+  }
+}
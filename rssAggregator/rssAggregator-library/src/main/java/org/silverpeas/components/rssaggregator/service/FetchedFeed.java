@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import com.rometools.rome.feed.synd.SyndFeed;
+
+/**
+ * A syndication feed fetched from its remote source with the HTTP validators sent by the
+ * remote server, if any. These validators are used in the next fetching of the feed to ask the
+ * server to send the feed only if it has changed since.
+ */
+public class FetchedFeed {
+
+  private final SyndFeed feed;
+  private final String eTag;
+  private final String lastModified;
+  private final long fetchTime;
+
+  FetchedFeed(final SyndFeed feed, final String eTag, final String lastModified) {
+    this(feed, eTag, lastModified, System.currentTimeMillis());
+  }
+
+  private FetchedFeed(final SyndFeed feed, final String eTag, final String lastModified,
+      final long fetchTime) {
+    this.feed = feed;
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+    this.fetchTime = fetchTime;
+  }
+
+  /**
+   * @return the syndication feed.
+   */
+  public SyndFeed getFeed() {
+    return feed;
+  }
+
+  /**
+   * @return the entity tag of the feed as sent by the remote server or null.
+   */
+  public String getETag() {
+    return eTag;
+  }
+
+  /**
+   * @return the last modification date of the feed as sent by the remote server or null.
+   */
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * @return the time in milliseconds at which the feed was fetched or revalidated.
+   */
+  public long getFetchTime() {
+    return fetchTime;
+  }
+
+  /**
+   * Gets a copy of this fetched feed for which the remote server has confirmed it didn't
+   * change.
+   * @return a copy of this fetched feed with an updated fetch time.
+   */
+  FetchedFeed revalidated() {
+    return new FetchedFeed(feed, eTag, lastModified);
+  }
+
+  /**
+   * Gets a copy of this fetched feed with another representation of the feed, for example a
+   * compacted one.
+   * @param otherFeed the feed to carry along with the validators of this fetched feed.
+   * @return a copy of this fetched feed with the specified feed.
+   */
+  FetchedFeed withFeed(final SyndFeed otherFeed) {
+    return new FetchedFeed(otherFeed, eTag, lastModified, fetchTime);
+  }
+}
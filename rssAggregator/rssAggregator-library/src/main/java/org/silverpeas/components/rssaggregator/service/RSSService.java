@@ -48,6 +48,16 @@ public interface RSSService {
    */
   List<SPChannel> getAllChannels(String applicationId) throws RssAgregatorException;
 
+  /**
+   * Retrieve the syndication channels of an application as they are currently cached, without
+   * waiting for any remote site. The channels that aren't cached yet are null in the returned
+   * list; they are then fetched in background like the expired ones.
+   * @param applicationId the current application identifier (instance of rssagregator application)
+   * @return the list of SPChannel, with null for the channels not yet fetched.
+   * @throws RssAgregatorException if an error occurs.
+   */
+  List<SPChannel> getCachedChannels(String applicationId) throws RssAgregatorException;
+
   /**
    * Retrieve the syndication channel at the specified URL.
    * @param url the URL of the syndication feed source.
@@ -25,26 +25,66 @@ package org.silverpeas.components.rssaggregator.service;
 
 import org.silverpeas.components.rssaggregator.model.SPChannel;
 import org.silverpeas.components.rssaggregator.model.SPChannelPK;
+import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SettingBundle;
 
 import javax.inject.Singleton;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Cache of the syndication channels with their feed. The cache is bounded both in number of
+ * channels and in estimated weight of the cached feeds: beyond these bounds, the least recently
+ * used channels are evicted. The feeds are compacted before being cached (see
+ * {@link FeedCompactor}) so that only what can be rendered is kept in memory.
+ * <p>
+ * The cache is safe for concurrent use. It counts its hits, misses and evictions so that its
+ * bounds can be sized according to the usage (see {@link #getStatistics()}).
+ * </p>
  * @author sv
  */
 @Singleton
 public class RssAggregatorCache {
-  // content of cache
-  private Map<SPChannelPK, SPChannel> cache = new HashMap<>();
-  // informations about cache refresh
-  private Map<SPChannelPK, Long> cacheNextRefresh = new HashMap<>();
+
+  private static final SettingBundle settings =
+      ResourceLocator.getSettingBundle("org.silverpeas.rssAgregator.settings.rssAgregatorSettings");
+  private static final int DEFAULT_MAX_CHANNELS = 500;
+  private static final int DEFAULT_MAX_WEIGHT_IN_KB = 32768;
+  private static final long KB = 1024L;
+
+  // content of cache, ordered from the least recently used channel
+  private final Map<SPChannelPK, CachedChannel> cache = new LinkedHashMap<>();
+  private final Lock lock = new ReentrantLock();
+  private final int maxChannels;
+  private final long maxWeight;
+  private long weight = 0;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
 
   /**
    * Default constructor
    */
   private RssAggregatorCache() {
+    this(settings.getInteger("cache.maxChannels", DEFAULT_MAX_CHANNELS),
+        settings.getInteger("cache.maxWeight", DEFAULT_MAX_WEIGHT_IN_KB) * KB);
+  }
+
+  /**
+   * Constructs a cache with the specified bounds.
+   * @param maxChannels the maximum number of cached channels.
+   * @param maxWeight the maximum estimated weight in bytes of the cached feeds.
+   */
+  RssAggregatorCache(final int maxChannels, final long maxWeight) {
+    this.maxChannels = Math.max(1, maxChannels);
+    this.maxWeight = Math.max(1, maxWeight);
   }
 
   /**
@@ -58,47 +98,246 @@ public class RssAggregatorCache {
    * Get a cached content. If content is not cached, return null.
    */
   public SPChannel getChannelFromCache(SPChannelPK key) {
-    return cache.get(key);
+    CachedChannel cachedChannel;
+    lock.lock();
+    try {
+      // moves the channel at the end of the eviction order
+      cachedChannel = cache.remove(key);
+      if (cachedChannel != null) {
+        cache.put(key, cachedChannel);
+        cachedChannel.accessed = true;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (cachedChannel == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return cachedChannel.channel;
   }
 
   /**
-   * Add or replace a content in the cache
+   * Add or replace a content in the cache. A replaced content keeps its position in the eviction
+   * order: only the reads of a content make it the most recently used one. A copy of the channel
+   * with a compacted feed is cached, so the given channel is left unchanged, and the HTTP
+   * validators of the previously cached feed, if any, are kept.
    */
   public void addChannelToCache(SPChannel spChannel) {
     SPChannelPK key = (SPChannelPK) spChannel.getPK();
+    CachedChannel previous = get(key);
+    FetchedFeed fetchedFeed = previous != null ? previous.fetchedFeed : null;
+    put(key, spChannel, fetchedFeed);
+  }
 
-    // Store channel in cache
-    cache.put(key, spChannel);
+  /**
+   * Add or replace a content in the cache with the feed as it was fetched from its remote source
+   * so that it can be fetched conditionally at the next refresh. As with
+   * {@link #addChannelToCache(SPChannel)}, a compacted copy of the channel is cached.
+   * @return the channel as it is cached.
+   */
+  public SPChannel addChannelToCache(SPChannel spChannel, FetchedFeed fetchedFeed) {
+    return put((SPChannelPK) spChannel.getPK(), spChannel, fetchedFeed);
+  }
 
-    // Store time of content informations storage
-    long currentTime = System.currentTimeMillis();
-    // refresh rate in ms
-    final int secondsInminute = 60;
-    final int milliInSecond = 1000;
-    int channelRefreshRate = spChannel.getRefreshRate() * milliInSecond * secondsInminute;
-    cacheNextRefresh.put(key, currentTime + channelRefreshRate);
+  /**
+   * Get the feed of a cached content as it was fetched from its remote source. If content is not
+   * cached or if its feed wasn't fetched, return null.
+   */
+  public FetchedFeed getFetchedFeed(SPChannelPK key) {
+    CachedChannel cachedChannel = get(key);
+    return cachedChannel != null ? cachedChannel.fetchedFeed : null;
   }
 
   /**
    * @param key of the channel to remove from the cache
    */
   public void removeChannelFromCache(SPChannelPK key) {
-    cache.remove(key);
-    cacheNextRefresh.remove(key);
+    lock.lock();
+    try {
+      CachedChannel removed = cache.remove(key);
+      if (removed != null) {
+        weight -= removed.weight;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the cached contents that have to be refreshed. The contents that weren't read since
+   * their last refresh aren't refreshed in background so that they can be evicted; they will be
+   * refreshed at their next reading.
+   */
+  public List<SPChannel> getExpiredChannels() {
+    List<SPChannel> expiredChannels = new ArrayList<>();
+    long currentTime = System.currentTimeMillis();
+    lock.lock();
+    try {
+      for (CachedChannel cachedChannel : cache.values()) {
+        if (cachedChannel.accessed && cachedChannel.isExpired(currentTime)) {
+          expiredChannels.add(cachedChannel.channel);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return expiredChannels;
   }
 
   /**
    * @return true if a cached content need to be updated or a content is not cached.
    */
   public boolean isContentNeedToRefresh(SPChannelPK key) {
-    if (cache.get(key) == null) {
-      // content is not cached
-      return true;
-    } else {
-      // verify if the content has been refreshed at the refresh rate
-      long timeOfNextRefresh = cacheNextRefresh.get(key);
-      long currentTime = System.currentTimeMillis();
-      return currentTime > timeOfNextRefresh;
+    CachedChannel cachedChannel = get(key);
+    // either the content is not cached or it has not been refreshed at the refresh rate
+    return cachedChannel == null || cachedChannel.isExpired(System.currentTimeMillis());
+  }
+
+  /**
+   * @return a snapshot of the statistics of this cache.
+   */
+  public Statistics getStatistics() {
+    lock.lock();
+    try {
+      return new Statistics(cache.size(), weight, hitCount.get(), missCount.get(),
+          evictionCount.get());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the specified channel without touching its position in the eviction order.
+   */
+  private CachedChannel get(SPChannelPK key) {
+    lock.lock();
+    try {
+      return cache.get(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private SPChannel put(SPChannelPK key, SPChannel spChannel, FetchedFeed fetchedFeed) {
+    // the compaction is done out of the lock as it walks the whole feed; the channels already in
+    // the cache may be rendered at the same time, so a new channel is built with the compacted feed
+    SPChannel compacted = spChannel.withFeed(
+        FeedCompactor.compact(spChannel.getFeed(), spChannel.getNbDisplayedItems()));
+    FetchedFeed compactedFetchedFeed =
+        fetchedFeed != null ? fetchedFeed.withFeed(compacted.getFeed()) : null;
+    CachedChannel cachedChannel = new CachedChannel(compacted, compactedFetchedFeed);
+    lock.lock();
+    try {
+      CachedChannel replaced = cache.put(key, cachedChannel);
+      if (replaced != null) {
+        weight -= replaced.weight;
+      }
+      weight += cachedChannel.weight;
+      evictIfNeeded();
+    } finally {
+      lock.unlock();
+    }
+    return compacted;
+  }
+
+  /**
+   * Evicts the least recently used channels while the cache is beyond its bounds. The most
+   * recently used channel is always kept, whatever its weight. Must be called under the lock.
+   */
+  private void evictIfNeeded() {
+    Iterator<CachedChannel> leastRecentlyUsed = cache.values().iterator();
+    while ((cache.size() > maxChannels || weight > maxWeight) && cache.size() > 1) {
+      CachedChannel evicted = leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+      weight -= evicted.weight;
+      evictionCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * A channel in the cache with the time at which it has to be refreshed.
+   */
+  private static class CachedChannel {
+    private static final long MILLIS_IN_MINUTE = 60L * 1000L;
+    private final SPChannel channel;
+    private final FetchedFeed fetchedFeed;
+    private final long nextRefresh;
+    private final long weight;
+    private volatile boolean accessed = false;
+
+    private CachedChannel(final SPChannel channel, final FetchedFeed fetchedFeed) {
+      this.channel = channel;
+      this.fetchedFeed = fetchedFeed;
+      // refresh rate in minutes
+      this.nextRefresh = System.currentTimeMillis() + channel.getRefreshRate() * MILLIS_IN_MINUTE;
+      this.weight = FeedCompactor.weigh(channel.getFeed());
+    }
+
+    private boolean isExpired(long currentTime) {
+      return currentTime > nextRefresh;
+    }
+  }
+
+  /**
+   * Statistics of the cache at a given time.
+   */
+  public static class Statistics {
+    private final int size;
+    private final long weight;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    private Statistics(final int size, final long weight, final long hitCount,
+        final long missCount, final long evictionCount) {
+      this.size = size;
+      this.weight = weight;
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+    }
+
+    /**
+     * @return the number of cached channels.
+     */
+    public int getSize() {
+      return size;
+    }
+
+    /**
+     * @return the estimated weight in bytes of the cached feeds.
+     */
+    public long getWeight() {
+      return weight;
+    }
+
+    /**
+     * @return the number of times a channel was found in the cache.
+     */
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    /**
+     * @return the number of times a channel wasn't found in the cache.
+     */
+    public long getMissCount() {
+      return missCount;
+    }
+
+    /**
+     * @return the number of channels evicted from the cache to keep it within its bounds.
+     */
+    public long getEvictionCount() {
+      return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+      return "RSS channels cache: " + size + " channels, " + weight / KB + " KB, " + hitCount +
+          " hits, " + missCount + " misses, " + evictionCount + " evictions";
     }
   }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.SchedulerProvider;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.scheduler.trigger.TimeUnit;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+/**
+ * Initializes the RSS aggregator application by scheduling the background refresh of the
+ * expired syndication channels.
+ */
+public class RssAggregatorInitialize implements Initialization {
+
+  private static final int DEFAULT_FREQUENCY = 1;
+
+  @Override
+  public void init() {
+    try {
+      SettingBundle settings = ResourceLocator.getSettingBundle(
+          "org.silverpeas.rssAgregator.settings.rssAgregatorSettings");
+      int frequency = settings.getInteger("refresh.frequency", DEFAULT_FREQUENCY);
+      Scheduler scheduler = SchedulerProvider.getVolatileScheduler();
+      scheduler.unscheduleJob(RssChannelRefresher.JOB_NAME);
+      if (frequency > 0) {
+        JobTrigger trigger = JobTrigger.triggerEvery(frequency, TimeUnit.MINUTE);
+        scheduler.scheduleJob(RssChannelRefresher.JOB_NAME, trigger, RssChannelRefresher.get());
+      }
+    } catch (Exception e) {
+      SilverLogger.getLogger(this).error(e);
+    }
+  }
+}
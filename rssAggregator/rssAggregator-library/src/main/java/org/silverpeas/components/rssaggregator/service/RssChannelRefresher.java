@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import com.rometools.rome.feed.synd.SyndFeed;
+import org.silverpeas.components.rssaggregator.model.RssAgregatorException;
+import org.silverpeas.components.rssaggregator.model.SPChannel;
+import org.silverpeas.components.rssaggregator.model.SPChannelPK;
+import org.silverpeas.core.scheduler.SchedulerEvent;
+import org.silverpeas.core.scheduler.SchedulerEventListener;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refresher of the syndication channels. The channels are fetched from their remote source in
+ * background by a bounded pool of threads so that the rendering of a page never waits for a
+ * remote site: the pages are served from the {@link RssAggregatorCache} and the expired channels
+ * are refreshed asynchronously (stale-while-revalidate). A channel is never fetched twice at the
+ * same time and, when the queue of pending refreshes is full, the refresh of a channel is
+ * skipped until the next pass.
+ * <p>
+ * The refresher is also a scheduler event listener: at each trigger, it refreshes all the cached
+ * channels that have expired.
+ * </p>
+ */
+@Singleton
+public class RssChannelRefresher implements SchedulerEventListener {
+
+  public static final String JOB_NAME = "RssAggregatorChannelRefresh";
+
+  private static final SettingBundle settings =
+      ResourceLocator.getSettingBundle("org.silverpeas.rssAgregator.settings.rssAgregatorSettings");
+
+  private final RssAggregatorCache cache = RssAggregatorCache.getInstance();
+  private final Map<SPChannelPK, CompletableFuture<SPChannel>> inProgress =
+      new ConcurrentHashMap<>();
+  private final FeedFetcher fetcher;
+  private final ExecutorService executor;
+
+  protected RssChannelRefresher() {
+    int threads = Math.max(1, settings.getInteger("refresh.threads", 4));
+    int queueSize = Math.max(1, settings.getInteger("refresh.queueSize", 200));
+    fetcher = new FeedFetcher(settings.getInteger("refresh.connectTimeout", 5000),
+        settings.getInteger("refresh.readTimeout", 15000), threads);
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+        new ArrayBlockingQueue<>(queueSize), r -> {
+      Thread thread = new Thread(r, "rss-channel-refresh-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    pool.allowCoreThreadTimeOut(true);
+    executor = pool;
+  }
+
+  public static RssChannelRefresher get() {
+    return ServiceProvider.getService(RssChannelRefresher.class);
+  }
+
+  /**
+   * Gets the maximum time in milliseconds a page should wait for the channels that were never
+   * fetched before.
+   * @return a timeout in milliseconds.
+   */
+  public long getFirstLoadTimeout() {
+    return settings.getInteger("refresh.firstLoadTimeout", 10000);
+  }
+
+  /**
+   * Refreshes asynchronously the specified channel. If the channel is already being refreshed,
+   * the pending refresh is returned.
+   * @param channel the channel to refresh.
+   * @return the future channel with its refreshed feed. If the channel cannot be refreshed, the
+   * future is completed with the channel as it is in the cache (or with the given channel if it
+   * isn't cached).
+   */
+  public CompletableFuture<SPChannel> refresh(final SPChannel channel) {
+    final SPChannelPK key = (SPChannelPK) channel.getPK();
+    CompletableFuture<SPChannel> future = new CompletableFuture<>();
+    CompletableFuture<SPChannel> pending = inProgress.putIfAbsent(key, future);
+    if (pending != null) {
+      return pending;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(fetch(channel));
+        } catch (RuntimeException e) {
+          future.completeExceptionally(e);
+        } finally {
+          inProgress.remove(key, future);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      SilverLogger.getLogger(this)
+          .warn("Too many channels to refresh: refresh of channel {0} postponed", key.getId());
+      inProgress.remove(key, future);
+      SPChannel cached = cache.getChannelFromCache(key);
+      future.complete(cached != null ? cached : channel);
+    }
+    return future;
+  }
+
+  /**
+   * Fetches synchronously the feed at the specified URL, out of any cache.
+   * @param url the URL of a syndication feed.
+   * @return the feed.
+   * @throws RssAgregatorException if the feed cannot be fetched.
+   */
+  public SyndFeed fetchFeed(final String url) throws RssAgregatorException {
+    return fetcher.fetch(url, null).getFeed();
+  }
+
+  /**
+   * Refreshes asynchronously all the cached channels that have expired.
+   */
+  public void refreshExpiredChannels() {
+    for (SPChannel channel : cache.getExpiredChannels()) {
+      refresh(channel);
+    }
+  }
+
+  private SPChannel fetch(final SPChannel channel) {
+    SPChannelPK key = (SPChannelPK) channel.getPK();
+    FetchedFeed previous = cache.getFetchedFeed(key);
+    FetchedFeed fetched;
+    try {
+      fetched = fetcher.fetch(channel.getUrl(), previous);
+    } catch (RssAgregatorException e) {
+      SilverLogger.getLogger(this).error("Syndication feed fetching error with channel " +
+          key + " at " + channel.getUrl(), e);
+      // the previous feed, if any, is kept until the next refresh (stale-if-error)
+      fetched = previous;
+    }
+    // the given channel can be the one in the cache and then being rendered: it is left unchanged
+    return cache.addChannelToCache(channel.withFeed(fetched != null ? fetched.getFeed() : null),
+        fetched);
+  }
+
+  @Override
+  public void triggerFired(final SchedulerEvent anEvent) {
+    SilverLogger.getLogger(this).debug("{0}", cache.getStatistics());
+    refreshExpiredChannels();
+  }
+
+  @Override
+  public void jobSucceeded(final SchedulerEvent anEvent) {
+    // nothing to do
+  }
+
+  @Override
+  public void jobFailed(final SchedulerEvent anEvent) {
+    SilverLogger.getLogger(this).error("The job '" +
+        anEvent.getJobExecutionContext().getJobName() + "' was not successful");
+  }
+
+  @PreDestroy
+  protected void shutdown() {
+    executor.shutdownNow();
+    try {
+      fetcher.close();
+    } catch (IOException e) {
+      SilverLogger.getLogger(this).warn(e);
+    }
+  }
+}
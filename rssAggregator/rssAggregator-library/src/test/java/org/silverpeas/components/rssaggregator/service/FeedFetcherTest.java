@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.silverpeas.components.rssaggregator.model.RssAgregatorException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests the fetching of feeds against a local HTTP stub server.
+ */
+public class FeedFetcherTest {
+
+  private static final String ETAG = "\"v1\"";
+  private static final String FEED = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+      "<rss version=\"2.0\"><channel><title>Stub</title><link>http://localhost/</link>" +
+      "<description>A stub feed</description>" +
+      "<item><title>First item</title><link>http://localhost/1</link></item>" +
+      "</channel></rss>";
+
+  private HttpServer server;
+  private FeedFetcher fetcher;
+  private final AtomicInteger fullResponses = new AtomicInteger();
+  private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/feed", exchange -> {
+      if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        notModifiedResponses.incrementAndGet();
+        exchange.sendResponseHeaders(304, -1);
+      } else {
+        fullResponses.incrementAndGet();
+        byte[] body = FEED.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/rss+xml; charset=UTF-8");
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+      exchange.close();
+    });
+    server.createContext("/slow", exchange -> {
+      try {
+        Thread.sleep(2000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(500, -1);
+      exchange.close();
+    });
+    server.createContext("/missing", exchange -> {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+    });
+    server.start();
+    fetcher = new FeedFetcher(1000, 500, 2);
+  }
+
+  @After
+  public void stopServer() throws IOException {
+    fetcher.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void aFeedIsFetchedWithItsValidators() throws RssAgregatorException {
+    FetchedFeed fetched = fetcher.fetch(url("/feed"), null);
+    assertThat(fetched.getFeed(), notNullValue());
+    assertThat(fetched.getFeed().getTitle(), is("Stub"));
+    assertThat(fetched.getFeed().getEntries().size(), is(1));
+    assertThat(fetched.getETag(), is(ETAG));
+    assertThat(fullResponses.get(), is(1));
+  }
+
+  @Test
+  public void anUnchangedFeedIsRevalidatedWithoutBeingDownloadedAgain()
+      throws RssAgregatorException {
+    FetchedFeed first = fetcher.fetch(url("/feed"), null);
+    FetchedFeed second = fetcher.fetch(url("/feed"), first);
+    assertThat(second.getFeed(), sameInstance(first.getFeed()));
+    assertThat(fullResponses.get(), is(1));
+    assertThat(notModifiedResponses.get(), is(1));
+  }
+
+  @Test(expected = RssAgregatorException.class)
+  public void aSlowSiteMakesTheFetchingFailOnTimeout() throws RssAgregatorException {
+    fetcher.fetch(url("/slow"), null);
+  }
+
+  @Test(expected = RssAgregatorException.class)
+  public void anHttpErrorMakesTheFetchingFail() throws RssAgregatorException {
+    fetcher.fetch(url("/missing"), null);
+  }
+
+  private String url(String path) {
+    return "http://localhost:" + server.getAddress().getPort() + path;
+  }
+}
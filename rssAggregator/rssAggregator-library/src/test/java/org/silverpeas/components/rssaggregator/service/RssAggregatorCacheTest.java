@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.rssaggregator.service;
+
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import com.rometools.rome.feed.synd.SyndEntry;
+import com.rometools.rome.feed.synd.SyndEntryImpl;
+import com.rometools.rome.feed.synd.SyndFeed;
+import com.rometools.rome.feed.synd.SyndFeedImpl;
+import org.junit.Test;
+import org.silverpeas.components.rssaggregator.model.SPChannel;
+import org.silverpeas.components.rssaggregator.model.SPChannelPK;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests the bounds, the eviction order and the statistics of the cache of channels.
+ */
+public class RssAggregatorCacheTest {
+
+  private static final String INSTANCE_ID = "rssAggregator1";
+
+  @Test
+  public void theLeastRecentlyReadChannelIsEvictedBeyondTheMaxNumberOfChannels() {
+    RssAggregatorCache cache = new RssAggregatorCache(2, Long.MAX_VALUE);
+    cache.addChannelToCache(channel("1", 5));
+    cache.addChannelToCache(channel("2", 5));
+    assertThat(cache.getChannelFromCache(pk("1")), notNullValue());
+    cache.addChannelToCache(channel("3", 5));
+
+    assertThat(cache.getChannelFromCache(pk("2")), nullValue());
+    assertThat(cache.getChannelFromCache(pk("1")), notNullValue());
+    assertThat(cache.getChannelFromCache(pk("3")), notNullValue());
+
+    RssAggregatorCache.Statistics statistics = cache.getStatistics();
+    assertThat(statistics.getSize(), is(2));
+    assertThat(statistics.getHitCount(), is(3L));
+    assertThat(statistics.getMissCount(), is(1L));
+    assertThat(statistics.getEvictionCount(), is(1L));
+  }
+
+  @Test
+  public void aRefreshedChannelKeepsItsPositionInTheEvictionOrder() {
+    RssAggregatorCache cache = new RssAggregatorCache(2, Long.MAX_VALUE);
+    cache.addChannelToCache(channel("1", 5));
+    cache.addChannelToCache(channel("2", 5));
+    cache.addChannelToCache(channel("1", 5));
+    cache.addChannelToCache(channel("3", 5));
+
+    assertThat(cache.getChannelFromCache(pk("1")), nullValue());
+    assertThat(cache.getChannelFromCache(pk("2")), notNullValue());
+  }
+
+  @Test
+  public void channelsAreEvictedBeyondTheMaxWeight() {
+    SPChannel channel = channel("1", 10);
+    long channelWeight = FeedCompactor.weigh(
+        FeedCompactor.compact(channel.getFeed(), channel.getNbDisplayedItems()));
+    RssAggregatorCache cache = new RssAggregatorCache(100, channelWeight * 2);
+    cache.addChannelToCache(channel);
+    cache.addChannelToCache(channel("2", 10));
+    cache.addChannelToCache(channel("3", 10));
+
+    RssAggregatorCache.Statistics statistics = cache.getStatistics();
+    assertThat(statistics.getSize(), is(2));
+    assertThat(statistics.getWeight(), is(channelWeight * 2));
+    assertThat(statistics.getEvictionCount(), is(1L));
+    assertThat(cache.getChannelFromCache(pk("1")), nullValue());
+  }
+
+  @Test
+  public void onlyTheDisplayableEntriesOfAFeedAreCached() {
+    RssAggregatorCache cache = new RssAggregatorCache(10, Long.MAX_VALUE);
+    SPChannel channel = channel("1", 10);
+    channel.setNbDisplayedItems(3);
+    // the last entry of the feed is the most recent one
+    channel.getFeed().getEntries().get(9).setUpdatedDate(new Date());
+    cache.addChannelToCache(channel);
+
+    SyndFeed cachedFeed = cache.getChannelFromCache(pk("1")).getFeed();
+    assertThat(cachedFeed.getTitle(), is("Feed 1"));
+    assertThat(cachedFeed.getEntries().size(), is(4));
+    assertThat(cachedFeed.getEntries().get(0).getTitle(), is("Entry 0"));
+    assertThat(cachedFeed.getEntries().get(3).getTitle(), is("Entry 9"));
+    assertThat(cachedFeed.getEntries().get(3).getDescription().getValue(),
+        is("Description of entry 9"));
+  }
+
+  @Test
+  public void aCachedChannelIsNeverModifiedByTheCachingOfAnother() {
+    RssAggregatorCache cache = new RssAggregatorCache(10, Long.MAX_VALUE);
+    SPChannel channel = channel("1", 10);
+    channel.setNbDisplayedItems(3);
+    cache.addChannelToCache(channel);
+    SPChannel cached = cache.getChannelFromCache(pk("1"));
+    SyndFeed cachedFeed = cached.getFeed();
+
+    cache.addChannelToCache(cached.withFeed(channel("1", 8).getFeed()));
+
+    assertThat(channel.getFeed().getEntries().size(), is(10));
+    assertThat(cached.getFeed(), sameInstance(cachedFeed));
+    assertThat(cache.getChannelFromCache(pk("1")), not(sameInstance(cached)));
+  }
+
+  @Test
+  public void onlyTheChannelsReadSinceTheirLastRefreshAreRefreshedInBackground() {
+    RssAggregatorCache cache = new RssAggregatorCache(10, Long.MAX_VALUE);
+    SPChannel read = channel("1", 1);
+    read.setRefreshRate(0);
+    SPChannel unread = channel("2", 1);
+    unread.setRefreshRate(0);
+    cache.addChannelToCache(read);
+    cache.addChannelToCache(unread);
+    cache.getChannelFromCache(pk("1"));
+
+    List<SPChannel> expiredChannels = cache.getExpiredChannels();
+    assertThat(expiredChannels.size(), is(1));
+    assertThat(expiredChannels.get(0).getPK().getId(), is("1"));
+  }
+
+  private static SPChannelPK pk(String id) {
+    return new SPChannelPK(id, INSTANCE_ID);
+  }
+
+  private static SPChannel channel(String id, int nbEntries) {
+    SPChannel channel = new SPChannel(id, "http://localhost/feed/" + id, INSTANCE_ID);
+    channel.setPK(pk(id));
+    channel.setRefreshRate(10);
+    channel.setNbDisplayedItems(100);
+    SyndFeed feed = new SyndFeedImpl();
+    feed.setTitle("Feed " + id);
+    List<SyndEntry> entries = new ArrayList<>(nbEntries);
+    long time = System.currentTimeMillis() - 3600000L;
+    for (int i = 0; i < nbEntries; i++) {
+      SyndEntry entry = new SyndEntryImpl();
+      entry.setTitle("Entry " + i);
+      entry.setLink("http://localhost/feed/" + id + "/" + i);
+      entry.setPublishedDate(new Date(time - i * 60000L));
+      SyndContentImpl description = new SyndContentImpl();
+      description.setValue("Description of entry " + i);
+      entry.setDescription(description);
+      entries.add(entry);
+    }
+    feed.setEntries(entries);
+    channel.setFeed(feed);
+    return channel;
+  }
+}
@@ -43,7 +43,6 @@ import org.silverpeas.core.web.mvc.controller.ComponentContext;
 import org.silverpeas.core.web.mvc.controller.MainSessionController;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
@@ -79,21 +78,11 @@ public class RssAgregatorSessionController extends AbstractComponentSessionContr
   }
 
   /**
-   * Extract rss files informations (channels and items). Return a list of Channel.
+   * Extract rss files informations (channels and items) from the cache. Return a list of Channel
+   * in which the channels that aren't yet cached are null.
    */
   public List<SPChannel> getAvailableChannels() throws RssAgregatorException {
-    List<SPChannel> channelsFromDB = getRssAggregator().getChannels(getComponentId());
-    List<SPChannel> channels = new ArrayList<>();
-    for (SPChannel channel : channelsFromDB) {
-      SPChannelPK channelPK = (SPChannelPK) channel.getPK();
-      if (cache.isContentNeedToRefresh(channelPK)) {
-        channel = null;
-      } else {
-        channel = cache.getChannelFromCache(channelPK);
-      }
-      channels.add(channel);
-    }
-    return channels;
+    return getRssService().getCachedChannels(getComponentId());
   }
 
   /**
@@ -124,13 +113,13 @@ public class RssAgregatorSessionController extends AbstractComponentSessionContr
     }
     getRssAggregator().updateChannel(currentChannel);
 
-    SyndFeed feed;
-    if (urlHaveChanged) {
-      // L'url a change, il faut recharger le channel
+    SPChannel cachedChannel = cache.getChannelFromCache((SPChannelPK) currentChannel.getPK());
+    if (urlHaveChanged || cachedChannel == null) {
+      // L'url a change (ou le channel n'est plus en cache), il faut recharger le channel
       cache.removeChannelFromCache((SPChannelPK) channel.getPK());
     } else {
       // L'url n'a pas change, il n'est pas necessaire de recharger le channel
-      feed = cache.getChannelFromCache((SPChannelPK) currentChannel.getPK()).getFeed();
+      SyndFeed feed = cachedChannel.getFeed();
       currentChannel.setFeed(feed);
 
       // add rss channel in cache
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.silvercrawler;
+
+import org.silverpeas.components.silvercrawler.model.IndexedFilesRegistry;
+import org.silverpeas.core.admin.component.ComponentInstancePreDestruction;
+
+import javax.inject.Named;
+
+/**
+ * Before being deleted, closes the reader and the directory of the index of a silverCrawler
+ * instance that were kept open for the listing of its folders.
+ */
+@Named
+public class SilverCrawlerInstancePreDestruction implements ComponentInstancePreDestruction {
+
+  /**
+   * Performs pre destruction tasks in the behalf of the specified silverCrawler instance.
+   * @param componentInstanceId the unique identifier of the silverCrawler instance.
+   */
+  @Override
+  public void preDestroy(final String componentInstanceId) {
+    IndexedFilesRegistry.get().release(componentInstanceId);
+  }
+}
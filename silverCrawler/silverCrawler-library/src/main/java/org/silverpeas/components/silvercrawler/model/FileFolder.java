@@ -25,23 +25,15 @@
 package org.silverpeas.components.silvercrawler.model;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
 import org.silverpeas.core.SilverpeasRuntimeException;
-import org.silverpeas.core.index.indexing.IndexFileManager;
 import org.silverpeas.core.util.file.FileUtil;
-import org.silverpeas.core.util.logging.SilverLogger;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class declaration
@@ -92,7 +84,6 @@ public class FileFolder implements java.io.Serializable {
     this.path = path;
     files = new ArrayList<>(0);
     folders = new ArrayList<>(0);
-    IndexReader reader = null;
     try {
       // Check security access : cannot browse inside rootPath
       FileUtil.validateFilename(path, rootPath);
@@ -104,34 +95,19 @@ public class FileFolder implements java.io.Serializable {
         this.name = f.getName();
         this.readable = f.canRead();
         File[] children = f.listFiles();
-        boolean isIndexed = false;
-
-        if (isAdmin) {
-          // ouverture de l'index
-          Directory indexPath =
-              FSDirectory.open(Paths.get(IndexFileManager.getAbsoluteIndexPath(componentId)));
-          if (DirectoryReader.indexExists(indexPath)) {
-            reader = DirectoryReader.open(indexPath);
-          }
-        }
         if (children != null && children.length > 0) {
-          for (File childFile : children) {
-            isIndexed = false;
-            if (isAdmin) {
-              // rechercher si le répertoire (ou le fichier) est indexé
-              StringBuilder pathIndex = new StringBuilder(componentId).append("|");
-              if (childFile.isDirectory()) {
-                pathIndex.append("LinkedDir").append("|");
-              } else {
-                pathIndex.append("LinkedFile").append("|");
-              }
-              pathIndex.append(FilenameUtils.separatorsToUnix(childFile.getPath()));
-              Term term = new Term("key", pathIndex.toString());
-              if (reader != null && reader.docFreq(term) == 1) {
-                isIndexed = true;
-              }
+          // rechercher en une fois quels répertoires (ou fichiers) sont indexés
+          List<String> keys = new ArrayList<>(children.length);
+          Set<String> indexedKeys = Collections.emptySet();
+          if (isAdmin) {
+            for (File childFile : children) {
+              keys.add(IndexedFiles.keyOf(componentId, childFile));
             }
-
+            indexedKeys = IndexedFiles.of(componentId).getIndexedKeys(keys);
+          }
+          for (int i = 0; i < children.length; i++) {
+            File childFile = children[i];
+            boolean isIndexed = isAdmin && indexedKeys.contains(keys.get(i));
             if (childFile.isDirectory()) {
               folders.add(
                   new FileDetail(childFile.getName(), childFile.getPath(), null, childFile.length(),
@@ -147,15 +123,6 @@ public class FileFolder implements java.io.Serializable {
       }
     } catch (Exception e) {
       throw new SilverpeasRuntimeException(e);
-    } finally {
-      // fermeture de l'index
-      if (reader != null && isAdmin) {
-        try {
-          reader.close();
-        } catch (IOException e) {
-          SilverLogger.getLogger(this).warn(e);
-        }
-      }
     }
   }
 
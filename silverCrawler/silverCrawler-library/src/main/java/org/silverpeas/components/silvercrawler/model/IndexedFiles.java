@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.silvercrawler.model;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The files and the folders of a silverCrawler instance that are indexed.
+ * <p>
+ * The index of each instance is read through a reader that is shared by all the listings of
+ * folders and that is reopened only when the index has changed since the last listing. Whether
+ * the entries of a folder are indexed is answered in one pass over the terms of the index,
+ * instead of one lookup per entry. The reader and the index directory are kept open until the
+ * indexed files are closed by the {@link IndexedFilesRegistry}.
+ * </p>
+ */
+class IndexedFiles {
+
+  private static final String KEY_FIELD = "key";
+
+  private final Directory directory;
+  private SearcherManager searcherManager;
+  private boolean closed = false;
+
+  IndexedFiles(Directory directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Gets the indexed files of the specified silverCrawler instance.
+   * @param componentId the unique identifier of a silverCrawler instance.
+   * @return the indexed files of the instance.
+   */
+  static IndexedFiles of(String componentId) {
+    return IndexedFilesRegistry.get().of(componentId);
+  }
+
+  /**
+   * Gets the key with which the specified file or folder is indexed.
+   * @param componentId the unique identifier of the silverCrawler instance.
+   * @param file a file or a folder.
+   * @return the key of the file in the index.
+   */
+  static String keyOf(String componentId, File file) {
+    return componentId + "|" + (file.isDirectory() ? "LinkedDir" : "LinkedFile") + "|" +
+        FilenameUtils.separatorsToUnix(file.getPath());
+  }
+
+  /**
+   * Gets among the specified keys the ones of the files or of the folders that are indexed.
+   * @param keys the keys of files or of folders.
+   * @return the keys that are in the index, each of them for one document.
+   */
+  Set<String> getIndexedKeys(Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return Collections.emptySet();
+    }
+    try {
+      SearcherManager manager = getSearcherManager();
+      if (manager == null) {
+        return Collections.emptySet();
+      }
+      List<BytesRef> terms = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        terms.add(new BytesRef(key));
+      }
+      // the terms are sorted in the index order so that each segment is walked forward once
+      Collections.sort(terms);
+      Map<BytesRef, Integer> frequencies = new HashMap<>(terms.size());
+      IndexSearcher searcher = manager.acquire();
+      try {
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+          Terms leafTerms = leaf.reader().terms(KEY_FIELD);
+          if (leafTerms == null) {
+            continue;
+          }
+          TermsEnum termsEnum = leafTerms.iterator();
+          for (BytesRef term : terms) {
+            if (termsEnum.seekExact(term)) {
+              frequencies.merge(term, termsEnum.docFreq(), Integer::sum);
+            }
+          }
+        }
+      } finally {
+        manager.release(searcher);
+      }
+      Set<String> indexedKeys = new HashSet<>(frequencies.size());
+      for (Map.Entry<BytesRef, Integer> frequency : frequencies.entrySet()) {
+        if (frequency.getValue() == 1) {
+          indexedKeys.add(frequency.getKey().utf8ToString());
+        }
+      }
+      return indexedKeys;
+    } catch (IOException | AlreadyClosedException e) {
+      SilverLogger.getLogger(this).warn(e);
+      reset();
+      return Collections.emptySet();
+    }
+  }
+
+  /**
+   * Gets the manager of the shared searcher, refreshed if the index has changed. Null is returned
+   * as long as the index doesn't exist.
+   */
+  private synchronized SearcherManager getSearcherManager() throws IOException {
+    if (closed) {
+      return null;
+    }
+    if (searcherManager == null) {
+      if (!DirectoryReader.indexExists(directory)) {
+        return null;
+      }
+      searcherManager = new SearcherManager(directory, null);
+    } else {
+      searcherManager.maybeRefresh();
+    }
+    return searcherManager;
+  }
+
+  private synchronized void reset() {
+    if (searcherManager != null) {
+      try {
+        searcherManager.close();
+      } catch (IOException e) {
+        SilverLogger.getLogger(this).silent(e);
+      }
+      searcherManager = null;
+    }
+  }
+
+  /**
+   * Closes the shared reader and the directory of the index. The indexed files aren't read
+   * anymore: no key is then found in the index.
+   */
+  synchronized void close() {
+    closed = true;
+    reset();
+    try {
+      directory.close();
+    } catch (IOException e) {
+      SilverLogger.getLogger(this).silent(e);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.silvercrawler.model;
+
+import org.apache.lucene.store.FSDirectory;
+import org.silverpeas.core.index.indexing.IndexFileManager;
+import org.silverpeas.core.util.ServiceProvider;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the {@link IndexedFiles} of the silverCrawler instances.
+ * <p>
+ * The indexed files of an instance are opened at the first listing of one of its folders and they
+ * are shared by the next listings. They are closed, with the reader and the directory of the
+ * index, when the instance is deleted, when the path of its index changes and when Silverpeas is
+ * shut down.
+ * </p>
+ */
+@Singleton
+public class IndexedFilesRegistry {
+
+  private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the registry of the indexed files.
+   * @return the registry.
+   */
+  public static IndexedFilesRegistry get() {
+    return ServiceProvider.getService(IndexedFilesRegistry.class);
+  }
+
+  /**
+   * Gets the indexed files of the specified silverCrawler instance. If the path of the index of
+   * the instance has changed since they were opened, the previous ones are closed and the indexed
+   * files are opened again at the new path.
+   * @param componentId the unique identifier of a silverCrawler instance.
+   * @return the indexed files of the instance.
+   */
+  IndexedFiles of(String componentId) {
+    final Path indexPath = Paths.get(IndexFileManager.getAbsoluteIndexPath(componentId));
+    final Registration registration = registrations.get(componentId);
+    if (registration != null && registration.indexPath.equals(indexPath)) {
+      return registration.indexedFiles;
+    }
+    return registrations.compute(componentId, (id, current) -> {
+      if (current != null) {
+        if (current.indexPath.equals(indexPath)) {
+          return current;
+        }
+        current.indexedFiles.close();
+      }
+      try {
+        return new Registration(indexPath, new IndexedFiles(FSDirectory.open(indexPath)));
+      } catch (IOException e) {
+        throw new SilverCrawlerRuntimeException(e);
+      }
+    }).indexedFiles;
+  }
+
+  /**
+   * Closes the indexed files of the specified silverCrawler instance, if any. They will be opened
+   * again at the next listing of one of its folders.
+   * @param componentId the unique identifier of a silverCrawler instance.
+   */
+  public void release(String componentId) {
+    final Registration registration = registrations.remove(componentId);
+    if (registration != null) {
+      registration.indexedFiles.close();
+    }
+  }
+
+  /**
+   * Closes the indexed files of all the silverCrawler instances.
+   */
+  @PreDestroy
+  void releaseAll() {
+    registrations.keySet().forEach(this::release);
+  }
+
+  private static class Registration {
+    private final Path indexPath;
+    private final IndexedFiles indexedFiles;
+
+    private Registration(final Path indexPath, final IndexedFiles indexedFiles) {
+      this.indexPath = indexPath;
+      this.indexedFiles = indexedFiles;
+    }
+  }
+}
@@ -33,7 +33,9 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HistoryDAO {
   public static Collection<HistoryDetail> getHistoryDetails(ResultSet rs) throws SQLException {
@@ -48,19 +50,47 @@ public class HistoryDAO {
     return list;
   }
 
-  public static void add(Connection con, String tableName, String userId, String path,
-      String componentId, String objectType) throws SQLException {
-
+  /**
+   * Opens a batch insertion of history records into the specified table. The records are sent to
+   * the database by JDBC batches of the given size.
+   * @param con the connection to use.
+   * @param tableName the name of the history table.
+   * @param batchSize the number of records in a batch.
+   * @return the batch insertion. It has to be closed to insert the last records.
+   * @throws SQLException if the insertion cannot be prepared.
+   */
+  public static BatchInsert newBatchInsert(Connection con, String tableName, int batchSize)
+      throws SQLException {
+    return new BatchInsert(
+        con.prepareStatement("insert into " + tableName + " values (?, ?, ?, ?, ?)"), batchSize);
+  }
 
-    String insertStatement = "insert into " + tableName + " values (?, ?, ?, ?, ?)";
-    Date date = new Date();
-    try (PreparedStatement prepStmt = con.prepareStatement(insertStatement)) {
-      prepStmt.setString(1, Long.toString(date.getTime()));
-      prepStmt.setString(2, userId);
-      prepStmt.setString(3, path);
-      prepStmt.setString(4, componentId);
-      prepStmt.setString(5, objectType);
-      prepStmt.executeUpdate();
+  /**
+   * Gets the number of downloads and the last download date of each user for the specified
+   * object. The records are aggregated by the database.
+   * @param con the connection to use.
+   * @param tableName the name of the history table.
+   * @param path the path of the downloaded object.
+   * @param componentId the unique identifier of the silverCrawler instance.
+   * @return for each user identifier, the number of downloads and the last download date, the
+   * most recent download first.
+   * @throws SQLException if an error occurs while querying the database.
+   */
+  public static Map<String, DownloadCount> getDownloadCountByUser(Connection con,
+      String tableName, String path, String componentId) throws SQLException {
+    String selectStatement = "select userId, count(*), max(dateDownload) from " + tableName +
+        " where path = ? and componentId = ? group by userId order by 3 desc";
+    try (PreparedStatement prepStmt = con.prepareStatement(selectStatement)) {
+      prepStmt.setString(1, path);
+      prepStmt.setString(2, componentId);
+      try (ResultSet rs = prepStmt.executeQuery()) {
+        Map<String, DownloadCount> counts = new LinkedHashMap<>();
+        while (rs.next()) {
+          counts.put(rs.getString(1), new DownloadCount(rs.getInt(2),
+              new Date(Long.parseLong(rs.getString(3).trim()))));
+        }
+        return counts;
+      }
     }
   }
 
@@ -111,4 +141,68 @@ public class HistoryDAO {
     }
   }
 
+  /**
+   * The number of downloads of an object by a user and the date of the last one.
+   */
+  public static class DownloadCount {
+    private final int count;
+    private final Date lastDownload;
+
+    DownloadCount(int count, Date lastDownload) {
+      this.count = count;
+      this.lastDownload = lastDownload;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public Date getLastDownload() {
+      return lastDownload;
+    }
+  }
+
+  /**
+   * A batch insertion of history records.
+   */
+  public static class BatchInsert implements AutoCloseable {
+    private final PreparedStatement prepStmt;
+    private final int batchSize;
+    private int pending = 0;
+
+    private BatchInsert(PreparedStatement prepStmt, int batchSize) {
+      this.prepStmt = prepStmt;
+      this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void add(long date, String userId, String path, String componentId,
+        String objectType) throws SQLException {
+      prepStmt.setString(1, Long.toString(date));
+      prepStmt.setString(2, userId);
+      prepStmt.setString(3, path);
+      prepStmt.setString(4, componentId);
+      prepStmt.setString(5, objectType);
+      prepStmt.addBatch();
+      pending++;
+      if (pending >= batchSize) {
+        flush();
+      }
+    }
+
+    public void flush() throws SQLException {
+      if (pending > 0) {
+        prepStmt.executeBatch();
+        pending = 0;
+      }
+    }
+
+    @Override
+    public void close() throws SQLException {
+      try {
+        flush();
+      } finally {
+        prepStmt.close();
+      }
+    }
+  }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.silvercrawler.statistic;
+
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writer of the download history off the request threads.
+ * <p>
+ * A download is recorded by a single background thread: the downloaded folders are walked by
+ * this thread and the records of the folder, of its sub-folders and of its files are inserted by
+ * JDBC batches. The download date is the one at which the download was recorded. When too many
+ * downloads are waiting to be written, the thread that records a new one writes it itself.
+ * </p>
+ * When the writer is shut down, the downloads waiting to be written are written before the
+ * background thread stops, and the downloads recorded afterwards are written by the thread that
+ * records them.
+ */
+@Singleton
+class HistoryWriter {
+
+  private static final int DEFAULT_BATCH_SIZE = 500;
+  private static final int DEFAULT_QUEUE_SIZE = 1000;
+  private static final long SHUTDOWN_TIMEOUT = 30;
+
+  private final String tableName;
+  private final int batchSize;
+  private final ConnectionOpener connectionOpener;
+  private final ThreadPoolExecutor executor;
+
+  HistoryWriter() {
+    this(ResourceLocator.getSettingBundle(
+        "org.silverpeas.silvercrawler.settings.silverCrawlerSettings"));
+  }
+
+  private HistoryWriter(SettingBundle settings) {
+    this(Statistic.HISTORY_TABLE_NAME,
+        settings.getInteger("history.batchSize", DEFAULT_BATCH_SIZE),
+        settings.getInteger("history.queueSize", DEFAULT_QUEUE_SIZE), DBUtil::openConnection);
+  }
+
+  HistoryWriter(String tableName, int batchSize, int queueSize,
+      ConnectionOpener connectionOpener) {
+    this.tableName = tableName;
+    this.batchSize = batchSize;
+    this.connectionOpener = connectionOpener;
+    this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, queueSize)), r -> {
+      Thread thread = new Thread(r, "silvercrawler-history-writer");
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /**
+   * Gets the writer of the download history.
+   * @return the history writer.
+   */
+  static HistoryWriter get() {
+    return ServiceProvider.getService(HistoryWriter.class);
+  }
+
+  /**
+   * Records the download of a file or of a folder. In the case of a folder, the download of all
+   * its sub-folders and files is also recorded.
+   * @param userId the unique identifier of the user that downloads the object.
+   * @param path the downloaded file or folder.
+   * @param componentId the unique identifier of the silverCrawler instance.
+   * @param objectType the type of the downloaded object.
+   */
+  void record(String userId, File path, String componentId, String objectType) {
+    final long date = System.currentTimeMillis();
+    final Runnable writing = () -> write(date, userId, path, componentId, objectType);
+    if (executor.isShutdown()) {
+      writing.run();
+    } else {
+      executor.execute(writing);
+    }
+  }
+
+  /**
+   * Shuts down the writer: the downloads waiting to be written are written before the background
+   * thread stops. The ones that aren't written within the timeout are lost.
+   */
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+        int lost = executor.shutdownNow().size();
+        SilverLogger.getLogger(this)
+            .warn("{0} downloads not recorded in the history at shutdown", lost);
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(long date, String userId, File path, String componentId,
+      String objectType) {
+    try (Connection con = connectionOpener.open();
+         HistoryDAO.BatchInsert batch = HistoryDAO.newBatchInsert(con, tableName, batchSize)) {
+      batch.add(date, userId, path.getAbsolutePath(), componentId, objectType);
+      if (Statistic.DIRECTORY.equals(objectType)) {
+        writeFileList(batch, date, path, userId, componentId);
+      }
+    } catch (SQLException e) {
+      SilverLogger.getLogger(this)
+          .error("Cannot record the download of {0} by user {1}",
+              new String[]{path.getAbsolutePath(), userId}, e);
+    }
+  }
+
+  private void writeFileList(HistoryDAO.BatchInsert batch, long date, File path, String userId,
+      String componentId) throws SQLException {
+    File[] fileList = path.listFiles();
+    if (fileList != null) {
+      for (File currentFile : fileList) {
+        if (currentFile.isDirectory()) {
+          batch.add(date, userId, currentFile.getAbsolutePath(), componentId, Statistic.DIRECTORY);
+          writeFileList(batch, date, currentFile, userId, componentId);
+        } else {
+          batch.add(date, userId, currentFile.getAbsolutePath(), componentId, Statistic.FILE);
+        }
+      }
+    }
+  }
+
+  /**
+   * Opener of the connections to the database into which the history is written.
+   */
+  @FunctionalInterface
+  interface ConnectionOpener {
+    Connection open() throws SQLException;
+  }
+}
@@ -35,11 +35,11 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Statistic {
-  private static final String HISTORY_TABLE_NAME = "SC_SilverCrawler_Statistic";
+  static final String HISTORY_TABLE_NAME = "SC_SilverCrawler_Statistic";
 
   public static final String DIRECTORY = "Directory";
   public static final String FILE = "File";
@@ -58,78 +58,52 @@ public class Statistic {
     return con;
   }
 
+  /**
+   * Records the download of a file or of a folder by a user. In the case of a folder, the
+   * download of all its sub-folders and files is also recorded. The records are written
+   * asynchronously, by batches, so that the download isn't delayed by their insertion.
+   * @param userId the unique identifier of the user.
+   * @param path the downloaded file or folder.
+   * @param componentId the unique identifier of the silverCrawler instance.
+   * @param objectType the type of the downloaded object: {@link #FILE} or {@link #DIRECTORY}.
+   */
   public static void addStat(String userId, File path, String componentId, String objectType) {
+    HistoryWriter.get().record(userId, path, componentId, objectType);
+  }
 
+  /**
+   * Gets the downloads of the specified object grouped by user, the most recent first.
+   * @param path the path of the downloaded object.
+   * @param componentId the unique identifier of the silverCrawler instance.
+   * @return for each user that has downloaded the object, the number of downloads and the date
+   * of the last one.
+   */
+  public static Collection<HistoryByUser> getHistoryByObject(String path, String componentId) {
+    Map<String, HistoryDAO.DownloadCount> counts;
     try (Connection con = getConnection()) {
-      // ajout dans les stats de l'objet
-      HistoryDAO
-          .add(con, HISTORY_TABLE_NAME, userId, path.getAbsolutePath(), componentId, objectType);
-      if (objectType.equals(DIRECTORY)) {
-        // dans le cas d'un répertoire, on le parcours pour ajouter les stats
-        // sur les sous répertoires et les fichiers
-        processFileList(con, path, userId, componentId);
-      }
+      counts = HistoryDAO.getDownloadCountByUser(con, HISTORY_TABLE_NAME, path, componentId);
     } catch (Exception e) {
       throw new SilverCrawlerRuntimeException(e);
     }
-  }
-
-  private static void processFileList(Connection con, File path, String userId, String componentId)
-      throws SQLException {
-    if (path.isDirectory()) {
-      File[] fileList = path.listFiles();
-      if (fileList != null) {
-        for (File currentFile : fileList) {
-          if (currentFile.isDirectory()) {
-            // ajout du répertoire dans les stats
-            HistoryDAO
-                .add(con, HISTORY_TABLE_NAME, userId, currentFile.getAbsolutePath(), componentId,
-                    DIRECTORY);
-            // et appel récursif de la fonction sur ce répertoire
-            processFileList(con, currentFile, userId, componentId);
-          } else {
-            // ajout du fichier dans les stats
-            HistoryDAO
-                .add(con, HISTORY_TABLE_NAME, userId, currentFile.getAbsolutePath(), componentId,
-                    FILE);
-          }
-        }
-      }
+    if (counts.isEmpty()) {
+      return new ArrayList<>();
     }
-  }
-
-  public static Collection<HistoryByUser> getHistoryByObject(String path, String componentId) {
-    Collection<HistoryDetail> list = getHistoryByAction(path, componentId);
 
     OrganizationController orga = OrganizationControllerProvider.getOrganisationController();
-    Collection<HistoryByUser> statByUser = new ArrayList<>();
-
-    for (final HistoryDetail historyObject : list) {
-      // rechercher si le user est déjà enregistré
-      Iterator<HistoryByUser> itStat = statByUser.iterator();
-      boolean trouve = false;
-      while (itStat.hasNext()) {
-        HistoryByUser historyUser = itStat.next();
-        if (historyUser.getUser().getId().equals(historyObject.getUserId())) {
-          // mettre à jour, l'enregistrement existe
-          long currentLastAccess = historyUser.getLastDownload().getTime();
-          long newDate = historyObject.getDate().getTime();
-          if (newDate > currentLastAccess) {
-            historyUser.setLastDownload(new Date(newDate));
-          }
-          historyUser.setNbDownload(historyUser.getNbDownload() + 1);
-          trouve = true;
-        }
+    Map<String, UserDetail> users = new HashMap<>(counts.size());
+    for (UserDetail user : orga.getUserDetails(counts.keySet().toArray(new String[0]))) {
+      if (user != null) {
+        users.put(user.getId(), user);
       }
-      if (!trouve) {
-        // créer l'enregistrement
-        UserDetail user = orga.getUserDetail(historyObject.getUserId());
-        HistoryByUser historyByUser = new HistoryByUser(user, historyObject.getDate(), 1);
-        statByUser.add(historyByUser);
+    }
+    Collection<HistoryByUser> statByUser = new ArrayList<>(counts.size());
+    for (Map.Entry<String, HistoryDAO.DownloadCount> count : counts.entrySet()) {
+      UserDetail user = users.get(count.getKey());
+      if (user != null) {
+        statByUser.add(new HistoryByUser(user, count.getValue().getLastDownload(),
+            count.getValue().getCount()));
       }
     }
-
-
     return statByUser;
   }
 
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.silvercrawler.util;
+
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a folder of the crawled directory as a zip archive directly into an output stream.
+ * <p>
+ * The tree is walked lazily, one entry at a time, so that no temporary archive is required: the
+ * download starts with the first file. The files whose format is already compressed are stored
+ * as is (deflate level 0). The maximum size of a download is checked against the bytes of the
+ * files as they are written into the archive: the writing is aborted as soon as it is exceeded,
+ * so no walk of the folder is required beforehand.
+ * </p>
+ */
+public class FolderZipWriter {
+
+  private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(
+      Arrays.asList("zip", "jar", "war", "ear", "gz", "tgz", "bz2", "xz", "7z", "rar", "jpg",
+          "jpeg", "png", "gif", "webp", "mp3", "ogg", "aac", "m4a", "flac", "mp4", "m4v", "avi",
+          "mov", "mkv", "webm", "wmv", "pdf", "docx", "xlsx", "pptx", "odt", "ods", "odp"));
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final long sizeMax;
+  private long size = 0;
+
+  /**
+   * Constructs a new writer.
+   * @param sizeMax the maximum size in bytes of the files to put in the archive. A negative or
+   * zero value means no limit.
+   */
+  public FolderZipWriter(final long sizeMax) {
+    this.sizeMax = sizeMax;
+  }
+
+  /**
+   * Writes the specified folder with all its content into the given output stream. The entries
+   * of the archive are relative to the parent of the folder so that the archive contains the
+   * folder itself. The output stream isn't closed.
+   * @param folder the folder to archive.
+   * @param out the output stream into which the archive is written.
+   * @return the total size in bytes of the archived files.
+   * @throws SizeLimitExceededException if the size of the files exceeds the maximum size. The
+   * archive written so far is then incomplete.
+   * @throws IOException if an error occurs while reading a file or while writing the archive.
+   */
+  public long write(final Path folder, final OutputStream out) throws IOException {
+    final Path base = folder.toAbsolutePath().normalize().getParent();
+    final ZipOutputStream zip = new ZipOutputStream(out);
+    Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+          throws IOException {
+        zip.putNextEntry(new ZipEntry(entryName(base, dir) + "/"));
+        zip.closeEntry();
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+          throws IOException {
+        if (attrs.isRegularFile()) {
+          addFile(zip, entryName(base, file), file, attrs);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+        SilverLogger.getLogger(FolderZipWriter.class)
+            .warn("Cannot add {0} to the zip archive: {1}", file, exc.getMessage());
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    zip.finish();
+    zip.flush();
+    return size;
+  }
+
+  private void addFile(final ZipOutputStream zip, final String name, final Path file,
+      final BasicFileAttributes attrs) throws IOException {
+    // a file known to exceed the maximum size isn't started
+    checkSize(size + attrs.size());
+    zip.setLevel(isCompressed(name) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+    ZipEntry entry = new ZipEntry(name);
+    entry.setTime(attrs.lastModifiedTime().toMillis());
+    zip.putNextEntry(entry);
+    try (InputStream in = Files.newInputStream(file)) {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        // the file can have grown since its attributes were read
+        size += read;
+        checkSize(size);
+        zip.write(buffer, 0, read);
+      }
+    }
+    zip.closeEntry();
+  }
+
+  private void checkSize(final long bytes) throws SizeLimitExceededException {
+    if (sizeMax > 0 && bytes > sizeMax) {
+      throw new SizeLimitExceededException(sizeMax);
+    }
+  }
+
+  private static String entryName(final Path base, final Path path) {
+    Path relative = base == null ? path.getFileName() :
+        base.relativize(path.toAbsolutePath().normalize());
+    return relative.toString().replace('\\', '/');
+  }
+
+  static boolean isCompressed(final String name) {
+    int dot = name.lastIndexOf('.');
+    return dot >= 0 &&
+        COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Thrown when the files of the folder exceed the maximum size allowed for a download.
+   */
+  public static class SizeLimitExceededException extends IOException {
+    private static final long serialVersionUID = -5381720658493612714L;
+
+    SizeLimitExceededException(final long sizeMax) {
+      super("The folder exceeds the maximum download size of " + sizeMax + " bytes");
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.silvercrawler.model;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the lookup of the indexed files of a folder through the shared reader of the index.
+ * <p>
+ * The benchmark comparing the shared and batched lookup with the opening of a reader and a
+ * lookup per entry for each listing of a folder is run only with the
+ * <code>-Dsilvercrawler.benchmark=true</code> option.
+ * </p>
+ */
+public class IndexedFilesTest {
+
+  private static final String INSTANCE_ID = "silverCrawler1";
+  private static final int FOLDERS = 50;
+  private static final int FILES_PER_FOLDER = 1000;
+
+  private Path indexPath;
+  private Directory directory;
+
+  @Before
+  public void setUp() throws IOException {
+    indexPath = Files.createTempDirectory("silvercrawler-index");
+    directory = FSDirectory.open(indexPath);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    directory.close();
+    FileUtils.deleteQuietly(indexPath.toFile());
+  }
+
+  @Test
+  public void noKeyIsIndexedAsLongAsTheIndexDoesNotExist() {
+    IndexedFiles indexedFiles = new IndexedFiles(directory);
+    assertEquals(0, indexedFiles.getIndexedKeys(Arrays.asList("a", "b")).size());
+  }
+
+  @Test
+  public void onlyTheKeysIndexedOnceAreReturned() throws IOException {
+    index("a", "b", "b");
+    IndexedFiles indexedFiles = new IndexedFiles(directory);
+    assertEquals(new HashSet<>(Arrays.asList("a")),
+        indexedFiles.getIndexedKeys(Arrays.asList("a", "b", "c")));
+  }
+
+  @Test
+  public void theSharedReaderSeesTheChangesOfTheIndex() throws IOException {
+    index("a");
+    IndexedFiles indexedFiles = new IndexedFiles(directory);
+    assertEquals(new HashSet<>(Arrays.asList("a")),
+        indexedFiles.getIndexedKeys(Arrays.asList("a", "c")));
+    index("c");
+    assertEquals(new HashSet<>(Arrays.asList("a", "c")),
+        indexedFiles.getIndexedKeys(Arrays.asList("a", "c")));
+  }
+
+  @Test
+  public void closedIndexedFilesReleaseTheIndexAndFindNoKey() throws IOException {
+    index("a");
+    IndexedFiles indexedFiles = new IndexedFiles(directory);
+    assertEquals(new HashSet<>(Arrays.asList("a")),
+        indexedFiles.getIndexedKeys(Arrays.asList("a", "c")));
+    indexedFiles.close();
+    assertEquals(0, indexedFiles.getIndexedKeys(Arrays.asList("a", "c")).size());
+    try {
+      directory.listAll();
+      fail("The directory of the index should be closed");
+    } catch (AlreadyClosedException e) {
+      // the directory is closed with the indexed files
+    }
+  }
+
+  @Test
+  public void benchmarkTheListingOfASyntheticTreeOf50kFiles() throws IOException {
+    Assume.assumeTrue(Boolean.getBoolean("silvercrawler.benchmark"));
+    List<List<String>> tree = new ArrayList<>(FOLDERS);
+    List<String> indexed = new ArrayList<>();
+    for (int folder = 0; folder < FOLDERS; folder++) {
+      List<String> keys = new ArrayList<>(FILES_PER_FOLDER);
+      for (int file = 0; file < FILES_PER_FOLDER; file++) {
+        String key = IndexedFiles.keyOf(INSTANCE_ID,
+            new File("/share/folder" + folder + "/file" + file + ".pdf"));
+        keys.add(key);
+        if (file % 2 == 0) {
+          indexed.add(key);
+        }
+      }
+      tree.add(keys);
+    }
+    index(indexed.toArray(new String[0]));
+
+    long start = System.nanoTime();
+    int perEntryCount = 0;
+    for (List<String> folder : tree) {
+      try (IndexReader reader = DirectoryReader.open(directory)) {
+        for (String key : folder) {
+          if (reader.docFreq(new Term("key", key)) == 1) {
+            perEntryCount++;
+          }
+        }
+      }
+    }
+    long perEntry = System.nanoTime() - start;
+
+    IndexedFiles indexedFiles = new IndexedFiles(directory);
+    start = System.nanoTime();
+    int batchedCount = 0;
+    for (List<String> folder : tree) {
+      batchedCount += indexedFiles.getIndexedKeys(folder).size();
+    }
+    long batched = System.nanoTime() - start;
+
+    System.out.println(String.format(
+        "Listing of %d folders of %d files: reader per listing and lookup per entry = %d ms, " +
+            "shared reader and batched lookup = %d ms", FOLDERS, FILES_PER_FOLDER,
+        perEntry / 1_000_000, batched / 1_000_000));
+    assertEquals(indexed.size(), perEntryCount);
+    assertEquals(indexed.size(), batchedCount);
+  }
+
+  private void index(String... keys) throws IOException {
+    try (IndexWriter writer = new IndexWriter(directory,
+        new IndexWriterConfig(new KeywordAnalyzer()))) {
+      for (String key : keys) {
+        Document document = new Document();
+        document.add(new StringField("key", key, Field.Store.NO));
+        writer.addDocument(document);
+      }
+      writer.commit();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.components.silvercrawler.statistic;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryWriterTest {
+
+  private static final String TABLE = "SC_SilverCrawler_Statistic";
+  private static final String INSTANCE_ID = "silverCrawler1";
+
+  private Path root;
+  private FakeDatabase database;
+
+  @Before
+  public void createFolder() throws IOException {
+    root = Files.createTempDirectory("silverCrawlerHistory");
+    Path sub = Files.createDirectories(root.resolve("folder").resolve("sub"));
+    Files.write(sub.getParent().resolve("notes.txt"), new byte[]{1});
+    Files.write(sub.resolve("photo.jpg"), new byte[]{2});
+    database = new FakeDatabase();
+  }
+
+  @After
+  public void deleteFolder() {
+    FileUtils.deleteQuietly(root.toFile());
+  }
+
+  @Test
+  public void theDownloadOfAFolderIsInsertedByBatches() {
+    HistoryWriter writer = new HistoryWriter(TABLE, 3, 10, database::open);
+    writer.record("1", root.resolve("folder").toFile(), INSTANCE_ID, Statistic.DIRECTORY);
+    writer.shutdown();
+
+    assertEquals(Arrays.asList(3, 1), database.batches);
+    assertEquals(4, database.rows.size());
+    assertEquals(2, countRowsOfType(Statistic.DIRECTORY));
+    assertEquals(2, countRowsOfType(Statistic.FILE));
+    assertEquals(1, database.closedStatements.get());
+    assertEquals(1, database.closedConnections.get());
+  }
+
+  @Test
+  public void noEmptyBatchIsSentWhenTheLastBatchIsFull() {
+    HistoryWriter writer = new HistoryWriter(TABLE, 2, 10, database::open);
+    writer.record("1", root.resolve("folder").toFile(), INSTANCE_ID, Statistic.DIRECTORY);
+    writer.shutdown();
+
+    assertEquals(Arrays.asList(2, 2), database.batches);
+    assertEquals(4, database.rows.size());
+  }
+
+  @Test
+  public void theDownloadsWaitingToBeWrittenAreWrittenAtShutdown() {
+    CountDownLatch writing = new CountDownLatch(1);
+    HistoryWriter writer = new HistoryWriter(TABLE, 10, 10, () -> {
+      awaitQuietly(writing);
+      return database.open();
+    });
+    File file = root.resolve("folder").resolve("notes.txt").toFile();
+    for (int i = 0; i < 5; i++) {
+      writer.record(String.valueOf(i), file, INSTANCE_ID, Statistic.FILE);
+    }
+    assertTrue(database.rows.isEmpty());
+
+    new Thread(() -> {
+      sleepQuietly(100);
+      writing.countDown();
+    }).start();
+    writer.shutdown();
+
+    assertEquals(5, database.rows.size());
+    assertEquals(5, database.closedConnections.get());
+  }
+
+  @Test
+  public void aDownloadRecordedAfterTheShutdownIsWrittenByTheRecordingThread() {
+    HistoryWriter writer = new HistoryWriter(TABLE, 10, 10, database::open);
+    writer.shutdown();
+
+    writer.record("1", root.resolve("folder").resolve("notes.txt").toFile(), INSTANCE_ID,
+        Statistic.FILE);
+
+    assertEquals(1, database.rows.size());
+    assertEquals(Collections.singletonList(Thread.currentThread().getName()),
+        database.writingThreads);
+  }
+
+  private long countRowsOfType(String objectType) {
+    return database.rows.stream().filter(row -> objectType.equals(row[4])).count();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleepQuietly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A database recording the rows inserted through the JDBC batches of the history writer.
+   */
+  private static class FakeDatabase {
+    private final List<String[]> rows = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> writingThreads = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger closedStatements = new AtomicInteger(0);
+    private final AtomicInteger closedConnections = new AtomicInteger(0);
+
+    Connection open() {
+      writingThreads.add(Thread.currentThread().getName());
+      return proxy(Connection.class, (proxy, method, args) -> {
+        if ("prepareStatement".equals(method.getName())) {
+          return newStatement();
+        } else if ("close".equals(method.getName())) {
+          closedConnections.incrementAndGet();
+        }
+        return defaultValue(method.getReturnType());
+      });
+    }
+
+    private PreparedStatement newStatement() {
+      final String[] row = new String[5];
+      final List<String[]> pending = new ArrayList<>();
+      return proxy(PreparedStatement.class, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "setString":
+            row[(Integer) args[0] - 1] = (String) args[1];
+            break;
+          case "addBatch":
+            pending.add(row.clone());
+            break;
+          case "executeBatch":
+            rows.addAll(pending);
+            batches.add(pending.size());
+            int[] counts = new int[pending.size()];
+            Arrays.fill(counts, 1);
+            pending.clear();
+            return counts;
+          case "close":
+            closedStatements.incrementAndGet();
+            break;
+          default:
+            break;
+        }
+        return defaultValue(method.getReturnType());
+      });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+      return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+      if (type == boolean.class) {
+        return false;
+      } else if (type == int.class) {
+        return 0;
+      } else if (type == long.class) {
+        return 0L;
+      }
+      return null;
+    }
+  }
+}
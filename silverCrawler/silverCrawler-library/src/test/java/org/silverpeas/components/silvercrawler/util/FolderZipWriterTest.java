@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2000 - 2018 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception. You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.components.silvercrawler.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FolderZipWriterTest {
+
+  private Path root;
+
+  @Before
+  public void createFolder() throws IOException {
+    root = Files.createTempDirectory("silverCrawlerZip");
+    Path folder = Files.createDirectories(root.resolve("folder").resolve("sub"));
+    Files.write(folder.getParent().resolve("notes.txt"), content("notes", 100));
+    Files.write(folder.resolve("photo.jpg"), content("photo", 50));
+  }
+
+  @After
+  public void deleteFolder() {
+    FileUtils.deleteQuietly(root.toFile());
+  }
+
+  @Test
+  public void theWholeFolderIsWrittenWithCompressedFormatsStored() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long size = new FolderZipWriter(0).write(root.resolve("folder"), out);
+    assertEquals(content("notes", 100).length + content("photo", 50).length, size);
+
+    Map<String, byte[]> entries = new HashMap<>();
+    Map<String, Long> compressedSizes = new HashMap<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = zip.read(buffer)) > 0) {
+          data.write(buffer, 0, read);
+        }
+        entries.put(entry.getName(), data.toByteArray());
+        compressedSizes.put(entry.getName(), entry.getCompressedSize());
+      }
+    }
+    assertTrue(entries.containsKey("folder/"));
+    assertTrue(entries.containsKey("folder/sub/"));
+    assertArrayEquals(content("notes", 100), entries.get("folder/notes.txt"));
+    assertArrayEquals(content("photo", 50), entries.get("folder/sub/photo.jpg"));
+    assertTrue(compressedSizes.get("folder/notes.txt") < content("notes", 100).length / 2);
+    assertTrue(compressedSizes.get("folder/sub/photo.jpg") >= content("photo", 50).length);
+  }
+
+  @Test(expected = FolderZipWriter.SizeLimitExceededException.class)
+  public void theSizeLimitIsEnforcedWhileWriting() throws IOException {
+    new FolderZipWriter(content("notes", 100).length).write(root.resolve("folder"),
+        new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void aFolderOfExactlyTheSizeLimitIsWritten() throws IOException {
+    int total = content("notes", 100).length + content("photo", 50).length;
+    assertEquals(total,
+        new FolderZipWriter(total).write(root.resolve("folder"), new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void theWritingIsAbortedAsSoonAsTheSizeLimitIsExceeded() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      new FolderZipWriter(10).write(root.resolve("folder"), out);
+      fail("The size limit should have been exceeded");
+    } catch (FolderZipWriter.SizeLimitExceededException e) {
+      // the files aren't added: only the entries of the folders can have been written
+      assertTrue(out.size() < content("photo", 50).length);
+    }
+  }
+
+  @Test
+  public void onlyAlreadyCompressedFormatsAreStored() {
+    assertTrue(FolderZipWriter.isCompressed("folder/photo.JPG"));
+    assertTrue(FolderZipWriter.isCompressed("folder/archive.zip"));
+    assertFalse(FolderZipWriter.isCompressed("folder/notes.txt"));
+    assertFalse(FolderZipWriter.isCompressed("folder/README"));
+  }
+
+  private static byte[] content(String text, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(text).append(' ');
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -49,13 +49,9 @@ import org.silverpeas.core.index.search.model.MatchingIndexEntry;
 import org.silverpeas.core.index.search.model.ParseException;
 import org.silverpeas.core.index.search.model.QueryDescription;
 import org.silverpeas.core.util.StringUtil;
-import org.silverpeas.core.util.UnitUtil;
-import org.silverpeas.core.util.ZipUtil;
 import org.silverpeas.core.util.file.FileFolderManager;
-import org.silverpeas.core.util.file.FileRepositoryManager;
 import org.silverpeas.core.util.file.FileUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
-import org.silverpeas.core.util.memory.MemoryUnit;
 import org.silverpeas.core.web.mvc.controller.AbstractComponentSessionController;
 import org.silverpeas.core.web.mvc.controller.ComponentContext;
 import org.silverpeas.core.web.mvc.controller.MainSessionController;
@@ -218,6 +214,14 @@ public class SilverCrawlerSessionController extends AbstractComponentSessionCont
     return paths;
   }
 
+  /**
+   * Prepares the download of the specified folder as a zip archive. The archive isn't built
+   * here: it is written on the fly by the file server while it is downloaded, and the file server
+   * aborts the download as soon as the maximum size of a download is exceeded. Hence its size
+   * isn't known: only the maximum size is given.
+   * @param folderName the name of a folder in the current directory.
+   * @return the information about the archive to download.
+   */
   public FolderZIPInfo zipFolder(String folderName) {
     FolderZIPInfo zipInfo = new FolderZIPInfo();
     File downloadPath = FileUtils.getFile(getFullPath(folderName));
@@ -225,41 +229,19 @@ public class SilverCrawlerSessionController extends AbstractComponentSessionCont
       FileUtil.validateFilename(downloadPath.getPath(), getRootPath());
     } catch (IOException e) {
       SilverLogger.getLogger(this).error("download path error = " + downloadPath.getPath(), e);
+      throw new SilverCrawlerRuntimeException(e);
     }
 
-    String date = createDate();
-    File zipFile = FileUtils
-        .getFile(FileRepositoryManager.getTemporaryPath(), folderName + "_" + date + ".zip");
-
-    long sizeMax = UnitUtil.convertTo(getSizeMax(), MemoryUnit.MB, MemoryUnit.B);
-    long zipSize = 0;
-    String url = "";
-
-    // rechercher si la taille du répertoire est < à la taille maxi
-    boolean sizeOk = getSize(downloadPath.getPath(), sizeMax);
+    zipInfo.setMaxiSize(getSizeMaxString());
 
-    // si la taille est inferieur à celle autorisée :
-    if (sizeOk) {
-      try {
-        zipSize = ZipUtil.compressPathToZip(downloadPath, zipFile);
-        url = FileServerUtils
-            .getSilverCrawlerUrl(zipFile.getName(), zipFile.getName(), getComponentId(),
-                downloadPath.getPath().substring(getRootPath().length()));
-      } catch (Exception e) {
-        throw new SilverCrawlerRuntimeException(e);
-      }
-    } else {
-      zipFile = FileUtils.getFile("");
-    }
+    String zipName = folderName + "_" + createDate() + ".zip";
+    String url = FileServerUtils.getSilverCrawlerUrl(zipName, zipName, getComponentId(),
+        downloadPath.getPath().substring(getRootPath().length()));
 
     // Fill in ZipFolderInfo object
-    zipInfo.setFileZip(zipFile.getName());
-    zipInfo.setSize(zipSize);
-    zipInfo.setMaxiSize(getSizeMaxString());
+    zipInfo.setFileZip(zipName);
     zipInfo.setUrl(url);
 
-
-
     return zipInfo;
   }
 
@@ -375,21 +357,6 @@ public class SilverCrawlerSessionController extends AbstractComponentSessionCont
     return currentResultSearch;
   }
 
-  private boolean getSize(String path, long sizeMaxi) {
-    long size = 0;
-    boolean ok = true;
-
-    File dir = new File(path);
-    if (dir.isDirectory()) {
-      size = FileUtils.sizeOf(dir);
-    }
-    if (size > sizeMaxi) {
-      ok = false;
-    }
-
-    return ok;
-  }
-
   private String createDate() {
     return formatter.format(new Date());
   }
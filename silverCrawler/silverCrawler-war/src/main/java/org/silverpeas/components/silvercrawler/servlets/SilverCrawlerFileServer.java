@@ -27,15 +27,17 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.silverpeas.components.silvercrawler.statistic.Statistic;
+import org.silverpeas.components.silvercrawler.util.FolderZipWriter;
 import org.silverpeas.core.admin.service.OrganizationController;
 import org.silverpeas.core.admin.service.OrganizationControllerProvider;
 import org.silverpeas.core.exception.RelativeFileAccessException;
 import org.silverpeas.core.util.LocalizationBundle;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.StringUtil;
-import org.silverpeas.core.util.file.FileRepositoryManager;
+import org.silverpeas.core.util.UnitUtil;
 import org.silverpeas.core.util.file.FileUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
+import org.silverpeas.core.util.memory.MemoryUnit;
 import org.silverpeas.core.web.mvc.controller.MainSessionController;
 import org.silverpeas.core.web.mvc.webcomponent.SilverpeasAuthenticatedHttpServlet;
 
@@ -105,30 +107,88 @@ public class SilverCrawlerFileServer extends SilverpeasAuthenticatedHttpServlet
         .getFile(organizationController.getComponentParameterValue(componentId, "directory"));
 
     // 2 cas :
-    // - téléchargement d'un zip dans répertoire temporaire
+    // - téléchargement d'un répertoire complet sous forme de zip produit à la volée
     // - téléchargement d'un fichier depuis le répertoire crawlé
-    File fileToSend;
-    String type;
-    File fileStat;
     if ("link".equals(typeUpload)) {
-      type = Statistic.FILE;
+      File fileToSend;
       if (sourceFile.startsWith(FilenameUtils.separatorsToUnix(rootPath.getPath()))) {
         //Path into index is stored absolute and with Unix separators
-        fileStat = fileToSend = FileUtils.getFile(sourceFile);
+        fileToSend = FileUtils.getFile(sourceFile);
       } else {
-        fileStat = fileToSend = FileUtils.getFile(rootPath, sourceFile);
+        fileToSend = FileUtils.getFile(rootPath, sourceFile);
       }
+      sendFile(res, fileToSend);
+
+      // ajout dans la table des téléchargements
+      Statistic.addStat(userId, fileToSend, componentId, Statistic.FILE);
     } else {
-      type = Statistic.DIRECTORY;
-      fileToSend =
-          FileUtils.getFile(FileRepositoryManager.getTemporaryPath(null, componentId), sourceFile);
-      fileStat = FileUtils.getFile(rootPath, path);
+      File folder = FileUtils.getFile(rootPath, path);
+      try {
+        FileUtil.validateFilename(folder.getPath(), rootPath.getPath());
+      } catch (IOException e) {
+        SilverLogger.getLogger(this).warn(e);
+        throwHttpForbiddenError();
+      }
+      long sizeMax = getSizeMax(componentId);
+      if (sizeMax == 0 || !folder.isDirectory()) {
+        throwHttpForbiddenError();
+      }
+      if (sendFolder(res, folder, sourceFile, sizeMax)) {
+        // ajout dans la table des téléchargements
+        Statistic.addStat(userId, folder, componentId, Statistic.DIRECTORY);
+      }
     }
+  }
+
+  private long getSizeMax(String componentId) {
+    String sizeMax = organizationController.getComponentParameterValue(componentId, "maxiSize");
+    return StringUtil.isLong(sizeMax) ?
+        UnitUtil.convertTo(Long.parseLong(sizeMax), MemoryUnit.MB, MemoryUnit.B) : 0;
+  }
 
-    sendFile(res, fileToSend);
+  /**
+   * Streams the specified folder as a zip archive. The archive is produced while it is sent so
+   * its length isn't known: no Content-Length header is set.
+   * @return true if the whole folder has been sent, false if nothing has been sent.
+   * @throws IOException if the archive cannot be completed once its sending has started.
+   */
+  private boolean sendFolder(HttpServletResponse response, File folder, String zipName,
+      long sizeMax) throws IOException {
+    final String normalizedFilename = StringUtil.normalize(zipName);
+    response.setContentType("application/zip");
+    response.setHeader("Content-Disposition", encodeAttachmentFilenameAsUtf8(normalizedFilename));
+    try {
+      new FolderZipWriter(sizeMax).write(folder.toPath(), response.getOutputStream());
+      response.getOutputStream().flush();
+      return true;
+    } catch (FolderZipWriter.SizeLimitExceededException e) {
+      // the folder is too big: the same warning as for any refused download is displayed
+      SilverLogger.getLogger(this)
+          .warn("Download of folder {0} aborted: {1}", folder.getAbsolutePath(), e.getMessage());
+      abort(response, e);
+    } catch (IOException e) {
+      SilverLogger.getLogger(this)
+          .error("Cannot send folder {0}", new String[]{folder.getAbsolutePath()}, e);
+      abort(response, e);
+    }
+    return false;
+  }
 
-    // ajout dans la table des téléchargements
-    Statistic.addStat(userId, fileStat, componentId, type);
+  /**
+   * Aborts a download. If nothing has been sent yet, a warning is displayed instead of the
+   * archive. Otherwise the error is rethrown so that the servlet container breaks the connection
+   * instead of ending the response normally: the client then detects the failure rather than
+   * getting a truncated archive.
+   * @param response the response into which the archive is sent.
+   * @param error the error that aborts the download.
+   * @throws IOException the specified error if the response is already committed.
+   */
+  private void abort(HttpServletResponse response, IOException error) throws IOException {
+    if (response.isCommitted()) {
+      throw error;
+    }
+    response.reset();
+    displayWarningHtmlCode(response);
   }
 
   private void sendFile(HttpServletResponse response, File file) throws IOException {
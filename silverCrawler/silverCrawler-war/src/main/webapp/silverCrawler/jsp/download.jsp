@@ -67,7 +67,12 @@
 			<%}
 			else
 			{%>
-				<a href="<%=zipUrl%>"><%=name%></a>&nbsp;(<%=FileRepositoryManager.formatFileSize(sizeZip)%>)
+				<a href="<%=zipUrl%>"><%=name%></a>
+				<% if (sizeZip > 0) { %>
+				&nbsp;(<%=FileRepositoryManager.formatFileSize(sizeZip)%>)
+				<% } else { %>
+				&nbsp;(<%=resource.getString("silverCrawler.sizeMaxAllowed")%> : <%=sizeMax%> Mo)
+				<% } %>
 			<%}
 		}%>
 	</td>